@@ -0,0 +1,13 @@
+package com.fixsy.ordenes.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas periodicas (avance de las ventanas del ranking de productos mas vendidos y
+ * barrido de las Idempotency-Key vencidas).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
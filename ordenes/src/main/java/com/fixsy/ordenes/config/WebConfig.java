@@ -1,5 +1,6 @@
 package com.fixsy.ordenes.config;
 
+import com.fixsy.ordenes.service.IdempotencyService;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -14,6 +15,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(FRONTEND_URL)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(IdempotencyService.REPLAYED_HEADER)
                 .allowCredentials(true);
     }
 }
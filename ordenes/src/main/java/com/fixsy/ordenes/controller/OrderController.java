@@ -1,8 +1,15 @@
 package com.fixsy.ordenes.controller;
 
+import com.fixsy.ordenes.dto.CursorPageDTO;
 import com.fixsy.ordenes.dto.OrderDTO;
 import com.fixsy.ordenes.dto.OrderRequestDTO;
+import com.fixsy.ordenes.dto.SalesRollupDTO;
+import com.fixsy.ordenes.dto.TopSellingProductDTO;
+import com.fixsy.ordenes.repository.OrderSearchFilter;
+import com.fixsy.ordenes.service.IdempotencyService;
 import com.fixsy.ordenes.service.OrderService;
+import com.fixsy.ordenes.service.SalesRollupService;
+import com.fixsy.ordenes.service.TopSellingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -12,10 +19,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -24,12 +33,37 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private TopSellingService topSellingService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     @Operation(summary = "Obtener todas las órdenes")
     public ResponseEntity<List<OrderDTO>> getAllOrders() {
         return ResponseEntity.ok(orderService.getAllOrders());
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Buscar órdenes por estado, usuario, email, región, medio de pago y rango de fechas, paginadas por cursor")
+    public ResponseEntity<CursorPageDTO<OrderDTO>> searchOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String region,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        OrderSearchFilter filter = OrderSearchFilter.of(status, userId, email, region, paymentMethod, from, to);
+        return ResponseEntity.ok(orderService.searchOrders(filter, cursor, size));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener orden por ID")
     public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
@@ -72,15 +106,31 @@ public class OrderController {
     }
 
     @PostMapping
-    @Operation(summary = "Crear nueva orden")
-    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody OrderRequestDTO orderRequest) {
-        return new ResponseEntity<>(orderService.createOrder(orderRequest), HttpStatus.CREATED);
+    @Operation(summary = "Crear nueva orden (con Idempotency-Key opcional para reintentos seguros)")
+    public ResponseEntity<OrderDTO> createOrder(
+            @Valid @RequestBody OrderRequestDTO orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return create(idempotencyKey, "POST /api/orders", orderRequest, () -> orderService.createOrder(orderRequest));
     }
 
     @PostMapping("/public")
-    @Operation(summary = "Crear orden pública sin userId (invitado)")
-    public ResponseEntity<OrderDTO> createPublicOrder(@Valid @RequestBody OrderRequestDTO orderRequest) {
-        return new ResponseEntity<>(orderService.createPublicOrder(orderRequest), HttpStatus.CREATED);
+    @Operation(summary = "Crear orden pública sin userId (invitado, con Idempotency-Key opcional)")
+    public ResponseEntity<OrderDTO> createPublicOrder(
+            @Valid @RequestBody OrderRequestDTO orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return create(idempotencyKey, "POST /api/orders/public", orderRequest, () -> orderService.createPublicOrder(orderRequest));
+    }
+
+    // Sin clave se crea directamente; con clave, un reintento recibe la misma orden que la primera vez
+    private ResponseEntity<OrderDTO> create(String idempotencyKey, String scope, OrderRequestDTO orderRequest,
+                                            Supplier<OrderDTO> action) {
+        if (idempotencyKey == null) {
+            return new ResponseEntity<>(action.get(), HttpStatus.CREATED);
+        }
+        IdempotencyService.Result result = idempotencyService.execute(idempotencyKey, scope, orderRequest, action);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
     }
 
     @PutMapping("/{id}/status")
@@ -160,4 +210,38 @@ public class OrderController {
         response.put("totalSales", orderService.getTotalSalesForPeriod(start, end));
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/stats/daily")
+    @Operation(summary = "Totales diarios por estado, región y medio de pago")
+    public ResponseEntity<List<SalesRollupDTO>> getDailySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getDaily(from, to));
+    }
+
+    @PostMapping("/stats/rollups/rebuild")
+    @Operation(summary = "Recalcular los totales diarios desde las órdenes")
+    public ResponseEntity<Map<String, Object>> rebuildSalesRollups() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("rows", salesRollupService.rebuild());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats/rollups/check")
+    @Operation(summary = "Comparar los totales diarios con un recálculo completo desde las órdenes")
+    public ResponseEntity<Map<String, Object>> checkSalesRollups() {
+        List<String> differences = salesRollupService.check();
+        Map<String, Object> response = new HashMap<>();
+        response.put("consistent", differences.isEmpty());
+        response.put("differences", differences);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats/top-products")
+    @Operation(summary = "Productos más vendidos en las últimas 24h, 7d, 30d o histórico (window=24h|7d|30d|all)")
+    public ResponseEntity<List<TopSellingProductDTO>> getTopSellingProducts(
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(topSellingService.getTopSelling(TopSellingService.Window.fromParam(window), limit));
+    }
 }
@@ -0,0 +1,26 @@
+package com.fixsy.ordenes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina de resultados con cursor opaco para continuar el listado")
+public class CursorPageDTO<T> {
+    @Schema(description = "Elementos de la pagina actual")
+    private List<T> items;
+
+    @Schema(description = "Cursor opaco para pedir la siguiente pagina (null si no hay mas)", example = "bzoyMDI1LTAxLTE1VDEwOjMwOjAwfDQy")
+    private String nextCursor;
+
+    @Schema(description = "Indica si existen mas resultados despues de esta pagina", example = "true")
+    private boolean hasMore;
+
+    @Schema(description = "Tamaño de pagina aplicado", example = "20")
+    private int size;
+}
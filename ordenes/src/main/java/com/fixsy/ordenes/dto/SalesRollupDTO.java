@@ -0,0 +1,33 @@
+package com.fixsy.ordenes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Total diario de ordenes para una combinacion de estado, region y medio de pago")
+public class SalesRollupDTO {
+    @Schema(description = "Dia de creacion de las ordenes", example = "2025-01-15")
+    private LocalDate day;
+
+    @Schema(description = "Estado de las ordenes", example = "Pagado")
+    private String status;
+
+    @Schema(description = "Region de envio (null si no se indico)", example = "Metropolitana")
+    private String region;
+
+    @Schema(description = "Medio de pago (null si no se indico)", example = "Tarjeta")
+    private String paymentMethod;
+
+    @Schema(description = "Cantidad de ordenes", example = "12")
+    private Long orderCount;
+
+    @Schema(description = "Suma de los totales de esas ordenes", example = "358800")
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,24 @@
+package com.fixsy.ordenes.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Producto dentro del ranking de mas vendidos para una ventana de tiempo")
+public class TopSellingProductDTO {
+    @Schema(description = "Posicion en el ranking (1 = mas vendido)", example = "1")
+    private int rank;
+
+    @Schema(description = "ID del producto", example = "5")
+    private Long productId;
+
+    @Schema(description = "Nombre del producto", example = "Aceite sintetico 5W-30 4L")
+    private String productName;
+
+    @Schema(description = "Unidades vendidas en la ventana (sin ordenes canceladas)", example = "42")
+    private long quantitySold;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,11 +12,23 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        indexes = {
+                // Indices para el buscador keyset: cada filtro de igualdad seguido de created_at (InnoDB agrega el id)
+                @Index(name = "idx_orders_user_created", columnList = "user_id, created_at"),
+                @Index(name = "idx_orders_status_created", columnList = "status, created_at"),
+                @Index(name = "idx_orders_email_created", columnList = "user_email, created_at"),
+                @Index(name = "idx_orders_created", columnList = "created_at"),
+                @Index(name = "idx_orders_tracking", columnList = "tracking_number")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    public static final int ITEMS_BATCH_SIZE = 100;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -83,7 +96,11 @@ public class Order {
     @Column(name = "delivered_at")
     private LocalDateTime deliveredAt;
 
+    // Al recorrer un listado, los items de hasta ITEMS_BATCH_SIZE ordenes del mismo contexto se cargan en una
+    // consulta IN: el costo no crece con cada orden y la lista de ids queda acotada
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
+    @BatchSize(size = ITEMS_BATCH_SIZE)
     private List<OrderItem> items = new ArrayList<>();
 
     @PrePersist
@@ -0,0 +1,47 @@
+package com.fixsy.ordenes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales diarios de ordenes por estado, region y medio de pago. Cada orden suma en la fila del dia en que
+ * se creo; al cambiar de estado se resta de una fila y se suma en otra. Region y medio de pago vacios se
+ * guardan como "" para que la clave unica no admita duplicados con NULL.
+ */
+@Entity
+@Table(
+        name = "order_sales_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_sales_rollups_key",
+                columnNames = {"sales_day", "status", "region", "payment_method"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate salesDay;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private String region;
+
+    @Column(name = "payment_method", nullable = false)
+    private String paymentMethod;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,40 @@
+package com.fixsy.ordenes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unidades vendidas de un producto en una hora (la de creacion de las ordenes). Es la copia persistente del
+ * ranking de mas vendidos: al arrancar se vuelve a cargar en memoria desde aqui, sin recorrer order_items.
+ */
+@Entity
+@Table(
+        name = "product_sales_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_sales_buckets_product_hour",
+                columnNames = {"product_id", "bucket_start"}),
+        indexes = @Index(name = "idx_product_sales_buckets_start", columnList = "bucket_start")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName; // Ultimo nombre visto para el producto en esa hora
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Long quantity;
+}
@@ -0,0 +1,36 @@
+package com.fixsy.ordenes.repository;
+
+import com.fixsy.ordenes.model.IdempotencyKey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Reserva la clave sin fallar si ya existe: una transaccion concurrente con la misma clave queda esperando
+    // el bloqueo de la fila hasta que la primera confirme o se deshaga
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, created_at, expires_at) " +
+            "VALUES (:key, :now, :expiresAt) " +
+            "ON DUPLICATE KEY UPDATE idempotency_key = idempotency_key",
+            nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT k FROM IdempotencyKey k WHERE k.idempotencyKey = :key")
+    Optional<IdempotencyKey> lockByKey(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
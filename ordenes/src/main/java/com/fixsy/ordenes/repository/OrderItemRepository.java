@@ -3,7 +3,6 @@ package com.fixsy.ordenes.repository;
 import com.fixsy.ordenes.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,12 +16,8 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Eliminar items de una orden
     void deleteByOrder_Id(Long orderId);
     
-    // Contar ventas de un producto
-    @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.productId = :productId")
-    Long getTotalSoldByProduct(@Param("productId") Long productId);
-    
-    // Productos más vendidos
-    @Query("SELECT oi.productId, oi.productName, SUM(oi.quantity) as totalQty " +
-           "FROM OrderItem oi GROUP BY oi.productId, oi.productName ORDER BY totalQty DESC")
-    List<Object[]> getTopSellingProducts();
+    // Items de ordenes no canceladas con la fecha de su orden: carga inicial del historial de ventas por hora
+    @Query("SELECT new com.fixsy.ordenes.repository.SoldItemRow(oi.productId, oi.productName, o.createdAt, oi.quantity) " +
+           "FROM OrderItem oi JOIN oi.order o WHERE o.status <> 'Cancelado'")
+    List<SoldItemRow> findSoldItems();
 }
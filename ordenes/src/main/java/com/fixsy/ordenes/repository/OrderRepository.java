@@ -1,7 +1,10 @@
 package com.fixsy.ordenes.repository;
 
 import com.fixsy.ordenes.model.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,7 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     
     // Buscar por usuario
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
@@ -39,11 +42,27 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT SUM(o.total) FROM Order o WHERE (o.status = 'Pagado' OR o.status = 'Enviado' OR o.status = 'Entregado') AND o.createdAt BETWEEN :start AND :end")
     java.math.BigDecimal getTotalSalesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
+    // Ventas en [start, before): completa los dias parciales en los extremos de un periodo leido desde los rollups
+    @Query("SELECT SUM(o.total) FROM Order o WHERE (o.status = 'Pagado' OR o.status = 'Enviado' OR o.status = 'Entregado') AND o.createdAt >= :start AND o.createdAt < :before")
+    java.math.BigDecimal getTotalSalesFrom(@Param("start") LocalDateTime start, @Param("before") LocalDateTime before);
+
+    // Recalculo completo de los rollups de ventas: un grupo por dia de creacion, estado, region y medio de pago
+    @Query("SELECT new com.fixsy.ordenes.repository.OrderSalesGroupRow(cast(o.createdAt as LocalDate), o.status, " +
+            "o.shippingRegion, o.paymentMethod, COUNT(o), SUM(o.total)) FROM Order o " +
+            "GROUP BY cast(o.createdAt as LocalDate), o.status, o.shippingRegion, o.paymentMethod")
+    List<OrderSalesGroupRow> groupSales();
+    
     // Órdenes pendientes de envío
     @Query("SELECT o FROM Order o WHERE o.status = 'Pagado' ORDER BY o.paidAt ASC")
     List<Order> findOrdersPendingShipment();
     
     // Buscar por tracking number
     java.util.Optional<Order> findByTrackingNumber(String trackingNumber);
+
+    // Bloquea la fila hasta el commit: los cambios de estado, pago y borrado leen el aporte previo de la orden
+    // a rollups y ranking, y dos transiciones en paralelo sobre la misma orden lo restarian dos veces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    java.util.Optional<Order> findForUpdateById(@Param("id") Long id);
 }
 
@@ -0,0 +1,17 @@
+package com.fixsy.ordenes.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Agregado de ordenes por dia de creacion, estado, region y medio de pago, calculado directamente sobre
+ * orders. Es la fuente para reconstruir y verificar los rollups de ventas.
+ */
+public record OrderSalesGroupRow(
+        LocalDate day,
+        String status,
+        String region,
+        String paymentMethod,
+        Long orderCount,
+        BigDecimal totalAmount) {
+}
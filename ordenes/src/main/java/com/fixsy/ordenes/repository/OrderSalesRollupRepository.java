@@ -0,0 +1,45 @@
+package com.fixsy.ordenes.repository;
+
+import com.fixsy.ordenes.model.OrderSalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSalesRollupRepository extends JpaRepository<OrderSalesRollup, Long> {
+
+    // Upsert atomico: dos ordenes del mismo dia y estado suman sobre la misma fila sin carrera
+    @Modifying
+    @Query(value = "INSERT INTO order_sales_rollups (sales_day, status, region, payment_method, order_count, total_amount) " +
+            "VALUES (:day, :status, :region, :paymentMethod, :orderCount, :totalAmount) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + :orderCount, total_amount = total_amount + :totalAmount",
+            nativeQuery = true)
+    int add(@Param("day") LocalDate day,
+            @Param("status") String status,
+            @Param("region") String region,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("orderCount") long orderCount,
+            @Param("totalAmount") BigDecimal totalAmount);
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM OrderSalesRollup r WHERE r.status IN :statuses")
+    BigDecimal sumTotal(@Param("statuses") Collection<String> statuses);
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM OrderSalesRollup r " +
+            "WHERE r.status IN :statuses AND r.salesDay BETWEEN :from AND :to")
+    BigDecimal sumTotalBetween(@Param("statuses") Collection<String> statuses,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0) FROM OrderSalesRollup r WHERE r.status = :status")
+    Long sumCount(@Param("status") String status);
+
+    List<OrderSalesRollup> findBySalesDayBetweenAndOrderCountGreaterThanOrderBySalesDayAscStatusAscRegionAscPaymentMethodAsc(
+            LocalDate from, LocalDate to, Long minCount);
+}
@@ -0,0 +1,62 @@
+package com.fixsy.ordenes.repository;
+
+import com.fixsy.ordenes.model.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtros combinables del buscador de ordenes. Los criterios vacios no se aplican; solo se agregan
+ * al WHERE los que vienen, asi cada combinacion puede usar el indice compuesto que le corresponde.
+ */
+public record OrderSearchFilter(String status, Long userId, String email, String region,
+                                String paymentMethod, LocalDateTime from, LocalDateTime to) {
+
+    public static OrderSearchFilter of(String status, Long userId, String email, String region,
+                                       String paymentMethod, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        return new OrderSearchFilter(blankToNull(status), userId, blankToNull(email), blankToNull(region),
+                blankToNull(paymentMethod), from, to);
+    }
+
+    /**
+     * Filtros mas la condicion keyset: ordenes estrictamente anteriores a (afterCreatedAt, afterId) en el orden
+     * created_at DESC, id DESC. Sin cursor ({@code afterId} null) se devuelve desde la orden mas reciente.
+     * <p>
+     * MySQL ordena NULL como el menor valor, asi que las ordenes sin fecha de creacion quedan al final del
+     * DESC: despues de una orden con fecha tambien siguen todas las sin fecha, y entre ellas solo cuenta el id.
+     * Se compara con IS NULL y no con COALESCE para que created_at siga pudiendo usar su indice.
+     */
+    public Specification<Order> toSpecification(LocalDateTime afterCreatedAt, Long afterId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (status != null) predicates.add(cb.equal(root.get("status"), status));
+            if (userId != null) predicates.add(cb.equal(root.get("userId"), userId));
+            if (email != null) predicates.add(cb.equal(root.get("userEmail"), email));
+            if (region != null) predicates.add(cb.equal(root.get("shippingRegion"), region));
+            if (paymentMethod != null) predicates.add(cb.equal(root.get("paymentMethod"), paymentMethod));
+
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            if (from != null) predicates.add(cb.greaterThanOrEqualTo(createdAt, from));
+            if (to != null) predicates.add(cb.lessThanOrEqualTo(createdAt, to));
+            if (afterId != null) {
+                Predicate undatedAfter = cb.and(cb.isNull(createdAt), cb.lessThan(root.get("id"), afterId));
+                predicates.add(afterCreatedAt == null ? undatedAfter : cb.or(
+                        cb.lessThan(createdAt, afterCreatedAt),
+                        cb.and(cb.equal(createdAt, afterCreatedAt), cb.lessThan(root.get("id"), afterId)),
+                        cb.isNull(createdAt)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
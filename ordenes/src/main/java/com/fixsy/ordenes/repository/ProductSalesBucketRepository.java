@@ -0,0 +1,33 @@
+package com.fixsy.ordenes.repository;
+
+import com.fixsy.ordenes.model.ProductSalesBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductSalesBucketRepository extends JpaRepository<ProductSalesBucket, Long> {
+
+    // Upsert atomico: ventas concurrentes del mismo producto en la misma hora suman sobre la misma fila
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_buckets (product_id, product_name, bucket_start, quantity) " +
+            "VALUES (:productId, :productName, :bucketStart, :quantity) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity, product_name = :productName",
+            nativeQuery = true)
+    int add(@Param("productId") Long productId,
+            @Param("productName") String productName,
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("quantity") long quantity);
+
+    List<ProductSalesBucket> findByBucketStartGreaterThanEqual(LocalDateTime since);
+
+    // Total historico anterior a la ventana mas larga: en memoria solo se guarda como un numero por producto
+    @Query("SELECT new com.fixsy.ordenes.repository.ProductSalesTotalRow(b.productId, MAX(b.productName), SUM(b.quantity)) " +
+            "FROM ProductSalesBucket b WHERE b.bucketStart < :before GROUP BY b.productId")
+    List<ProductSalesTotalRow> sumBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,7 @@
+package com.fixsy.ordenes.repository;
+
+/**
+ * Unidades vendidas de un producto sumando varias horas del historial de ventas.
+ */
+public record ProductSalesTotalRow(Long productId, String productName, Long quantity) {
+}
@@ -0,0 +1,9 @@
+package com.fixsy.ordenes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item vendido junto con la fecha de su orden, para reconstruir el historial de ventas por hora.
+ */
+public record SoldItemRow(Long productId, String productName, LocalDateTime createdAt, Integer quantity) {
+}
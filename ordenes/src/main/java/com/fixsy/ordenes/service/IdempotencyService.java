@@ -0,0 +1,221 @@
+package com.fixsy.ordenes.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixsy.ordenes.dto.OrderDTO;
+import com.fixsy.ordenes.model.IdempotencyKey;
+import com.fixsy.ordenes.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Creacion de ordenes con Idempotency-Key: un reintento del cliente con la misma clave y el mismo cuerpo recibe
+ * la orden creada la primera vez en lugar de crear otra.
+ * <p>
+ * Las claves viven en idempotency_keys con el hash de la solicitud, la respuesta y su vencimiento. Las
+ * respuestas ya confirmadas se guardan ademas en memoria (acotado, por orden de uso), asi un reintento en esta
+ * instancia no toca la base. Los duplicados concurrentes se serializan por la clave: dentro de la instancia con
+ * un candado por clave, y entre instancias con el bloqueo de la fila, que se toma antes de crear la orden y se
+ * suelta al confirmar la misma transaccion.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final Map<String, Completed> hotTier;
+
+    public record Result(OrderDTO response, boolean replayed) {
+    }
+
+    private record Completed(String requestHash, String responseBody, LocalDateTime expiresAt) {
+    }
+
+    // created = false cuando la clave ya estaba completa en la base y no se ejecuto nada
+    private record Outcome(Completed completed, boolean created) {
+    }
+
+    public IdempotencyService(IdempotencyKeyRepository keyRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${ordenes.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${ordenes.idempotency.hot-capacity:10000}") int hotCapacity) {
+        this.keyRepository = keyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.hotTier = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > hotCapacity;
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la creacion una sola vez por clave. El scope identifica el endpoint y entra en el hash junto con
+     * el cuerpo, asi la misma clave no se puede reutilizar con otra solicitud.
+     */
+    public Result execute(String key, String scope, Object request, Supplier<OrderDTO> action) {
+        String idempotencyKey = normalizeKey(key);
+        String requestHash = hash(scope, request);
+
+        Result cached = fromHotTier(idempotencyKey, requestHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        ReentrantLock lock = locks[Math.floorMod(idempotencyKey.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            // Quien esperaba el candado encuentra aqui la respuesta del que termino antes
+            cached = fromHotTier(idempotencyKey, requestHash);
+            if (cached != null) {
+                return cached;
+            }
+            Outcome outcome = transactionTemplate.execute(status -> executeLocked(idempotencyKey, requestHash, action));
+            hotTier.put(idempotencyKey, outcome.completed());
+            if (!outcome.created()) {
+                return replay(outcome.completed(), requestHash);
+            }
+            return new Result(fromJson(outcome.completed().responseBody()), false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Outcome executeLocked(String idempotencyKey, String requestHash, Supplier<OrderDTO> action) {
+        LocalDateTime now = LocalDateTime.now();
+        keyRepository.claim(idempotencyKey, now, now.plus(ttl));
+        IdempotencyKey stored = keyRepository.lockByKey(idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Idempotency-Key no reservada: " + idempotencyKey));
+
+        if (stored.getRequestHash() != null && stored.getExpiresAt().isAfter(now)) {
+            // Otra instancia (u otra vida de esta) ya la completo
+            return new Outcome(new Completed(stored.getRequestHash(), stored.getResponseBody(), stored.getExpiresAt()), false);
+        }
+
+        // Clave nueva, o vencida y todavia sin barrer: se vuelve a usar desde cero
+        OrderDTO response = action.get();
+        stored.setRequestHash(requestHash);
+        stored.setResponseStatus(HttpStatus.CREATED.value());
+        stored.setResponseBody(toJson(response));
+        stored.setOrderId(response.getId());
+        stored.setCreatedAt(now);
+        stored.setExpiresAt(now.plus(ttl));
+        keyRepository.save(stored);
+        return new Outcome(new Completed(requestHash, stored.getResponseBody(), stored.getExpiresAt()), true);
+    }
+
+    @Scheduled(fixedDelayString = "${ordenes.idempotency.sweep-interval-ms:300000}",
+            initialDelayString = "${ordenes.idempotency.sweep-initial-delay-ms:60000}")
+    public void scheduledSweep() {
+        try {
+            int deleted = sweepExpired();
+            if (deleted > 0) {
+                log.info("Idempotency-Key: {} claves vencidas eliminadas", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Fallo el barrido de Idempotency-Key vencidas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las claves vencidas de la base y de memoria. Devuelve cuantas filas se eliminaron.
+     */
+    public int sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (hotTier) {
+            hotTier.values().removeIf(completed -> !completed.expiresAt().isAfter(now));
+        }
+        Integer deleted = transactionTemplate.execute(status -> keyRepository.deleteExpired(now));
+        return deleted != null ? deleted : 0;
+    }
+
+    private Result fromHotTier(String idempotencyKey, String requestHash) {
+        Completed completed = hotTier.get(idempotencyKey);
+        if (completed == null) {
+            return null;
+        }
+        if (!completed.expiresAt().isAfter(LocalDateTime.now())) {
+            hotTier.remove(idempotencyKey);
+            return null;
+        }
+        return replay(completed, requestHash);
+    }
+
+    private Result replay(Completed completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La Idempotency-Key ya se uso con otra solicitud");
+        }
+        return new Result(fromJson(completed.responseBody()), true);
+    }
+
+    private static String normalizeKey(String key) {
+        String trimmed = key != null ? key.trim() : "";
+        if (trimmed.isEmpty() || trimmed.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key invalida: debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+        return trimmed;
+    }
+
+    private String hash(String scope, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de la solicitud", e);
+        }
+    }
+
+    private String toJson(OrderDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo guardar la respuesta de la orden", e);
+        }
+    }
+
+    // Cada reintento recibe su propia copia: la respuesta guardada no se comparte entre llamadas
+    private OrderDTO fromJson(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer la respuesta guardada de la orden", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.fixsy.ordenes.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Codifica la posicion del listado de ordenes (fecha de creacion e id de la ultima orden entregada)
+ * como un token opaco. El cliente solo debe devolver el token tal cual lo recibio. Las ordenes sin fecha de
+ * creacion se codifican con la fecha vacia.
+ */
+public final class OrderCursorCodec {
+
+    private static final String PREFIX = "o:";
+    private static final char SEPARATOR = '|';
+
+    private OrderCursorCodec() {
+    }
+
+    // createdAt null: el cursor quedo entre las ordenes sin fecha, que van al final del listado
+    public record Position(LocalDateTime createdAt, long id) {
+    }
+
+    public static String encode(LocalDateTime createdAt, long id) {
+        String date = createdAt != null ? createdAt.toString() : "";
+        byte[] raw = (PREFIX + date + SEPARATOR + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * @return la posicion codificada, o null si no hay cursor (primera pagina)
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (!raw.startsWith(PREFIX) || separator < 0) {
+                throw new IllegalArgumentException("Cursor de paginacion invalido");
+            }
+            String date = raw.substring(PREFIX.length(), separator);
+            LocalDateTime createdAt = date.isEmpty() ? null : LocalDateTime.parse(date);
+            long id = Long.parseLong(raw.substring(separator + 1));
+            if (id < 1) {
+                throw new IllegalArgumentException("Cursor de paginacion invalido");
+            }
+            return new Position(createdAt, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException y errores de Base64 son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de paginacion invalido", e);
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.fixsy.ordenes.service;
 
+import com.fixsy.ordenes.dto.CursorPageDTO;
 import com.fixsy.ordenes.dto.OrderDTO;
 import com.fixsy.ordenes.dto.OrderItemDTO;
 import com.fixsy.ordenes.dto.OrderItemRequestDTO;
 import com.fixsy.ordenes.dto.OrderRequestDTO;
 import com.fixsy.ordenes.model.Order;
 import com.fixsy.ordenes.model.OrderItem;
-import com.fixsy.ordenes.repository.OrderItemRepository;
 import com.fixsy.ordenes.repository.OrderRepository;
+import com.fixsy.ordenes.repository.OrderSearchFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,11 +23,21 @@ import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Orden del buscador: el id desempata ordenes creadas en el mismo instante. Las ordenes sin fecha quedan
+    // al final porque MySQL ordena NULL como el menor valor (OrderSearchFilter cuenta con eso)
+    private static final Sort SEARCH_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private TopSellingService topSellingService;
 
     private static final BigDecimal IVA_RATE = new BigDecimal("0.19");
 
@@ -34,42 +46,63 @@ public class OrderService {
         return createOrder(request);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAllToDTO(orderRepository.findAll());
     }
 
+    @Transactional(readOnly = true)
     public OrderDTO getOrderById(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
         return convertToDTO(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAllToDTO(orderRepository.findByUserIdOrderByCreatedAtDesc(userId));
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserEmail(String email) {
-        return orderRepository.findByUserEmailOrderByCreatedAtDesc(email).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAllToDTO(orderRepository.findByUserEmailOrderByCreatedAtDesc(email));
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByStatus(String status) {
-        return orderRepository.findByStatusOrderByCreatedAtDesc(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAllToDTO(orderRepository.findByStatusOrderByCreatedAtDesc(status));
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersPendingShipment() {
-        return orderRepository.findOrdersPendingShipment().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAllToDTO(orderRepository.findOrdersPendingShipment());
+    }
+
+    /**
+     * Busqueda filtrada y paginada por keyset sobre (created_at, id), de la mas reciente a la mas antigua.
+     * Se pide una orden extra para saber si hay mas sin ejecutar un COUNT, asi cada pagina cuesta lo mismo
+     * sin importar cuantas ordenes existan antes del cursor.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> searchOrders(OrderSearchFilter filter, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        OrderCursorCodec.Position after = OrderCursorCodec.decode(cursor);
+
+        List<Order> rows = orderRepository.findBy(
+                filter.toSpecification(after != null ? after.createdAt() : null, after != null ? after.id() : null),
+                query -> query.sortBy(SEARCH_SORT).limit(pageSize + 1).all());
+        boolean hasMore = rows.size() > pageSize;
+        List<Order> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = pageRows.get(pageRows.size() - 1);
+            nextCursor = OrderCursorCodec.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPageDTO<>(convertAllToDTO(pageRows), nextCursor, hasMore, pageSize);
     }
 
+    @Transactional(readOnly = true)
     public OrderDTO getOrderByTrackingNumber(String trackingNumber) {
         Order order = orderRepository.findByTrackingNumber(trackingNumber)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
@@ -185,15 +218,19 @@ public class OrderService {
 
         // Guardar orden - cascade persiste los items automáticamente
         Order savedOrder = orderRepository.save(order);
+        salesRollupService.recordCreated(savedOrder);
+        topSellingService.recordOrder(savedOrder, 1);
         return convertToDTO(savedOrder);
     }
 
     @Transactional
     public OrderDTO updateOrderStatus(Long id, String status) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
 
         validateStatus(status);
+        SalesRollupService.Contribution before = SalesRollupService.Contribution.of(order);
+        String previousStatus = order.getStatus();
         order.setStatus(status);
 
         LocalDateTime now = LocalDateTime.now();
@@ -212,6 +249,8 @@ public class OrderService {
         }
 
         Order updatedOrder = orderRepository.save(order);
+        salesRollupService.recordChanged(before, updatedOrder);
+        recordCancellationChange(previousStatus, updatedOrder);
         return convertToDTO(updatedOrder);
     }
 
@@ -228,14 +267,18 @@ public class OrderService {
 
     @Transactional
     public OrderDTO updatePaymentReference(Long id, String paymentReference) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
 
+        SalesRollupService.Contribution before = SalesRollupService.Contribution.of(order);
+        String previousStatus = order.getStatus();
         order.setPaymentReference(paymentReference);
         order.setStatus("Pagado");
         order.setPaidAt(LocalDateTime.now());
 
         Order updatedOrder = orderRepository.save(order);
+        salesRollupService.recordChanged(before, updatedOrder);
+        recordCancellationChange(previousStatus, updatedOrder);
         return convertToDTO(updatedOrder);
     }
 
@@ -254,13 +297,19 @@ public class OrderService {
 
     @Transactional
     public void deleteOrder(Long id) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
         orderRepository.delete(order);
+        // Mismo orden que al crear: rollups y luego ranking, para no cruzar bloqueos con otra transicion
+        salesRollupService.recordDeleted(order);
+        if (!TopSellingService.CANCELLED.equals(order.getStatus())) {
+            topSellingService.recordOrder(order, -1);
+        }
     }
 
+    // Las estadisticas de ventas y conteos por estado leen los rollups diarios, no recorren orders
     public Long countOrdersByStatus(String status) {
-        return orderRepository.countByStatus(status);
+        return salesRollupService.countByStatus(status);
     }
 
     public Long countOrdersByUser(Long userId) {
@@ -268,13 +317,30 @@ public class OrderService {
     }
 
     public BigDecimal getTotalSales() {
-        BigDecimal total = orderRepository.getTotalSales();
-        return total != null ? total : BigDecimal.ZERO;
+        return salesRollupService.totalSales();
     }
 
     public BigDecimal getTotalSalesForPeriod(LocalDateTime start, LocalDateTime end) {
-        BigDecimal total = orderRepository.getTotalSalesBetween(start, end);
-        return total != null ? total : BigDecimal.ZERO;
+        return salesRollupService.totalSalesBetween(start, end);
+    }
+
+    // Una orden cancelada deja de contar en el ranking de mas vendidos; si se reactiva vuelve a contar
+    private void recordCancellationChange(String previousStatus, Order order) {
+        boolean wasCancelled = TopSellingService.CANCELLED.equals(previousStatus);
+        boolean isCancelled = TopSellingService.CANCELLED.equals(order.getStatus());
+        if (wasCancelled != isCancelled) {
+            topSellingService.recordOrder(order, isCancelled ? -1 : 1);
+        }
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("El tamaño de pagina debe ser mayor a 0");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
     }
 
     private void validateStatus(String status) {
@@ -336,12 +402,18 @@ public class OrderService {
         dto.setShippedAt(order.getShippedAt());
         dto.setDeliveredAt(order.getDeliveredAt());
 
-        List<OrderItem> items = orderItemRepository.findByOrder_Id(order.getId());
-        dto.setItems(items.stream().map(this::convertItemToDTO).collect(Collectors.toList()));
+        dto.setItems(order.getItems().stream().map(this::convertItemToDTO).collect(Collectors.toList()));
 
         return dto;
     }
 
+    // Los items llegan por lotes de Order.ITEMS_BATCH_SIZE ordenes (@BatchSize), no una consulta por orden
+    private List<OrderDTO> convertAllToDTO(List<Order> orders) {
+        return orders.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     private OrderItemDTO convertItemToDTO(OrderItem item) {
         return new OrderItemDTO(
                 item.getId(),
@@ -0,0 +1,257 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.dto.SalesRollupDTO;
+import com.fixsy.ordenes.model.Order;
+import com.fixsy.ordenes.model.OrderSalesRollup;
+import com.fixsy.ordenes.repository.OrderRepository;
+import com.fixsy.ordenes.repository.OrderSalesGroupRow;
+import com.fixsy.ordenes.repository.OrderSalesRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rollups diarios de ventas mantenidos en la misma transaccion que cada cambio de orden, para que las
+ * estadisticas lean filas ya agregadas en vez de recorrer orders.
+ * <p>
+ * Cada orden aporta una unidad y su total a la fila (dia de creacion, estado, region, medio de pago). Crear
+ * suma, eliminar resta y cambiar de estado mueve el aporte de una fila a otra. {@link #rebuild()} recalcula
+ * todo desde orders y {@link #check()} compara ambas fuentes sin escribir.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+
+    // Estados que cuentan como venta, igual que las consultas originales sobre orders
+    public static final List<String> SALES_STATUSES = List.of("Pagado", "Enviado", "Entregado");
+
+    // Dia usado para ordenes sin fecha de creacion (anteriores a @PrePersist); ningun periodo real lo incluye
+    static final LocalDate UNDATED = LocalDate.EPOCH;
+
+    private final OrderSalesRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+
+    /**
+     * Aporte de una orden a los rollups: se toma antes de modificarla para poder restarlo despues.
+     */
+    public record Contribution(LocalDate day, String status, String region, String paymentMethod, BigDecimal total) {
+
+        // Orden de fila del rollup; recordChanged toca las dos filas siempre en este orden
+        private static final Comparator<Contribution> ROW_ORDER = Comparator.comparing(Contribution::day)
+                .thenComparing(Contribution::status)
+                .thenComparing(Contribution::region)
+                .thenComparing(Contribution::paymentMethod);
+
+        public static Contribution of(Order order) {
+            return new Contribution(dayOf(order.getCreatedAt()), order.getStatus(), normalize(order.getShippingRegion()),
+                    normalize(order.getPaymentMethod()), order.getTotal() != null ? order.getTotal() : BigDecimal.ZERO);
+        }
+
+        private boolean sameRow(Contribution other) {
+            return day.equals(other.day) && status.equals(other.status)
+                    && region.equals(other.region) && paymentMethod.equals(other.paymentMethod);
+        }
+    }
+
+    private record RowKey(LocalDate day, String status, String region, String paymentMethod) {
+    }
+
+    public SalesRollupService(OrderSalesRollupRepository rollupRepository, OrderRepository orderRepository) {
+        this.rollupRepository = rollupRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    @Transactional
+    public void recordCreated(Order order) {
+        apply(Contribution.of(order), 1);
+    }
+
+    @Transactional
+    public void recordDeleted(Order order) {
+        apply(Contribution.of(order), -1);
+    }
+
+    /**
+     * Mueve el aporte de la orden desde como estaba ({@code before}) a como quedo. Si no cambio ni la fila
+     * ni el total no escribe nada.
+     */
+    @Transactional
+    public void recordChanged(Contribution before, Order order) {
+        Contribution after = Contribution.of(order);
+        if (before.sameRow(after) && before.total().compareTo(after.total()) == 0) {
+            return;
+        }
+        // Dos transiciones opuestas (A->B y B->A) bloquearian las mismas filas en orden inverso
+        if (Contribution.ROW_ORDER.compare(before, after) <= 0) {
+            apply(before, -1);
+            apply(after, 1);
+        } else {
+            apply(after, 1);
+            apply(before, -1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal totalSales() {
+        return rollupRepository.sumTotal(SALES_STATUSES);
+    }
+
+    /**
+     * Ventas con fecha de creacion entre start y end (ambos incluidos). Los dias completos se leen de los
+     * rollups; solo las fracciones de dia en los extremos se suman sobre orders, acotadas por el indice de
+     * created_at.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal totalSalesBetween(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            return BigDecimal.ZERO;
+        }
+        LocalDate firstFullDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? start.toLocalDate()
+                : start.toLocalDate().plusDays(1);
+        // El dia de end solo queda completo si el periodo sigue despues de el, asi que nunca se toma como completo
+        LocalDate lastFullDay = end.toLocalDate().minusDays(1);
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return orZero(orderRepository.getTotalSalesBetween(start, end));
+        }
+
+        BigDecimal total = rollupRepository.sumTotalBetween(SALES_STATUSES, firstFullDay, lastFullDay);
+        if (start.isBefore(firstFullDay.atStartOfDay())) {
+            total = total.add(orZero(orderRepository.getTotalSalesFrom(start, firstFullDay.atStartOfDay())));
+        }
+        return total.add(orZero(orderRepository.getTotalSalesBetween(lastFullDay.plusDays(1).atStartOfDay(), end)));
+    }
+
+    @Transactional(readOnly = true)
+    public Long countByStatus(String status) {
+        return rollupRepository.sumCount(status);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getDaily(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        return rollupRepository
+                .findBySalesDayBetweenAndOrderCountGreaterThanOrderBySalesDayAscStatusAscRegionAscPaymentMethodAsc(from, to, 0L)
+                .stream()
+                .map(row -> new SalesRollupDTO(row.getSalesDay(), row.getStatus(), emptyToNull(row.getRegion()),
+                        emptyToNull(row.getPaymentMethod()), row.getOrderCount(), row.getTotalAmount()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reemplaza todos los rollups por el recalculo desde orders. Pensado para el primer despliegue y para
+     * reparar despues de cambios hechos fuera del servicio; las ordenes que se creen mientras corre pueden
+     * quedar fuera, asi que conviene correrlo sin trafico de escritura.
+     *
+     * @return cantidad de filas de rollup escritas
+     */
+    @Transactional
+    public int rebuild() {
+        Map<RowKey, OrderSalesRollup> expected = recompute();
+        rollupRepository.deleteAllInBatch();
+        rollupRepository.saveAll(expected.values());
+        log.info("Rollups de ventas reconstruidos: {} filas", expected.size());
+        return expected.size();
+    }
+
+    /**
+     * Compara los rollups guardados con el recalculo desde orders.
+     *
+     * @return una descripcion por cada fila distinta; vacia si ambas fuentes coinciden
+     */
+    @Transactional(readOnly = true)
+    public List<String> check() {
+        Map<RowKey, OrderSalesRollup> expected = recompute();
+        Map<RowKey, OrderSalesRollup> stored = new HashMap<>();
+        for (OrderSalesRollup row : rollupRepository.findAll()) {
+            if (row.getOrderCount() != 0 || row.getTotalAmount().signum() != 0) {
+                stored.put(new RowKey(row.getSalesDay(), row.getStatus(), row.getRegion(), row.getPaymentMethod()), row);
+            }
+        }
+
+        List<String> differences = new ArrayList<>();
+        Set<RowKey> keys = new HashSet<>(expected.keySet());
+        keys.addAll(stored.keySet());
+        for (RowKey key : keys) {
+            OrderSalesRollup want = expected.get(key);
+            OrderSalesRollup have = stored.get(key);
+            long wantCount = want != null ? want.getOrderCount() : 0;
+            long haveCount = have != null ? have.getOrderCount() : 0;
+            BigDecimal wantTotal = want != null ? want.getTotalAmount() : BigDecimal.ZERO;
+            BigDecimal haveTotal = have != null ? have.getTotalAmount() : BigDecimal.ZERO;
+            if (wantCount != haveCount || wantTotal.compareTo(haveTotal) != 0) {
+                differences.add(key + ": esperado " + wantCount + "/" + wantTotal + ", guardado " + haveCount + "/" + haveTotal);
+            }
+        }
+        differences.sort(null);
+        return differences;
+    }
+
+    // Carga inicial: si hay ordenes y aun no hay rollups (primer despliegue o ordenes de demostracion) se calculan
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0 && orderRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        BigDecimal total = sign < 0 ? contribution.total().negate() : contribution.total();
+        rollupRepository.add(contribution.day(), contribution.status(), contribution.region(),
+                contribution.paymentMethod(), sign, total);
+    }
+
+    private Map<RowKey, OrderSalesRollup> recompute() {
+        Map<RowKey, OrderSalesRollup> rows = new HashMap<>();
+        for (OrderSalesGroupRow group : orderRepository.groupSales()) {
+            // NULL y "" caen en la misma fila, igual que en el mantenimiento incremental
+            RowKey key = new RowKey(group.day() != null ? group.day() : UNDATED, group.status(),
+                    normalize(group.region()), normalize(group.paymentMethod()));
+            BigDecimal total = group.totalAmount() != null ? group.totalAmount() : BigDecimal.ZERO;
+            rows.merge(key,
+                    new OrderSalesRollup(null, key.day(), key.status(), key.region(), key.paymentMethod(),
+                            group.orderCount(), total),
+                    (a, b) -> {
+                        a.setOrderCount(a.getOrderCount() + b.getOrderCount());
+                        a.setTotalAmount(a.getTotalAmount().add(b.getTotalAmount()));
+                        return a;
+                    });
+        }
+        return rows;
+    }
+
+    private static LocalDate dayOf(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.toLocalDate() : UNDATED;
+    }
+
+    private static String normalize(String value) {
+        return Objects.requireNonNullElse(value, "");
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,405 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.dto.TopSellingProductDTO;
+import com.fixsy.ordenes.model.Order;
+import com.fixsy.ordenes.model.OrderItem;
+import com.fixsy.ordenes.model.ProductSalesBucket;
+import com.fixsy.ordenes.repository.OrderItemRepository;
+import com.fixsy.ordenes.repository.ProductSalesBucketRepository;
+import com.fixsy.ordenes.repository.ProductSalesTotalRow;
+import com.fixsy.ordenes.repository.SoldItemRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Ranking de productos mas vendidos mantenido en memoria a medida que se crean y cancelan ordenes, para no
+ * agrupar order_items completo en cada consulta.
+ * <p>
+ * Cada producto guarda sus unidades por hora de los ultimos 30 dias y un acumulado de todo lo anterior; con eso
+ * se calculan los totales de 24h, 7d, 30d e historico. El top de cada ventana se arma con un heap acotado y
+ * queda guardado hasta el siguiente cambio, asi una consulta sin ventas nuevas no recorre nada. Las mismas
+ * unidades se suman por hora en product_sales_buckets dentro de la transaccion de la orden, y de ahi se
+ * recarga el ranking al arrancar. La memoria solo se toca al confirmar la transaccion.
+ * <p>
+ * Cada instancia solo aplica en memoria sus propias ordenes; las de las otras las toma al releer
+ * product_sales_buckets, una vez por hora cuando avanzan las ventanas. Con varias instancias el ranking puede
+ * ir hasta una hora atrasado respecto de las ventas registradas en las demas.
+ */
+@Service
+@Slf4j
+public class TopSellingService {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+    public static final String CANCELLED = "Cancelado";
+
+    // Horas que se guardan una por una; lo anterior queda sumado en un solo numero por producto
+    static final long RETAINED_HOURS = 24 * 30;
+    // Hora asignada a ordenes sin fecha de creacion (anteriores a @PrePersist): solo cuentan en el historico
+    private static final LocalDateTime UNDATED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public enum Window {
+        LAST_24H("24h", 24),
+        LAST_7D("7d", 24 * 7),
+        LAST_30D("30d", 24 * 30),
+        ALL_TIME("all", 0);
+
+        private final String param;
+        private final long hours;
+
+        Window(String param, long hours) {
+            this.param = param;
+            this.hours = hours;
+        }
+
+        public static Window fromParam(String value) {
+            if (value == null || value.isBlank()) {
+                return LAST_7D;
+            }
+            for (Window window : values()) {
+                if (window.param.equalsIgnoreCase(value.trim())) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Ventana no valida: usar 24h, 7d, 30d o all");
+        }
+    }
+
+    private final ProductSalesBucketRepository bucketRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final Clock clock;
+
+    // Estado del ranking: se modifica solo con el monitor del servicio tomado
+    private final Map<Long, ProductSales> products = new HashMap<>();
+    private volatile long currentHour;
+    private volatile long version;
+    // Transacciones con ventas sin terminar y un contador que sube al abrir y al cerrar cada una: una relectura
+    // solo se aplica si no hubo ninguna en el medio
+    private int inFlight;
+    private long changes;
+    private volatile boolean reloadDue;
+    private final Map<Window, Snapshot> snapshots = new EnumMap<>(Window.class);
+
+    private record Snapshot(long version, List<TopSellingProductDTO> top) {
+    }
+
+    private record Sale(Long productId, String productName, long hour, long quantity) {
+    }
+
+    @Autowired
+    public TopSellingService(ProductSalesBucketRepository bucketRepository, OrderItemRepository orderItemRepository) {
+        this(bucketRepository, orderItemRepository, Clock.systemDefaultZone());
+    }
+
+    TopSellingService(ProductSalesBucketRepository bucketRepository, OrderItemRepository orderItemRepository, Clock clock) {
+        this.bucketRepository = bucketRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.clock = clock;
+        this.currentHour = hourNow();
+    }
+
+    /**
+     * Suma (sign = 1) o resta (sign = -1) los items de la orden en la hora en que se creo. Se llama dentro de
+     * la transaccion que crea, cancela, reactiva o elimina la orden.
+     */
+    @Transactional
+    public void recordOrder(Order order, int sign) {
+        LocalDateTime bucketStart = bucketStart(order.getCreatedAt());
+        long hour = hourOf(bucketStart);
+        // Por productId: dos ordenes con los mismos productos bloquean los buckets en el mismo orden
+        Map<Long, Sale> sales = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        for (OrderItem item : order.getItems()) {
+            long quantity = (long) item.getQuantity() * sign;
+            sales.merge(item.getProductId(), new Sale(item.getProductId(), item.getProductName(), hour, quantity),
+                    (a, b) -> new Sale(a.productId(), b.productName(), hour, a.quantity() + b.quantity()));
+        }
+        for (Sale sale : sales.values()) {
+            bucketRepository.add(sale.productId(), sale.productName(), bucketStart, sale.quantity());
+        }
+
+        List<Sale> committed = List.copyOf(sales.values());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            begin();
+            TransactionSynchronizationManager.registerSynchronization(new ApplyOnCommit(this, committed));
+        } else {
+            apply(committed);
+        }
+    }
+
+    /**
+     * Top de la ventana pedida. Sin ventas nuevas desde la ultima consulta devuelve la lista ya armada.
+     */
+    public List<TopSellingProductDTO> getTopSelling(Window window, Integer limit) {
+        int size = resolveLimit(limit);
+        if (hourNow() != currentHour) {
+            advance();
+        }
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(window);
+        }
+        if (snapshot == null || snapshot.version() != version) {
+            snapshot = buildSnapshot(window);
+        }
+        List<TopSellingProductDTO> top = snapshot.top();
+        return top.subList(0, Math.min(size, top.size()));
+    }
+
+    /**
+     * Avanza las ventanas y, si cambio la hora, vuelve a leer el ranking de product_sales_buckets. Una relectura
+     * que se cruza con una transaccion de esta instancia se reintenta en la pasada siguiente.
+     */
+    @Scheduled(fixedDelayString = "${ordenes.top-selling.advance-interval-ms:60000}")
+    public void refresh() {
+        advance();
+        if (reloadDue) {
+            reload();
+        }
+    }
+
+    /**
+     * Mueve las ventanas a la hora actual: descuenta de 24h, 7d y 30d las horas que ya quedaron fuera.
+     */
+    public synchronized void advance() {
+        long now = hourNow();
+        if (now == currentHour) {
+            return;
+        }
+        currentHour = now;
+        for (ProductSales sales : products.values()) {
+            sales.roll(now);
+        }
+        version++;
+        reloadDue = true;
+    }
+
+    /**
+     * Reemplaza el ranking en memoria por lo que hay en product_sales_buckets, que incluye las ventas de otras
+     * instancias. La lectura va sin el monitor; devuelve false (y no cambia nada) si mientras tanto se abrio o
+     * cerro una transaccion de esta instancia, porque su venta podria quedar contada dos veces o ninguna.
+     */
+    public boolean reload() {
+        long changesBefore;
+        synchronized (this) {
+            if (inFlight > 0) {
+                return false;
+            }
+            changesBefore = changes;
+        }
+        long hour = hourNow();
+        Map<Long, ProductSales> loaded = read(hour);
+        synchronized (this) {
+            if (inFlight > 0 || changes != changesBefore) {
+                return false;
+            }
+            replace(loaded, hour);
+            reloadDue = false;
+            return true;
+        }
+    }
+
+    /**
+     * Carga el ranking desde product_sales_buckets. La primera vez que corre sobre una base sin historial lo
+     * arma desde order_items (ordenes no canceladas).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void load() {
+        if (bucketRepository.count() == 0) {
+            backfill();
+        }
+        long hour = hourNow();
+        replace(read(hour), hour);
+        log.info("Ranking de mas vendidos cargado: {} productos", products.size());
+    }
+
+    private Map<Long, ProductSales> read(long hour) {
+        Map<Long, ProductSales> loaded = new HashMap<>();
+        LocalDateTime horizon = startOf(hour - RETAINED_HOURS + 1);
+        for (ProductSalesTotalRow row : bucketRepository.sumBefore(horizon)) {
+            ProductSales sales = sales(loaded, row.productId(), row.productName());
+            sales.beforeRetained += row.quantity();
+        }
+        for (ProductSalesBucket bucket : bucketRepository.findByBucketStartGreaterThanEqual(horizon)) {
+            ProductSales sales = sales(loaded, bucket.getProductId(), bucket.getProductName());
+            sales.hours.merge(hourOf(bucket.getBucketStart()), bucket.getQuantity(), Long::sum);
+        }
+        for (ProductSales sales : loaded.values()) {
+            sales.recompute(hour);
+        }
+        return loaded;
+    }
+
+    private synchronized void replace(Map<Long, ProductSales> loaded, long hour) {
+        products.clear();
+        products.putAll(loaded);
+        currentHour = hour;
+        version++;
+    }
+
+    private void backfill() {
+        Map<String, ProductSalesBucket> buckets = new HashMap<>();
+        for (SoldItemRow row : orderItemRepository.findSoldItems()) {
+            LocalDateTime start = bucketStart(row.createdAt());
+            ProductSalesBucket bucket = buckets.computeIfAbsent(row.productId() + "@" + start,
+                    key -> new ProductSalesBucket(null, row.productId(), row.productName(), start, 0L));
+            bucket.setQuantity(bucket.getQuantity() + row.quantity());
+        }
+        bucketRepository.saveAll(buckets.values());
+        log.info("Historial de ventas por hora armado desde order_items: {} filas", buckets.size());
+    }
+
+    private synchronized void begin() {
+        inFlight++;
+        changes++;
+    }
+
+    private synchronized void complete(List<Sale> sales, boolean committed) {
+        if (committed) {
+            apply(sales);
+        }
+        inFlight--;
+        changes++;
+    }
+
+    private synchronized void apply(List<Sale> sales) {
+        for (Sale sale : sales) {
+            ProductSales product = sales(products, sale.productId(), sale.productName());
+            if (sale.hour() <= currentHour - RETAINED_HOURS) {
+                product.beforeRetained += sale.quantity();
+            } else {
+                product.hours.merge(sale.hour(), sale.quantity(), (a, b) -> a + b == 0 ? null : a + b);
+            }
+            product.recompute(currentHour);
+        }
+        version++;
+    }
+
+    private synchronized Snapshot buildSnapshot(Window window) {
+        // Heap minimo acotado: solo se conservan los MAX_LIMIT mejores, sin ordenar todos los productos
+        Comparator<ProductSales> ranking = Comparator
+                .comparingLong((ProductSales sales) -> sales.total(window))
+                .thenComparing(sales -> sales.productId, Comparator.reverseOrder());
+        PriorityQueue<ProductSales> heap = new PriorityQueue<>(MAX_LIMIT + 1, ranking);
+        for (ProductSales sales : products.values()) {
+            if (sales.total(window) <= 0) {
+                continue;
+            }
+            heap.offer(sales);
+            if (heap.size() > MAX_LIMIT) {
+                heap.poll();
+            }
+        }
+        List<ProductSales> best = new ArrayList<>(heap);
+        best.sort(ranking.reversed());
+
+        List<TopSellingProductDTO> top = new ArrayList<>(best.size());
+        for (ProductSales sales : best) {
+            top.add(new TopSellingProductDTO(top.size() + 1, sales.productId, sales.productName, sales.total(window)));
+        }
+        Snapshot snapshot = new Snapshot(version, List.copyOf(top));
+        synchronized (snapshots) {
+            snapshots.put(window, snapshot);
+        }
+        return snapshot;
+    }
+
+    private static ProductSales sales(Map<Long, ProductSales> into, Long productId, String productName) {
+        ProductSales sales = into.computeIfAbsent(productId, ProductSales::new);
+        if (productName != null) {
+            sales.productName = productName;
+        }
+        return sales;
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("El limite debe ser mayor a 0");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private long hourNow() {
+        return hourOf(LocalDateTime.now(clock));
+    }
+
+    private static LocalDateTime bucketStart(LocalDateTime createdAt) {
+        return startOf(hourOf(createdAt != null ? createdAt : UNDATED));
+    }
+
+    private static long hourOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static LocalDateTime startOf(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private static final class ProductSales {
+        private final Long productId;
+        private String productName;
+        private long beforeRetained;
+        private final TreeMap<Long, Long> hours = new TreeMap<>();
+        private final long[] totals = new long[Window.values().length];
+
+        private ProductSales(Long productId) {
+            this.productId = productId;
+        }
+
+        long total(Window window) {
+            return totals[window.ordinal()];
+        }
+
+        void roll(long currentHour) {
+            Map<Long, Long> expired = hours.headMap(currentHour - RETAINED_HOURS, true);
+            for (long quantity : expired.values()) {
+                beforeRetained += quantity;
+            }
+            expired.clear();
+            recompute(currentHour);
+        }
+
+        void recompute(long currentHour) {
+            Arrays.fill(totals, 0);
+            long retained = 0;
+            for (Map.Entry<Long, Long> entry : hours.entrySet()) {
+                retained += entry.getValue();
+                for (Window window : Window.values()) {
+                    if (window.hours > 0 && entry.getKey() > currentHour - window.hours) {
+                        totals[window.ordinal()] += entry.getValue();
+                    }
+                }
+            }
+            totals[Window.ALL_TIME.ordinal()] = beforeRetained + retained;
+        }
+    }
+
+    private record ApplyOnCommit(TopSellingService service, List<Sale> sales) implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            service.complete(sales, status == STATUS_COMMITTED);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.fixsy.ordenes;
+
+import com.fixsy.ordenes.dto.OrderItemRequestDTO;
+import com.fixsy.ordenes.dto.OrderRequestDTO;
+import com.fixsy.ordenes.model.Order;
+import com.fixsy.ordenes.model.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pedidos de prueba: {@code request(...)} arma el cuerpo que recibe OrderService y {@code order(...)} la
+ * entidad ya creada, ambos del cliente 1 salvo que la prueba indique otro.
+ */
+public final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    public static OrderItemRequestDTO item(Long productId, int quantity) {
+        return item(productId, quantity, "1000");
+    }
+
+    public static OrderItemRequestDTO item(Long productId, int quantity, String precio) {
+        return new OrderItemRequestDTO(productId, "Producto " + productId, "SKU-" + productId, quantity,
+                new BigDecimal(precio), null, null);
+    }
+
+    public static RequestBuilder request(OrderItemRequestDTO... items) {
+        return new RequestBuilder(List.of(items));
+    }
+
+    // Entidad guardada directo con el repositorio, sin pasar por OrderService
+    public static OrderBuilder order(String status, OrderItemRequestDTO... items) {
+        return new OrderBuilder(status, List.of(items));
+    }
+
+    public static final class RequestBuilder {
+        private final OrderRequestDTO request = new OrderRequestDTO();
+
+        private RequestBuilder(List<OrderItemRequestDTO> items) {
+            request.setUserId(1L);
+            request.setUserEmail("cliente@fixsy.cl");
+            request.setUserName("Cliente");
+            request.setShippingAddress("Calle 1");
+            request.setShippingRegion("Metropolitana");
+            request.setItems(items);
+        }
+
+        public RequestBuilder user(Long userId, String email, String name) {
+            request.setUserId(userId);
+            request.setUserEmail(email);
+            request.setUserName(name);
+            return this;
+        }
+
+        public RequestBuilder shippingAddress(String shippingAddress) {
+            request.setShippingAddress(shippingAddress);
+            return this;
+        }
+
+        public RequestBuilder shippingRegion(String shippingRegion) {
+            request.setShippingRegion(shippingRegion);
+            return this;
+        }
+
+        public RequestBuilder paymentMethod(String paymentMethod) {
+            request.setPaymentMethod(paymentMethod);
+            return this;
+        }
+
+        public OrderRequestDTO build() {
+            return request;
+        }
+    }
+
+    public static final class OrderBuilder {
+        private final Order order = new Order();
+
+        private OrderBuilder(String status, List<OrderItemRequestDTO> items) {
+            order.setUserId(1L);
+            order.setUserEmail("cliente@fixsy.cl");
+            order.setUserName("Cliente");
+            order.setStatus(status);
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (OrderItemRequestDTO request : items) {
+                OrderItem item = new OrderItem();
+                item.setProductId(request.getProductId());
+                item.setProductName(request.getProductName());
+                item.setProductSku(request.getProductSku());
+                item.setQuantity(request.getQuantity());
+                item.setUnitPrice(request.getPrecio());
+                item.setSubtotal(request.getPrecio().multiply(BigDecimal.valueOf(request.getQuantity())));
+                order.addItem(item);
+                subtotal = subtotal.add(item.getSubtotal());
+            }
+            order.setSubtotal(subtotal);
+            order.setTotal(subtotal);
+        }
+
+        public OrderBuilder user(Long userId, String email, String name) {
+            order.setUserId(userId);
+            order.setUserEmail(email);
+            order.setUserName(name);
+            return this;
+        }
+
+        public OrderBuilder shippingRegion(String shippingRegion) {
+            order.setShippingRegion(shippingRegion);
+            return this;
+        }
+
+        public OrderBuilder paymentMethod(String paymentMethod) {
+            order.setPaymentMethod(paymentMethod);
+            return this;
+        }
+
+        // Total con envio e impuestos; por defecto igual al subtotal de los items
+        public OrderBuilder total(String total) {
+            order.setTotal(new BigDecimal(total));
+            return this;
+        }
+
+        public OrderBuilder paidAt(LocalDateTime paidAt) {
+            order.setPaidAt(paidAt);
+            return this;
+        }
+
+        public OrderBuilder trackingNumber(String trackingNumber) {
+            order.setTrackingNumber(trackingNumber);
+            return this;
+        }
+
+        public Order build() {
+            return order;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.fixsy.ordenes.controller;
 
+import com.fixsy.ordenes.dto.CursorPageDTO;
 import com.fixsy.ordenes.dto.OrderDTO;
 import com.fixsy.ordenes.dto.OrderItemDTO;
 import com.fixsy.ordenes.dto.OrderItemRequestDTO;
 import com.fixsy.ordenes.dto.OrderRequestDTO;
+import com.fixsy.ordenes.repository.OrderSearchFilter;
+import com.fixsy.ordenes.service.IdempotencyService;
 import com.fixsy.ordenes.service.OrderService;
+import com.fixsy.ordenes.service.SalesRollupService;
+import com.fixsy.ordenes.service.TopSellingService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,14 +20,20 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +48,15 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    @MockBean
+    private TopSellingService topSellingService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -104,4 +124,59 @@ class OrderControllerTest {
         mockMvc.perform(get("/api/orders/99"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void searchOrders_shouldBindFiltersAndReturnCursorPage() throws Exception {
+        OrderDTO dto = new OrderDTO();
+        dto.setId(3L);
+        OrderSearchFilter filter = new OrderSearchFilter("Pagado", 1L, null, "Metropolitana", null,
+                LocalDateTime.of(2025, 1, 1, 0, 0), null);
+        given(orderService.searchOrders(eq(filter), eq("abc"), eq(10)))
+                .willReturn(new CursorPageDTO<>(List.of(dto), "def", true, 10));
+
+        mockMvc.perform(get("/api/orders/search")
+                        .param("status", "Pagado")
+                        .param("userId", "1")
+                        .param("region", "Metropolitana")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("cursor", "abc")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(3)))
+                .andExpect(jsonPath("$.nextCursor", is("def")))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+    }
+
+    @Test
+    void searchOrders_shouldReturn400WhenRangeIsInverted() throws Exception {
+        mockMvc.perform(get("/api/orders/search")
+                        .param("from", "2025-02-01T00:00:00")
+                        .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createPublicOrder_withIdempotencyKey_shouldReturnStoredResponse() throws Exception {
+        OrderDTO dto = new OrderDTO();
+        dto.setId(7L);
+        dto.setStatus("Pendiente");
+        given(idempotencyService.execute(eq("reintento-1"), eq("POST /api/orders/public"), any(), any()))
+                .willReturn(new IdempotencyService.Result(dto, true));
+
+        OrderRequestDTO request = new OrderRequestDTO();
+        request.setUserEmail("invitado@example.com");
+        request.setUserName("Invitado");
+        request.setShippingAddress("Calle 1");
+        request.setShippingRegion("Metropolitana");
+        request.setItems(Collections.singletonList(new OrderItemRequestDTO(1L, "Prod", "SKU", 1, new BigDecimal("12000"), new BigDecimal("10000"), new BigDecimal("10000"))));
+
+        mockMvc.perform(post("/api/orders/public")
+                        .header("Idempotency-Key", "reintento-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotency-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(7)));
+        verify(orderService, never()).createPublicOrder(any());
+    }
 }
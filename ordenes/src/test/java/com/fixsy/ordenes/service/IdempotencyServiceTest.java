@@ -0,0 +1,177 @@
+package com.fixsy.ordenes.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixsy.ordenes.H2JpaTest;
+import com.fixsy.ordenes.dto.OrderRequestDTO;
+import com.fixsy.ordenes.repository.IdempotencyKeyRepository;
+import com.fixsy.ordenes.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.fixsy.ordenes.OrderFixtures.item;
+import static com.fixsy.ordenes.OrderFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+@H2JpaTest
+@Import({OrderService.class, SalesRollupService.class, TopSellingService.class, IdempotencyService.class,
+        JacksonAutoConfiguration.class})
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "POST /api/orders";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAll();
+        keyRepository.deleteAll();
+    }
+
+    @Test
+    void retry_shouldReturnStoredResponseWithoutCreatingAgain() {
+        OrderRequestDTO request = request(item(1L, 2)).build();
+        IdempotencyService.Result first = execute(idempotencyService, "clave-1", request);
+        assertFalse(first.replayed());
+
+        // El estado cambia despues: el reintento recibe la respuesta original, no la orden recalculada
+        orderService.updateOrderStatus(first.response().getId(), "Pagado");
+
+        SqlStatementCounter counter = new SqlStatementCounter(entityManagerFactory);
+        IdempotencyService.Result[] retry = new IdempotencyService.Result[1];
+        assertEquals(0, counter.count(() ->
+                retry[0] = execute(idempotencyService, "clave-1", request(item(1L, 2)).build())));
+        assertTrue(retry[0].replayed());
+        assertEquals(first.response(), retry[0].response());
+        assertEquals("Pendiente", retry[0].response().getStatus());
+
+        // Otra instancia sin nada en memoria la encuentra en la base
+        IdempotencyService restarted = newInstance(24);
+        IdempotencyService.Result fromDatabase = execute(restarted, "clave-1", request(item(1L, 2)).build());
+        assertTrue(fromDatabase.replayed());
+        assertEquals(first.response(), fromDatabase.response());
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(first.response().getId(), keyRepository.findById("clave-1").orElseThrow().getOrderId());
+    }
+
+    @Test
+    void sameKeyWithOtherRequest_shouldBeRejected() {
+        execute(idempotencyService, "clave-2", request(item(1L, 1)).build());
+
+        assertUnprocessable(() -> execute(idempotencyService, "clave-2", request(item(1L, 3)).build()));
+        OrderRequestDTO publicRequest = request(item(1L, 1)).build();
+        assertUnprocessable(() -> idempotencyService.execute("clave-2", "POST /api/orders/public", publicRequest,
+                () -> orderService.createPublicOrder(publicRequest)));
+        assertUnprocessable(() -> execute(newInstance(24), "clave-2", request(item(1L, 3)).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> execute(idempotencyService, "  ", request(item(1L, 1)).build()));
+
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    void failedCreation_shouldLeaveKeyFreeForRetry() {
+        OrderRequestDTO empty = request(item(1L, 1)).build();
+        empty.setItems(List.of());
+        assertThrows(IllegalArgumentException.class, () -> execute(idempotencyService, "clave-3", empty));
+        assertEquals(0, keyRepository.count());
+
+        assertFalse(execute(idempotencyService, "clave-3", request(item(1L, 1)).build()).replayed());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    void concurrentDuplicates_shouldCreateOneOrder() throws Exception {
+        // Dos instancias: entre ellas no hay candado compartido y solo las ordena el bloqueo de la fila
+        IdempotencyService otherInstance = newInstance(24);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.Result>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                IdempotencyService service = i % 2 == 0 ? idempotencyService : otherInstance;
+                Callable<IdempotencyService.Result> call = () -> {
+                    start.await();
+                    return execute(service, "clave-4", request(item(1L, 2)).build());
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+
+            List<IdempotencyService.Result> results = new ArrayList<>();
+            for (Future<IdempotencyService.Result> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(1, orderRepository.count());
+            assertEquals(1, results.stream().filter(result -> !result.replayed()).count());
+            Long orderId = results.get(0).response().getId();
+            assertTrue(results.stream().allMatch(result -> orderId.equals(result.response().getId())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredKeys_shouldBeSweptAndReusable() {
+        IdempotencyService shortLived = newInstance(0);
+        execute(shortLived, "clave-5", request(item(1L, 1)).build());
+        // Vencida: el reintento ya no se reconoce y crea otra orden
+        assertFalse(execute(shortLived, "clave-5", request(item(1L, 1)).build()).replayed());
+        execute(idempotencyService, "clave-6", request(item(1L, 1)).build());
+        assertEquals(3, orderRepository.count());
+
+        assertEquals(1, shortLived.sweepExpired());
+        assertFalse(keyRepository.existsById("clave-5"));
+        assertTrue(keyRepository.existsById("clave-6"));
+        assertTrue(execute(idempotencyService, "clave-6", request(item(1L, 1)).build()).replayed());
+    }
+
+    private IdempotencyService.Result execute(IdempotencyService service, String key, OrderRequestDTO request) {
+        return service.execute(key, SCOPE, request, () -> orderService.createOrder(request));
+    }
+
+    private IdempotencyService newInstance(long ttlHours) {
+        return new IdempotencyService(keyRepository, transactionTemplate, objectMapper, ttlHours, 100);
+    }
+
+    private static void assertUnprocessable(Runnable call) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+}
@@ -0,0 +1,131 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.H2JpaTest;
+import com.fixsy.ordenes.dto.OrderDTO;
+import com.fixsy.ordenes.dto.OrderItemRequestDTO;
+import com.fixsy.ordenes.model.Order;
+import com.fixsy.ordenes.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.fixsy.ordenes.OrderFixtures.item;
+import static com.fixsy.ordenes.OrderFixtures.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cada listado de OrderService debe costar las mismas consultas con una orden que con muchas: si alguno
+ * vuelve a cargar los items orden por orden (N+1), el conteo crece con el numero de ordenes y la prueba falla.
+ */
+@H2JpaTest
+@Import({OrderService.class, SalesRollupService.class, TopSellingService.class})
+class OrderServiceQueryCountTest {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    // Ordenes + items de hasta Order.ITEMS_BATCH_SIZE de ellas en un solo IN
+    private static final int LIST_QUERIES = 2;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+
+    @BeforeEach
+    void setup() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+    }
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void listMethods_shouldNotGrowWithNumberOfOrders() {
+        seed(1);
+        Map<String, Long> single = countListMethods(1);
+
+        seed(39);
+        Map<String, Long> many = countListMethods(40);
+
+        assertEquals(single, many);
+        many.forEach((method, statements) ->
+                assertTrue(statements <= LIST_QUERIES, method + " ejecuto " + statements + " consultas"));
+    }
+
+    @Test
+    void singleOrderReads_shouldLoadItemsWithOneExtraQuery() {
+        seed(1);
+        Order order = orderRepository.findAll().get(0);
+
+        assertEquals(2, counter.count(() ->
+                assertEquals(ITEMS_PER_ORDER, orderService.getOrderById(order.getId()).getItems().size())));
+        assertEquals(2, counter.count(() ->
+                assertEquals(ITEMS_PER_ORDER, orderService.getOrderByTrackingNumber("TRK-0").getItems().size())));
+    }
+
+    @Test
+    void largeLists_shouldLoadItemsInBoundedBatches() {
+        seed(Order.ITEMS_BATCH_SIZE + 1);
+
+        // Una consulta por lote de ordenes: el IN nunca pasa de ITEMS_BATCH_SIZE ids
+        assertEquals(3, counter.count(() -> {
+            List<OrderDTO> orders = orderService.getAllOrders();
+            assertEquals(Order.ITEMS_BATCH_SIZE + 1, orders.size());
+            orders.forEach(order -> assertEquals(ITEMS_PER_ORDER, order.getItems().size()));
+        }));
+    }
+
+    @Test
+    void emptyLists_shouldSkipItemQuery() {
+        assertEquals(1, counter.count(() -> assertTrue(orderService.getAllOrders().isEmpty())));
+    }
+
+    private Map<String, Long> countListMethods(int expectedOrders) {
+        Map<String, Supplier<List<OrderDTO>>> methods = new LinkedHashMap<>();
+        methods.put("getAllOrders", orderService::getAllOrders);
+        methods.put("getOrdersByUserId", () -> orderService.getOrdersByUserId(7L));
+        methods.put("getOrdersByUserEmail", () -> orderService.getOrdersByUserEmail("cliente@fixsy.cl"));
+        methods.put("getOrdersByStatus", () -> orderService.getOrdersByStatus("Pagado"));
+        methods.put("getOrdersPendingShipment", orderService::getOrdersPendingShipment);
+
+        Map<String, Long> statements = new LinkedHashMap<>();
+        methods.forEach((name, method) -> statements.put(name, counter.count(() -> {
+            List<OrderDTO> orders = method.get();
+            assertEquals(expectedOrders, orders.size(), name);
+            orders.forEach(order -> assertEquals(ITEMS_PER_ORDER, order.getItems().size(), name));
+        })));
+        return statements;
+    }
+
+    private void seed(int orders) {
+        int offset = (int) orderRepository.count();
+        for (int i = offset; i < offset + orders; i++) {
+            OrderItemRequestDTO[] items = new OrderItemRequestDTO[ITEMS_PER_ORDER];
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items[j] = item((long) j + 1, 1);
+            }
+            orderRepository.save(order("Pagado", items)
+                    .user(7L, "cliente@fixsy.cl", "Cliente")
+                    .paidAt(LocalDateTime.now().minusMinutes(i))
+                    .total("3570")
+                    .trackingNumber("TRK-" + i)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.H2JpaTest;
+import com.fixsy.ordenes.dto.CursorPageDTO;
+import com.fixsy.ordenes.dto.OrderDTO;
+import com.fixsy.ordenes.model.Order;
+import com.fixsy.ordenes.repository.OrderRepository;
+import com.fixsy.ordenes.repository.OrderSearchFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static com.fixsy.ordenes.OrderFixtures.item;
+import static com.fixsy.ordenes.OrderFixtures.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+@H2JpaTest
+@Import({OrderService.class, SalesRollupService.class, TopSellingService.class})
+class OrderServiceSearchTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 12, 0);
+    private static final String[] STATUSES = {"Pendiente", "Pagado", "Enviado"};
+    private static final String[] REGIONS = {"Metropolitana", "Valparaiso"};
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Order> seeded;
+
+    @BeforeEach
+    void setup() {
+        seeded = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Order order = orderRepository.save(sample(i));
+            // Grupos de tres ordenes con la misma fecha: el id tiene que desempatar sin saltar ni repetir
+            LocalDateTime createdAt = BASE.plusHours(i / 3);
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", createdAt, order.getId());
+            order.setCreatedAt(createdAt);
+            seeded.add(order);
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void search_shouldWalkAllPagesWithoutGapsOrDuplicates() {
+        List<Long> walked = walk(OrderSearchFilter.of(null, null, null, null, null, null, null), 7);
+
+        assertEquals(expected(order -> true), walked);
+    }
+
+    @Test
+    void search_shouldCombineFilters() {
+        assertEquals(expected(order -> order.getStatus().equals("Pagado")),
+                walk(OrderSearchFilter.of("Pagado", null, null, null, null, null, null), 4));
+        assertEquals(expected(order -> order.getUserId() == 2L && order.getShippingRegion().equals("Valparaiso")),
+                walk(OrderSearchFilter.of(null, 2L, null, "Valparaiso", null, null, null), 2));
+        assertEquals(expected(order -> order.getUserEmail().equals("user1@fixsy.cl") && order.getPaymentMethod().equals("Tarjeta")),
+                walk(OrderSearchFilter.of(" ", null, "user1@fixsy.cl", null, "Tarjeta", null, null), 3));
+
+        LocalDateTime from = BASE.plusHours(2);
+        LocalDateTime to = BASE.plusHours(5);
+        assertEquals(expected(order -> !order.getCreatedAt().isBefore(from) && !order.getCreatedAt().isAfter(to)),
+                walk(OrderSearchFilter.of(null, null, null, null, null, from, to), 5));
+    }
+
+    @Test
+    void search_shouldPagePastOrdersWithoutCreationDate() {
+        // Ordenes anteriores a @PrePersist: van al final, por id descendente
+        List<Long> undated = seeded.subList(0, 4).stream().map(Order::getId).toList();
+        jdbcTemplate.update("UPDATE orders SET created_at = NULL WHERE id IN (?, ?, ?, ?)", undated.toArray());
+        List<Long> expected = new ArrayList<>(expected(order -> !undated.contains(order.getId())));
+        expected.addAll(undated.reversed());
+
+        // Con 3 por pagina un cursor cae en la ultima orden con fecha y otro dentro de las sin fecha
+        assertEquals(expected, walk(OrderSearchFilter.of(null, null, null, null, null, null, null), 3));
+        assertEquals(expected, walk(OrderSearchFilter.of(null, null, null, null, null, null, null), 5));
+    }
+
+    @Test
+    void search_shouldCostSameStatementsOnEveryPage() {
+        SqlStatementCounter counter = new SqlStatementCounter(entityManagerFactory);
+        OrderSearchFilter filter = OrderSearchFilter.of(null, null, null, null, null, null, null);
+
+        String cursor = null;
+        do {
+            String current = cursor;
+            AtomicReference<CursorPageDTO<OrderDTO>> page = new AtomicReference<>();
+            // Pagina de ordenes + items de esas ordenes
+            assertEquals(2, counter.count(() -> page.set(orderService.searchOrders(filter, current, 8))));
+            page.get().getItems().forEach(order -> assertEquals(1, order.getItems().size()));
+            cursor = page.get().getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Test
+    void search_shouldValidatePageSizeCursorAndRange() {
+        OrderSearchFilter filter = OrderSearchFilter.of(null, null, null, null, null, null, null);
+
+        assertEquals(OrderService.MAX_PAGE_SIZE, orderService.searchOrders(filter, null, 1_000).getSize());
+        assertEquals(OrderService.DEFAULT_PAGE_SIZE, orderService.searchOrders(filter, null, null).getItems().size());
+        assertThrows(IllegalArgumentException.class, () -> orderService.searchOrders(filter, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> orderService.searchOrders(filter, "no-es-un-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () ->
+                OrderSearchFilter.of(null, null, null, null, null, BASE.plusDays(1), BASE));
+    }
+
+    private List<Long> walk(OrderSearchFilter filter, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<OrderDTO> page = orderService.searchOrders(filter, cursor, size);
+            assertTrue(page.getItems().size() <= size);
+            assertEquals(page.isHasMore(), page.getNextCursor() != null);
+            page.getItems().forEach(order -> ids.add(order.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<Long> expected(Predicate<Order> filter) {
+        return seeded.stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+    }
+
+    private static Order sample(int i) {
+        return order(STATUSES[i % STATUSES.length], item(1L, 1))
+                .user((long) i % 4, "user" + (i % 4) + "@fixsy.cl", "Cliente " + i)
+                .shippingRegion(REGIONS[i % REGIONS.length])
+                .paymentMethod(i % 5 == 0 ? "Transferencia" : "Tarjeta")
+                .total("1190")
+                .build();
+    }
+}
@@ -4,8 +4,6 @@ import com.fixsy.ordenes.dto.OrderDTO;
 import com.fixsy.ordenes.dto.OrderItemRequestDTO;
 import com.fixsy.ordenes.dto.OrderRequestDTO;
 import com.fixsy.ordenes.model.Order;
-import com.fixsy.ordenes.model.OrderItem;
-import com.fixsy.ordenes.repository.OrderItemRepository;
 import com.fixsy.ordenes.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,7 +29,10 @@ class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private OrderItemRepository orderItemRepository;
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private TopSellingService topSellingService;
 
     @InjectMocks
     private OrderService orderService;
@@ -62,8 +63,6 @@ class OrderServiceTest {
             o.setId(10L);
             return o;
         });
-        given(orderItemRepository.save(any(OrderItem.class))).willAnswer(invocation -> invocation.getArgument(0));
-        given(orderItemRepository.findByOrder_Id(10L)).willReturn(Collections.emptyList());
 
         OrderDTO result = orderService.createOrder(request);
 
@@ -77,8 +76,8 @@ class OrderServiceTest {
         ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
         verify(orderRepository).save(orderCaptor.capture());
         assertEquals("Pendiente", orderCaptor.getValue().getStatus());
-
-        verify(orderItemRepository, org.mockito.Mockito.times(2)).save(any(OrderItem.class));
+        // Los items se guardan en cascada con la orden
+        assertEquals(2, orderCaptor.getValue().getItems().size());
     }
 
     @Test
@@ -98,9 +97,8 @@ class OrderServiceTest {
         Order existing = new Order();
         existing.setId(5L);
         existing.setStatus("Pendiente");
-        given(orderRepository.findById(5L)).willReturn(Optional.of(existing));
+        given(orderRepository.findForUpdateById(5L)).willReturn(Optional.of(existing));
         given(orderRepository.save(any(Order.class))).willAnswer(invocation -> invocation.getArgument(0));
-        given(orderItemRepository.findByOrder_Id(5L)).willReturn(Collections.emptyList());
 
         OrderDTO result = orderService.updateOrderStatus(5L, "Enviado");
 
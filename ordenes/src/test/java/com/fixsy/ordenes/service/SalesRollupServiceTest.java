@@ -0,0 +1,215 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.H2JpaTest;
+import com.fixsy.ordenes.dto.OrderDTO;
+import com.fixsy.ordenes.dto.OrderRequestDTO;
+import com.fixsy.ordenes.dto.SalesRollupDTO;
+import com.fixsy.ordenes.repository.OrderRepository;
+import com.fixsy.ordenes.repository.OrderSalesRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.fixsy.ordenes.OrderFixtures.item;
+import static com.fixsy.ordenes.OrderFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los rollups se comparan siempre contra el recalculo completo sobre orders: tras cualquier secuencia de
+ * cambios por el servicio ambas fuentes deben dar lo mismo.
+ */
+@H2JpaTest
+@Import({OrderService.class, SalesRollupService.class, TopSellingService.class})
+class SalesRollupServiceTest {
+
+    private static final List<String> STATUSES = List.of("Pendiente", "Pagado", "Enviado", "Entregado", "Cancelado");
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSalesRollupRepository rollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAll();
+        rollupRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_sales_buckets");
+    }
+
+    @Test
+    void incrementalUpdates_shouldMatchFullRecomputation() {
+        List<OrderDTO> orders = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            orders.add(orderService.createOrder(sample(i)));
+        }
+        orderService.updatePaymentReference(orders.get(0).getId(), "PAG-1");
+        orderService.updatePaymentReference(orders.get(1).getId(), "PAG-2");
+        orderService.updateOrderStatus(orders.get(1).getId(), "Enviado");
+        orderService.updateOrderStatus(orders.get(2).getId(), "Pagado");
+        orderService.updateOrderStatus(orders.get(2).getId(), "Entregado");
+        orderService.updateOrderStatus(orders.get(3).getId(), "Cancelado");
+        orderService.updateOrderStatus(orders.get(4).getId(), "Pagado");
+        // Mismo estado: no mueve nada
+        orderService.updateOrderStatus(orders.get(4).getId(), "Pagado");
+        orderService.updateTrackingNumber(orders.get(4).getId(), "TRK-4");
+        orderService.deleteOrder(orders.get(5).getId());
+        orderService.updateOrderStatus(orders.get(0).getId(), "Enviado");
+        orderService.deleteOrder(orders.get(0).getId());
+
+        assertEquals(List.of(), salesRollupService.check());
+        assertEquals(0, orderRepository.getTotalSales().compareTo(orderService.getTotalSales()));
+        for (String status : STATUSES) {
+            assertEquals(orderRepository.countByStatus(status), orderService.countOrdersByStatus(status), status);
+        }
+        assertEquals(10L, STATUSES.stream().mapToLong(orderService::countOrdersByStatus).sum());
+    }
+
+    @Test
+    void totalSalesBetween_shouldMatchScanForPartialAndFullDays() {
+        LocalDateTime base = LocalDateTime.of(2025, 4, 10, 0, 0);
+        for (int i = 0; i < 20; i++) {
+            OrderDTO order = orderService.createOrder(sample(i));
+            orderService.updatePaymentReference(order.getId(), "PAG-" + i);
+            // Repartidas en cinco dias a distintas horas, incluida la medianoche exacta
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", base.plusHours(i * 6L), order.getId());
+        }
+        // Fechas cambiadas por fuera del servicio: la verificacion lo detecta y la reconstruccion lo corrige
+        assertFalse(salesRollupService.check().isEmpty());
+        salesRollupService.rebuild();
+        assertEquals(List.of(), salesRollupService.check());
+
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{base, base.plusDays(5)},
+                new LocalDateTime[]{base.plusHours(3), base.plusDays(3).plusHours(13)},
+                new LocalDateTime[]{base.plusDays(1), base.plusDays(1)},
+                new LocalDateTime[]{base.plusDays(1).plusHours(5), base.plusDays(1).plusHours(19)},
+                new LocalDateTime[]{base.plusHours(18), base.plusDays(1).plusHours(6)},
+                new LocalDateTime[]{base.minusDays(3), base.plusDays(2)},
+                new LocalDateTime[]{base.plusDays(2), base.plusDays(1)});
+        for (LocalDateTime[] range : ranges) {
+            BigDecimal scanned = orderRepository.getTotalSalesBetween(range[0], range[1]);
+            BigDecimal expected = scanned != null ? scanned : BigDecimal.ZERO;
+            assertEquals(0, expected.compareTo(orderService.getTotalSalesForPeriod(range[0], range[1])),
+                    range[0] + " - " + range[1]);
+        }
+
+        List<SalesRollupDTO> daily = salesRollupService.getDaily(base.toLocalDate(), base.toLocalDate());
+        assertEquals(4L, daily.stream().mapToLong(SalesRollupDTO::getOrderCount).sum());
+        assertTrue(daily.stream().allMatch(row -> row.getDay().equals(LocalDate.of(2025, 4, 10))));
+    }
+
+    @Test
+    void rebuild_shouldMergeNullAndEmptyKeys() {
+        OrderDTO withoutRegion = orderService.createOrder(sample(0));
+        OrderDTO emptyRegion = orderService.createOrder(sample(0));
+        jdbcTemplate.update("UPDATE orders SET shipping_region = NULL WHERE id = ?", withoutRegion.getId());
+        jdbcTemplate.update("UPDATE orders SET shipping_region = '' WHERE id = ?", emptyRegion.getId());
+
+        salesRollupService.rebuild();
+
+        assertEquals(List.of(), salesRollupService.check());
+        List<SalesRollupDTO> daily = salesRollupService.getDaily(LocalDate.now().minusDays(1), LocalDate.now().plusDays(1));
+        assertEquals(1, daily.size());
+        assertNull(daily.get(0).getRegion());
+        assertEquals(2L, daily.get(0).getOrderCount());
+    }
+
+    @Test
+    void concurrentTransitions_shouldApplyEachChangeOnce() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            // Productos compartidos y en orden inverso entre ordenes vecinas
+            OrderRequestDTO request = i % 2 == 0
+                    ? request(item(1L, i + 1), item(2L, 1), item(3L, 2)).build()
+                    : request(item(3L, 1), item(2L, i + 1), item(1L, 2)).build();
+            ids.add(orderService.createOrder(request).getId());
+        }
+        // Todas las filas de rollup ya existen: los hilos solo compiten por actualizarlas
+        for (String status : STATUSES) {
+            orderService.updateOrderStatus(ids.get(0), status);
+        }
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<Void> task = () -> {
+                    start.await();
+                    for (int round = 0; round < 10; round++) {
+                        for (int i = 0; i < ids.size(); i++) {
+                            Long id = ids.get((i + thread) % ids.size());
+                            try {
+                                if (thread == 0 && round == 5 && i < 2) {
+                                    orderService.deleteOrder(id);
+                                } else if ((round + thread) % 4 == 0) {
+                                    orderService.updatePaymentReference(id, "PAG-" + thread + "-" + round);
+                                } else {
+                                    String status = STATUSES.get((round + thread + i) % STATUSES.size());
+                                    orderService.updateOrderStatus(id, status);
+                                }
+                            } catch (RuntimeException e) {
+                                assertEquals("Orden no encontrada", e.getMessage());
+                            }
+                        }
+                    }
+                    return null;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(4L, orderRepository.count());
+        assertEquals(List.of(), salesRollupService.check());
+        // Los buckets del ranking suman lo mismo que los items de las ordenes no canceladas
+        List<Map<String, Object>> drift = jdbcTemplate.queryForList(
+                "SELECT b.product_id, b.sold, i.sold FROM "
+                        + "(SELECT product_id, SUM(quantity) AS sold FROM product_sales_buckets GROUP BY product_id) b "
+                        + "LEFT JOIN (SELECT oi.product_id, SUM(oi.quantity) AS sold FROM order_items oi "
+                        + "JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'Cancelado' GROUP BY oi.product_id) i "
+                        + "ON i.product_id = b.product_id WHERE b.sold <> COALESCE(i.sold, 0)");
+        assertEquals(List.of(), drift);
+    }
+
+    // Clientes, regiones, medios de pago y montos repartidos segun i
+    private static OrderRequestDTO sample(int i) {
+        return request(item((long) i + 1, i % 4 + 1, String.valueOf(1000 + i * 100)))
+                .user((long) i % 3 + 1, "user" + i + "@fixsy.cl", "Cliente " + i)
+                .shippingAddress("Calle " + i)
+                .shippingRegion(i % 2 == 0 ? "Metropolitana" : "Valparaiso")
+                .paymentMethod(i % 3 == 0 ? "Transferencia" : "Tarjeta")
+                .build();
+    }
+}
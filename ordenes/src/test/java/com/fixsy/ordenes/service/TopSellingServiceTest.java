@@ -0,0 +1,228 @@
+package com.fixsy.ordenes.service;
+
+import com.fixsy.ordenes.H2JpaTest;
+import com.fixsy.ordenes.dto.OrderDTO;
+import com.fixsy.ordenes.dto.TopSellingProductDTO;
+import com.fixsy.ordenes.model.ProductSalesBucket;
+import com.fixsy.ordenes.repository.OrderItemRepository;
+import com.fixsy.ordenes.repository.OrderRepository;
+import com.fixsy.ordenes.repository.ProductSalesBucketRepository;
+import com.fixsy.ordenes.service.TopSellingService.Window;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.fixsy.ordenes.OrderFixtures.item;
+import static com.fixsy.ordenes.OrderFixtures.order;
+import static com.fixsy.ordenes.OrderFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+@H2JpaTest
+@Import({OrderService.class, SalesRollupService.class, TopSellingService.class})
+class TopSellingServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TopSellingService topSellingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductSalesBucketRepository bucketRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setup() {
+        // El ranking vive en memoria del bean compartido: se recarga sobre la base vacia
+        topSellingService.load();
+    }
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAll();
+        bucketRepository.deleteAll();
+    }
+
+    @Test
+    void ranking_shouldFollowCreationCancellationAndDeletion() {
+        OrderDTO first = orderService.createOrder(request(item(1L, 3), item(2L, 1)).build());
+        OrderDTO second = orderService.createOrder(request(item(2L, 4), item(3L, 2)).build());
+        orderService.createOrder(request(item(3L, 1), item(3L, 1)).build());
+
+        assertRanking(List.of(2L, 3L, 1L), List.of(5L, 4L, 3L), Window.LAST_24H);
+        assertRanking(List.of(2L, 3L, 1L), List.of(5L, 4L, 3L), Window.ALL_TIME);
+
+        orderService.updateOrderStatus(second.getId(), "Cancelado");
+        assertRanking(List.of(1L, 3L, 2L), List.of(3L, 2L, 1L), Window.LAST_7D);
+        // Cancelar dos veces no descuenta dos veces
+        orderService.updateOrderStatus(second.getId(), "Cancelado");
+        assertRanking(List.of(1L, 3L, 2L), List.of(3L, 2L, 1L), Window.LAST_7D);
+
+        orderService.updateOrderStatus(second.getId(), "Pendiente");
+        assertRanking(List.of(2L, 3L, 1L), List.of(5L, 4L, 3L), Window.LAST_30D);
+
+        orderService.deleteOrder(first.getId());
+        assertRanking(List.of(2L, 3L), List.of(4L, 4L), Window.ALL_TIME);
+        assertEquals(1, topSellingService.getTopSelling(Window.ALL_TIME, 1).size());
+    }
+
+    @Test
+    void ranking_shouldBeServedFromMemory() {
+        orderService.createOrder(request(item(1L, 2)).build());
+        topSellingService.getTopSelling(Window.LAST_7D, 10);
+
+        SqlStatementCounter counter = new SqlStatementCounter(entityManagerFactory);
+        assertEquals(0, counter.count(() -> {
+            for (Window window : Window.values()) {
+                assertEquals(1, topSellingService.getTopSelling(window, 10).size());
+            }
+        }));
+    }
+
+    @Test
+    void restart_shouldReloadSameRankingFromBuckets() {
+        orderService.createOrder(request(item(1L, 3), item(2L, 1)).build());
+        OrderDTO cancelled = orderService.createOrder(request(item(2L, 7)).build());
+        orderService.createOrder(request(item(3L, 2)).build());
+        orderService.updateOrderStatus(cancelled.getId(), "Cancelado");
+
+        TopSellingService restarted = new TopSellingService(bucketRepository, orderItemRepository, Clock.systemDefaultZone());
+        transactionTemplate.executeWithoutResult(status -> restarted.load());
+
+        for (Window window : Window.values()) {
+            assertEquals(topSellingService.getTopSelling(window, 10), restarted.getTopSelling(window, 10), window.name());
+        }
+    }
+
+    @Test
+    void reload_shouldPickUpSalesRecordedByOtherInstances() {
+        orderService.createOrder(request(item(1L, 2)).build());
+        TopSellingService other = new TopSellingService(bucketRepository, orderItemRepository,
+                Clock.systemDefaultZone());
+        transactionTemplate.executeWithoutResult(status -> other.load());
+
+        // Venta registrada por la otra instancia: esta no la ve hasta releer
+        transactionTemplate.executeWithoutResult(status ->
+                other.recordOrder(order("Pagado", item(5L, 4)).build(), 1));
+        assertRanking(List.of(1L), List.of(2L), Window.ALL_TIME);
+
+        // Con una venta propia sin confirmar la relectura se descarta: no se sabe si la incluye
+        transactionTemplate.executeWithoutResult(status -> {
+            topSellingService.recordOrder(order("Pagado", item(6L, 1)).build(), 1);
+            assertFalse(topSellingService.reload());
+        });
+        assertRanking(List.of(1L, 6L), List.of(2L, 1L), Window.ALL_TIME);
+
+        assertTrue(topSellingService.reload());
+        assertRanking(List.of(5L, 1L, 6L), List.of(4L, 2L, 1L), Window.ALL_TIME);
+    }
+
+    @Test
+    void windows_shouldDropHoursAsTimeAdvances() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-15T12:30:00Z"));
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC).withMinute(0);
+        bucketRepository.saveAll(List.of(
+                bucket(1L, now.minusHours(2), 5),
+                bucket(2L, now.minusDays(3), 8),
+                bucket(3L, now.minusDays(20), 13),
+                bucket(4L, now.minusDays(60), 21)));
+
+        TopSellingService service = new TopSellingService(bucketRepository, orderItemRepository, clock);
+        transactionTemplate.executeWithoutResult(status -> service.load());
+
+        assertEquals(List.of(1L), ids(service, Window.LAST_24H));
+        assertEquals(List.of(2L, 1L), ids(service, Window.LAST_7D));
+        assertEquals(List.of(3L, 2L, 1L), ids(service, Window.LAST_30D));
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(service, Window.ALL_TIME));
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(List.of(), ids(service, Window.LAST_24H));
+        assertEquals(List.of(2L, 1L), ids(service, Window.LAST_7D));
+
+        clock.advance(Duration.ofDays(9));
+        assertEquals(List.of(), ids(service, Window.LAST_7D));
+        assertEquals(List.of(2L, 1L), ids(service, Window.LAST_30D));
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(service, Window.ALL_TIME));
+    }
+
+    @Test
+    void load_shouldBackfillBucketsFromExistingOrders() {
+        orderRepository.save(order("Pagado", item(1L, 2), item(2L, 5)).build());
+        orderRepository.save(order("Cancelado", item(1L, 50)).build());
+        orderRepository.save(order("Entregado", item(1L, 4)).build());
+
+        topSellingService.load();
+
+        assertEquals(11L, bucketRepository.findAll().stream().mapToLong(ProductSalesBucket::getQuantity).sum());
+        assertRanking(List.of(1L, 2L), List.of(6L, 5L), Window.ALL_TIME);
+        assertThrows(IllegalArgumentException.class, () -> Window.fromParam("1y"));
+        assertThrows(IllegalArgumentException.class, () -> topSellingService.getTopSelling(Window.ALL_TIME, 0));
+    }
+
+    private void assertRanking(List<Long> productIds, List<Long> quantities, Window window) {
+        List<TopSellingProductDTO> top = topSellingService.getTopSelling(window, 10);
+        assertEquals(productIds, top.stream().map(TopSellingProductDTO::getProductId).toList(), window.name());
+        assertEquals(quantities, top.stream().map(TopSellingProductDTO::getQuantitySold).toList(), window.name());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(i + 1, top.get(i).getRank());
+        }
+    }
+
+    private static List<Long> ids(TopSellingService service, Window window) {
+        return service.getTopSelling(window, 10).stream().map(TopSellingProductDTO::getProductId).toList();
+    }
+
+    private static ProductSalesBucket bucket(Long productId, LocalDateTime start, long quantity) {
+        return new ProductSalesBucket(null, productId, "Producto " + productId, start, quantity);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
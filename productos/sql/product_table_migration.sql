@@ -56,4 +56,43 @@ SET sku = CONCAT('FIXSY-', id)
 WHERE sku IS NULL OR sku = '';
 
 -- Verificar el resultado:
--- SELECT id, nombre, sku FROM products;
\ No newline at end of file
+-- SELECT id, nombre, sku FROM products;
+-- =====================================
+-- INDICES: Paginacion keyset de listados
+-- =====================================
+-- Los listados paginados filtran por flags y avanzan con "id > cursor ORDER BY id".
+-- Hibernate los crea con ddl-auto=update; en entornos sin DDL automatico aplicar manualmente:
+-- CREATE INDEX idx_products_active_id ON products (is_active, id);
+-- CREATE INDEX idx_products_featured_active_id ON products (is_featured, is_active, id);
+-- CREATE INDEX idx_products_categoria_active_id ON products (categoria, is_active, id);
+
+-- =====================================
+-- MIGRACION: Tags normalizados (tags + product_tags)
+-- =====================================
+-- Hibernate crea las tablas con ddl-auto=update. Las columnas products.tags y products.tag_ids
+-- se mantienen como copia de lectura; las busquedas por tag usan product_tags.
+-- CREATE TABLE tags (
+--     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+--     name VARCHAR(100) NOT NULL,
+--     created_at DATETIME NULL,
+--     CONSTRAINT uk_tags_name UNIQUE (name)
+-- );
+-- CREATE TABLE product_tags (
+--     product_id BIGINT NOT NULL,
+--     tag_id BIGINT NOT NULL,
+--     PRIMARY KEY (product_id, tag_id)
+-- );
+-- CREATE INDEX idx_product_tags_tag_product ON product_tags (tag_id, product_id);
+--
+-- El traspaso de datos lo hace la aplicacion (ProductTagService.migrateLegacyTags) al arrancar con
+-- product_tags vacia, o bajo demanda con POST /api/products/admin/tags/migrate. Comparacion de
+-- rendimiento con 100k productos: sql/tag_lookup_benchmark.sql
+
+-- =====================================
+-- MIGRACION: Version para bloqueo optimista y ajustes atomicos de stock
+-- =====================================
+-- Hibernate agrega la columna con ddl-auto=update; las filas existentes quedan en 0.
+-- ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+--
+-- Los ajustes de stock no leen y reescriben la fila: se aplican con un UPDATE condicional
+-- UPDATE products SET stock = stock + ?, version = version + 1 WHERE id = ? AND stock + ? >= 0;
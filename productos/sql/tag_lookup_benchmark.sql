@@ -0,0 +1,113 @@
+-- =====================================
+-- BENCHMARK: busqueda por tag, LIKE sobre TEXT vs product_tags indexada
+-- =====================================
+-- Requiere MySQL 8.0.18+ (EXPLAIN ANALYZE y CTE recursivas). Trabaja en un esquema aparte para no
+-- tocar fixsy_productos:
+--   mysql -u root < sql/tag_lookup_benchmark.sql
+-- Genera 100.000 productos con 2 a 4 tags cada uno tomados de 40 etiquetas (incluye pares como
+-- "freno"/"frenos" para medir falsos positivos) y compara las dos consultas.
+
+DROP DATABASE IF EXISTS fixsy_tag_bench;
+CREATE DATABASE fixsy_tag_bench;
+USE fixsy_tag_bench;
+
+SET SESSION cte_max_recursion_depth = 100000;
+
+CREATE TABLE tags (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    created_at DATETIME NULL,
+    CONSTRAINT uk_tags_name UNIQUE (name)
+);
+
+INSERT INTO tags (name) VALUES
+    ('motor'), ('mantenimiento'), ('filtros'), ('filtro'), ('frenos'), ('freno'), ('seguridad'),
+    ('suspension'), ('confort'), ('electricidad'), ('partida'), ('lubricantes'), ('aire'),
+    ('encendido'), ('correas'), ('correa'), ('fluido'), ('carga'), ('combustible'), ('diesel'),
+    ('gasolina'), ('turbo'), ('escape'), ('embrague'), ('transmision'), ('direccion'),
+    ('refrigeracion'), ('radiador'), ('iluminacion'), ('luces'), ('carroceria'), ('espejos'),
+    ('neumaticos'), ('llantas'), ('baterias'), ('bateria'), ('sensores'), ('sensor'),
+    ('accesorios'), ('herramientas');
+UPDATE tags SET created_at = NOW();
+
+CREATE TABLE products (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    sku VARCHAR(255) NOT NULL,
+    is_active BIT(1) NOT NULL,
+    tags TEXT,
+    tag_ids TEXT
+);
+
+-- Cada producto recibe entre 2 y 4 tags pseudoaleatorios pero reproducibles (derivados del id)
+INSERT INTO products (nombre, sku, is_active, tags, tag_ids)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 100000
+),
+picks AS (
+    SELECT n,
+           1 + (n * 7) % 40 AS t1,
+           1 + (n * 13 + 5) % 40 AS t2,
+           1 + (n * 17 + 11) % 40 AS t3,
+           1 + (n * 31 + 3) % 40 AS t4,
+           2 + n % 3 AS how_many
+    FROM seq
+)
+SELECT CONCAT('Producto ', n),
+       CONCAT('BENCH-', n),
+       n % 10 <> 0,
+       CONCAT_WS(',',
+                 (SELECT name FROM tags WHERE id = t1),
+                 (SELECT name FROM tags WHERE id = t2),
+                 IF(how_many >= 3, (SELECT name FROM tags WHERE id = t3), NULL),
+                 IF(how_many >= 4, (SELECT name FROM tags WHERE id = t4), NULL)),
+       CONCAT_WS(',', t1, t2, IF(how_many >= 3, t3, NULL), IF(how_many >= 4, t4, NULL))
+FROM picks;
+
+CREATE TABLE product_tags (
+    product_id BIGINT NOT NULL,
+    tag_id BIGINT NOT NULL,
+    PRIMARY KEY (product_id, tag_id)
+);
+CREATE INDEX idx_product_tags_tag_product ON product_tags (tag_id, product_id);
+
+-- Equivalente SQL de ProductTagService.migrateLegacyTags: una fila por tag distinto del producto
+INSERT IGNORE INTO product_tags (product_id, tag_id)
+SELECT p.id, t.id
+FROM products p
+JOIN tags t ON FIND_IN_SET(t.name, p.tags) > 0;
+
+ANALYZE TABLE products, tags, product_tags;
+
+-- -------------------------------------
+-- Antes: ProductRepository.findByTag original (LIKE sobre TEXT)
+-- -------------------------------------
+EXPLAIN ANALYZE
+SELECT p.id FROM products p
+WHERE LOWER(p.tags) LIKE LOWER(CONCAT('%', 'freno', '%')) AND p.is_active = 1;
+
+-- -------------------------------------
+-- Despues: join por product_tags (idx_product_tags_tag_product)
+-- -------------------------------------
+EXPLAIN ANALYZE
+SELECT p.id FROM products p
+JOIN product_tags pt ON pt.product_id = p.id
+JOIN tags t ON t.id = pt.tag_id
+WHERE t.name = 'freno' AND p.is_active = 1
+ORDER BY p.id;
+
+-- -------------------------------------
+-- Falsos positivos: el LIKE de "freno" tambien devuelve los productos que solo tienen "frenos"
+-- -------------------------------------
+SELECT
+    (SELECT COUNT(*) FROM products p
+     WHERE LOWER(p.tags) LIKE '%freno%' AND p.is_active = 1) AS like_matches,
+    (SELECT COUNT(*) FROM products p
+     JOIN product_tags pt ON pt.product_id = p.id
+     JOIN tags t ON t.id = pt.tag_id
+     WHERE t.name = 'freno' AND p.is_active = 1) AS indexed_matches;
+
+-- Limpieza:
+-- DROP DATABASE fixsy_tag_bench;
@@ -0,0 +1,89 @@
+package com.fixsy.productos;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara dos resultados JSON de JMH (linea base y corrida actual) por benchmark: tiempo promedio y bytes
+ * asignados por operacion (gc.alloc.rate.norm de -prof gc). Sale con codigo 1 si algun benchmark empeora
+ * mas que el umbral en cualquiera de las dos medidas.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dexec.args="-classpath %classpath com.fixsy.productos.BenchmarkBaselineCompare \
+ *     src/jmh/baseline/jmh-baseline.json target/jmh-result.json 10"
+ * </pre>
+ */
+public final class BenchmarkBaselineCompare {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkBaselineCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BenchmarkBaselineCompare <linea-base.json> <actual.json> [umbral-%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        boolean regression = false;
+        System.out.printf("%-60s %12s %12s %8s %12s %12s %8s%n", "benchmark", "base ns/op", "actual ns/op", "%",
+                "base B/op", "actual B/op", "%");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-60s (sin linea base)%n", entry.getKey());
+                continue;
+            }
+            Result now = entry.getValue();
+            double timeDelta = percent(base.score, now.score);
+            double allocDelta = percent(base.allocated, now.allocated);
+            System.out.printf("%-60s %12.1f %12.1f %+7.1f%% %12.1f %12.1f %+7.1f%%%n", entry.getKey(),
+                    base.score, now.score, timeDelta, base.allocated, now.allocated, allocDelta);
+            regression |= timeDelta > threshold || allocDelta > threshold;
+        }
+        if (regression) {
+            System.out.printf("Hay benchmarks que empeoran mas de %.1f%% respecto de la linea base%n", threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode alloc = run.path("secondaryMetrics").path(ALLOC_METRIC);
+            String name = run.path("benchmark").asText() + paramsOf(run.path("params"));
+            results.put(name, new Result(primary.path("score").asDouble(),
+                    alloc.isMissingNode() ? Double.NaN : alloc.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    private static String paramsOf(JsonNode params) {
+        if (params.isMissingNode() || params.isEmpty()) {
+            return "";
+        }
+        StringBuilder suffix = new StringBuilder();
+        params.fields().forEachRemaining(param ->
+                suffix.append(suffix.length() == 0 ? "[" : ",").append(param.getKey()).append('=').append(param.getValue().asText()));
+        return suffix.append(']').toString();
+    }
+
+    // Sin dato de asignacion (corrida sin -prof gc) no se compara esa medida
+    private static double percent(double base, double now) {
+        if (Double.isNaN(base) || Double.isNaN(now) || base == 0) {
+            return 0;
+        }
+        return (now - base) / base * 100;
+    }
+
+    private record Result(double score, double allocated) { }
+}
@@ -0,0 +1,89 @@
+package com.fixsy.productos.model;
+
+import com.fixsy.productos.service.SyntheticProducts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversores de listas separadas por comas, en ambos sentidos. Hibernate los ejecuta por cada fila leida
+ * (tags, tag_ids, images, image_derivatives) y en cada dirty check, asi que pesan en todo listado de entidades.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListConverterBenchmark {
+
+    static final int BATCH = 1024;
+
+    private final StringListConverter stringConverter = new StringListConverter();
+    private final LongListConverter longConverter = new LongListConverter();
+
+    private List<String>[] images;
+    private List<Long>[] tagIds;
+    private String[] imageColumns;
+    private String[] tagIdColumns;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        List<Product> products = SyntheticProducts.generate(BATCH);
+        images = new List[BATCH];
+        tagIds = new List[BATCH];
+        imageColumns = new String[BATCH];
+        tagIdColumns = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            images[i] = products.get(i).getImages();
+            tagIds[i] = products.get(i).getTagIds();
+            imageColumns[i] = stringConverter.convertToDatabaseColumn(images[i]);
+            tagIdColumns[i] = longConverter.convertToDatabaseColumn(tagIds[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void stringListToColumn(Blackhole bh) {
+        for (List<String> value : images) {
+            bh.consume(stringConverter.convertToDatabaseColumn(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void stringListFromColumn(Blackhole bh) {
+        for (String column : imageColumns) {
+            bh.consume(stringConverter.convertToEntityAttribute(column));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void longListToColumn(Blackhole bh) {
+        for (List<Long> value : tagIds) {
+            bh.consume(longConverter.convertToDatabaseColumn(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void longListFromColumn(Blackhole bh) {
+        for (String column : tagIdColumns) {
+            bh.consume(longConverter.convertToEntityAttribute(column));
+        }
+    }
+}
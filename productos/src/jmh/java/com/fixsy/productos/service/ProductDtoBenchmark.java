@@ -0,0 +1,98 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por producto de lo que se ejecuta en cada respuesta: la conversion completa a ProductDTO y sus
+ * partes (slug, precio final, rutas publicas de la galeria y variantes de la imagen principal). Cada
+ * invocacion recorre {@link #BATCH} productos distintos, asi que tiempo y gc.alloc.rate.norm son por producto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDtoBenchmark {
+
+    static final int BATCH = 1024;
+
+    private Product[] products;
+    private ProductService productService;
+    private ProductImageStorageService imageStorageService;
+
+    @Setup
+    public void setup() {
+        List<Product> generated = SyntheticProducts.generate(BATCH);
+        products = generated.toArray(new Product[0]);
+        imageStorageService = new ProductImageStorageService("target/jmh-images", "http://localhost:8083");
+        productService = new ProductService();
+        ReflectionTestUtils.setField(productService, "productImageStorageService", imageStorageService);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void convertToDTO(Blackhole bh) {
+        for (Product product : products) {
+            bh.consume(productService.convertToDTO(product));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void resolveSlug(Blackhole bh) {
+        for (Product product : products) {
+            // Mismo criterio que convertToDTO: el slug guardado o, si falta, el nombre
+            String base = product.getSlug() == null || product.getSlug().isBlank() ? product.getNombre() : product.getSlug();
+            bh.consume(ProductSlugs.slugify(base));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void isSlugValid(Blackhole bh) {
+        for (Product product : products) {
+            bh.consume(ProductSlugs.isValid(product.getSlug()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void calculateFinalPrice(Blackhole bh) {
+        for (Product product : products) {
+            bh.consume(ProductPricing.finalPrice(product));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void buildPublicImagePaths(Blackhole bh) {
+        for (Product product : products) {
+            bh.consume(imageStorageService.buildPublicImagePaths(product.getImages()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void buildPublicImageVariants(Blackhole bh) {
+        for (Product product : products) {
+            bh.consume(imageStorageService.buildPublicImageVariants(product.getImageUrl()));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Productos sinteticos con la forma de los del catalogo real: nombres con tildes y simbolos, slugs
+ * validos, ausentes o mal formados, descuentos variados, galerias con prefijo /images/, URLs externas y
+ * duplicados. La semilla es fija para que dos corridas midan los mismos datos.
+ */
+public final class SyntheticProducts {
+
+    private static final String[] NOMBRES = {"Filtro de aceite", "Pastillas de freno", "Batería", "Amortiguador",
+            "Correa de distribución", "Bujía iridium", "Radiador", "Bomba de agua", "Kit de embrague", "Sensor O2"};
+    private static final String[] MODELOS = {"1.6-2.0L", "60Ah (libre mantención)", "delantero/izq.", "Hilux 2.4",
+            "Yaris 1.5", "Spark GT", "Corolla 1.8 16v", "Sail 1.4", "D-Max 3.0", "Swift 1.2"};
+    private static final String[] MARCAS = {"Bosch", "Mann", "Brembo", "ACDelco", "NGK", "Monroe", "Gates", "Valeo"};
+    private static final String[] CATEGORIAS = {"Filtros", "Frenos", "Electricidad", "Suspension", "Motor", null};
+
+    private SyntheticProducts() {
+    }
+
+    public static List<Product> generate(int count) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            String nombre = NOMBRES[random.nextInt(NOMBRES.length)] + " " + MODELOS[random.nextInt(MODELOS.length)];
+            Product product = new Product();
+            product.setId(id);
+            product.setNombre(nombre);
+            product.setSlug(slug(random, nombre, id));
+            product.setSku("FIX-" + String.format("%05d", id));
+            product.setDescripcionCorta(random.nextInt(4) == 0 ? null : "Repuesto compatible con " + nombre);
+            product.setDescripcionLarga("Repuesto de reemplazo directo. ".repeat(1 + random.nextInt(20)));
+            product.setPrecioNormal(BigDecimal.valueOf(2990 + random.nextInt(200_000), 2));
+            product.setPrecioOferta(random.nextInt(3) == 0 ? product.getPrecioNormal().multiply(new BigDecimal("0.9")) : null);
+            product.setDiscountPercentage(random.nextInt(4) == 0 ? 5 + random.nextInt(30) : 0);
+            product.setStock(random.nextInt(50));
+            product.setCategoria(CATEGORIAS[random.nextInt(CATEGORIAS.length)]);
+            product.setCategoryId((long) random.nextInt(20));
+            product.setMarca(MARCAS[random.nextInt(MARCAS.length)]);
+            product.setIsActive(true);
+            product.setIsFeatured(random.nextInt(10) == 0);
+            product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id));
+            product.setTags(tags(random));
+            product.setTagIds(tagIds(random));
+            product.setImageUrl(id % 10 == 0 ? "https://cdn.example.com/p/" + id + ".jpg" : "/images/product_" + id + "_main.jpg");
+            product.setImages(gallery(random, id));
+            product.setImageDerivatives(id % 2 == 0 ? new ArrayList<>(List.of(product.getImageUrl())) : new ArrayList<>());
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static String slug(Random random, String nombre, long id) {
+        return switch (random.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> nombre;
+            default -> ProductSlugs.slugify(nombre) + "-" + id;
+        };
+    }
+
+    private static List<String> tags(Random random) {
+        List<String> tags = new ArrayList<>();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            tags.add(" tag-" + random.nextInt(100) + " ");
+        }
+        return tags;
+    }
+
+    private static List<Long> tagIds(Random random) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            ids.add((long) random.nextInt(1000));
+        }
+        return ids;
+    }
+
+    private static List<String> gallery(Random random, long id) {
+        List<String> images = new ArrayList<>();
+        for (int i = random.nextInt(7); i > 0; i--) {
+            images.add(i % 3 == 0 ? " product_" + id + "_gallery_" + i + ".jpg " : "/images/product_" + id + "_gallery_" + i + ".jpg");
+        }
+        if (!images.isEmpty() && random.nextBoolean()) {
+            images.add(images.get(0));
+        }
+        return images;
+    }
+}
@@ -0,0 +1,13 @@
+package com.fixsy.productos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas periodicas (recolector de imagenes sin referencias, relay y purga del outbox de productos,
+ * compactacion del ledger de stock).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,73 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.dto.BulkPriceRequestDTO;
+import com.fixsy.productos.dto.BulkPriceResultDTO;
+import com.fixsy.productos.dto.ProductImportResultDTO;
+import com.fixsy.productos.service.BulkPricingService;
+import com.fixsy.productos.service.ProductBulkService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/products/admin")
+@CrossOrigin(origins = "*")
+@Tag(name = "Catalog Bulk", description = "Importacion, exportacion y precios masivos del catalogo")
+public class CatalogBulkController {
+
+    private final ProductBulkService productBulkService;
+    private final BulkPricingService bulkPricingService;
+
+    public CatalogBulkController(ProductBulkService productBulkService, BulkPricingService bulkPricingService) {
+        this.productBulkService = productBulkService;
+        this.bulkPricingService = bulkPricingService;
+    }
+
+    @PostMapping("/import")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Importar productos por SKU desde CSV o NDJSON",
+            description = "El archivo va como cuerpo de la peticion (text/csv o application/x-ndjson) y se procesa "
+                    + "en streaming. Crea los SKUs nuevos y actualiza los existentes; las celdas vacias no cambian "
+                    + "el valor. Columnas: sku, nombre, descripcionCorta, descripcionLarga, precioNormal, "
+                    + "precioOferta, discountPercentage, stock, categoria, marca, tags, imageUrl, images, isActive, "
+                    + "isFeatured (listas separadas por |)")
+    public ResponseEntity<ProductImportResultDTO> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        ProductBulkService.Format resolved = ProductBulkService.Format.resolve(format, request.getContentType());
+        return ResponseEntity.ok(productBulkService.importProducts(request.getInputStream(), resolved));
+    }
+
+    @GetMapping("/export")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Exportar el catalogo completo en CSV o NDJSON",
+            description = "Se genera en streaming pagina por pagina, con el mismo formato que acepta la importacion")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "csv") String format) {
+        ProductBulkService.Format resolved = ProductBulkService.Format.resolve(format, null);
+        StreamingResponseBody body = output -> productBulkService.exportProducts(output, resolved);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(resolved.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"productos." + resolved.extension() + "\"")
+                .body(body);
+    }
+
+    @PostMapping("/pricing")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Actualizar precios y ofertas por reglas",
+            description = "Cada regla fija un precio, aplica un porcentaje, fija una oferta o la quita sobre una lista "
+                    + "de SKUs o sobre los productos de una categoria, marca y/o etiqueta. Usa las mismas validaciones "
+                    + "que la edicion individual y devuelve un resumen por regla. Con dryRun=true solo calcula el resultado")
+    public ResponseEntity<BulkPriceResultDTO> applyPricing(@Valid @RequestBody BulkPriceRequestDTO request) {
+        return ResponseEntity.ok(bulkPricingService.apply(request));
+    }
+}
@@ -0,0 +1,56 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.service.HibernateCacheService;
+import com.fixsy.productos.service.ProductCatalogCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products/admin/cache")
+@CrossOrigin(origins = "*")
+@Tag(name = "Catalog Cache", description = "Metricas y mantenimiento del cache del catalogo")
+public class CatalogCacheController {
+
+    private final ProductCatalogCache catalogCache;
+    private final HibernateCacheService hibernateCacheService;
+
+    public CatalogCacheController(ProductCatalogCache catalogCache, HibernateCacheService hibernateCacheService) {
+        this.catalogCache = catalogCache;
+        this.hibernateCacheService = hibernateCacheService;
+    }
+
+    @GetMapping
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Ver tamaño, aciertos y fallos del cache del catalogo")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(catalogCache.stats());
+    }
+
+    @DeleteMapping
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Vaciar el cache del catalogo")
+    public ResponseEntity<Void> clear() {
+        catalogCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/regions")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Ver aciertos, fallos y escrituras por region del cache de segundo nivel de Hibernate")
+    public ResponseEntity<Map<String, Object>> getRegionStats() {
+        return ResponseEntity.ok(hibernateCacheService.stats());
+    }
+
+    @DeleteMapping("/regions")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Vaciar una region del cache de segundo nivel (products o default-query-results-region), o ambas sin region")
+    public ResponseEntity<Void> evictRegion(@RequestParam(required = false) String region) {
+        hibernateCacheService.evict(region);
+        return ResponseEntity.noContent().build();
+    }
+}
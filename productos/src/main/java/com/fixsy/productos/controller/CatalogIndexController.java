@@ -0,0 +1,37 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.search.CatalogIndexLoader;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products/admin/indexes")
+@CrossOrigin(origins = "*")
+@Tag(name = "Catalog Indexes", description = "Estado y reconstruccion de los indices en memoria del catalogo")
+public class CatalogIndexController {
+
+    private final CatalogIndexLoader catalogIndexLoader;
+
+    public CatalogIndexController(CatalogIndexLoader catalogIndexLoader) {
+        this.catalogIndexLoader = catalogIndexLoader;
+    }
+
+    @GetMapping
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Ver tamaño de los indices en memoria")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(catalogIndexLoader.stats());
+    }
+
+    @PostMapping("/rebuild")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Reconstruir los indices en memoria desde la base de datos")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(catalogIndexLoader.rebuildAll());
+    }
+}
@@ -0,0 +1,69 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.dto.MaintenanceJobDTO;
+import com.fixsy.productos.service.CatalogMaintenanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products/admin/jobs")
+@CrossOrigin(origins = "*")
+@Tag(name = "Maintenance Jobs", description = "Trabajos de mantenimiento del catalogo en segundo plano")
+public class MaintenanceJobController {
+
+    private final CatalogMaintenanceService maintenanceService;
+
+    public MaintenanceJobController(CatalogMaintenanceService maintenanceService) {
+        this.maintenanceService = maintenanceService;
+    }
+
+    @GetMapping("/types")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Tipos de trabajo disponibles")
+    public ResponseEntity<Map<String, String>> getTypes() {
+        return ResponseEntity.ok(maintenanceService.getTaskTypes());
+    }
+
+    @PostMapping
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Iniciar un trabajo de mantenimiento",
+            description = "Se encola y responde de inmediato; el avance se consulta en GET /jobs/{id}")
+    public ResponseEntity<MaintenanceJobDTO> start(@RequestParam String type) {
+        return new ResponseEntity<>(maintenanceService.start(type), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Ultimos 20 trabajos")
+    public ResponseEntity<List<MaintenanceJobDTO>> getRecentJobs() {
+        return ResponseEntity.ok(maintenanceService.getRecentJobs());
+    }
+
+    @GetMapping("/{id}")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Avance de un trabajo (procesados, porcentaje, ritmo y tiempo restante estimado)")
+    public ResponseEntity<MaintenanceJobDTO> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(maintenanceService.getJob(id));
+    }
+
+    @PostMapping("/{id}/cancel")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Cancelar un trabajo al terminar el bloque en curso")
+    public ResponseEntity<MaintenanceJobDTO> cancel(@PathVariable Long id) {
+        return new ResponseEntity<>(maintenanceService.cancel(id), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/{id}/resume")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Reanudar un trabajo fallido desde su ultimo checkpoint")
+    public ResponseEntity<MaintenanceJobDTO> resume(@PathVariable Long id) {
+        return new ResponseEntity<>(maintenanceService.resume(id), HttpStatus.ACCEPTED);
+    }
+}
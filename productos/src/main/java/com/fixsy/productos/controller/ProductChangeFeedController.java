@@ -0,0 +1,33 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.dto.ProductChangeFeedDTO;
+import com.fixsy.productos.service.ProductChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*")
+@Tag(name = "Product Changes", description = "Feed ordenado de cambios de productos")
+public class ProductChangeFeedController {
+
+    private final ProductChangeFeedService changeFeedService;
+
+    public ProductChangeFeedController(ProductChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Cambios de productos desde un cursor",
+            description = "Devuelve los cambios en orden de secuencia. Sin cursor empieza por el cambio mas antiguo "
+                    + "retenido. Con wait > 0, si no hay cambios nuevos la respuesta espera hasta wait segundos "
+                    + "(long-poll). Si resyncRequired es true el cliente debe recargar el catalogo y seguir con nextCursor.")
+    public DeferredResult<ProductChangeFeedDTO> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "0") Integer wait) {
+        return changeFeedService.poll(since, limit, wait);
+    }
+}
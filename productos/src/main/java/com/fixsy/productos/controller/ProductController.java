@@ -1,18 +1,30 @@
 package com.fixsy.productos.controller;
 
+import com.fixsy.productos.dto.CursorPageDTO;
+import com.fixsy.productos.dto.ProductBrowseDTO;
+import com.fixsy.productos.dto.ProductBatchDTO;
+import com.fixsy.productos.dto.ProductBatchRequestDTO;
 import com.fixsy.productos.dto.ProductDTO;
 import com.fixsy.productos.dto.ImageUrlUpdateDTO;
+import com.fixsy.productos.dto.MaintenanceJobDTO;
 import com.fixsy.productos.dto.ProductRequestDTO;
+import com.fixsy.productos.dto.ProductSearchHitDTO;
+import com.fixsy.productos.dto.ProductSummaryDTO;
+import com.fixsy.productos.dto.StockBatchRequestDTO;
 import com.fixsy.productos.model.Product;
 import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.search.ProductFacetIndex;
+import com.fixsy.productos.service.CatalogMaintenanceService;
+import com.fixsy.productos.service.ImageDeliveryService;
 import com.fixsy.productos.service.ProductImageStorageService;
 import com.fixsy.productos.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,7 +32,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.nio.file.Files;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -38,6 +51,12 @@ public class ProductController {
     @Autowired
     private ProductImageStorageService productImageStorageService;
 
+    @Autowired
+    private ImageDeliveryService imageDeliveryService;
+
+    @Autowired
+    private CatalogMaintenanceService catalogMaintenanceService;
+
     @GetMapping("/test")
     @Operation(summary = "Endpoint de diagnostico que devuelve lista vacia")
     public ResponseEntity<List<ProductDTO>> testProducts() {
@@ -50,12 +69,28 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Obtener productos activos paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductsPage(cursor, size));
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Obtener todos los productos (incluyendo inactivos) - Solo Admin")
     public ResponseEntity<List<ProductDTO>> getAllProductsIncludeInactive() {
         return ResponseEntity.ok(productService.getAllProductsIncludeInactive());
     }
 
+    @GetMapping("/all/page")
+    @Operation(summary = "Obtener todos los productos (incluyendo inactivos) paginados por cursor - Solo Admin")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getAllProductsIncludeInactivePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getAllProductsIncludeInactivePage(cursor, size));
+    }
+
     @PostMapping(value = "/admin", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @RolesAllowed("ADMIN")
     @Operation(summary = "Crear producto (admin, multipart/form-data)")
@@ -82,6 +117,15 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProductsIncludeInactive());
     }
 
+    @GetMapping("/admin/page")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Listar productos para panel admin paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getAllProductsAdminPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getAllProductsIncludeInactivePage(cursor, size));
+    }
+
     @PutMapping("/{id}/image-url")
     @RolesAllowed("ADMIN")
     @Operation(summary = "Actualizar la URL de la imagen principal (solo admin)")
@@ -93,10 +137,10 @@ public class ProductController {
 
     @PostMapping("/admin/normalize-data")
     @RolesAllowed("ADMIN")
-    @Operation(summary = "Normalizar datos de productos (solo admin)")
-    public ResponseEntity<String> normalizeProductData() {
-        productService.normalizeProductSlugs();
-        return ResponseEntity.ok("Datos de productos normalizados correctamente");
+    @Operation(summary = "Normalizar datos de productos (solo admin)",
+            description = "Inicia el trabajo normalize-slugs en segundo plano; el avance se consulta en /admin/jobs/{id}")
+    public ResponseEntity<MaintenanceJobDTO> normalizeProductData() {
+        return new ResponseEntity<>(catalogMaintenanceService.start("normalize-slugs"), HttpStatus.ACCEPTED);
     }
 
     @GetMapping("/{id}")
@@ -105,6 +149,13 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Obtener varios productos por ID y/o SKU en una sola llamada",
+            description = "Hasta 500 claves. Devuelve los productos por la clave pedida y lista aparte las que no existen")
+    public ResponseEntity<ProductBatchDTO> getProductsBatch(@RequestBody ProductBatchRequestDTO request) {
+        return ResponseEntity.ok(productService.getProductsBatch(request));
+    }
+
     @GetMapping("/sku/{sku}")
     @Operation(summary = "Obtener producto por SKU")
     public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku) {
@@ -117,24 +168,67 @@ public class ProductController {
         return ResponseEntity.ok(productService.getFeaturedProducts());
     }
 
+    @GetMapping("/featured/page")
+    @Operation(summary = "Obtener productos destacados paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getFeaturedProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getFeaturedProductsPage(cursor, size));
+    }
+
     @GetMapping("/on-sale")
     @Operation(summary = "Obtener productos en oferta")
     public ResponseEntity<List<ProductDTO>> getProductsOnSale() {
         return ResponseEntity.ok(productService.getProductsOnSale());
     }
 
+    @GetMapping("/on-sale/page")
+    @Operation(summary = "Obtener productos en oferta paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsOnSalePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductsOnSalePage(cursor, size));
+    }
+
     @GetMapping("/category/{categoria}")
     @Operation(summary = "Obtener productos por categoria")
     public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String categoria) {
         return ResponseEntity.ok(productService.getProductsByCategory(categoria));
     }
 
+    @GetMapping("/category/{categoria}/page")
+    @Operation(summary = "Obtener productos por categoria paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByCategoryPage(
+            @PathVariable String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductsByCategoryPage(categoria, cursor, size));
+    }
+
     @GetMapping("/marca/{marca}")
     @Operation(summary = "Obtener productos por marca")
     public ResponseEntity<List<ProductDTO>> getProductsByMarca(@PathVariable String marca) {
         return ResponseEntity.ok(productService.getProductsByMarca(marca));
     }
 
+    @GetMapping("/browse")
+    @Operation(summary = "Listado con filtros combinables y conteos por facet (categoria, marca, tag, precio, stock, oferta, destacado)")
+    public ResponseEntity<ProductBrowseDTO> browseProducts(
+            @RequestParam(required = false) List<String> categoria,
+            @RequestParam(required = false) List<String> marca,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        ProductFacetIndex.Filter filter = ProductFacetIndex.Filter.of(
+                categoria, marca, tag, minPrice, maxPrice, inStock, onSale, featured);
+        return ResponseEntity.ok(productService.browseProducts(filter, cursor, size));
+    }
+
     @GetMapping("/tag/{tag}")
     @Operation(summary = "Obtener productos por tag")
     public ResponseEntity<List<ProductDTO>> getProductsByTag(@PathVariable String tag) {
@@ -142,9 +236,12 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar productos por nombre")
-    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String q) {
-        return ResponseEntity.ok(productService.searchProducts(q));
+    @Operation(summary = "Buscar productos por nombre, descripcion, marca, SKU o tags, ordenados por relevancia")
+    public ResponseEntity<CursorPageDTO<ProductSearchHitDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.searchProducts(q, cursor, size));
     }
 
     @GetMapping("/in-stock")
@@ -153,6 +250,65 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsInStock());
     }
 
+    @GetMapping("/in-stock/page")
+    @Operation(summary = "Obtener productos con stock disponible paginados por cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsInStockPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductsInStockPage(cursor, size));
+    }
+
+    @GetMapping("/summary/page")
+    @Operation(summary = "Grilla de productos activos (version resumida) paginada por cursor",
+            description = "Solo las columnas que muestra una tarjeta de producto; el detalle completo esta en /{id}")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getProductSummariesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductSummariesPage(cursor, size));
+    }
+
+    @GetMapping("/admin/summary/page")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Grilla del panel admin (version resumida, incluye inactivos) paginada por cursor")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getAllProductSummariesAdminPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getAllProductSummariesIncludeInactivePage(cursor, size));
+    }
+
+    @GetMapping("/summary/featured/page")
+    @Operation(summary = "Grilla de productos destacados (version resumida) paginada por cursor")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getFeaturedProductSummariesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getFeaturedProductSummariesPage(cursor, size));
+    }
+
+    @GetMapping("/summary/on-sale/page")
+    @Operation(summary = "Grilla de productos en oferta (version resumida) paginada por cursor")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getProductSummariesOnSalePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductSummariesOnSalePage(cursor, size));
+    }
+
+    @GetMapping("/summary/category/{categoria}/page")
+    @Operation(summary = "Grilla de productos por categoria (version resumida) paginada por cursor")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getProductSummariesByCategoryPage(
+            @PathVariable String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductSummariesByCategoryPage(categoria, cursor, size));
+    }
+
+    @GetMapping("/summary/in-stock/page")
+    @Operation(summary = "Grilla de productos con stock (version resumida) paginada por cursor")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getProductSummariesInStockPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getProductSummariesInStockPage(cursor, size));
+    }
+
     @GetMapping("/out-of-stock")
     @Operation(summary = "Obtener productos sin stock")
     public ResponseEntity<List<ProductDTO>> getProductsOutOfStock() {
@@ -217,6 +373,13 @@ public class ProductController {
         return ResponseEntity.ok(productService.adjustStock(id, adjustment));
     }
 
+    @PostMapping("/stock/batch")
+    @Operation(summary = "Ajustar stock de varios SKUs en una transaccion",
+            description = "Todo o nada: si un SKU no existe o no alcanza el stock no se aplica ningun ajuste")
+    public ResponseEntity<List<ProductDTO>> adjustStockBatch(@Valid @RequestBody StockBatchRequestDTO request) {
+        return ResponseEntity.ok(productService.adjustStockBatch(request.getItems()));
+    }
+
     @PutMapping("/{id}/featured")
     @Operation(summary = "Alternar estado de producto destacado")
     public ResponseEntity<ProductDTO> toggleFeatured(@PathVariable Long id) {
@@ -289,7 +452,9 @@ public class ProductController {
 
     @GetMapping("/{id}/image-main")
     @Operation(summary = "Obtener imagen principal del producto")
-    public ResponseEntity<byte[]> getMainImage(@PathVariable Long id) {
+    public void getMainImage(@PathVariable Long id,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
 
@@ -298,24 +463,13 @@ public class ProductController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El producto no tiene imagen principal");
         }
 
-        Path imagePath = productImageStorageService.resolveProductImagePath(storedPath);
-        if (!Files.exists(imagePath)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Imagen no encontrada en el servidor");
-        }
-
+        Path imagePath;
         try {
-            byte[] bytes = Files.readAllBytes(imagePath);
-            String contentType = Files.probeContentType(imagePath);
-            if (contentType == null) {
-                contentType = "image/jpeg";
-            }
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, contentType)
-                    .body(bytes);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al leer la imagen", e);
+            imagePath = productImageStorageService.resolveProductImagePath(storedPath);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Imagen no encontrada en el servidor");
         }
+        imageDeliveryService.serve(imagePath, request, response);
     }
 
     public record UpdatePriceRequest(java.math.BigDecimal precioNormal) { }
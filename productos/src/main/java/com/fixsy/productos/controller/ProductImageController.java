@@ -3,12 +3,15 @@ package com.fixsy.productos.controller;
 import com.fixsy.productos.dto.ProductImageInfoDTO;
 import com.fixsy.productos.model.Product;
 import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.service.ImageBlobService;
+import com.fixsy.productos.service.ImageDeliveryService;
+import com.fixsy.productos.service.ImageDerivativeService;
 import com.fixsy.productos.service.ProductImageStorageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,10 +25,10 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -37,10 +40,19 @@ public class ProductImageController {
 
     private final ProductRepository productRepository;
     private final ProductImageStorageService productImageStorageService;
+    private final ImageDeliveryService imageDeliveryService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ImageBlobService imageBlobService;
     public ProductImageController(ProductRepository productRepository,
-                                  ProductImageStorageService productImageStorageService) {
+                                  ProductImageStorageService productImageStorageService,
+                                  ImageDeliveryService imageDeliveryService,
+                                  ImageDerivativeService imageDerivativeService,
+                                  ImageBlobService imageBlobService) {
         this.productRepository = productRepository;
         this.productImageStorageService = productImageStorageService;
+        this.imageDeliveryService = imageDeliveryService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.imageBlobService = imageBlobService;
     }
 
     @Operation(summary = "Listar imagenes publicas de productos activos")
@@ -63,6 +75,22 @@ public class ProductImageController {
         return new ProductImageInfoDTO(product.getId(), mainImage, merged);
     }
 
+    @PostMapping("/api/products/admin/images/derivatives")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Encolar la generacion de derivados para las imagenes que aun no los tienen")
+    public ResponseEntity<Map<String, Object>> regenerateDerivatives() {
+        int queued = imageDerivativeService.scheduleAll();
+        return ResponseEntity.ok(Map.of("queued", queued, "queueSize", imageDerivativeService.queueSize()));
+    }
+
+    @PostMapping("/api/products/admin/images/gc")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Borrar las imagenes que ningun producto referencia",
+            description = "Solo considera archivos con nombre por hash mas antiguos que el periodo de gracia")
+    public ResponseEntity<ImageBlobService.CollectionResult> collectUnusedImages() throws IOException {
+        return ResponseEntity.ok(imageBlobService.collect());
+    }
+
     @PostMapping(value = "/api/upload/products/{productId}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Subir imagen principal de producto", description = "Retorna la ruta publica (/images/...)")
     public ResponseEntity<String> uploadProductImage(
@@ -86,41 +114,27 @@ public class ProductImageController {
     }
 
     @GetMapping("/images/{fileName:.+}")
-    public ResponseEntity<Resource> serveProductImage(@PathVariable String fileName) {
+    @Operation(summary = "Entregar imagen de producto",
+            description = "Con ?w=160|480|1024 entrega el derivado de ese ancho. Soporta ETag/Last-Modified (304) y Range (206)")
+    public void serveProductImage(@PathVariable String fileName,
+                                  @RequestParam(name = "w", required = false) Integer width,
+                                  HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        Path imagePath;
         try {
-            // Log para debugging
-            System.out.println("Serving image: " + fileName);
-            
-            Path imagePath = productImageStorageService.resolveProductImagePath(fileName).normalize();
-            System.out.println("Image path: " + imagePath);
-            System.out.println("File exists: " + Files.exists(imagePath));
-            
-            if (!Files.exists(imagePath)) {
-                System.out.println("Image not found at: " + imagePath);
-                throw new ResponseStatusException(NOT_FOUND, "Imagen no encontrada: " + fileName);
-            }
-
-            String contentType = Files.probeContentType(imagePath);
-            if (contentType == null) {
-                // Intentar detectar por extensión
-                String lowerName = fileName.toLowerCase();
-                if (lowerName.endsWith(".png")) contentType = "image/png";
-                else if (lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg")) contentType = "image/jpeg";
-                else if (lowerName.endsWith(".gif")) contentType = "image/gif";
-                else if (lowerName.endsWith(".webp")) contentType = "image/webp";
-                else contentType = "image/jpeg"; // default
-            }
-            
-            MediaType mediaType = MediaType.parseMediaType(contentType);
-
-            InputStreamResource resource = new InputStreamResource(Files.newInputStream(imagePath));
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, mediaType.toString())
-                    .header(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
-                    .body(resource);
-        } catch (IOException e) {
-            System.out.println("Error reading image: " + e.getMessage());
-            throw new ResponseStatusException(NOT_FOUND, "No se pudo leer la imagen: " + fileName, e);
+            imagePath = productImageStorageService.resolveVariantPath(fileName, width);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(NOT_FOUND, "Imagen no encontrada: " + fileName);
+        }
+        // El nombre viene de la URL: no se entregan archivos fuera del directorio de imagenes
+        if (!imagePath.startsWith(productImageStorageService.getBaseDirectory())) {
+            throw new ResponseStatusException(NOT_FOUND, "Imagen no encontrada: " + fileName);
+        }
+        // Solo se fija por un año el archivo que la URL nombra de verdad; un ?w= que aun cae en el original no
+        if (productImageStorageService.isImmutable(fileName, imagePath)) {
+            imageDeliveryService.serve(imagePath, ImageDeliveryService.IMMUTABLE_CACHE_CONTROL, request, response);
+        } else {
+            imageDeliveryService.serve(imagePath, request, response);
         }
     }
 }
@@ -0,0 +1,36 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.dto.ProductSuggestionDTO;
+import com.fixsy.productos.search.ProductSuggestIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*")
+@Tag(name = "Product Suggestions", description = "Autocompletado de la caja de busqueda")
+public class ProductSuggestController {
+
+    private final ProductSuggestIndex productSuggestIndex;
+
+    public ProductSuggestController(ProductSuggestIndex productSuggestIndex) {
+        this.productSuggestIndex = productSuggestIndex;
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Sugerencias por prefijo sobre nombres, SKUs, marcas y categorias",
+            description = "Se resuelve en memoria, sin consultar la base de datos. Maximo 20 sugerencias")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggest(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null || limit <= 0 ? ProductSuggestIndex.DEFAULT_LIMIT : limit;
+        List<ProductSuggestionDTO> suggestions = productSuggestIndex.suggest(prefix, size).stream()
+                .map(s -> new ProductSuggestionDTO(s.text(), s.type().name(), s.productId(), s.slug()))
+                .toList();
+        return ResponseEntity.ok(suggestions);
+    }
+}
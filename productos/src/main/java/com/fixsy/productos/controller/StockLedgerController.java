@@ -0,0 +1,71 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.dto.StockLevelDTO;
+import com.fixsy.productos.dto.StockMovementDTO;
+import com.fixsy.productos.dto.StockMovementRequestDTO;
+import com.fixsy.productos.service.StockLedgerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*")
+@Tag(name = "Stock Ledger", description = "Movimientos de stock y disponible por SKU")
+public class StockLedgerController {
+
+    private final StockLedgerService stockLedger;
+
+    public StockLedgerController(StockLedgerService stockLedger) {
+        this.stockLedger = stockLedger;
+    }
+
+    @PostMapping("/stock/movements")
+    @Operation(summary = "Registrar un movimiento de stock (venta, cancelacion, reposicion, devolucion o ajuste)",
+            description = "Solo inserta el movimiento; el stock del producto se actualiza en la siguiente compactacion")
+    public ResponseEntity<StockLevelDTO> recordMovement(@Valid @RequestBody StockMovementRequestDTO request) {
+        return ResponseEntity.ok(stockLedger.recordMovement(request));
+    }
+
+    @GetMapping("/stock/movements")
+    @Operation(summary = "Ultimos movimientos de un SKU, o todos los de un pedido con orderRef")
+    public ResponseEntity<List<StockMovementDTO>> getMovements(
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String orderRef,
+            @RequestParam(required = false) Integer size) {
+        if (orderRef != null && !orderRef.isBlank()) {
+            return ResponseEntity.ok(stockLedger.getMovementsByOrder(orderRef.trim()));
+        }
+        if (sku == null || sku.isBlank()) {
+            throw new IllegalArgumentException("Debe indicar sku u orderRef");
+        }
+        return ResponseEntity.ok(stockLedger.getMovements(sku, size));
+    }
+
+    @GetMapping("/stock/available")
+    @Operation(summary = "Stock disponible de un SKU segun el ledger, sin esperar la compactacion")
+    public ResponseEntity<StockLevelDTO> getAvailable(@RequestParam String sku) {
+        return ResponseEntity.ok(stockLedger.getLevel(sku));
+    }
+
+    @GetMapping("/admin/stock/ledger")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Movimientos pendientes de compactar y ultima compactacion")
+    public ResponseEntity<Map<String, Object>> getLedgerStats() {
+        return ResponseEntity.ok(stockLedger.stats());
+    }
+
+    @PostMapping("/admin/stock/compact")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Compactar ahora los movimientos pendientes en el stock de cada producto")
+    public ResponseEntity<Map<String, Object>> compact() {
+        int compacted = stockLedger.compact();
+        return ResponseEntity.ok(Map.of("compacted", compacted));
+    }
+}
@@ -0,0 +1,30 @@
+package com.fixsy.productos.controller;
+
+import com.fixsy.productos.service.ProductTagService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products/admin/tags")
+@CrossOrigin(origins = "*")
+@Tag(name = "Tag Admin", description = "Mantenimiento de la tabla normalizada de tags")
+public class TagAdminController {
+
+    private final ProductTagService productTagService;
+
+    public TagAdminController(ProductTagService productTagService) {
+        this.productTagService = productTagService;
+    }
+
+    @PostMapping("/migrate")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Migrar los tags guardados como texto a la tabla product_tags (idempotente)")
+    public ResponseEntity<Map<String, Object>> migrate() {
+        return ResponseEntity.ok(productTagService.migrateLegacyTags());
+    }
+}
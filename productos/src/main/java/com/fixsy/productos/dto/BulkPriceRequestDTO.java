@@ -0,0 +1,24 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Reglas de precio a aplicar en orden, o a previsualizar con dryRun")
+public class BulkPriceRequestDTO {
+    @NotEmpty(message = "Debe incluir al menos una regla")
+    @Valid
+    @Schema(description = "Reglas que se aplican en el orden recibido", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<PriceRuleDTO> rules;
+
+    @Schema(description = "Solo calcular el resultado sin guardar cambios", example = "true")
+    private boolean dryRun;
+}
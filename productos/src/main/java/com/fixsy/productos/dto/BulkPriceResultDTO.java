@@ -0,0 +1,23 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de una actualizacion masiva de precios")
+public class BulkPriceResultDTO {
+    @Schema(description = "Indica que no se guardo ningun cambio", example = "true")
+    private boolean dryRun;
+
+    @Schema(description = "Resumen por regla, en el orden recibido")
+    private List<PriceRuleResultDTO> rules;
+
+    @Schema(description = "Duracion total en milisegundos", example = "3400")
+    private long elapsedMillis;
+}
@@ -0,0 +1,24 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Valor de un facet con la cantidad de productos que lo cumplen")
+public class FacetValueDTO {
+    @Schema(description = "Valor a enviar como filtro", example = "frenos")
+    private String value;
+
+    @Schema(description = "Texto para mostrar", example = "Frenos")
+    private String label;
+
+    @Schema(description = "Productos que quedarian al elegir este valor con los demas filtros actuales", example = "12")
+    private int count;
+
+    @Schema(description = "Indica si el valor esta seleccionado en la consulta actual", example = "false")
+    private boolean selected;
+}
@@ -0,0 +1,21 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Fila de una importacion que no se pudo aplicar")
+public class ImportRowErrorDTO {
+    @Schema(description = "Linea del archivo donde empieza la fila", example = "42")
+    private long line;
+
+    @Schema(description = "SKU de la fila, si se pudo leer", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "Motivo del rechazo", example = "El precio no puede ser negativo")
+    private String message;
+}
@@ -0,0 +1,59 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Estado y avance de un trabajo de mantenimiento del catalogo")
+public class MaintenanceJobDTO {
+    @Schema(description = "ID del trabajo", example = "12")
+    private Long id;
+
+    @Schema(description = "Tipo de trabajo", example = "normalize-slugs")
+    private String type;
+
+    @Schema(description = "QUEUED, RUNNING, COMPLETED, FAILED o CANCELLED", example = "RUNNING")
+    private String status;
+
+    @Schema(description = "Productos a recorrer (estimado al iniciar)", example = "48000")
+    private long total;
+
+    @Schema(description = "Productos recorridos", example = "12000")
+    private long processed;
+
+    @Schema(description = "Productos modificados", example = "340")
+    private long changed;
+
+    @Schema(description = "Porcentaje de avance", example = "25.0")
+    private double percent;
+
+    @Schema(description = "Productos por segundo", example = "4200.5")
+    private double itemsPerSecond;
+
+    @Schema(description = "Segundos restantes estimados (null si aun no hay ritmo medido)", example = "9")
+    private Long etaSeconds;
+
+    @Schema(description = "Checkpoint: ultimo id de producto procesado", example = "12873")
+    private long lastProductId;
+
+    @Schema(description = "Cancelacion pedida y pendiente de aplicar", example = "false")
+    private boolean cancelRequested;
+
+    @Schema(description = "Error del ultimo intento, si fallo")
+    private String message;
+
+    @Schema(description = "Fecha de creacion")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Fecha de inicio")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Fecha de termino")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,32 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cambio de precio de un producto dentro de una regla masiva")
+public class PriceChangeDTO {
+    @Schema(description = "SKU del producto", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "Precio antes de la regla", example = "9990")
+    private BigDecimal precioNormalAntes;
+
+    @Schema(description = "Precio despues de la regla", example = "10990")
+    private BigDecimal precioNormalDespues;
+
+    @Schema(description = "Oferta antes de la regla", example = "8990")
+    private BigDecimal precioOfertaAntes;
+
+    @Schema(description = "Oferta despues de la regla (null si se quita)", example = "8990")
+    private BigDecimal precioOfertaDespues;
+
+    @Schema(description = "Motivo por el que no se aplico, si fue rechazado", example = "La oferta no puede ser mayor al precio")
+    private String rejectedReason;
+}
@@ -0,0 +1,46 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Regla de precio masiva: una accion y los productos a los que aplica")
+public class PriceRuleDTO {
+
+    public enum Action {
+        SET_PRICE, PERCENT_CHANGE, SET_OFFER, CLEAR_OFFER
+    }
+
+    @NotNull(message = "La accion es obligatoria")
+    @Schema(description = "SET_PRICE (precio absoluto), PERCENT_CHANGE (porcentaje sobre el precio), "
+            + "SET_OFFER (precio de oferta) o CLEAR_OFFER (quitar oferta)", example = "PERCENT_CHANGE",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    private Action action;
+
+    @Schema(description = "Precio, porcentaje (10 = +10%, -15 = -15%) u oferta segun la accion; no aplica a CLEAR_OFFER",
+            example = "10")
+    private BigDecimal value;
+
+    @Schema(description = "SKUs a modificar; no se combina con los demas filtros", example = "[\"FLT-001\",\"PAS-010\"]")
+    private List<String> skus;
+
+    @Schema(description = "Categoria exacta", example = "Frenos")
+    private String categoria;
+
+    @Schema(description = "Marca exacta", example = "Bosch")
+    private String marca;
+
+    @Schema(description = "Etiqueta", example = "mantenimiento")
+    private String tag;
+
+    @Schema(description = "Aplicar a todo el catalogo; obligatorio si no se indica ningun filtro", example = "false")
+    private Boolean allProducts;
+}
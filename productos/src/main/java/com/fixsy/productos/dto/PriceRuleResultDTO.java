@@ -0,0 +1,35 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resumen de una regla de precio masiva")
+public class PriceRuleResultDTO {
+    @Schema(description = "Accion de la regla", example = "PERCENT_CHANGE")
+    private PriceRuleDTO.Action action;
+
+    @Schema(description = "Productos que cumplen el filtro", example = "1200")
+    private int matched;
+
+    @Schema(description = "Productos modificados (o que se modificarian en dryRun)", example = "1180")
+    private int changed;
+
+    @Schema(description = "Productos que ya tenian el valor pedido", example = "15")
+    private int unchanged;
+
+    @Schema(description = "Productos rechazados por validacion (por ejemplo oferta mayor al precio)", example = "5")
+    private int rejected;
+
+    @Schema(description = "SKUs pedidos que no existen", example = "0")
+    private int notFound;
+
+    @Schema(description = "Muestra de los primeros cambios y rechazos")
+    private List<PriceChangeDTO> sample;
+}
@@ -0,0 +1,27 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de una consulta de productos por lote")
+public class ProductBatchDTO {
+    @Schema(description = "Productos encontrados por id, en el orden pedido")
+    private Map<Long, ProductDTO> byId;
+
+    @Schema(description = "Productos encontrados por SKU, con la clave tal como se pidio")
+    private Map<String, ProductDTO> bySku;
+
+    @Schema(description = "IDs pedidos que no existen", example = "[99]")
+    private List<Long> missingIds;
+
+    @Schema(description = "SKUs pedidos que no existen", example = "[\"NO-EXISTE\"]")
+    private List<String> missingSkus;
+}
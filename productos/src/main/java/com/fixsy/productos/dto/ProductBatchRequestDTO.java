@@ -0,0 +1,21 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Productos a resolver en una sola consulta, por id y/o por SKU")
+public class ProductBatchRequestDTO {
+    @Schema(description = "IDs de producto", example = "[15, 16, 42]")
+    private List<Long> ids = new ArrayList<>();
+
+    @Schema(description = "SKUs de producto (sin distinguir mayusculas)", example = "[\"FLT-001\", \"BRK-220\"]")
+    private List<String> skus = new ArrayList<>();
+}
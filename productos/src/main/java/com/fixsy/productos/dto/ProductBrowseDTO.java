@@ -0,0 +1,24 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina del listado con filtros y los conteos de cada facet para el sidebar")
+public class ProductBrowseDTO {
+    @Schema(description = "Productos de la pagina actual ordenados por id")
+    private CursorPageDTO<ProductDTO> page;
+
+    @Schema(description = "Total de productos que cumplen todos los filtros", example = "57")
+    private int total;
+
+    @Schema(description = "Conteos por dimension: categoria, marca, tag, precio, inStock, onSale, featured")
+    private Map<String, List<FacetValueDTO>> facets;
+}
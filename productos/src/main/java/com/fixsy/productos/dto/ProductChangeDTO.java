@@ -0,0 +1,38 @@
+package com.fixsy.productos.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cambio de producto publicado en el feed de cambios")
+public class ProductChangeDTO {
+    @Schema(description = "Numero de secuencia del cambio; crece sin huecos en el feed", example = "1042")
+    private long sequence;
+
+    @Schema(description = "Cursor para continuar el feed justo despues de este cambio", example = "cDoxMDQy")
+    private String cursor;
+
+    @Schema(description = "ID del producto", example = "15")
+    private Long productId;
+
+    @Schema(description = "SKU del producto", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "CREATED, UPDATED, PRICE, OFFER, STOCK, FEATURED, ACTIVE, IMAGE o DELETED", example = "PRICE")
+    private String type;
+
+    @Schema(description = "Momento de la escritura")
+    private LocalDateTime occurredAt;
+
+    // JSON guardado en el outbox; se entrega tal cual, sin volver a deserializarlo
+    @JsonRawValue
+    @Schema(description = "Estado del producto tras el cambio (null si se elimino)", implementation = ProductChangeStateDTO.class)
+    private String state;
+}
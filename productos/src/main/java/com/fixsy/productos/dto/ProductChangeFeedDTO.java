@@ -0,0 +1,27 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Pagina del feed de cambios de productos")
+public class ProductChangeFeedDTO {
+    @Schema(description = "Cambios en orden de secuencia")
+    private List<ProductChangeDTO> items;
+
+    @Schema(description = "Cursor para la siguiente consulta; siempre presente, aunque no haya cambios", example = "cDoxMDQy")
+    private String nextCursor;
+
+    @Schema(description = "Hay mas cambios disponibles sin esperar", example = "false")
+    private boolean hasMore;
+
+    @Schema(description = "El cursor es anterior a los cambios retenidos (o posterior al ultimo): el cliente debe "
+            + "recargar el catalogo completo y continuar con nextCursor", example = "false")
+    private boolean resyncRequired;
+}
@@ -0,0 +1,47 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Estado del producto inmediatamente despues de un cambio")
+public class ProductChangeStateDTO {
+    @Schema(description = "Nombre del producto", example = "Filtro de aceite")
+    private String nombre;
+
+    @Schema(description = "Slug del producto", example = "filtro-de-aceite")
+    private String slug;
+
+    @Schema(description = "Precio normal", example = "15990")
+    private BigDecimal precioNormal;
+
+    @Schema(description = "Precio de oferta (null si no tiene)", example = "12990")
+    private BigDecimal precioOferta;
+
+    @Schema(description = "Precio final con el porcentaje de descuento aplicado", example = "12990")
+    private BigDecimal finalPrice;
+
+    @Schema(description = "Stock disponible", example = "42")
+    private Integer stock;
+
+    @Schema(description = "Producto activo", example = "true")
+    private Boolean isActive;
+
+    @Schema(description = "Producto destacado", example = "false")
+    private Boolean isFeatured;
+
+    @Schema(description = "Categoria", example = "Filtros")
+    private String categoria;
+
+    @Schema(description = "Marca", example = "Bosch")
+    private String marca;
+
+    @Schema(description = "Version del producto; crece con cada cambio y permite descartar estados viejos", example = "7")
+    private Long version;
+}
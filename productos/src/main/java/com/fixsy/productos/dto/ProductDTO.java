@@ -4,10 +4,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -41,7 +43,9 @@ public class ProductDTO {
     @Schema(description = "Precio final calculado aplicando descuento", example = "8491.5")
     private BigDecimal finalPrice;
 
+    // El detalle y el batch lo completan con el disponible del ledger; los listados informan el stock compactado
     @Schema(description = "Stock disponible", example = "12")
+    @With
     private Integer stock;
 
     @Schema(description = "Tags/etiquetas del producto", example = "[\"motor\", \"mantenimiento\"]")
@@ -56,6 +60,10 @@ public class ProductDTO {
     @Schema(description = "URLs de imagenes adicionales")
     private List<String> images;
 
+    @Schema(description = "URLs de la imagen principal por ancho en px (vacio hasta que se generan los derivados)",
+            example = "{\"160\": \"https://example.com/images/filtro.jpg?w=160\"}")
+    private Map<Integer, String> imageSizes;
+
     @Schema(description = "Categoria del producto", example = "Filtros")
     private String categoria;
 
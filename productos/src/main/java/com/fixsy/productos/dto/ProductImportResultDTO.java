@@ -0,0 +1,35 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resumen de una importacion masiva de productos")
+public class ProductImportResultDTO {
+    @Schema(description = "Filas leidas del archivo", example = "200000")
+    private int processed;
+
+    @Schema(description = "Productos nuevos creados", example = "1500")
+    private int created;
+
+    @Schema(description = "Productos existentes actualizados por SKU", example = "198400")
+    private int updated;
+
+    @Schema(description = "Filas rechazadas", example = "100")
+    private int failed;
+
+    @Schema(description = "Detalle de las filas rechazadas (solo las primeras si son muchas)")
+    private List<ImportRowErrorDTO> errors;
+
+    @Schema(description = "Indica que hubo mas errores de los que se listan", example = "false")
+    private boolean errorsTruncated;
+
+    @Schema(description = "Duracion de la importacion en milisegundos", example = "8200")
+    private long elapsedMillis;
+}
@@ -0,0 +1,18 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de busqueda con su puntaje de relevancia")
+public class ProductSearchHitDTO {
+    @Schema(description = "Puntaje de relevancia (BM25), mayor es mas relevante", example = "7.4213")
+    private double score;
+
+    @Schema(description = "Producto encontrado")
+    private ProductDTO product;
+}
@@ -0,0 +1,24 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sugerencia de autocompletado para la caja de busqueda")
+public class ProductSuggestionDTO {
+    @Schema(description = "Texto a mostrar", example = "Filtro de aceite 1.6-2.0L")
+    private String text;
+
+    @Schema(description = "PRODUCT, SKU, MARCA o CATEGORIA", example = "PRODUCT")
+    private String type;
+
+    @Schema(description = "ID del producto (solo PRODUCT y SKU)", example = "15")
+    private Long productId;
+
+    @Schema(description = "Slug del producto para enlazar a su ficha (solo PRODUCT y SKU)", example = "filtro-de-aceite-1-6-2-0l")
+    private String slug;
+}
@@ -0,0 +1,65 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Version resumida de un producto para grillas y listados; el detalle completo esta en ProductDTO")
+public class ProductSummaryDTO {
+    @Schema(description = "ID del producto", example = "1")
+    private Long id;
+
+    @Schema(description = "Slug publico para URLs", example = "filtro-de-aceite")
+    private String slug;
+
+    @Schema(description = "Nombre del producto", example = "Filtro de aceite")
+    private String nombre;
+
+    @Schema(description = "Precio normal del producto en pesos", example = "9990")
+    private BigDecimal precioNormal;
+
+    @Schema(description = "Precio de oferta (si aplica)", example = "7990")
+    private BigDecimal precioOferta;
+
+    @Schema(description = "Porcentaje de descuento aplicado", example = "15")
+    private Integer discountPercentage;
+
+    @Schema(description = "Precio final calculado aplicando descuento", example = "8491.5")
+    private BigDecimal finalPrice;
+
+    @Schema(description = "Stock compactado: puede no incluir los movimientos del ultimo intervalo de compactacion "
+            + "(el detalle y el batch informan el disponible)", example = "12")
+    private Integer stock;
+
+    @Schema(description = "URL de imagen principal", example = "https://example.com/filtro.jpg")
+    private String imageUrl;
+
+    @Schema(description = "URLs de la imagen principal por ancho en px; mientras no existan los derivados se entrega el original",
+            example = "{\"160\": \"https://example.com/images/filtro.jpg?w=160\"}")
+    private Map<Integer, String> imageSizes;
+
+    @Schema(description = "Categoria del producto", example = "Motor")
+    private String categoria;
+
+    @Schema(description = "Marca del repuesto", example = "Bosch")
+    private String marca;
+
+    @Schema(description = "Codigo SKU", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "Producto activo", example = "true")
+    private Boolean isActive;
+
+    @Schema(description = "Producto destacado", example = "false")
+    private Boolean destacado;
+
+    @Schema(description = "Tiene precio de oferta", example = "true")
+    private Boolean oferta;
+}
@@ -0,0 +1,22 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ajuste de stock de un SKU dentro de un lote")
+public class StockAdjustmentDTO {
+    @NotBlank(message = "El SKU es obligatorio")
+    @Schema(description = "SKU del producto", example = "FLT-001", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String sku;
+
+    @NotNull(message = "El ajuste es obligatorio")
+    @Schema(description = "Unidades a sumar (positivo) o restar (negativo)", example = "-2", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer delta;
+}
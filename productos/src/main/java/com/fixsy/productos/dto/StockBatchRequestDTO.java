@@ -0,0 +1,21 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Lote de ajustes de stock que se aplica completo o no se aplica")
+public class StockBatchRequestDTO {
+    @NotEmpty(message = "Debe incluir al menos un ajuste")
+    @Valid
+    @Schema(description = "Ajustes por SKU; un SKU repetido suma sus ajustes", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<StockAdjustmentDTO> items;
+}
@@ -0,0 +1,21 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Stock disponible de un producto segun el ledger")
+public class StockLevelDTO {
+    @Schema(description = "ID del producto", example = "15")
+    private Long productId;
+
+    @Schema(description = "SKU del producto", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "Stock compactado mas movimientos pendientes, descontando los que aun no confirman", example = "42")
+    private int available;
+}
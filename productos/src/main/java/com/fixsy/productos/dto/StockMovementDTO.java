@@ -0,0 +1,45 @@
+package com.fixsy.productos.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Movimiento registrado en el ledger de stock")
+public class StockMovementDTO {
+    @Schema(description = "ID del movimiento", example = "981")
+    private Long id;
+
+    @Schema(description = "ID del producto", example = "15")
+    private Long productId;
+
+    @Schema(description = "SKU del producto", example = "FLT-001")
+    private String sku;
+
+    @Schema(description = "Unidades sumadas o restadas (en una fijacion pendiente, la diferencia estimada)",
+            example = "-2")
+    private Integer delta;
+
+    @Schema(description = "ADJUSTMENT, SET, IMPORT, ORDER, ORDER_CANCELLED, RESTOCK o RETURN", example = "ORDER")
+    private String reason;
+
+    @Schema(description = "Pedido que origino el movimiento", example = "ORD-2024-0042")
+    private String orderRef;
+
+    @Schema(description = "Momento del registro")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Momento en que se sumo al stock del producto (null si aun esta pendiente)")
+    private LocalDateTime compactedAt;
+
+    @Schema(description = "Momento en que se rechazo al compactar por dejar el stock negativo (null si se sumo)")
+    private LocalDateTime rejectedAt;
+
+    @Schema(description = "Valor absoluto pedido por SET o IMPORT (null en los movimientos relativos)", example = "20")
+    private Integer target;
+}
@@ -0,0 +1,31 @@
+package com.fixsy.productos.dto;
+
+import com.fixsy.productos.model.StockMovementReason;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Movimiento de stock a registrar en el ledger")
+public class StockMovementRequestDTO {
+    @NotBlank(message = "El SKU es obligatorio")
+    @Schema(description = "SKU del producto", example = "FLT-001", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String sku;
+
+    @NotNull(message = "El delta es obligatorio")
+    @Schema(description = "Unidades a sumar (positivo) o restar (negativo)", example = "-2", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer delta;
+
+    @Schema(description = "ADJUSTMENT (por defecto), ORDER, ORDER_CANCELLED, RESTOCK o RETURN", example = "ORDER")
+    private StockMovementReason reason;
+
+    @Size(max = 100, message = "La referencia del pedido admite hasta 100 caracteres")
+    @Schema(description = "Pedido que origina el movimiento", example = "ORD-2024-0042")
+    private String orderRef;
+}
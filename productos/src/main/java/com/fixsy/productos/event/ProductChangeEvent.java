@@ -0,0 +1,29 @@
+package com.fixsy.productos.event;
+
+import com.fixsy.productos.model.Product;
+
+/**
+ * Evento publicado por cada metodo de escritura de ProductService.
+ *
+ * @param productId id del producto afectado
+ * @param type      tipo de cambio
+ * @param before    estado previo (null al crear)
+ * @param after     estado posterior (null al eliminar)
+ * @param product   entidad guardada (null al eliminar)
+ */
+public record ProductChangeEvent(
+        Long productId,
+        ProductChangeType type,
+        ProductSnapshot before,
+        ProductSnapshot after,
+        Product product) {
+
+    public static ProductChangeEvent of(ProductChangeType type, ProductSnapshot before, Product saved) {
+        Long id = saved != null ? saved.getId() : (before != null ? before.id() : null);
+        return new ProductChangeEvent(id, type, before, ProductSnapshot.of(saved), saved);
+    }
+
+    public boolean isDeletion() {
+        return type == ProductChangeType.DELETED;
+    }
+}
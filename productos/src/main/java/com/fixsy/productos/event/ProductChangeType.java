@@ -0,0 +1,16 @@
+package com.fixsy.productos.event;
+
+/**
+ * Tipo de cambio aplicado a un producto por ProductService.
+ */
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    PRICE,
+    OFFER,
+    STOCK,
+    FEATURED,
+    ACTIVE,
+    IMAGE,
+    DELETED
+}
@@ -0,0 +1,44 @@
+package com.fixsy.productos.event;
+
+import com.fixsy.productos.model.Product;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Copia inmutable de los campos de un producto que los consumidores de cambios necesitan comparar
+ * (la entidad se modifica en el mismo metodo que publica el evento).
+ */
+public record ProductSnapshot(
+        Long id,
+        String sku,
+        String categoria,
+        String marca,
+        boolean active,
+        boolean featured,
+        String imageUrl,
+        List<String> images,
+        List<String> tags,
+        List<Long> tagIds) {
+
+    public static ProductSnapshot of(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return new ProductSnapshot(
+                product.getId(),
+                product.getSku(),
+                product.getCategoria(),
+                product.getMarca(),
+                Boolean.TRUE.equals(product.getIsActive()),
+                Boolean.TRUE.equals(product.getIsFeatured()),
+                product.getImageUrl(),
+                copy(product.getImages()),
+                copy(product.getTags()),
+                copy(product.getTagIds()));
+    }
+
+    private static <T> List<T> copy(List<T> values) {
+        return values == null ? List.of() : values.stream().filter(Objects::nonNull).toList();
+    }
+}
@@ -0,0 +1,30 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contador de referencias de una imagen direccionada por contenido. El nombre es el del archivo
+ * ({@code <sha256>.<ext>}) y refCount cuenta cuantas veces aparece como imagen principal o de galeria.
+ * Cuando llega a cero el recolector de imagenes puede borrar el archivo y sus derivados.
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+    @Id
+    @Column(length = 80)
+    private String name;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
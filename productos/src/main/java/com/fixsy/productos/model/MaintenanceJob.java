@@ -0,0 +1,99 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trabajo de mantenimiento del catalogo. Recorre products por id y guarda como checkpoint el ultimo id
+ * procesado en la misma transaccion que los cambios de cada bloque, asi que al reanudarse (reinicio o
+ * fallo) continua exactamente donde quedo sin repetir ni saltar productos.
+ * <p>
+ * Con {@code @DynamicUpdate} el avance de cada bloque solo escribe las columnas que cambian, asi que no
+ * pisa una cancelacion pedida mientras el bloque corria.
+ */
+@Entity
+@Table(
+        name = "maintenance_jobs",
+        indexes = {
+                @Index(name = "idx_maintenance_jobs_status", columnList = "status")
+        }
+)
+@DynamicUpdate
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaintenanceJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MaintenanceJobStatus status;
+
+    // Productos al iniciar; es una estimacion si el catalogo cambia durante el trabajo
+    @Column(nullable = false)
+    private Long total;
+
+    @Column(nullable = false)
+    private Long processed;
+
+    @Column(nullable = false)
+    private Long changed;
+
+    // Checkpoint: ultimo id de producto ya procesado
+    @Column(name = "last_product_id", nullable = false)
+    private Long lastProductId;
+
+    // Tiempo efectivo de procesamiento, acumulado entre reanudaciones, para estimar el ritmo
+    @Column(name = "elapsed_millis", nullable = false)
+    private Long elapsedMillis;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private Boolean cancelRequested;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public MaintenanceJob(String type, long total) {
+        this.type = type;
+        this.status = MaintenanceJobStatus.QUEUED;
+        this.total = total;
+        this.processed = 0L;
+        this.changed = 0L;
+        this.lastProductId = 0L;
+        this.elapsedMillis = 0L;
+        this.cancelRequested = false;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
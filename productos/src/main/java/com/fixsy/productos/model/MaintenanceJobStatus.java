@@ -0,0 +1,13 @@
+package com.fixsy.productos.model;
+
+public enum MaintenanceJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isActive() {
+        return this == QUEUED || this == RUNNING;
+    }
+}
@@ -0,0 +1,25 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila unica con el ultimo numero de secuencia asignado por el relay del outbox. El relay la bloquea
+ * (SELECT ... FOR UPDATE) mientras numera, asi que con varias instancias solo una asigna a la vez.
+ */
+@Entity
+@Table(name = "outbox_relay_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayState {
+    public static final long PRODUCT_OUTBOX = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
@@ -1,26 +1,46 @@
 package com.fixsy.productos.model;
 
+import com.fixsy.productos.service.ProductPricing;
+import com.fixsy.productos.service.ProductSlugs;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
 @Table(
         name = "products",
         indexes = {
-                @Index(name = "uk_products_sku", columnList = "sku", unique = true)
+                @Index(name = "uk_products_sku", columnList = "sku", unique = true),
+                // Indices para la paginacion keyset de los listados publicos
+                @Index(name = "idx_products_active_id", columnList = "is_active, id"),
+                @Index(name = "idx_products_featured_active_id", columnList = "is_featured, is_active, id"),
+                @Index(name = "idx_products_categoria_active_id", columnList = "categoria, is_active, id")
         }
 )
+// Cache de segundo nivel: las escrituras por Hibernate actualizan la entrada al confirmar y los UPDATE masivos
+// de precios vacian la region completa
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+    public static final String CACHE_REGION = "products";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -61,6 +81,10 @@ public class Product {
     @Column(columnDefinition = "TEXT")
     private List<String> images = new ArrayList<>(); // URLs separadas por comas para galeria
 
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "image_derivatives", columnDefinition = "TEXT")
+    private List<String> imageDerivatives = new ArrayList<>(); // Imagenes locales con tamaños derivados ya generados
+
     @Column
     private String categoria; // Categoria del producto
 
@@ -82,12 +106,52 @@ public class Product {
     @Column(name = "discount_percentage")
     private Integer discountPercentage;
 
+    // Bloqueo optimista: dos ediciones concurrentes del mismo producto no se pisan en silencio
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Precio final ya calculado y el precio y descuento de los que sale. Se compara por referencia y no con
+    // setters porque Hibernate escribe los campos directamente al cargar o refrescar la entidad.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BigDecimal cachedFinalPrice;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BigDecimal cachedFinalPriceBase;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Integer cachedFinalPriceDiscount;
+
+    /**
+     * Precio normal menos el descuento. Se recalcula solo cuando cambia el precio o el descuento.
+     */
+    public BigDecimal getFinalPrice() {
+        if (cachedFinalPrice == null || cachedFinalPriceBase != precioNormal || cachedFinalPriceDiscount != discountPercentage) {
+            cachedFinalPrice = ProductPricing.finalPrice(precioNormal, discountPercentage);
+            cachedFinalPriceBase = precioNormal;
+            cachedFinalPriceDiscount = discountPercentage;
+        }
+        return cachedFinalPrice;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -101,6 +165,7 @@ public class Product {
         if (tags == null) tags = new ArrayList<>();
         if (tagIds == null) tagIds = new ArrayList<>();
         if (images == null) images = new ArrayList<>();
+        if (imageDerivatives == null) imageDerivatives = new ArrayList<>();
     }
 
     @PreUpdate
@@ -111,16 +176,19 @@ public class Product {
         if (tags == null) tags = new ArrayList<>();
         if (tagIds == null) tagIds = new ArrayList<>();
         if (images == null) images = new ArrayList<>();
+        if (imageDerivatives == null) imageDerivatives = new ArrayList<>();
         if (stock == null) stock = 0;
     }
 
+    /**
+     * Clave para comparar SKUs en memoria. MySQL los compara sin distinguir mayusculas, asi que "abc-1" y
+     * "ABC-1" son el mismo producto tambien fuera de la base.
+     */
+    public static String skuKey(String sku) {
+        return sku == null ? null : sku.trim().toLowerCase(Locale.ROOT);
+    }
+
     private String buildSlug(String base) {
-        if (base == null) {
-            return null;
-        }
-        return base.trim()
-                .toLowerCase()
-                .replaceAll("[^a-z0-9]+", "-")
-                .replaceAll("^-+|-+$", "");
+        return ProductSlugs.slugify(base);
     }
 }
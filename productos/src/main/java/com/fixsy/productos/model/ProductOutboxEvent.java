@@ -0,0 +1,69 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de producto registrado en la misma transaccion que la escritura (outbox transaccional): si la
+ * escritura se revierte, el registro tambien, y si confirma, el cambio queda publicado aunque el proceso
+ * caiga justo despues.
+ * <p>
+ * El id lo asigna la base al insertar, pero las transacciones pueden confirmar en otro orden; por eso el
+ * relay asigna {@code sequence} a los registros ya confirmados, y el feed de cambios pagina por ese
+ * numero, que solo crece y nunca deja huecos detras del ultimo entregado.
+ */
+@Entity
+@Table(
+        name = "product_outbox",
+        indexes = {
+                @Index(name = "uk_product_outbox_seq", columnList = "seq", unique = true),
+                @Index(name = "idx_product_outbox_created_at", columnList = "created_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null hasta que el relay lo publica
+    @Column(name = "seq")
+    private Long sequence;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(length = 255)
+    private String sku;
+
+    @Column(name = "change_type", nullable = false, length = 20)
+    private String changeType;
+
+    // Estado del producto tras el cambio, en JSON (null al eliminar)
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public ProductOutboxEvent(Long productId, String sku, String changeType, String payload) {
+        this.productId = productId;
+        this.sku = sku;
+        this.changeType = changeType;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
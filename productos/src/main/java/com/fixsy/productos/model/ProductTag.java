@@ -0,0 +1,48 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Relacion producto-etiqueta. La clave primaria (product_id, tag_id) resuelve las etiquetas de un
+ * producto y el indice (tag_id, product_id) resuelve los productos de una etiqueta sin leer la tabla.
+ * <p>
+ * La clave es asignada, asi que se marca como nueva hasta persistirla para que {@code saveAll}
+ * inserte directamente en vez de hacer un SELECT previo por cada fila.
+ */
+@Entity
+@Table(
+        name = "product_tags",
+        indexes = {
+                @Index(name = "idx_product_tags_tag_product", columnList = "tag_id, product_id")
+        }
+)
+@NoArgsConstructor
+public class ProductTag implements Persistable<ProductTagId> {
+    @EmbeddedId
+    private ProductTagId id;
+
+    @Transient
+    private boolean persisted;
+
+    public ProductTag(Long productId, Long tagId) {
+        this.id = new ProductTagId(productId, tagId);
+    }
+
+    @Override
+    public ProductTagId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTagId implements Serializable {
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "tag_id", nullable = false)
+    private Long tagId;
+}
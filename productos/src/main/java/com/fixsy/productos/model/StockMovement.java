@@ -0,0 +1,85 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de stock de un producto. Las filas solo se insertan: el stock disponible es el valor
+ * compactado en {@code products.stock} mas la suma de los movimientos aun sin compactar, y el compactador
+ * solo marca {@code compacted_at} en los que ya sumo al producto. Las fijaciones (SET, IMPORT) guardan el valor
+ * pedido en {@code target} y al compactarse dejan en {@code delta} el cambio efectivo. Un descuento que dejaria
+ * el stock negativo al compactarse se marca ademas en {@code rejected_at} y no se suma.
+ */
+@Entity
+@Table(
+        name = "stock_movements",
+        indexes = {
+                @Index(name = "idx_stock_movements_product_id", columnList = "product_id, id"),
+                @Index(name = "idx_stock_movements_pending", columnList = "compacted_at, id"),
+                @Index(name = "idx_stock_movements_order_ref", columnList = "order_ref"),
+                @Index(name = "idx_stock_movements_rejected", columnList = "rejected_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(length = 255)
+    private String sku;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    // Valor absoluto pedido por una fijacion; null en los movimientos relativos
+    @Column(name = "target")
+    private Integer target;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockMovementReason reason;
+
+    // Pedido que origino el movimiento (ventas, cancelaciones, devoluciones)
+    @Column(name = "order_ref", length = 100)
+    private String orderRef;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Null mientras el delta no este sumado a products.stock
+    @Column(name = "compacted_at")
+    private LocalDateTime compactedAt;
+
+    // No null si el compactador lo descarto por dejar products.stock bajo cero
+    @Column(name = "rejected_at")
+    private LocalDateTime rejectedAt;
+
+    public StockMovement(Long productId, String sku, int delta, StockMovementReason reason, String orderRef) {
+        this(productId, sku, delta, reason, orderRef, null);
+    }
+
+    public StockMovement(Long productId, String sku, int delta, StockMovementReason reason, String orderRef,
+                         Integer target) {
+        this.productId = productId;
+        this.sku = sku;
+        this.delta = delta;
+        this.reason = reason;
+        this.orderRef = orderRef;
+        this.target = target;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
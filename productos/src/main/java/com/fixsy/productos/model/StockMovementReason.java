@@ -0,0 +1,14 @@
+package com.fixsy.productos.model;
+
+public enum StockMovementReason {
+    // Ajuste manual (sumar/restar) desde la API de productos
+    ADJUSTMENT,
+    // Fijacion de un valor absoluto: el compactador la convierte en la diferencia con el stock que encuentra
+    SET,
+    // Importacion masiva del catalogo con columna stock
+    IMPORT,
+    ORDER,
+    ORDER_CANCELLED,
+    RESTOCK,
+    RETURN
+}
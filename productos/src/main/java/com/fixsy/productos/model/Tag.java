@@ -0,0 +1,53 @@
+package com.fixsy.productos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Etiqueta del catalogo. El nombre se guarda normalizado (sin espacios extremos, en minusculas)
+ * y es unico, de modo que "Frenos" y "frenos " son la misma etiqueta.
+ */
+@Entity
+@Table(
+        name = "tags",
+        indexes = {
+                @Index(name = "uk_tags_name", columnList = "name", unique = true)
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Tag {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public Tag(String name) {
+        this.name = normalizeName(name);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        name = normalizeName(name);
+    }
+
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,43 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Upsert atomico: crea el contador en 1 o lo incrementa, sin carrera entre dos productos que usan la misma imagen
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (name, ref_count, updated_at) VALUES (:name, 1, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = :now", nativeQuery = true)
+    int increment(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1, b.updatedAt = :now " +
+            "WHERE b.name = :name AND b.refCount > 0")
+    int decrement(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    // Crea el contador en 0 si no existe, sin tocar uno existente: deja una fila que bloquear con lockRefCount
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (name, ref_count, updated_at) VALUES (:name, 0, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count", nativeQuery = true)
+    int ensure(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    // Contador bloqueado hasta el commit: el recolector y los incrementos sobre la misma imagen se esperan.
+    // Nativa y escalar para leer siempre la base, no una entidad que ya este en el contexto de persistencia
+    @Query(value = "SELECT ref_count FROM image_blobs WHERE name = :name FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockRefCount(@Param("name") String name);
+
+    // Corrige el contador con el valor real contado en products (imagenes anteriores al contador)
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (name, ref_count, updated_at) VALUES (:name, :refCount, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = :refCount, updated_at = :now", nativeQuery = true)
+    int resetRefCount(@Param("name") String name, @Param("refCount") int refCount, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.MaintenanceJob;
+import com.fixsy.productos.model.MaintenanceJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MaintenanceJobRepository extends JpaRepository<MaintenanceJob, Long> {
+
+    boolean existsByTypeAndStatusIn(String type, Collection<MaintenanceJobStatus> statuses);
+
+    List<MaintenanceJob> findByStatusInOrderByIdAsc(Collection<MaintenanceJobStatus> statuses);
+
+    List<MaintenanceJob> findTop20ByOrderByIdDesc();
+
+    // Solo marca trabajos que aun pueden cancelarse; el worker lo lee entre bloques
+    @Modifying
+    @Query("UPDATE MaintenanceJob j SET j.cancelRequested = true WHERE j.id = :id AND j.status IN :statuses")
+    int requestCancel(@Param("id") Long id, @Param("statuses") Collection<MaintenanceJobStatus> statuses);
+}
@@ -0,0 +1,26 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.ProductOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    // Pendientes de publicar, en orden de insercion
+    List<ProductOutboxEvent> findBySequenceIsNullOrderByIdAsc(Pageable pageable);
+
+    List<ProductOutboxEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Pageable pageable);
+
+    // Solo se purgan cambios ya publicados; los pendientes se conservan aunque sean antiguos
+    @Modifying
+    @Query("DELETE FROM ProductOutboxEvent e WHERE e.sequence IS NOT NULL AND e.createdAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
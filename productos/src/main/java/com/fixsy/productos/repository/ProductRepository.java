@@ -1,11 +1,20 @@
 package com.fixsy.productos.repository;
 
 import com.fixsy.productos.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +24,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Buscar productos activos
     List<Product> findByIsActiveTrue();
     
-    // Buscar productos destacados
+    // Buscar productos destacados. Las consultas marcadas como cacheables guardan los ids resultantes en el cache
+    // de consultas de Hibernate, que las descarta en cuanto se escribe la tabla products
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByIsFeaturedTrueAndIsActiveTrue();
     
     // Buscar por categoría
@@ -25,8 +36,28 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByMarcaAndIsActiveTrue(String marca);
     
     // Buscar por SKU
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findBySku(String sku);
     boolean existsBySku(String sku);
+
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    // Lecturas para escribir: van a la base aunque el cache de segundo nivel tenga la entidad y dejan el cache
+    // con la fila leida. El cache es local a cada instancia; una entidad con la @Version de antes de un cambio
+    // hecho en otra instancia haria fallar el guardado por bloqueo optimista
+    @QueryHints({
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"),
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_STORE_MODE, value = "REFRESH")})
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findForWriteById(@Param("id") Long id);
+
+    @QueryHints({
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"),
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_STORE_MODE, value = "REFRESH")})
+    @Query("SELECT p FROM Product p WHERE p.sku IN :skus")
+    List<Product> findForWriteBySkuIn(@Param("skus") Collection<String> skus);
+
+    boolean existsBySlugAndIdNot(String slug, Long id);
     
     // Buscar productos con stock
     List<Product> findByStockGreaterThanAndIsActiveTrue(Integer minStock);
@@ -38,23 +69,106 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.precioOferta IS NOT NULL AND p.isActive = true")
     List<Product> findProductsOnSale();
     
-    // Buscar por nombre (contiene)
-    @Query("SELECT p FROM Product p WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :searchTerm, '%')) AND p.isActive = true")
-    List<Product> searchByNombre(@Param("searchTerm") String searchTerm);
-    
-    // Buscar por tags (contiene)
-    @Query("SELECT p FROM Product p WHERE LOWER(p.tags) LIKE LOWER(CONCAT('%', :tag, '%')) AND p.isActive = true")
+    // Buscar por tag exacto a traves de product_tags (el nombre debe venir normalizado, ver Tag.normalizeName)
+    @Query("SELECT p FROM Product p JOIN ProductTag pt ON pt.id.productId = p.id JOIN Tag t ON t.id = pt.id.tagId " +
+            "WHERE t.name = :tag AND p.isActive = true ORDER BY p.id ASC")
     List<Product> findByTag(@Param("tag") String tag);
     
     // Contar productos por categoría
     Long countByCategoriaAndIsActiveTrue(String categoria);
     
     // Obtener categorías únicas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT DISTINCT p.categoria FROM Product p WHERE p.categoria IS NOT NULL AND p.isActive = true")
     List<String> findAllCategorias();
     
     // Obtener marcas únicas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT DISTINCT p.marca FROM Product p WHERE p.marca IS NOT NULL AND p.isActive = true")
     List<String> findAllMarcas();
-}
 
+    // Paginacion keyset: siempre "id > ultimo id entregado" ordenado por id, el Pageable solo aporta el limite
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Product> findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Product> findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Product> findByCategoriaAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(String categoria, Long afterId, Pageable pageable);
+
+    List<Product> findByStockGreaterThanAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(Integer minStock, Long afterId, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.precioOferta IS NOT NULL AND p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findProductsOnSaleAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Listados resumidos por keyset: mismas condiciones que las consultas de arriba pero sin hidratar la entidad
+    String SUMMARY_SELECT = "SELECT new com.fixsy.productos.repository.ProductSummaryRow(p.id, p.slug, p.nombre, " +
+            "p.precioNormal, p.precioOferta, p.discountPercentage, p.stock, p.imageUrl, p.categoria, p.marca, p.sku, " +
+            "p.isActive, p.isFeatured) FROM Product p ";
+
+    @Query(SUMMARY_SELECT + "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findActiveSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.isFeatured = true AND p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findFeaturedSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.precioOferta IS NOT NULL AND p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findOnSaleSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.categoria = :categoria AND p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findSummariesByCategoriaAfter(@Param("categoria") String categoria,
+                                                          @Param("afterId") Long afterId,
+                                                          Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.stock > 0 AND p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductSummaryRow> findInStockSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Productos que todavia apuntan a una imagen (principal o galeria); verificacion final antes de borrar un archivo
+    @Query(value = "SELECT COUNT(*) FROM products WHERE imagen LIKE CONCAT('%', :name, '%') " +
+            "OR images LIKE CONCAT('%', :name, '%')", nativeQuery = true)
+    long countImageReferences(@Param("name") String name);
+
+    // Productos alcanzados por una regla de precio masiva, por keyset. Los filtros null no restringen. Se leen de
+    // la base como findForWriteById: los precios evaluados deben ser los vigentes
+    @QueryHints({
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"),
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_STORE_MODE, value = "REFRESH")})
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId " +
+            "AND (:categoria IS NULL OR p.categoria = :categoria) " +
+            "AND (:marca IS NULL OR p.marca = :marca) " +
+            "AND (:tag IS NULL OR p.id IN (SELECT pt.id.productId FROM ProductTag pt JOIN Tag t ON t.id = pt.id.tagId " +
+            "WHERE t.name = :tag)) ORDER BY p.id ASC")
+    List<Product> findForPricing(@Param("afterId") Long afterId,
+                                 @Param("categoria") String categoria,
+                                 @Param("marca") String marca,
+                                 @Param("tag") String tag,
+                                 Pageable pageable);
+
+    // Actualizaciones de precio por bloque de ids, con las mismas reglas que updatePrice/updateOffer:
+    // una oferta que queda mayor al precio se elimina y una oferta nunca se fija por encima del precio.
+    // La oferta se asigna antes que el precio: MySQL evalua el SET de izquierda a derecha.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+            "p.precioOferta = CASE WHEN p.precioOferta > :price THEN NULL ELSE p.precioOferta END, " +
+            "p.precioNormal = :price, p.version = p.version + 1, p.updatedAt = :now WHERE p.id IN :ids")
+    int bulkSetPrice(@Param("ids") Collection<Long> ids, @Param("price") BigDecimal price, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+            "p.precioOferta = CASE WHEN p.precioOferta > ROUND(p.precioNormal * :factor, 2) THEN NULL ELSE p.precioOferta END, " +
+            "p.precioNormal = ROUND(p.precioNormal * :factor, 2), p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.id IN :ids AND p.precioNormal IS NOT NULL")
+    int bulkScalePrice(@Param("ids") Collection<Long> ids, @Param("factor") BigDecimal factor, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.precioOferta = :offer, p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.id IN :ids AND (p.precioNormal IS NULL OR p.precioNormal >= :offer)")
+    int bulkSetOffer(@Param("ids") Collection<Long> ids, @Param("offer") BigDecimal offer, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.precioOferta = NULL, p.version = p.version + 1, p.updatedAt = :now WHERE p.id IN :ids")
+    int bulkClearOffer(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
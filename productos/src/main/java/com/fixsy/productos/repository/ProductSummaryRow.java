@@ -0,0 +1,23 @@
+package com.fixsy.productos.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila de listado leida con una expresion de constructor: solo las columnas que muestra una grilla,
+ * sin las descripciones ni las listas TEXT (galeria, tags, derivados) ni sus converters.
+ */
+public record ProductSummaryRow(
+        Long id,
+        String slug,
+        String nombre,
+        BigDecimal precioNormal,
+        BigDecimal precioOferta,
+        Integer discountPercentage,
+        Integer stock,
+        String imageUrl,
+        String categoria,
+        String marca,
+        String sku,
+        Boolean isActive,
+        Boolean isFeatured) {
+}
@@ -0,0 +1,36 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.ProductTag;
+import com.fixsy.productos.model.ProductTagId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductTagRepository extends JpaRepository<ProductTag, ProductTagId> {
+
+    // Etiquetas de un producto (prefijo de la clave primaria)
+    @Query("SELECT pt.id.tagId FROM ProductTag pt WHERE pt.id.productId = :productId")
+    List<Long> findTagIdsByProductId(@Param("productId") Long productId);
+
+    // Productos de una etiqueta (indice tag_id, product_id)
+    @Query("SELECT pt.id.productId FROM ProductTag pt JOIN Tag t ON t.id = pt.id.tagId " +
+            "WHERE t.name = :name ORDER BY pt.id.productId ASC")
+    List<Long> findProductIdsByTagName(@Param("name") String name);
+
+    @Query("SELECT pt.id FROM ProductTag pt WHERE pt.id.productId IN :productIds")
+    List<ProductTagId> findIdsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM ProductTag pt WHERE pt.id.productId = :productId AND pt.id.tagId IN :tagIds")
+    int deleteByProductIdAndTagIdIn(@Param("productId") Long productId, @Param("tagIds") Collection<Long> tagIds);
+
+    @Modifying
+    @Query("DELETE FROM ProductTag pt WHERE pt.id.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
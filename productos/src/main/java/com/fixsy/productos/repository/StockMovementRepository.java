@@ -0,0 +1,55 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.StockMovement;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // Pendientes de compactar, bloqueados: dos compactadores no pueden sumar el mismo movimiento
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM StockMovement m WHERE m.compactedAt IS NULL ORDER BY m.id ASC")
+    List<StockMovement> lockPending(Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockMovement m SET m.compactedAt = :now WHERE m.id IN :ids AND m.compactedAt IS NULL")
+    int markCompacted(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockMovement m SET m.rejectedAt = :now WHERE m.id IN :ids")
+    int markRejected(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Ultima fijacion absoluta (SET, IMPORT) aun pendiente del producto p: pisa lo compactado y lo anterior
+    String LAST_PENDING_TARGET = "(SELECT MAX(t.id) FROM StockMovement t WHERE t.productId = p.id " +
+            "AND t.compactedAt IS NULL AND t.target IS NOT NULL)";
+
+    // Disponible de varios productos en una sola sentencia, igual que lo deja el compactador: la ultima fijacion
+    // pendiente (o el stock compactado) mas los deltas pendientes posteriores. Una compactacion concurrente se
+    // ve completa o no se ve. Los productos que no existen no devuelven fila
+    @Query("SELECT new com.fixsy.productos.repository.StockReading(p.id, cast(" +
+            "COALESCE((SELECT s.target FROM StockMovement s WHERE s.id = " + LAST_PENDING_TARGET + "), p.stock, 0) + " +
+            "COALESCE((SELECT SUM(m.delta) FROM StockMovement m WHERE m.productId = p.id AND m.compactedAt IS NULL " +
+            "AND m.id > COALESCE(" + LAST_PENDING_TARGET + ", 0)), 0) as Long), " +
+            "COALESCE((SELECT MAX(l.id) FROM StockMovement l WHERE l.productId = p.id), 0L)) " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<StockReading> readAvailable(@Param("ids") Collection<Long> ids);
+
+    List<StockMovement> findByProductIdOrderByIdDesc(Long productId, Pageable pageable);
+
+    List<StockMovement> findByOrderRefOrderByIdAsc(String orderRef);
+
+    long countByCompactedAtIsNull();
+
+    long countByRejectedAtIsNotNull();
+}
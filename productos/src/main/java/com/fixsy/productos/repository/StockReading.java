@@ -0,0 +1,11 @@
+package com.fixsy.productos.repository;
+
+/**
+ * Disponible de un producto leido de la base en una sola sentencia, con el ultimo movimiento registrado
+ * (0 si no tiene): permite saber si la lectura es anterior o posterior a un movimiento visto en memoria.
+ */
+public record StockReading(
+        Long productId,
+        Long available,
+        Long lastMovementId) {
+}
@@ -0,0 +1,36 @@
+package com.fixsy.productos.repository;
+
+import com.fixsy.productos.model.Tag;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TagRepository extends JpaRepository<Tag, Long> {
+
+    Optional<Tag> findByName(String name);
+
+    List<Tag> findByNameIn(Collection<String> names);
+
+    // Crea la etiqueta si no existe; si otra escritura la creo (o la esta creando) no falla por uk_tags_name
+    @Modifying
+    @Query(value = "INSERT INTO tags (name, created_at) VALUES (:name, :createdAt) " +
+            "ON DUPLICATE KEY UPDATE name = name",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("createdAt") LocalDateTime createdAt);
+
+    // Lectura con bloqueo: ve la ultima version confirmada, tambien filas creadas por otra transaccion despues
+    // de la primera lectura de esta
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM Tag t WHERE t.name IN :names")
+    List<Tag> lockByNameIn(@Param("names") Collection<String> names);
+}
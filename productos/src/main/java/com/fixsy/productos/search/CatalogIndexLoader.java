@@ -0,0 +1,93 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reconstruye los indices en memoria del catalogo al arrancar (despues de los data loaders)
+ * y bajo demanda desde el panel admin. Recorre los productos activos por keyset en bloques.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogIndexLoader {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuildAll();
+        } catch (Exception ex) {
+            log.warn("No se pudieron construir los indices del catalogo al iniciar: {}", ex.getMessage());
+        }
+    }
+
+    public Map<String, Object> rebuildAll() {
+        long start = System.nanoTime();
+        int[] facetDocs = new int[1];
+        int[] suggestDocs = new int[1];
+        // Una sola pasada por la base de datos alimenta los tres indices
+        int searchDocs = productSearchIndex.rebuild(searchSink ->
+                facetDocs[0] = productFacetIndex.rebuild(facetSink ->
+                        suggestDocs[0] = productSuggestIndex.rebuild(suggestSink ->
+                                forEachActiveProduct(product -> {
+                                    searchSink.accept(product);
+                                    facetSink.accept(product);
+                                    suggestSink.accept(product);
+                                }))));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Indices del catalogo reconstruidos: {} productos en busqueda, {} en facets, {} en autocompletado, {} ms",
+                searchDocs, facetDocs[0], suggestDocs[0], elapsedMillis);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("searchDocuments", searchDocs);
+        result.put("facetDocuments", facetDocs[0]);
+        result.put("suggestDocuments", suggestDocs[0]);
+        result.put("elapsedMillis", elapsedMillis);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("searchDocuments", productSearchIndex.size());
+        stats.put("searchTerms", productSearchIndex.termCount());
+        stats.put("facetDocuments", productFacetIndex.size());
+        stats.put("facetValues", productFacetIndex.facetValueCount());
+        stats.put("suggestDocuments", productSuggestIndex.size());
+        stats.put("suggestKeys", productSuggestIndex.keyCount());
+        return stats;
+    }
+
+    private void forEachActiveProduct(Consumer<Product> consumer) {
+        long afterId = 0L;
+        while (true) {
+            List<Product> batch = productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                    afterId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(consumer);
+            afterId = batch.get(batch.size() - 1).getId();
+            if (batch.size() < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.Tag;
+import com.fixsy.productos.service.ProductPricing;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Indice de bitmaps en memoria sobre el catalogo activo para el listado con filtros del storefront.
+ * <p>
+ * Cada producto ocupa una posicion fija (slot) y cada valor de categoria, marca, tag y flag tiene un
+ * {@link BitSet} con los slots que lo cumplen. Filtrar es intersectar bitsets y cada conteo de facet es
+ * la cardinalidad de una interseccion, sin consultas a la base de datos. Los conteos de una dimension
+ * se calculan con los filtros de las demas dimensiones, asi el sidebar muestra cuantos resultados
+ * habria al cambiar la seleccion de esa dimension.
+ */
+@Component
+public class ProductFacetIndex {
+
+    public static final String CATEGORIA = "categoria";
+    public static final String MARCA = "marca";
+    public static final String TAG = "tag";
+    public static final String PRECIO = "precio";
+    public static final String IN_STOCK = "inStock";
+    public static final String ON_SALE = "onSale";
+    public static final String FEATURED = "featured";
+
+    private static final int DIM_CATEGORIA = 0;
+    private static final int DIM_MARCA = 1;
+    private static final int DIM_TAG = 2;
+    private static final int DIM_PRECIO = 3;
+    private static final int DIM_IN_STOCK = 4;
+    private static final int DIM_ON_SALE = 5;
+    private static final int DIM_FEATURED = 6;
+    private static final int DIMENSIONS = 7;
+
+    // Tramos de precio final para el facet de precios
+    private static final long[] PRICE_EDGES = {10_000, 25_000, 50_000, 100_000};
+    private static final int MAX_TAG_VALUES = 30;
+    private static final String DEFAULT_CATEGORIA = "Accesorios";
+
+    private static final Comparator<FacetValue> BY_COUNT = Comparator
+            .comparingInt(FacetValue::count).reversed()
+            .thenComparing(FacetValue::label, String.CASE_INSENSITIVE_ORDER);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    // Cambios recibidos mientras se reconstruye; se reaplican sobre el indice nuevo antes de publicarlo
+    private List<ProductChangeEvent> pendingDuringRebuild;
+
+    /**
+     * Filtros del listado. Dentro de una dimension los valores se combinan con OR y entre
+     * dimensiones con AND. Los flags en false no filtran.
+     */
+    public record Filter(Set<String> categorias, Set<String> marcas, Set<String> tags,
+                         BigDecimal minPrice, BigDecimal maxPrice,
+                         boolean inStock, boolean onSale, boolean featured) {
+
+        public static Filter of(Collection<String> categorias, Collection<String> marcas, Collection<String> tags,
+                                BigDecimal minPrice, BigDecimal maxPrice,
+                                Boolean inStock, Boolean onSale, Boolean featured) {
+            if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+                throw new IllegalArgumentException("El precio minimo no puede ser mayor al precio maximo");
+            }
+            return new Filter(keys(categorias, false), keys(marcas, false), keys(tags, true),
+                    minPrice, maxPrice,
+                    Boolean.TRUE.equals(inStock), Boolean.TRUE.equals(onSale), Boolean.TRUE.equals(featured));
+        }
+
+        private static Set<String> keys(Collection<String> values, boolean tag) {
+            Set<String> keys = new LinkedHashSet<>();
+            if (values != null) {
+                for (String value : values) {
+                    String key = tag ? Tag.normalizeName(value) : valueKey(value);
+                    if (key != null) {
+                        keys.add(key);
+                    }
+                }
+            }
+            return keys;
+        }
+    }
+
+    public record FacetValue(String value, String label, int count, boolean selected) { }
+
+    public record Result(int total, List<Long> productIds, boolean hasMore, Map<String, List<FacetValue>> facets) { }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(segment, event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Construye un indice nuevo con los productos entregados por {@code source} y lo reemplaza de forma atomica.
+     * El origen debe entregar los productos ordenados por id para que el listado no tenga que ordenar.
+     */
+    public int rebuild(Consumer<Consumer<Product>> source) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                throw new IllegalStateException("Ya hay una reconstruccion del indice de facets en curso");
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment fresh = new Segment();
+        try {
+            source.accept(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (ProductChangeEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            segment = fresh;
+            return fresh.live.cardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve hasta {@code limit} ids de productos que cumplen el filtro con id mayor a {@code afterId},
+     * ordenados por id, junto con el total y los conteos de cada facet.
+     */
+    public Result browse(Filter filter, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            BitSet[] filters = new BitSet[DIMENSIONS];
+            filters[DIM_CATEGORIA] = union(s.categorias, filter.categorias());
+            filters[DIM_MARCA] = union(s.marcas, filter.marcas());
+            filters[DIM_TAG] = union(s.tags, filter.tags());
+            filters[DIM_PRECIO] = priceFilter(s, filter.minPrice(), filter.maxPrice());
+            filters[DIM_IN_STOCK] = filter.inStock() ? s.inStock : null;
+            filters[DIM_ON_SALE] = filter.onSale() ? s.onSale : null;
+            filters[DIM_FEATURED] = filter.featured() ? s.featured : null;
+
+            BitSet matches = intersect(s.live, filters, -1);
+
+            Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+            facets.put(CATEGORIA, valueFacet(s.categorias, intersect(s.live, filters, DIM_CATEGORIA),
+                    filter.categorias(), Integer.MAX_VALUE));
+            facets.put(MARCA, valueFacet(s.marcas, intersect(s.live, filters, DIM_MARCA),
+                    filter.marcas(), Integer.MAX_VALUE));
+            facets.put(TAG, valueFacet(s.tags, intersect(s.live, filters, DIM_TAG),
+                    filter.tags(), MAX_TAG_VALUES));
+            facets.put(PRECIO, priceFacet(s, intersect(s.live, filters, DIM_PRECIO), filter));
+            facets.put(IN_STOCK, flagFacet(s.inStock, intersect(s.live, filters, DIM_IN_STOCK), filter.inStock()));
+            facets.put(ON_SALE, flagFacet(s.onSale, intersect(s.live, filters, DIM_ON_SALE), filter.onSale()));
+            facets.put(FEATURED, flagFacet(s.featured, intersect(s.live, filters, DIM_FEATURED), filter.featured()));
+
+            List<Long> ids = s.ordered ? pageOrdered(s, matches, afterId, limit) : pageUnordered(s, matches, afterId, limit);
+            boolean hasMore = ids.size() > limit;
+            if (hasMore) {
+                ids = ids.subList(0, limit);
+            }
+            return new Result(matches.cardinality(), ids, hasMore, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int facetValueCount() {
+        lock.readLock().lock();
+        try {
+            return segment.categorias.size() + segment.marcas.size() + segment.tags.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Segment target, ProductChangeEvent event) {
+        if (event.isDeletion() || event.product() == null) {
+            target.remove(event.productId());
+        } else {
+            target.put(event.product());
+        }
+    }
+
+    private static BitSet union(Map<String, Facet> facets, Set<String> selected) {
+        if (selected.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (String key : selected) {
+            Facet facet = facets.get(key);
+            if (facet != null) {
+                result.or(facet.bits);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet priceFilter(Segment s, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        double low = min == null ? Double.NEGATIVE_INFINITY : min.doubleValue();
+        double high = max == null ? Double.POSITIVE_INFINITY : max.doubleValue();
+        BitSet result = new BitSet();
+        for (int slot = s.live.nextSetBit(0); slot >= 0; slot = s.live.nextSetBit(slot + 1)) {
+            double price = s.priceBySlot[slot];
+            if (price >= low && price <= high) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    // Interseccion de todos los filtros excepto la dimension indicada (-1 para aplicarlos todos)
+    private static BitSet intersect(BitSet live, BitSet[] filters, int skip) {
+        BitSet result = (BitSet) live.clone();
+        for (int dim = 0; dim < filters.length; dim++) {
+            if (dim != skip && filters[dim] != null) {
+                result.and(filters[dim]);
+            }
+        }
+        return result;
+    }
+
+    private static int countAnd(BitSet base, BitSet values) {
+        BitSet copy = (BitSet) base.clone();
+        copy.and(values);
+        return copy.cardinality();
+    }
+
+    private static List<FacetValue> valueFacet(Map<String, Facet> facets, BitSet base, Set<String> selected, int maxValues) {
+        List<FacetValue> values = new ArrayList<>();
+        for (Map.Entry<String, Facet> entry : facets.entrySet()) {
+            int count = countAnd(base, entry.getValue().bits);
+            boolean isSelected = selected.contains(entry.getKey());
+            if (count > 0 || isSelected) {
+                values.add(new FacetValue(entry.getKey(), entry.getValue().label, count, isSelected));
+            }
+        }
+        values.sort(BY_COUNT);
+        if (values.size() <= maxValues) {
+            return values;
+        }
+        // Se recorta la cola, pero los valores seleccionados se mantienen siempre
+        List<FacetValue> trimmed = new ArrayList<>(values.subList(0, maxValues));
+        for (FacetValue value : values.subList(maxValues, values.size())) {
+            if (value.selected()) {
+                trimmed.add(value);
+            }
+        }
+        return trimmed;
+    }
+
+    private static List<FacetValue> priceFacet(Segment s, BitSet base, Filter filter) {
+        int[] counts = new int[PRICE_EDGES.length + 1];
+        for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+            double price = s.priceBySlot[slot];
+            if (Double.isNaN(price)) {
+                continue;
+            }
+            int bucket = 0;
+            while (bucket < PRICE_EDGES.length && price >= PRICE_EDGES[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+
+        List<FacetValue> values = new ArrayList<>();
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            Long low = bucket == 0 ? null : PRICE_EDGES[bucket - 1];
+            Long high = bucket == PRICE_EDGES.length ? null : PRICE_EDGES[bucket];
+            String value = (low == null ? "" : low) + "-" + (high == null ? "" : high);
+            String label = low == null ? "Hasta $" + high : (high == null ? "Desde $" + low : "$" + low + " - $" + high);
+            boolean selected = sameBound(filter.minPrice(), low) && sameBound(filter.maxPrice(), high);
+            values.add(new FacetValue(value, label, counts[bucket], selected));
+        }
+        return values;
+    }
+
+    private static boolean sameBound(BigDecimal bound, Long edge) {
+        if (bound == null || edge == null) {
+            return bound == null && edge == null;
+        }
+        return bound.compareTo(BigDecimal.valueOf(edge)) == 0;
+    }
+
+    private static List<FacetValue> flagFacet(BitSet flag, BitSet base, boolean selected) {
+        return List.of(new FacetValue("true", "Si", countAnd(base, flag), selected));
+    }
+
+    // Con slots asignados en orden de id basta con buscar el primer slot posterior al cursor
+    private static List<Long> pageOrdered(Segment s, BitSet matches, long afterId, int limit) {
+        int start = Arrays.binarySearch(s.idBySlot, 0, s.slots, afterId);
+        start = start >= 0 ? start + 1 : -start - 1;
+        List<Long> ids = new ArrayList<>(limit + 1);
+        for (int slot = matches.nextSetBit(start); slot >= 0 && ids.size() <= limit; slot = matches.nextSetBit(slot + 1)) {
+            ids.add(s.idBySlot[slot]);
+        }
+        return ids;
+    }
+
+    // Un producto inactivo que se reactiva recibe un slot al final; hasta la proxima reconstruccion se ordena
+    private static List<Long> pageUnordered(Segment s, BitSet matches, long afterId, int limit) {
+        long[] candidates = new long[matches.cardinality()];
+        int n = 0;
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            if (s.idBySlot[slot] > afterId) {
+                candidates[n++] = s.idBySlot[slot];
+            }
+        }
+        Arrays.sort(candidates, 0, n);
+        List<Long> ids = new ArrayList<>(Math.min(n, limit + 1));
+        for (int i = 0; i < n && ids.size() <= limit; i++) {
+            ids.add(candidates[i]);
+        }
+        return ids;
+    }
+
+    static String valueKey(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Facet {
+        private String label;
+        private final BitSet bits = new BitSet();
+
+        private Facet(String label) {
+            this.label = label;
+        }
+    }
+
+    private record SlotValues(String categoria, String marca, Set<String> tags) { }
+
+    private static final class Segment {
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private long[] idBySlot = new long[256];
+        private double[] priceBySlot = new double[256];
+        private SlotValues[] valuesBySlot = new SlotValues[256];
+        private int slots;
+        private boolean ordered = true;
+
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final BitSet onSale = new BitSet();
+        private final BitSet featured = new BitSet();
+        private final Map<String, Facet> categorias = new HashMap<>();
+        private final Map<String, Facet> marcas = new HashMap<>();
+        private final Map<String, Facet> tags = new HashMap<>();
+
+        private void put(Product product) {
+            if (product == null || product.getId() == null) {
+                return;
+            }
+            remove(product.getId());
+            if (!Boolean.TRUE.equals(product.getIsActive())) {
+                return;
+            }
+
+            int slot = slotFor(product.getId());
+            live.set(slot);
+
+            String categoria = product.getCategoria() == null || product.getCategoria().isBlank()
+                    ? DEFAULT_CATEGORIA : product.getCategoria().trim();
+            String categoriaKey = add(categorias, valueKey(categoria), categoria, slot);
+            String marcaKey = product.getMarca() == null ? null
+                    : add(marcas, valueKey(product.getMarca()), product.getMarca().trim(), slot);
+            Set<String> tagKeys = new LinkedHashSet<>();
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    String key = Tag.normalizeName(tag);
+                    if (key != null && tagKeys.add(key)) {
+                        add(tags, key, key, slot);
+                    }
+                }
+            }
+            valuesBySlot[slot] = new SlotValues(categoriaKey, marcaKey, tagKeys);
+
+            inStock.set(slot, product.getStock() != null && product.getStock() > 0);
+            onSale.set(slot, product.getPrecioOferta() != null);
+            featured.set(slot, Boolean.TRUE.equals(product.getIsFeatured()));
+            BigDecimal price = ProductPricing.finalPrice(product);
+            priceBySlot[slot] = price == null ? Double.NaN : price.doubleValue();
+        }
+
+        // El slot se conserva al quitar un producto para que al volver ocupe la misma posicion
+        private void remove(Long productId) {
+            Integer slot = productId == null ? null : slotById.get(productId);
+            if (slot == null || !live.get(slot)) {
+                return;
+            }
+            live.clear(slot);
+            inStock.clear(slot);
+            onSale.clear(slot);
+            featured.clear(slot);
+            SlotValues values = valuesBySlot[slot];
+            if (values != null) {
+                clear(categorias, values.categoria(), slot);
+                clear(marcas, values.marca(), slot);
+                for (String tag : values.tags()) {
+                    clear(tags, tag, slot);
+                }
+                valuesBySlot[slot] = null;
+            }
+        }
+
+        private int slotFor(Long productId) {
+            Integer existing = slotById.get(productId);
+            if (existing != null) {
+                return existing;
+            }
+            if (slots == idBySlot.length) {
+                int capacity = slots * 2;
+                idBySlot = Arrays.copyOf(idBySlot, capacity);
+                priceBySlot = Arrays.copyOf(priceBySlot, capacity);
+                valuesBySlot = Arrays.copyOf(valuesBySlot, capacity);
+            }
+            int slot = slots++;
+            if (slot > 0 && productId < idBySlot[slot - 1]) {
+                ordered = false;
+            }
+            idBySlot[slot] = productId;
+            slotById.put(productId, slot);
+            return slot;
+        }
+
+        private static String add(Map<String, Facet> facets, String key, String label, int slot) {
+            if (key == null) {
+                return null;
+            }
+            Facet facet = facets.computeIfAbsent(key, k -> new Facet(label));
+            facet.label = label;
+            facet.bits.set(slot);
+            return key;
+        }
+
+        private static void clear(Map<String, Facet> facets, String key, int slot) {
+            if (key == null) {
+                return;
+            }
+            Facet facet = facets.get(key);
+            if (facet != null) {
+                facet.bits.clear(slot);
+                if (facet.bits.isEmpty()) {
+                    facets.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.model.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Indice invertido en memoria de los productos activos sobre nombre, descripcion corta, marca, SKU y tags.
+ * <p>
+ * Los terminos se guardan normalizados (sin tildes, minusculas) en un mapa ordenado para resolver
+ * prefijos por rango. El ranking es BM25 con pesos por campo: cada campo suma su peso a la frecuencia
+ * del termino en el documento. Todos los terminos de la consulta deben coincidir (exacto o por prefijo).
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_BOOST = 0.7;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final float WEIGHT_NOMBRE = 3f;
+    private static final float WEIGHT_SKU = 3f;
+    private static final float WEIGHT_MARCA = 2f;
+    private static final float WEIGHT_TAGS = 2f;
+    private static final float WEIGHT_DESCRIPCION = 1f;
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingDouble(Hit::score).reversed()
+            .thenComparing(Hit::productId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    // Cambios recibidos mientras se reconstruye; se reaplican sobre el indice nuevo antes de publicarlo
+    private List<ProductChangeEvent> pendingDuringRebuild;
+
+    public record Hit(Long productId, double score) { }
+
+    public record Result(int total, List<Hit> hits) {
+        static final Result EMPTY = new Result(0, List.of());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(segment, event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Construye un indice nuevo con los productos entregados por {@code source} y lo reemplaza de forma atomica.
+     */
+    public int rebuild(Consumer<Consumer<Product>> source) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                throw new IllegalStateException("Ya hay una reconstruccion del indice de busqueda en curso");
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment fresh = new Segment();
+        try {
+            source.accept(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (ProductChangeEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            segment = fresh;
+            return fresh.docs.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result search(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return Result.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            int documents = s.docs.size();
+            if (documents == 0) {
+                return Result.EMPTY;
+            }
+            double avgLength = s.totalLength / documents;
+
+            Map<Long, Double> scores = null;
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = scoreToken(s, token, documents, avgLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Result.EMPTY;
+                }
+            }
+            return new Result(scores.size(), topHits(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return segment.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Segment target, ProductChangeEvent event) {
+        if (event.isDeletion() || event.product() == null) {
+            target.remove(event.productId());
+        } else {
+            target.put(event.product());
+        }
+    }
+
+    private Map<Long, Double> scoreToken(Segment s, String token, int documents, double avgLength) {
+        Map<Long, Double> result = new HashMap<>();
+        Map<Long, Float> exact = s.postings.get(token);
+        if (exact != null) {
+            accumulate(result, s, exact, 1.0, documents, avgLength);
+        }
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry : s.postings.tailMap(token, false).entrySet()) {
+                if (!entry.getKey().startsWith(token) || expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(result, s, entry.getValue(), PREFIX_BOOST, documents, avgLength);
+            }
+        }
+        return result;
+    }
+
+    private void accumulate(Map<Long, Double> result, Segment s, Map<Long, Float> postings,
+                            double boost, int documents, double avgLength) {
+        int df = postings.size();
+        double idf = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Long, Float> posting : postings.entrySet()) {
+            double tf = posting.getValue();
+            double length = s.docs.get(posting.getKey()).length;
+            double norm = K1 * (1 - B + B * length / avgLength);
+            double score = boost * idf * (tf * (K1 + 1)) / (tf + norm);
+            // Varias expansiones de un mismo termino no se suman: se queda la mejor
+            result.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private List<Hit> topHits(Map<Long, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(wanted, scores.size()) + 1, RANKING.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(new Hit(entry.getKey(), entry.getValue()));
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(heap);
+        ranked.sort(RANKING);
+        if (offset >= ranked.size()) {
+            return Collections.emptyList();
+        }
+        return ranked.subList(offset, Math.min(ranked.size(), wanted));
+    }
+
+    private static final class Doc {
+        private final Map<String, Float> terms;
+        private final float length;
+
+        private Doc(Map<String, Float> terms, float length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    private static final class Segment {
+        private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private double totalLength;
+
+        private void put(Product product) {
+            if (product == null || product.getId() == null) {
+                return;
+            }
+            remove(product.getId());
+            if (!Boolean.TRUE.equals(product.getIsActive())) {
+                return;
+            }
+
+            Map<String, Float> terms = new HashMap<>();
+            addField(terms, product.getNombre(), WEIGHT_NOMBRE);
+            addField(terms, product.getDescripcionCorta(), WEIGHT_DESCRIPCION);
+            addField(terms, product.getMarca(), WEIGHT_MARCA);
+            addField(terms, product.getSku(), WEIGHT_SKU);
+            List<String> skuTokens = TextNormalizer.tokenize(product.getSku());
+            if (skuTokens.size() > 1) {
+                terms.merge(String.join("", skuTokens), WEIGHT_SKU, Float::sum);
+            }
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    addField(terms, tag, WEIGHT_TAGS);
+                }
+            }
+            if (terms.isEmpty()) {
+                return;
+            }
+
+            float length = 0f;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                length += term.getValue();
+                postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(product.getId(), term.getValue());
+            }
+            docs.put(product.getId(), new Doc(terms, length));
+            totalLength += length;
+        }
+
+        private void remove(Long productId) {
+            if (productId == null) {
+                return;
+            }
+            Doc doc = docs.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            totalLength -= doc.length;
+            for (String term : doc.terms.keySet()) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(productId);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        private static void addField(Map<String, Float> terms, String value, float weight) {
+            for (String token : TextNormalizer.tokenize(value)) {
+                terms.merge(token, weight, Float::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.service.ProductSlugs;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Indice de autocompletado en memoria sobre nombres, SKUs, marcas y categorias del catalogo activo.
+ * <p>
+ * Las claves de productos (texto normalizado) viven en un arreglo ordenado: las que empiezan con un prefijo
+ * forman un rango contiguo que se ubica con busqueda binaria. Para los prefijos cuyo rango es grande (los
+ * cortos y los de palabras frecuentes) las mejores sugerencias se precalculan al construirlo, asi que una
+ * consulta nunca recorre mas de unos cientos de claves. Los cambios no reescriben el arreglo: el producto
+ * modificado queda marcado como obsoleto en el y sus claves nuevas van a un delta ordenado que se consulta
+ * junto al arreglo; cuando el delta crece un hilo aparte arma un arreglo nuevo con una copia y solo el reemplazo
+ * toma el lock de escritura. Marcas y categorias son pocas y se mantienen en un mapa ordenado con su peso acumulado.
+ * <p>
+ * El nombre se indexa tambien desde cada palabra ("aceite" sugiere "Filtro de aceite") y el SKU con y sin
+ * separadores. El peso de un producto estima su popularidad con lo que sabe el catalogo (destacado, con
+ * stock, en oferta); el de una marca o categoria es la suma de los pesos de sus productos.
+ */
+@Component
+@Slf4j
+public class ProductSuggestIndex {
+
+    public static final int DEFAULT_LIMIT = 8;
+    public static final int MAX_LIMIT = 20;
+
+    static final int SCAN_LIMIT = 256;
+    static final int PRECOMPUTED_TOP = 32;
+    static final int COMPACT_THRESHOLD = 2_000;
+    private static final int MAX_NAME_SUFFIXES = 6;
+    private static final String DEFAULT_CATEGORIA = "Accesorios";
+    // Separa la clave del resto de la clave compuesta del delta; ordena antes que cualquier caracter visible
+    private static final char KEY_END = '\u0000';
+
+    public enum Type { PRODUCT, SKU, MARCA, CATEGORIA }
+
+    public record Suggestion(String text, Type type, Long productId, String slug, int weight) { }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt(Suggestion::weight).reversed()
+            .thenComparingInt((Suggestion s) -> s.text().length())
+            .thenComparing(Suggestion::text);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State(Segment.EMPTY);
+    // Cambios recibidos mientras se reconstruye; se reaplican sobre el indice nuevo antes de publicarlo
+    private List<ProductChangeEvent> pendingDuringRebuild;
+    // Un solo hilo y un solo pedido en cola: los cambios que cruzan el umbral durante una compactacion se juntan
+    // en la siguiente
+    private final ThreadPoolExecutor compactExecutor;
+
+    public ProductSuggestIndex() {
+        this.compactExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-suggest-compact");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.compactExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            apply(state, event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            compact = pendingDuringRebuild == null && state.needsCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            compactExecutor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Construye un indice nuevo con los productos entregados por {@code source} y lo reemplaza de forma atomica.
+     */
+    public int rebuild(Consumer<Consumer<Product>> source) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                throw new IllegalStateException("Ya hay una reconstruccion del indice de autocompletado en curso");
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh;
+        try {
+            List<Keyed> entries = new ArrayList<>();
+            State building = new State(Segment.EMPTY);
+            source.accept(product -> {
+                if (product != null && product.getId() != null && Boolean.TRUE.equals(product.getIsActive())) {
+                    List<Keyed> keyed = entriesOf(product);
+                    entries.addAll(keyed);
+                    building.register(product, null);
+                }
+            });
+            building.main = Segment.build(entries);
+            fresh = building;
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            for (ProductChangeEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            state = fresh;
+            compact = fresh.needsCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            compactExecutor.execute(this::compactQuietly);
+        }
+        return fresh.products.size();
+    }
+
+    /**
+     * Pasa el delta al arreglo y descarta las entradas obsoletas si superan {@link #COMPACT_THRESHOLD}. El arreglo
+     * nuevo se arma sin lock a partir de una copia; bajo el lock de escritura solo se reemplaza y se concilian los
+     * cambios llegados mientras tanto. Devuelve false si no hacia falta o si otro reemplazo gano la carrera.
+     */
+    boolean compact() {
+        State source;
+        Segment main;
+        Set<Long> stale;
+        Map<Long, Indexed> inDelta = new HashMap<>();
+        List<Keyed> entries;
+        lock.readLock().lock();
+        try {
+            source = state;
+            if (pendingDuringRebuild != null || !source.needsCompaction()) {
+                return false;
+            }
+            main = source.main;
+            stale = new HashSet<>(source.stale);
+            source.products.forEach((id, indexed) -> {
+                if (indexed.deltaKeys() != null) {
+                    inDelta.put(id, indexed);
+                }
+            });
+            entries = new ArrayList<>(main.keys.length + source.delta.size());
+            for (Map.Entry<String, Suggestion> entry : source.delta.entrySet()) {
+                String composite = entry.getKey();
+                entries.add(new Keyed(composite.substring(0, composite.indexOf(KEY_END)), entry.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // O(n log n) fuera del lock: el arreglo anterior es inmutable y el resto ya esta copiado
+        for (int i = 0; i < main.keys.length; i++) {
+            if (!isStale(main.suggestions[i], stale)) {
+                entries.add(new Keyed(main.keys[i], main.suggestions[i]));
+            }
+        }
+        Segment compacted = Segment.build(entries);
+
+        lock.writeLock().lock();
+        try {
+            // Una reconstruccion u otra compactacion ya reemplazo lo que se copio
+            if (state != source || source.main != main || pendingDuringRebuild != null) {
+                return false;
+            }
+            source.replaceMain(compacted, stale, inDelta);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactExecutor.shutdownNow();
+    }
+
+    /**
+     * Mejores sugerencias para lo escrito hasta ahora, de mayor a menor peso.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        TopK top = new TopK(Math.min(limit, MAX_LIMIT));
+        String upper = key + Character.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            State s = state;
+            s.main.collect(key, top, s.stale);
+            for (Suggestion suggestion : s.delta.subMap(key, true, upper, false).values()) {
+                top.offer(suggestion);
+            }
+            for (Facet facet : s.facets.subMap(key, true, upper, false).values()) {
+                top.offer(facet.suggestion());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top.sorted();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int keyCount() {
+        lock.readLock().lock();
+        try {
+            State s = state;
+            return s.main.keys.length + s.delta.size() + s.facets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            log.warn("Fallo la compactacion del indice de autocompletado: {}", e.getMessage());
+        }
+    }
+
+    static String normalize(String value) {
+        return String.join(" ", TextNormalizer.tokenize(value));
+    }
+
+    static int weight(Product product) {
+        int weight = 1;
+        if (Boolean.TRUE.equals(product.getIsFeatured())) {
+            weight += 4;
+        }
+        if (product.getStock() != null && product.getStock() > 0) {
+            weight += 2;
+        }
+        boolean onSale = (product.getPrecioOferta() != null && product.getPrecioOferta().compareTo(BigDecimal.ZERO) > 0)
+                || (product.getDiscountPercentage() != null && product.getDiscountPercentage() > 0);
+        if (onSale) {
+            weight += 1;
+        }
+        return weight;
+    }
+
+    private void apply(State target, ProductChangeEvent event) {
+        if (event.isDeletion() || event.product() == null) {
+            target.remove(event.productId());
+        } else {
+            target.remove(event.product().getId());
+            Product product = event.product();
+            if (product.getId() != null && Boolean.TRUE.equals(product.getIsActive())) {
+                List<Keyed> keyed = entriesOf(product);
+                List<String> deltaKeys = new ArrayList<>(keyed.size());
+                for (Keyed entry : keyed) {
+                    String composite = entry.key() + KEY_END + entry.suggestion().type().ordinal() + KEY_END + product.getId();
+                    target.delta.put(composite, entry.suggestion());
+                    deltaKeys.add(composite);
+                }
+                target.register(product, deltaKeys);
+            }
+        }
+    }
+
+    private static List<Keyed> entriesOf(Product product) {
+        int weight = weight(product);
+        List<Keyed> entries = new ArrayList<>();
+
+        List<String> nameTokens = TextNormalizer.tokenize(product.getNombre());
+        if (!nameTokens.isEmpty()) {
+            String slug = ProductSlugs.isValid(product.getSlug()) ? product.getSlug() : ProductSlugs.slugify(product.getNombre());
+            Suggestion name = new Suggestion(product.getNombre().trim(), Type.PRODUCT, product.getId(), slug, weight);
+            for (int i = 0; i < Math.min(nameTokens.size(), MAX_NAME_SUFFIXES); i++) {
+                entries.add(new Keyed(String.join(" ", nameTokens.subList(i, nameTokens.size())), name));
+            }
+        }
+
+        List<String> skuTokens = TextNormalizer.tokenize(product.getSku());
+        if (!skuTokens.isEmpty()) {
+            String slug = ProductSlugs.isValid(product.getSlug()) ? product.getSlug() : ProductSlugs.slugify(product.getNombre());
+            Suggestion sku = new Suggestion(product.getSku().trim(), Type.SKU, product.getId(), slug, weight);
+            entries.add(new Keyed(String.join(" ", skuTokens), sku));
+            if (skuTokens.size() > 1) {
+                entries.add(new Keyed(String.join("", skuTokens), sku));
+            }
+        }
+        return entries;
+    }
+
+    private static String categoriaOf(Product product) {
+        String categoria = product.getCategoria();
+        return categoria == null || categoria.isBlank() ? DEFAULT_CATEGORIA : categoria.trim();
+    }
+
+    private record Keyed(String key, Suggestion suggestion) { }
+
+    // Aporte de un producto indexado: claves en el delta (null si vive en el arreglo) y pesos de sus facets
+    private record Indexed(List<String> deltaKeys, String marcaKey, String categoriaKey, int weight) { }
+
+    private static final class Facet {
+        private final String text;
+        private final Type type;
+        private int weight;
+        private int products;
+
+        private Facet(String text, Type type) {
+            this.text = text;
+            this.type = type;
+        }
+
+        private Suggestion suggestion() {
+            return new Suggestion(text, type, null, null, weight);
+        }
+    }
+
+    /**
+     * Estado mutable del indice: arreglo compactado, productos obsoletos en el, delta y facets. Solo se
+     * modifica con el lock de escritura.
+     */
+    private static final class State {
+        private Segment main;
+        private final Set<Long> stale = new HashSet<>();
+        private final TreeMap<String, Suggestion> delta = new TreeMap<>();
+        private final Map<Long, Indexed> products = new HashMap<>();
+        private final TreeMap<String, Facet> facets = new TreeMap<>();
+        private int deltaProducts;
+
+        private State(Segment main) {
+            this.main = main;
+        }
+
+        private void register(Product product, List<String> deltaKeys) {
+            int weight = weight(product);
+            String marcaKey = addFacet(product.getMarca(), Type.MARCA, weight);
+            String categoriaKey = addFacet(categoriaOf(product), Type.CATEGORIA, weight);
+            products.put(product.getId(), new Indexed(deltaKeys, marcaKey, categoriaKey, weight));
+            if (deltaKeys != null) {
+                deltaProducts++;
+            }
+        }
+
+        private void remove(Long productId) {
+            if (productId == null) {
+                return;
+            }
+            Indexed indexed = products.remove(productId);
+            if (indexed == null) {
+                return;
+            }
+            if (indexed.deltaKeys() == null) {
+                stale.add(productId);
+            } else {
+                indexed.deltaKeys().forEach(delta::remove);
+                deltaProducts--;
+            }
+            removeFacet(indexed.marcaKey(), indexed.weight());
+            removeFacet(indexed.categoriaKey(), indexed.weight());
+        }
+
+        private String addFacet(String value, Type type, int weight) {
+            String normalized = normalize(value);
+            if (normalized.isEmpty()) {
+                return null;
+            }
+            String key = normalized + KEY_END + type.ordinal();
+            Facet facet = facets.computeIfAbsent(key, k -> new Facet(value.trim(), type));
+            facet.weight += weight;
+            facet.products++;
+            return key;
+        }
+
+        private void removeFacet(String key, int weight) {
+            Facet facet = key == null ? null : facets.get(key);
+            if (facet == null) {
+                return;
+            }
+            facet.weight -= weight;
+            if (--facet.products <= 0) {
+                facets.remove(key);
+            }
+        }
+
+        private boolean needsCompaction() {
+            return stale.size() + deltaProducts > COMPACT_THRESHOLD;
+        }
+
+        // Instala un arreglo armado con la copia (compactedStale, compactedDelta). Los productos del delta que no
+        // cambiaron desde la copia pasan a vivir en el arreglo; los que cambiaron o se quitaron dejan en el sus
+        // claves copiadas, asi que quedan marcados como obsoletos
+        private void replaceMain(Segment compacted, Set<Long> compactedStale, Map<Long, Indexed> compactedDelta) {
+            main = compacted;
+            stale.removeAll(compactedStale);
+            compactedDelta.forEach((id, indexed) -> {
+                if (products.get(id) == indexed) {
+                    indexed.deltaKeys().forEach(delta::remove);
+                    products.put(id, new Indexed(null, indexed.marcaKey(), indexed.categoriaKey(), indexed.weight()));
+                    deltaProducts--;
+                } else {
+                    stale.add(id);
+                }
+            });
+        }
+    }
+
+    private static boolean isStale(Suggestion suggestion, Set<Long> stale) {
+        return !stale.isEmpty() && suggestion.productId() != null && stale.contains(suggestion.productId());
+    }
+
+    /**
+     * Arreglo ordenado e inmutable de claves de productos. Todo prefijo que abarca mas de
+     * {@link #SCAN_LIMIT} claves tiene sus mejores sugerencias precalculadas; cualquier otro se resuelve
+     * recorriendo a lo sumo esa cantidad de claves.
+     */
+    private static final class Segment {
+        private static final Segment EMPTY = new Segment(new String[0], new Suggestion[0], Map.of());
+
+        private final String[] keys;
+        private final Suggestion[] suggestions;
+        private final Map<String, Suggestion[]> precomputed;
+
+        private Segment(String[] keys, Suggestion[] suggestions, Map<String, Suggestion[]> precomputed) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+            this.precomputed = precomputed;
+        }
+
+        private static Segment build(List<Keyed> entries) {
+            entries.sort(Comparator.comparing(Keyed::key));
+            String[] keys = new String[entries.size()];
+            Suggestion[] suggestions = new Suggestion[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).key();
+                suggestions[i] = entries.get(i).suggestion();
+            }
+            Segment segment = new Segment(keys, suggestions, new HashMap<>());
+            if (keys.length > SCAN_LIMIT) {
+                segment.precompute(0, keys.length, 0);
+            }
+            return segment;
+        }
+
+        // keys[lo, hi) comparten los primeros depth caracteres y son mas de SCAN_LIMIT. Cada subrango grande
+        // aporta su propia lista ya calculada, asi que cada clave se recorre una sola vez en toda la construccion.
+        private TopK precompute(int lo, int hi, int depth) {
+            TopK top = new TopK(PRECOMPUTED_TOP);
+            int i = lo;
+            // La clave igual al prefijo ordena antes que sus extensiones
+            while (i < hi && keys[i].length() == depth) {
+                top.offer(suggestions[i++]);
+            }
+            while (i < hi) {
+                char c = keys[i].charAt(depth);
+                int j = i + 1;
+                while (j < hi && keys[j].charAt(depth) == c) {
+                    j++;
+                }
+                if (j - i > SCAN_LIMIT) {
+                    top.offerAll(precompute(i, j, depth + 1));
+                } else {
+                    for (int k = i; k < j; k++) {
+                        top.offer(suggestions[k]);
+                    }
+                }
+                i = j;
+            }
+            if (depth > 0) {
+                precomputed.put(keys[lo].substring(0, depth), top.sorted().toArray(new Suggestion[0]));
+            }
+            return top;
+        }
+
+        private void collect(String key, TopK out, Set<Long> stale) {
+            Suggestion[] top = precomputed.get(key);
+            if (top != null) {
+                int accepted = 0;
+                for (Suggestion suggestion : top) {
+                    if (!isStale(suggestion, stale)) {
+                        out.offer(suggestion);
+                        accepted++;
+                    }
+                }
+                // Completo si hay suficientes vigentes o si la lista ya contenia todo el rango
+                if (accepted >= out.limit || top.length < PRECOMPUTED_TOP) {
+                    return;
+                }
+            }
+            int from = Arrays.binarySearch(keys, key);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            for (int i = from; i < keys.length && keys[i].startsWith(key); i++) {
+                if (!isStale(suggestions[i], stale)) {
+                    out.offer(suggestions[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Las mejores {@code limit} sugerencias distintas vistas. Un producto aparece con varias claves (una por
+     * palabra del nombre) pero una sola vez en el resultado.
+     */
+    private static final class TopK {
+        private final int limit;
+        private final PriorityQueue<Suggestion> heap;
+
+        private TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        }
+
+        private void offer(Suggestion suggestion) {
+            if (heap.size() >= limit && RANKING.compare(suggestion, heap.peek()) >= 0) {
+                return;
+            }
+            if (heap.contains(suggestion)) {
+                return;
+            }
+            heap.offer(suggestion);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        private void offerAll(TopK other) {
+            for (Suggestion suggestion : other.heap) {
+                offer(suggestion);
+            }
+        }
+
+        private List<Suggestion> sorted() {
+            List<Suggestion> result = new ArrayList<>(heap);
+            result.sort(RANKING);
+            return result;
+        }
+    }
+}
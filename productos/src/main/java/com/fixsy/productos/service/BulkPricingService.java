@@ -0,0 +1,298 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.BulkPriceRequestDTO;
+import com.fixsy.productos.dto.BulkPriceResultDTO;
+import com.fixsy.productos.dto.PriceChangeDTO;
+import com.fixsy.productos.dto.PriceRuleDTO;
+import com.fixsy.productos.dto.PriceRuleResultDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.Tag;
+import com.fixsy.productos.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actualizacion masiva de precios y ofertas por reglas (SKUs, categoria, marca o etiqueta).
+ * <p>
+ * Cada regla recorre sus productos por bloques de {@link #CHUNK_SIZE} en orden de id. Por bloque se
+ * clasifica cada producto con las mismas validaciones de {@code updatePrice}/{@code updateOffer} y los
+ * cambios se aplican con un solo UPDATE por bloque, en su propia transaccion y con los eventos de
+ * cambio habituales. En dryRun solo se clasifica: no se escribe nada y las reglas posteriores no ven el
+ * efecto de las anteriores. La operacion completa no es atomica: un error corta en el bloque en curso
+ * y los bloques ya aplicados se conservan.
+ * <p>
+ * Un UPDATE masivo no pasa por las entidades, asi que Hibernate vacia la region products del cache de
+ * segundo nivel completa en cada bloque aplicado, no solo los productos tocados.
+ */
+@Service
+@Slf4j
+public class BulkPricingService {
+
+    static final int CHUNK_SIZE = 500;
+    static final int SAMPLE_SIZE = 50;
+    // Limite de la columna precio (precision 10, escala 2)
+    static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkPricingService(ProductRepository productRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public BulkPriceResultDTO apply(BulkPriceRequestDTO request) {
+        long start = System.currentTimeMillis();
+        // Se validan todas las reglas antes de tocar un solo producto
+        for (PriceRuleDTO rule : request.getRules()) {
+            validate(rule);
+        }
+        List<PriceRuleResultDTO> results = new ArrayList<>();
+        for (PriceRuleDTO rule : request.getRules()) {
+            PriceRuleResultDTO result = applyRule(rule, request.isDryRun());
+            log.info("Regla de precio {} {}: {} coinciden, {} cambios, {} rechazados",
+                    rule.getAction(), request.isDryRun() ? "(dryRun)" : "", result.getMatched(),
+                    result.getChanged(), result.getRejected());
+            results.add(result);
+        }
+        return new BulkPriceResultDTO(request.isDryRun(), results, System.currentTimeMillis() - start);
+    }
+
+    private void validate(PriceRuleDTO rule) {
+        if (rule.getAction() == null) {
+            throw new IllegalArgumentException("La accion es obligatoria");
+        }
+        BigDecimal value = rule.getValue();
+        switch (rule.getAction()) {
+            case SET_PRICE -> {
+                if (value == null || value.compareTo(BigDecimal.ZERO) < 0) {
+                    throw new IllegalArgumentException("El precio no puede ser negativo");
+                }
+                if (value.compareTo(MAX_PRICE) > 0) {
+                    throw new IllegalArgumentException("El precio supera el maximo permitido");
+                }
+            }
+            case PERCENT_CHANGE -> {
+                if (value == null || value.compareTo(HUNDRED.negate()) <= 0) {
+                    throw new IllegalArgumentException("El porcentaje debe ser mayor a -100");
+                }
+            }
+            case SET_OFFER, CLEAR_OFFER -> {
+                // Una oferta null o <= 0 quita la oferta, igual que updateOffer
+            }
+        }
+
+        boolean hasSkus = rule.getSkus() != null && !rule.getSkus().isEmpty();
+        boolean hasFilters = hasText(rule.getCategoria()) || hasText(rule.getMarca()) || hasText(rule.getTag());
+        if (hasSkus && hasFilters) {
+            throw new IllegalArgumentException("La lista de SKUs no se combina con categoria, marca o etiqueta");
+        }
+        if (!hasSkus && !hasFilters && !Boolean.TRUE.equals(rule.getAllProducts())) {
+            throw new IllegalArgumentException("Indica SKUs, categoria, marca o etiqueta, o allProducts para todo el catalogo");
+        }
+    }
+
+    private PriceRuleResultDTO applyRule(PriceRuleDTO rule, boolean dryRun) {
+        RuleTally tally = new RuleTally(rule.getAction());
+        if (rule.getSkus() != null && !rule.getSkus().isEmpty()) {
+            Map<String, String> requested = new LinkedHashMap<>();
+            for (String sku : rule.getSkus()) {
+                if (hasText(sku)) {
+                    requested.putIfAbsent(skuKey(sku), sku.trim());
+                }
+            }
+            List<String> skus = new ArrayList<>(requested.values());
+            for (int from = 0; from < skus.size(); from += CHUNK_SIZE) {
+                List<String> chunk = skus.subList(from, Math.min(from + CHUNK_SIZE, skus.size()));
+                int found = transactionTemplate.execute(status ->
+                        processChunk(rule, productRepository.findForWriteBySkuIn(chunk), dryRun, tally));
+                tally.notFound += chunk.size() - found;
+            }
+        } else {
+            String categoria = trimToNull(rule.getCategoria());
+            String marca = trimToNull(rule.getMarca());
+            String tag = Tag.normalizeName(rule.getTag());
+            long afterId = 0L;
+            while (true) {
+                long cursor = afterId;
+                Long lastId = transactionTemplate.execute(status -> {
+                    List<Product> batch = productRepository.findForPricing(
+                            cursor, categoria, marca, tag, PageRequest.of(0, CHUNK_SIZE));
+                    Long last = batch.isEmpty() ? null : batch.get(batch.size() - 1).getId();
+                    processChunk(rule, batch, dryRun, tally);
+                    return batch.size() < CHUNK_SIZE ? null : last;
+                });
+                if (lastId == null) {
+                    break;
+                }
+                afterId = lastId;
+            }
+        }
+        return tally.toResult();
+    }
+
+    // Clasifica el bloque y, fuera de dryRun, aplica los cambios con un UPDATE. Devuelve cuantos productos leyo.
+    private int processChunk(PriceRuleDTO rule, List<Product> products, boolean dryRun, RuleTally tally) {
+        Map<Long, ProductSnapshot> before = new HashMap<>();
+        List<Long> changedIds = new ArrayList<>();
+        for (Product product : products) {
+            tally.matched++;
+            PriceChangeDTO change = evaluate(rule, product);
+            if (change.getRejectedReason() != null) {
+                tally.rejected++;
+                tally.sample(change);
+            } else if (sameAmount(change.getPrecioNormalAntes(), change.getPrecioNormalDespues())
+                    && sameAmount(change.getPrecioOfertaAntes(), change.getPrecioOfertaDespues())) {
+                tally.unchanged++;
+            } else {
+                tally.sample(change);
+                changedIds.add(product.getId());
+                before.put(product.getId(), ProductSnapshot.of(product));
+            }
+        }
+        if (dryRun || changedIds.isEmpty()) {
+            tally.changed += changedIds.size();
+            return products.size();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = switch (rule.getAction()) {
+            case SET_PRICE -> productRepository.bulkSetPrice(changedIds, scaled(rule.getValue()), now);
+            case PERCENT_CHANGE -> productRepository.bulkScalePrice(changedIds, factor(rule.getValue()), now);
+            case SET_OFFER -> isClearOffer(rule.getValue())
+                    ? productRepository.bulkClearOffer(changedIds, now)
+                    : productRepository.bulkSetOffer(changedIds, scaled(rule.getValue()), now);
+            case CLEAR_OFFER -> productRepository.bulkClearOffer(changedIds, now);
+        };
+        tally.changed += updated;
+
+        ProductChangeType type = rule.getAction() == PriceRuleDTO.Action.SET_PRICE
+                || rule.getAction() == PriceRuleDTO.Action.PERCENT_CHANGE
+                ? ProductChangeType.PRICE : ProductChangeType.OFFER;
+        for (Product saved : productRepository.findAllById(changedIds)) {
+            eventPublisher.publishEvent(ProductChangeEvent.of(type, before.get(saved.getId()), saved));
+        }
+        return products.size();
+    }
+
+    /**
+     * Calcula el precio y la oferta resultantes de aplicar la regla a un producto, con las reglas de
+     * {@code updatePrice} (una oferta mayor al nuevo precio se quita) y {@code updateOffer} (la oferta
+     * no puede superar el precio).
+     */
+    static PriceChangeDTO evaluate(PriceRuleDTO rule, Product product) {
+        BigDecimal price = product.getPrecioNormal();
+        BigDecimal offer = product.getPrecioOferta();
+        PriceChangeDTO change = new PriceChangeDTO(product.getSku(), price, price, offer, offer, null);
+        switch (rule.getAction()) {
+            case SET_PRICE, PERCENT_CHANGE -> {
+                BigDecimal newPrice;
+                if (rule.getAction() == PriceRuleDTO.Action.SET_PRICE) {
+                    newPrice = scaled(rule.getValue());
+                } else if (price == null) {
+                    change.setRejectedReason("El producto no tiene precio");
+                    return change;
+                } else {
+                    newPrice = price.multiply(factor(rule.getValue())).setScale(2, RoundingMode.HALF_UP);
+                }
+                if (newPrice.compareTo(MAX_PRICE) > 0) {
+                    change.setRejectedReason("El precio supera el maximo permitido");
+                    return change;
+                }
+                change.setPrecioNormalDespues(newPrice);
+                if (offer != null && offer.compareTo(newPrice) > 0) {
+                    change.setPrecioOfertaDespues(null);
+                }
+            }
+            case SET_OFFER -> {
+                if (isClearOffer(rule.getValue())) {
+                    change.setPrecioOfertaDespues(null);
+                } else {
+                    BigDecimal newOffer = scaled(rule.getValue());
+                    if (price != null && newOffer.compareTo(price) > 0) {
+                        change.setRejectedReason("La oferta no puede ser mayor al precio");
+                        return change;
+                    }
+                    change.setPrecioOfertaDespues(newOffer);
+                }
+            }
+            case CLEAR_OFFER -> change.setPrecioOfertaDespues(null);
+        }
+        return change;
+    }
+
+    private static boolean isClearOffer(BigDecimal value) {
+        return value == null || value.compareTo(BigDecimal.ZERO) <= 0;
+    }
+
+    private static BigDecimal factor(BigDecimal percent) {
+        return BigDecimal.ONE.add(percent.divide(HUNDRED));
+    }
+
+    private static BigDecimal scaled(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String trimToNull(String value) {
+        return hasText(value) ? value.trim() : null;
+    }
+
+    private static String skuKey(String sku) {
+        return sku.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Contadores de una regla a traves de todos sus bloques
+    private static final class RuleTally {
+        private final PriceRuleDTO.Action action;
+        private final List<PriceChangeDTO> sample = new ArrayList<>();
+        private int matched;
+        private int changed;
+        private int unchanged;
+        private int rejected;
+        private int notFound;
+
+        RuleTally(PriceRuleDTO.Action action) {
+            this.action = action;
+        }
+
+        void sample(PriceChangeDTO change) {
+            if (sample.size() < SAMPLE_SIZE) {
+                sample.add(change);
+            }
+        }
+
+        PriceRuleResultDTO toResult() {
+            return new PriceRuleResultDTO(action, matched, changed, unchanged, rejected, notFound, sample);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.MaintenanceJobDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.MaintenanceJob;
+import com.fixsy.productos.model.MaintenanceJobStatus;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.MaintenanceJobRepository;
+import com.fixsy.productos.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta en segundo plano los trabajos de mantenimiento del catalogo ({@link CatalogMaintenanceTask}).
+ * <p>
+ * Cada trabajo recorre products por keyset en bloques de tamaño fijo, asi que la memoria no depende del
+ * tamaño del catalogo. Por bloque, en una sola transaccion: la tarea modifica los productos, se guardan
+ * con un saveAll, se publican los eventos de cambio y se avanza el checkpoint del trabajo. Si la
+ * aplicacion se detiene o el bloque falla, el trabajo se reanuda desde el ultimo bloque confirmado.
+ * Los trabajos corren en un pool acotado y se cancelan entre bloques.
+ */
+@Service
+@Slf4j
+public class CatalogMaintenanceService {
+
+    private static final Set<MaintenanceJobStatus> ACTIVE = Set.of(MaintenanceJobStatus.QUEUED, MaintenanceJobStatus.RUNNING);
+
+    private final Map<String, CatalogMaintenanceTask> tasks = new LinkedHashMap<>();
+    private final MaintenanceJobRepository jobRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean resumeOnStartup;
+    private final ThreadPoolExecutor executor;
+
+    public CatalogMaintenanceService(List<CatalogMaintenanceTask> tasks,
+                                     MaintenanceJobRepository jobRepository,
+                                     ProductRepository productRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${productos.maintenance.threads:1}") int threads,
+                                     @Value("${productos.maintenance.queue-capacity:10}") int queueCapacity,
+                                     @Value("${productos.maintenance.chunk-size:500}") int chunkSize,
+                                     @Value("${productos.maintenance.resume-on-startup:true}") boolean resumeOnStartup) {
+        for (CatalogMaintenanceTask task : tasks) {
+            this.tasks.put(task.type(), task);
+        }
+        this.jobRepository = jobRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.resumeOnStartup = resumeOnStartup;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-maintenance-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Trabajos que quedaron en cola o a medias al detenerse la aplicacion continuan desde su checkpoint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        for (MaintenanceJob job : jobRepository.findByStatusInOrderByIdAsc(ACTIVE)) {
+            log.info("Reanudando trabajo de mantenimiento {} ({}) desde el producto {}",
+                    job.getId(), job.getType(), job.getLastProductId());
+            submit(job.getId());
+        }
+    }
+
+    public Map<String, String> getTaskTypes() {
+        Map<String, String> types = new LinkedHashMap<>();
+        tasks.values().forEach(task -> types.put(task.type(), task.description()));
+        return types;
+    }
+
+    /**
+     * Crea y encola un trabajo. Solo puede haber uno activo por tipo.
+     */
+    public MaintenanceJobDTO start(String type) {
+        if (type == null || !tasks.containsKey(type)) {
+            throw new IllegalArgumentException("Tipo de trabajo desconocido: " + type
+                    + ". Disponibles: " + String.join(", ", tasks.keySet()));
+        }
+        MaintenanceJob job = transactionTemplate.execute(status -> {
+            if (jobRepository.existsByTypeAndStatusIn(type, ACTIVE)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay un trabajo " + type + " en curso");
+            }
+            return jobRepository.save(new MaintenanceJob(type, productRepository.count()));
+        });
+        submit(job.getId());
+        return toDTO(job);
+    }
+
+    /**
+     * Reencola un trabajo fallido; continua desde su ultimo checkpoint.
+     */
+    public MaintenanceJobDTO resume(Long id) {
+        MaintenanceJob job = transactionTemplate.execute(status -> {
+            MaintenanceJob found = findJob(id);
+            if (found.getStatus() != MaintenanceJobStatus.FAILED) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Solo se puede reanudar un trabajo fallido");
+            }
+            if (jobRepository.existsByTypeAndStatusIn(found.getType(), ACTIVE)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay un trabajo " + found.getType() + " en curso");
+            }
+            found.setStatus(MaintenanceJobStatus.QUEUED);
+            found.setCancelRequested(false);
+            found.setMessage(null);
+            found.setFinishedAt(null);
+            return jobRepository.save(found);
+        });
+        submit(job.getId());
+        return toDTO(job);
+    }
+
+    /**
+     * Pide la cancelacion; el worker la aplica al terminar el bloque en curso, que se conserva.
+     */
+    public MaintenanceJobDTO cancel(Long id) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jobRepository.requestCancel(id, ACTIVE) == 0) {
+                MaintenanceJob job = findJob(id);
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "El trabajo ya termino con estado " + job.getStatus());
+            }
+        });
+        return getJob(id);
+    }
+
+    public MaintenanceJobDTO getJob(Long id) {
+        return toDTO(findJob(id));
+    }
+
+    public List<MaintenanceJobDTO> getRecentJobs() {
+        return jobRepository.findTop20ByOrderByIdDesc().stream().map(this::toDTO).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Los trabajos interrumpidos quedan RUNNING y se reanudan al iniciar
+        executor.shutdownNow();
+    }
+
+    private void submit(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                MaintenanceJob job = findJob(jobId);
+                job.setStatus(MaintenanceJobStatus.FAILED);
+                job.setMessage("Cola de trabajos llena, reintente mas tarde");
+                job.setFinishedAt(LocalDateTime.now());
+                jobRepository.save(job);
+            });
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Cola de trabajos de mantenimiento llena");
+        }
+    }
+
+    /**
+     * Procesa el trabajo hasta terminar, cancelarse o fallar. Package-private para los tests.
+     */
+    void run(Long jobId) {
+        MaintenanceJob job = transactionTemplate.execute(status -> {
+            MaintenanceJob found = findJob(jobId);
+            if (!found.getStatus().isActive()) {
+                return null;
+            }
+            found.setStatus(MaintenanceJobStatus.RUNNING);
+            if (found.getStartedAt() == null) {
+                found.setStartedAt(LocalDateTime.now());
+            }
+            return jobRepository.save(found);
+        });
+        if (job == null) {
+            return;
+        }
+        CatalogMaintenanceTask task = tasks.get(job.getType());
+        log.info("Trabajo de mantenimiento {} ({}) iniciado", jobId, job.getType());
+        try {
+            boolean more = true;
+            while (more) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Trabajo de mantenimiento {} interrumpido, se reanudara desde su checkpoint", jobId);
+                    return;
+                }
+                Boolean processedChunk = transactionTemplate.execute(status -> processChunk(jobId, task));
+                more = Boolean.TRUE.equals(processedChunk);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Trabajo de mantenimiento {} fallo: {}", jobId, e.getMessage());
+            finish(jobId, MaintenanceJobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    // Un bloque: tarea + saveAll + eventos + checkpoint en la misma transaccion. Devuelve false al terminar.
+    private Boolean processChunk(Long jobId, CatalogMaintenanceTask task) {
+        long start = System.currentTimeMillis();
+        MaintenanceJob job = findJob(jobId);
+        if (Boolean.TRUE.equals(job.getCancelRequested())) {
+            close(job, MaintenanceJobStatus.CANCELLED, null);
+            return false;
+        }
+
+        List<Product> chunk = productRepository.findByIdGreaterThanOrderByIdAsc(
+                job.getLastProductId(), PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty()) {
+            close(job, MaintenanceJobStatus.COMPLETED, null);
+            return false;
+        }
+
+        Map<Long, ProductSnapshot> before = new HashMap<>();
+        for (Product product : chunk) {
+            before.put(product.getId(), ProductSnapshot.of(product));
+        }
+        List<Product> changed = task.process(chunk);
+        if (!changed.isEmpty()) {
+            for (Product saved : productRepository.saveAll(new ArrayList<>(changed))) {
+                eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeType.UPDATED, before.get(saved.getId()), saved));
+            }
+        }
+
+        job.setProcessed(job.getProcessed() + chunk.size());
+        job.setChanged(job.getChanged() + changed.size());
+        job.setLastProductId(chunk.get(chunk.size() - 1).getId());
+        job.setElapsedMillis(job.getElapsedMillis() + (System.currentTimeMillis() - start));
+        if (chunk.size() < chunkSize) {
+            close(job, MaintenanceJobStatus.COMPLETED, null);
+            return false;
+        }
+        jobRepository.save(job);
+        return true;
+    }
+
+    private void finish(Long jobId, MaintenanceJobStatus status, String message) {
+        transactionTemplate.executeWithoutResult(tx -> close(findJob(jobId), status, message));
+    }
+
+    private void close(MaintenanceJob job, MaintenanceJobStatus status, String message) {
+        job.setStatus(status);
+        job.setMessage(message == null ? null : truncate(message));
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        log.info("Trabajo de mantenimiento {} ({}) termino con estado {}: {} procesados, {} modificados",
+                job.getId(), job.getType(), status, job.getProcessed(), job.getChanged());
+    }
+
+    private MaintenanceJob findJob(Long id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Trabajo no encontrado"));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    MaintenanceJobDTO toDTO(MaintenanceJob job) {
+        long total = Math.max(job.getTotal(), job.getProcessed());
+        double percent;
+        if (job.getStatus() == MaintenanceJobStatus.COMPLETED) {
+            percent = 100.0;
+        } else {
+            percent = total == 0 ? 0.0 : Math.round(job.getProcessed() * 1000.0 / total) / 10.0;
+        }
+        double perSecond = job.getElapsedMillis() > 0 ? job.getProcessed() * 1000.0 / job.getElapsedMillis() : 0.0;
+        Long eta = null;
+        if (job.getStatus().isActive() && perSecond > 0) {
+            eta = (long) Math.ceil((total - job.getProcessed()) / perSecond);
+        }
+        return new MaintenanceJobDTO(job.getId(), job.getType(), job.getStatus().name(), total, job.getProcessed(),
+                job.getChanged(), percent, Math.round(perSecond * 10) / 10.0, eta, job.getLastProductId(),
+                Boolean.TRUE.equals(job.getCancelRequested()) && job.getStatus().isActive(), job.getMessage(),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+}
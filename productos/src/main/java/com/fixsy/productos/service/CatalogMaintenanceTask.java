@@ -0,0 +1,25 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+
+import java.util.List;
+
+/**
+ * Tarea de mantenimiento que {@link CatalogMaintenanceService} aplica al catalogo completo, bloque por
+ * bloque en orden de id. Cada bloque corre en su propia transaccion.
+ */
+public interface CatalogMaintenanceTask {
+
+    /**
+     * Identificador con el que se inicia el trabajo (por ejemplo {@code normalize-slugs}).
+     */
+    String type();
+
+    String description();
+
+    /**
+     * Modifica los productos del bloque que lo necesiten y los devuelve; el servicio los guarda con un
+     * solo saveAll y publica sus eventos de cambio. No debe guardar por su cuenta.
+     */
+    List<Product> process(List<Product> chunk);
+}
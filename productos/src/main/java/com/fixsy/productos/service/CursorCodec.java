@@ -0,0 +1,41 @@
+package com.fixsy.productos.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica la posicion de un listado (ultimo id entregado u offset) como un token opaco.
+ * El cliente solo debe devolver el token tal cual lo recibio.
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "p:";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(long position) {
+        byte[] raw = (PREFIX + position).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Cursor de paginacion invalido");
+            }
+            long position = Long.parseLong(raw.substring(PREFIX.length()));
+            if (position < 0) {
+                throw new IllegalArgumentException("Cursor de paginacion invalido");
+            }
+            return position;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de paginacion invalido", e);
+        }
+    }
+}
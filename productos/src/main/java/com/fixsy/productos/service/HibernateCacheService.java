@@ -0,0 +1,75 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metricas y vaciado del cache de segundo nivel de Hibernate: la region de entidades Product y la de
+ * resultados de consultas cacheables. La region de marcas de tiempo no se vacia desde aqui: es la que
+ * permite descartar resultados obsoletos y perderla los haria pasar por vigentes.
+ */
+@Service
+public class HibernateCacheService {
+
+    static final String QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+
+    private final SessionFactory sessionFactory;
+
+    public HibernateCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(Product.CACHE_REGION, describe(statistics.getDomainDataRegionStatistics(Product.CACHE_REGION)));
+        stats.put(QUERY_REGION, describe(statistics.getQueryRegionStatistics(QUERY_REGION)));
+
+        Map<String, Object> timestamps = new LinkedHashMap<>();
+        timestamps.put("hits", statistics.getUpdateTimestampsCacheHitCount());
+        timestamps.put("misses", statistics.getUpdateTimestampsCacheMissCount());
+        timestamps.put("puts", statistics.getUpdateTimestampsCachePutCount());
+        stats.put(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        stats.put("statisticsSince", statistics.getStart());
+        return stats;
+    }
+
+    /**
+     * Vacia una region, o la de entidades y la de consultas si {@code region} es null.
+     */
+    public void evict(String region) {
+        if (region == null || region.isBlank()) {
+            sessionFactory.getCache().evictEntityData(Product.class);
+            sessionFactory.getCache().evictDefaultQueryRegion();
+        } else if (Product.CACHE_REGION.equals(region)) {
+            sessionFactory.getCache().evictEntityData(Product.class);
+        } else if (QUERY_REGION.equals(region)) {
+            sessionFactory.getCache().evictDefaultQueryRegion();
+        } else {
+            throw new IllegalArgumentException("Region de cache desconocida: " + region);
+        }
+    }
+
+    // Sin estadisticas (cache o generate_statistics desactivados) la region se informa vacia
+    private Map<String, Object> describe(CacheRegionStatistics region) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (region == null) {
+            return values;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        values.put("hits", hits);
+        values.put("misses", misses);
+        values.put("puts", region.getPutCount());
+        values.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return values;
+    }
+}
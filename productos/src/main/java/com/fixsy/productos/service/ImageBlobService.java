@@ -0,0 +1,225 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.ImageBlob;
+import com.fixsy.productos.repository.ImageBlobRepository;
+import com.fixsy.productos.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Lleva la cuenta de referencias de las imagenes direccionadas por contenido y borra las que ya no usa
+ * ningun producto.
+ * <p>
+ * El contador se actualiza dentro de la transaccion de cada escritura de producto, a partir de la
+ * diferencia entre las imagenes antes y despues del cambio. El recolector solo borra archivos con mas
+ * antiguedad que el periodo de gracia (una subida se guarda antes de asignarse al producto) y vuelve a
+ * contar las referencias en products antes de borrar, asi que un contador desfasado nunca borra una
+ * imagen en uso.
+ * <p>
+ * El borrado y cada incremento toman la misma fila de image_blobs con {@code FOR UPDATE}. Si el recolector
+ * llega primero, el producto que asignaba la imagen espera su commit, encuentra el archivo borrado y falla;
+ * si llega despues, ve el contador ya incrementado y conserva la imagen.
+ */
+@Service
+@Slf4j
+public class ImageBlobService {
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageStorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+    private final AtomicBoolean collecting = new AtomicBoolean(false);
+
+    // Resultados de collectLocked distintos de los bytes liberados (que son 0 o mas)
+    private static final long KEPT = -1;
+    private static final long REPAIRED = -2;
+
+    public record CollectionResult(int scanned, int deleted, int repaired, long freedBytes) {
+    }
+
+    public ImageBlobService(ImageBlobRepository imageBlobRepository,
+                            ProductRepository productRepository,
+                            ProductImageStorageService storageService,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${productos.images.gc-grace-minutes:60}") long graceMinutes) {
+        this.imageBlobRepository = imageBlobRepository;
+        this.productRepository = productRepository;
+        this.storageService = storageService;
+        this.transactionTemplate = transactionTemplate;
+        this.gracePeriod = Duration.ofMinutes(graceMinutes);
+    }
+
+    @EventListener
+    @Transactional
+    public void onProductChange(ProductChangeEvent event) {
+        Map<String, Integer> before = references(event.before());
+        Map<String, Integer> after = references(event.after());
+        if (before.equals(after)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // En orden de nombre: dos escrituras con las mismas imagenes bloquean las filas en el mismo orden
+        Set<String> names = new TreeSet<>(before.keySet());
+        names.addAll(after.keySet());
+        for (String name : names) {
+            int delta = after.getOrDefault(name, 0) - before.getOrDefault(name, 0);
+            if (delta > 0 && lockRefCount(name, now) == 0
+                    && !Files.exists(storageService.getBaseDirectory().resolve(name))) {
+                throw new IllegalArgumentException("La imagen " + name + " ya no existe, hay que volver a subirla");
+            }
+            for (int i = 0; i < delta; i++) {
+                imageBlobRepository.increment(name, now);
+            }
+            for (int i = 0; i > delta; i--) {
+                imageBlobRepository.decrement(name, now);
+            }
+        }
+    }
+
+    // Una misma imagen puede estar como principal y en la galeria: se cuentan ambas apariciones
+    Map<String, Integer> references(ProductSnapshot snapshot) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (snapshot == null) {
+            return counts;
+        }
+        List<String> refs = new ArrayList<>(snapshot.images());
+        refs.add(snapshot.imageUrl());
+        for (String ref : refs) {
+            String name = storageService.contentAddressedName(ref);
+            if (name != null) {
+                counts.merge(name, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${productos.images.gc-interval-ms:3600000}",
+            initialDelayString = "${productos.images.gc-initial-delay-ms:600000}")
+    public void scheduledCollect() {
+        try {
+            CollectionResult result = collect();
+            if (result.deleted() > 0 || result.repaired() > 0) {
+                log.info("Recolector de imagenes: {} borradas, {} contadores corregidos, {} bytes liberados",
+                        result.deleted(), result.repaired(), result.freedBytes());
+            }
+        } catch (Exception e) {
+            log.warn("Fallo la recoleccion de imagenes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las imagenes direccionadas por contenido sin referencias, junto con sus derivados.
+     * Si ya hay una recoleccion en curso devuelve un resultado vacio.
+     */
+    public CollectionResult collect() throws IOException {
+        if (!collecting.compareAndSet(false, true)) {
+            return new CollectionResult(0, 0, 0, 0);
+        }
+        try {
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            List<Path> candidates;
+            try (Stream<Path> files = Files.list(storageService.getBaseDirectory())) {
+                candidates = files
+                        .filter(path -> storageService.isContentAddressedName(path.getFileName().toString()))
+                        .toList();
+            }
+            int deleted = 0;
+            int repaired = 0;
+            long freed = 0;
+            for (Path path : candidates) {
+                if (!isOlderThan(path, cutoff)) {
+                    continue;
+                }
+                String name = path.getFileName().toString();
+                // Lectura sin bloqueo para saltar rapido las imagenes en uso; se vuelve a mirar con la fila tomada
+                Optional<ImageBlob> blob = imageBlobRepository.findById(name);
+                if (blob.isPresent() && blob.get().getRefCount() > 0) {
+                    continue;
+                }
+                Long outcome = transactionTemplate.execute(status -> collectLocked(name, path, cutoff));
+                if (outcome == null || outcome == KEPT) {
+                    continue;
+                }
+                if (outcome == REPAIRED) {
+                    repaired++;
+                } else {
+                    deleted++;
+                    freed += outcome;
+                }
+            }
+            return new CollectionResult(candidates.size(), deleted, repaired, freed);
+        } finally {
+            collecting.set(false);
+        }
+    }
+
+    // Con la fila de image_blobs bloqueada hasta el commit. Devuelve KEPT, REPAIRED o los bytes liberados
+    private long collectLocked(String name, Path path, Instant cutoff) {
+        LocalDateTime now = LocalDateTime.now();
+        if (lockRefCount(name, now) > 0) {
+            return KEPT;
+        }
+        long references = productRepository.countImageReferences(name);
+        if (references > 0) {
+            // Imagen asignada sin pasar por ProductService (o anterior al contador): se corrige y se conserva
+            imageBlobRepository.resetRefCount(name, (int) references, now);
+            return REPAIRED;
+        }
+        // Una subida del mismo contenido renueva la fecha: se comprueba de nuevo justo antes de borrar
+        if (!isOlderThan(path, cutoff)) {
+            return KEPT;
+        }
+        long freed = 0;
+        try {
+            for (Path file : storageService.blobFiles(name)) {
+                long size = Files.isRegularFile(file) ? Files.size(file) : 0;
+                if (Files.deleteIfExists(file)) {
+                    freed += size;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imageBlobRepository.deleteById(name);
+        return freed;
+    }
+
+    // Crea la fila si falta y la bloquea: sin fila no habria nada que esperar entre recolector e incremento
+    private int lockRefCount(String name, LocalDateTime now) {
+        imageBlobRepository.ensure(name, now);
+        return imageBlobRepository.lockRefCount(name).orElse(0);
+    }
+
+    private static boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
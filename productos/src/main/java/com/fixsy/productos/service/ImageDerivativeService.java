@@ -0,0 +1,348 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera, despues de cada subida, los derivados de las imagenes locales de un producto: un JPEG por
+ * cada ancho configurado y una version recomprimida del original. Corre en un pool acotado para que
+ * las subidas no esperen el procesamiento; si la cola esta llena la imagen se sigue entregando
+ * original y puede reprocesarse desde el panel admin.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    // Limite de pixeles a decodificar: evita que una imagen pequeña en disco ocupe gigas en memoria
+    private static final long MAX_PIXELS = 40_000_000L;
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    private final ProductImageStorageService storageService;
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor executor;
+    // Imagen en proceso -> productos que esperan el registro. Con nombres por contenido varios productos
+    // comparten el mismo archivo: se genera una vez y se registra en todos
+    private final Map<String, Set<Long>> inFlight = new ConcurrentHashMap<>();
+    // El registro en el producto es leer-modificar-escribir: se serializa para no perder derivados
+    private final Object recordLock = new Object();
+
+    public ImageDerivativeService(ProductImageStorageService storageService,
+                                  ProductService productService,
+                                  ProductRepository productRepository,
+                                  @Value("${productos.images.derivative-threads:2}") int threads,
+                                  @Value("${productos.images.derivative-queue-capacity:200}") int queueCapacity,
+                                  @Value("${productos.images.jpeg-quality:0.82}") float jpegQuality) {
+        this.storageService = storageService;
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.jpegQuality = jpegQuality;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.product() == null) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED, IMAGE -> schedule(event.product());
+            default -> {
+                // Otros cambios no agregan imagenes
+            }
+        }
+    }
+
+    /**
+     * Encola las imagenes locales del producto que aun no tienen derivados. Devuelve cuantas se encolaron.
+     */
+    public int schedule(Product product) {
+        Set<String> processed = new HashSet<>(product.getImageDerivatives() == null ? List.of() : product.getImageDerivatives());
+        int queued = 0;
+        for (String storedName : localImages(product)) {
+            if (!processed.contains(storedName) && submit(product.getId(), storedName)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Recorre todo el catalogo y encola las imagenes sin derivados (imagenes subidas antes del pipeline).
+     */
+    public int scheduleAll() {
+        int queued = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Product> batch = productRepository.findByIdGreaterThanOrderByIdAsc(
+                    afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Product product : batch) {
+                queued += schedule(product);
+            }
+            if (batch.size() < BACKFILL_BATCH_SIZE) {
+                return queued;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean submit(Long productId, String storedName) {
+        boolean[] first = {false};
+        inFlight.compute(storedName, (name, waiting) -> {
+            Set<Long> productIds = waiting != null ? waiting : new HashSet<>();
+            first[0] = waiting == null;
+            productIds.add(productId);
+            return productIds;
+        });
+        if (!first[0]) {
+            // Ya hay una tarea para este archivo: el producto se registra cuando termine
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                boolean generated = false;
+                try {
+                    generated = generate(storedName);
+                } catch (Exception e) {
+                    log.warn("No se pudieron generar los derivados de {}: {}", storedName, e.getMessage());
+                } finally {
+                    Set<Long> productIds = inFlight.remove(storedName);
+                    if (generated && productIds != null) {
+                        record(productIds, storedName);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(storedName);
+            log.warn("Cola de derivados llena, {} se entregara sin redimensionar", storedName);
+            return false;
+        }
+    }
+
+    private void record(Set<Long> productIds, String storedName) {
+        for (Long productId : productIds) {
+            try {
+                synchronized (recordLock) {
+                    productService.recordImageDerivatives(productId, storedName);
+                }
+            } catch (Exception e) {
+                log.warn("No se pudieron registrar los derivados de {} en el producto {}: {}",
+                        storedName, productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Escribe los derivados de una imagen. Devuelve false si el formato no se puede decodificar
+     * (por ejemplo webp/avif sin plugin de ImageIO) o la imagen ya no existe.
+     */
+    boolean generate(String storedName) throws IOException {
+        Path original = storageService.resolveProductImagePath(storedName);
+        if (!Files.isRegularFile(original)) {
+            return false;
+        }
+        BufferedImage source = read(original);
+        if (source == null) {
+            log.debug("Formato no soportado para derivados: {}", storedName);
+            return false;
+        }
+
+        BufferedImage flattened = flatten(source);
+        for (int width : storageService.getDerivativeWidths()) {
+            writeJpeg(scaleToWidth(flattened, width), storageService.derivativePath(original, width));
+        }
+
+        // El original recomprimido solo se publica si realmente pesa menos: se compara antes de moverlo, asi su
+        // URL nunca existe un momento y luego desaparece
+        Path optimized = storageService.optimizedPath(original);
+        Path temp = encodeJpeg(flattened, optimized);
+        try {
+            if (Files.size(temp) < Files.size(original)) {
+                Files.move(temp, optimized, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    private List<String> localImages(Product product) {
+        Set<String> names = new LinkedHashSet<>();
+        List<String> candidates = new ArrayList<>();
+        candidates.add(product.getImageUrl());
+        if (product.getImages() != null) {
+            candidates.addAll(product.getImages());
+        }
+        for (String candidate : candidates) {
+            if (candidate == null || candidate.isBlank() || storageService.isAbsoluteWebUrl(candidate)) {
+                continue;
+            }
+            String name = candidate.trim();
+            try {
+                Path path = storageService.resolveProductImagePath(name);
+                if (!storageService.isDerivativeName(path.getFileName().toString())) {
+                    names.add(name);
+                }
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    log.warn("Imagen demasiado grande para generar derivados ({} px): {}", pixels, path.getFileName());
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // JPEG no tiene transparencia: se compone sobre fondo blanco, como se muestran los productos
+    static BufferedImage flatten(BufferedImage source) {
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, source.getWidth(), source.getHeight());
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * Reduce a la mitad en pasos sucesivos hasta el ancho pedido, que da mejor calidad que un solo
+     * escalado bilineal grande. Nunca agranda: si la imagen ya es mas angosta se devuelve tal cual.
+     */
+    static BufferedImage scaleToWidth(BufferedImage source, int width) {
+        if (source.getWidth() <= width) {
+            return source;
+        }
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * (width / (double) source.getWidth())));
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != targetHeight);
+        return current;
+    }
+
+    // Se escribe a un temporal y se mueve al final para que nunca se entregue un archivo a medias
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = encodeJpeg(image, target);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Temporal junto al destino (mismo directorio, para que el movimiento sea atomico); lo borra quien lo pide
+    private Path encodeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".derivative-", ".tmp");
+        boolean written = false;
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            written = true;
+            return temp;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.fixsy.productos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixsy.productos.dto.ImportRowErrorDTO;
+import com.fixsy.productos.dto.ProductImportResultDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovementReason;
+import com.fixsy.productos.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Importacion y exportacion masiva del catalogo en CSV o NDJSON, en streaming y con memoria constante.
+ * <p>
+ * La importacion lee el archivo por bloques de {@link #CHUNK_SIZE} filas: cada bloque resuelve sus SKUs
+ * con una sola consulta, crea o actualiza los productos y se guarda en su propia transaccion con los
+ * eventos de cambio habituales (indices, cache, etiquetas). Si el bloque falla al guardar se reintenta
+ * fila por fila para aislar la que provoca el error. Las celdas vacias no modifican el valor actual.
+ */
+@Service
+@Slf4j
+public class ProductBulkService {
+
+    static final int CHUNK_SIZE = 500;
+    static final int EXPORT_PAGE_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Columnas del archivo; la exportacion usa el mismo formato para que pueda reimportarse
+    public static final List<String> COLUMNS = List.of(
+            "sku", "nombre", "descripcionCorta", "descripcionLarga", "precioNormal", "precioOferta",
+            "discountPercentage", "stock", "categoria", "marca", "tags", "imageUrl", "images",
+            "isActive", "isFeatured");
+
+    private static final Pattern LIST_SPLIT = Pattern.compile(Pattern.quote(ProductFeedReader.LIST_SEPARATOR));
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StockLedgerService stockLedger;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Formato pedido explicitamente (?format=csv|ndjson) o deducido del Content-Type; CSV por defecto.
+         */
+        public static Format resolve(String format, String contentType) {
+            if (format != null && !format.isBlank()) {
+                return switch (format.trim().toLowerCase(Locale.ROOT)) {
+                    case "csv" -> CSV;
+                    case "ndjson", "jsonl" -> NDJSON;
+                    default -> throw new IllegalArgumentException("Formato no soportado: " + format);
+                };
+            }
+            if (contentType != null) {
+                String lower = contentType.toLowerCase(Locale.ROOT);
+                if (lower.contains("ndjson") || lower.contains("jsonl") || lower.contains("json")) {
+                    return NDJSON;
+                }
+            }
+            return CSV;
+        }
+    }
+
+    public ProductBulkService(ProductRepository productRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              StockLedgerService stockLedger) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.stockLedger = stockLedger;
+    }
+
+    public ProductImportResultDTO importProducts(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        try (ProductFeedReader reader = ProductFeedReader.open(format, input, objectMapper)) {
+            List<ProductFeedReader.FeedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            ProductFeedReader.FeedRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, report);
+            }
+        }
+        ProductImportResultDTO result = report.toDTO((System.nanoTime() - start) / 1_000_000);
+        log.info("Importacion de productos: {} filas, {} creados, {} actualizados, {} rechazadas en {} ms",
+                result.getProcessed(), result.getCreated(), result.getUpdated(), result.getFailed(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    private void importChunk(List<ProductFeedReader.FeedRow> rows, ImportReport report) {
+        List<ImportRow> valid = new ArrayList<>(rows.size());
+        for (ProductFeedReader.FeedRow row : rows) {
+            report.processed++;
+            if (row.error() != null) {
+                report.fail(row.line(), row.field("sku"), row.error());
+                continue;
+            }
+            try {
+                valid.add(ImportRow.parse(row));
+            } catch (IllegalArgumentException e) {
+                report.fail(row.line(), row.field("sku"), e.getMessage());
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            report.merge(transactionTemplate.execute(status -> upsert(valid)));
+        } catch (RuntimeException chunkFailure) {
+            log.debug("Bloque de importacion rechazado, se reintenta fila por fila: {}", chunkFailure.getMessage());
+            for (ImportRow row : valid) {
+                try {
+                    report.merge(transactionTemplate.execute(status -> upsert(List.of(row))));
+                } catch (RuntimeException rowFailure) {
+                    report.fail(row.line(), row.sku(), rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+
+    // Una consulta por bloque para todos los SKUs; los UPDATE se agrupan en lotes JDBC (hibernate.jdbc.batch_size)
+    private ChunkOutcome upsert(List<ImportRow> rows) {
+        Set<String> skus = new LinkedHashSet<>();
+        for (ImportRow row : rows) {
+            skus.add(row.sku());
+        }
+        Map<String, Product> bySku = new HashMap<>();
+        Map<String, ProductSnapshot> before = new HashMap<>();
+        for (Product product : productRepository.findForWriteBySkuIn(skus)) {
+            String key = Product.skuKey(product.getSku());
+            bySku.put(key, product);
+            before.put(key, ProductSnapshot.of(product));
+        }
+
+        ChunkOutcome outcome = new ChunkOutcome();
+        Map<String, Product> touched = new LinkedHashMap<>();
+        Map<String, Integer> stockTargets = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            String key = Product.skuKey(row.sku());
+            Product product = bySku.get(key);
+            boolean isNew = product == null;
+            if (isNew) {
+                if (row.nombre() == null || row.precioNormal() == null) {
+                    outcome.errors.add(new ImportRowErrorDTO(row.line(), row.sku(),
+                            "Producto nuevo: nombre y precioNormal son obligatorios"));
+                    continue;
+                }
+                product = new Product();
+                product.setSku(row.sku());
+                product.setSlug(ProductSlugs.slugify(row.nombre() + " " + row.sku()));
+            }
+            Integer stock = product.getStock();
+            String error = row.applyTo(product);
+            if (error != null) {
+                if (isNew) {
+                    outcome.errors.add(new ImportRowErrorDTO(row.line(), row.sku(), error));
+                    continue;
+                }
+                // La fila ya modifico la entidad administrada: se descarta todo el bloque para no guardarla a medias
+                throw new IllegalArgumentException(error);
+            }
+            // En productos ya guardados el stock importado entra como movimiento del ledger
+            if (product.getId() != null && row.stock() != null) {
+                product.setStock(stock);
+                stockTargets.put(key, row.stock());
+            }
+            bySku.put(key, product);
+            touched.put(key, product);
+        }
+
+        List<Product> saved = productRepository.saveAll(touched.values());
+        for (Product product : saved) {
+            ProductSnapshot previous = before.get(Product.skuKey(product.getSku()));
+            if (previous == null) {
+                outcome.created++;
+                eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeType.CREATED, null, product));
+            } else {
+                outcome.updated++;
+                eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeType.UPDATED, previous, product));
+            }
+        }
+        stockTargets.forEach((key, target) ->
+                stockLedger.set(bySku.get(key), target, StockMovementReason.IMPORT, null));
+        return outcome;
+    }
+
+    /**
+     * Escribe todo el catalogo (incluidos los inactivos) recorriendolo por keyset, una pagina a la vez.
+     */
+    public long exportProducts(OutputStream output, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writeCsvLine(writer, COLUMNS);
+        }
+        long exported = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Product> page = productRepository.findByIdGreaterThanOrderByIdAsc(
+                    afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+            for (Product product : page) {
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, csvValues(product));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(jsonValues(product)));
+                    writer.write('\n');
+                }
+            }
+            exported += page.size();
+            // Se envia cada pagina para que el cliente empiece a recibir sin esperar el final
+            writer.flush();
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return exported;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private static List<String> csvValues(Product product) {
+        return Arrays.asList(
+                product.getSku(),
+                product.getNombre(),
+                product.getDescripcionCorta(),
+                product.getDescripcionLarga(),
+                plain(product.getPrecioNormal()),
+                plain(product.getPrecioOferta()),
+                product.getDiscountPercentage() == null ? null : product.getDiscountPercentage().toString(),
+                product.getStock() == null ? null : product.getStock().toString(),
+                product.getCategoria(),
+                product.getMarca(),
+                joinList(product.getTags()),
+                product.getImageUrl(),
+                joinList(product.getImages()),
+                product.getIsActive() == null ? null : product.getIsActive().toString(),
+                product.getIsFeatured() == null ? null : product.getIsFeatured().toString());
+    }
+
+    private static Map<String, Object> jsonValues(Product product) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("sku", product.getSku());
+        values.put("nombre", product.getNombre());
+        values.put("descripcionCorta", product.getDescripcionCorta());
+        values.put("descripcionLarga", product.getDescripcionLarga());
+        values.put("precioNormal", product.getPrecioNormal());
+        values.put("precioOferta", product.getPrecioOferta());
+        values.put("discountPercentage", product.getDiscountPercentage());
+        values.put("stock", product.getStock());
+        values.put("categoria", product.getCategoria());
+        values.put("marca", product.getMarca());
+        values.put("tags", product.getTags() == null ? List.of() : product.getTags());
+        values.put("imageUrl", product.getImageUrl());
+        values.put("images", product.getImages() == null ? List.of() : product.getImages());
+        values.put("isActive", product.getIsActive());
+        values.put("isFeatured", product.getIsFeatured());
+        return values;
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+
+    private static String joinList(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return String.join(ProductFeedReader.LIST_SEPARATOR, values);
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable current = error;
+        while (current.getCause() != null && current.getCause() != current) {
+            current = current.getCause();
+        }
+        return current.getMessage() != null ? current.getMessage() : error.getMessage();
+    }
+
+    /**
+     * Fila validada: los campos null no se modifican al actualizar.
+     */
+    record ImportRow(long line, String sku, String nombre, String descripcionCorta, String descripcionLarga,
+                     BigDecimal precioNormal, BigDecimal precioOferta, Integer discountPercentage, Integer stock,
+                     String categoria, String marca, List<String> tags, String imageUrl, List<String> images,
+                     Boolean isActive, Boolean isFeatured) {
+
+        static ImportRow parse(ProductFeedReader.FeedRow row) {
+            String sku = ProductFeedReader.emptyToNull(row.field("sku"));
+            if (sku == null) {
+                throw new IllegalArgumentException("El SKU es obligatorio");
+            }
+            BigDecimal precio = decimal(row, "precioNormal");
+            if (precio != null && precio.compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("El precio no puede ser negativo");
+            }
+            BigDecimal oferta = decimal(row, "precioOferta");
+            if (oferta != null && oferta.compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("La oferta no puede ser negativa");
+            }
+            Integer stock = integer(row, "stock");
+            if (stock != null && stock < 0) {
+                throw new IllegalArgumentException("El stock no puede ser negativo");
+            }
+            Integer discount = integer(row, "discountPercentage");
+            if (discount != null && (discount < 0 || discount > 100)) {
+                throw new IllegalArgumentException("El porcentaje de descuento debe estar entre 0 y 100");
+            }
+            return new ImportRow(row.line(), sku, row.field("nombre"), row.field("descripcionCorta"),
+                    row.field("descripcionLarga"), precio, oferta, discount, stock, row.field("categoria"),
+                    row.field("marca"), list(row, "tags"), row.field("imageUrl"), list(row, "images"),
+                    bool(row, "isActive"), bool(row, "isFeatured"));
+        }
+
+        /**
+         * Copia los campos informados a la entidad. Devuelve el error si el resultado no es valido.
+         */
+        String applyTo(Product product) {
+            if (nombre != null) product.setNombre(nombre);
+            if (descripcionCorta != null) product.setDescripcionCorta(descripcionCorta);
+            if (descripcionLarga != null) product.setDescripcionLarga(descripcionLarga);
+            if (precioNormal != null) product.setPrecioNormal(precioNormal);
+            if (precioOferta != null) {
+                product.setPrecioOferta(precioOferta.compareTo(BigDecimal.ZERO) == 0 ? null : precioOferta);
+            }
+            if (discountPercentage != null) product.setDiscountPercentage(discountPercentage);
+            if (stock != null) product.setStock(stock);
+            if (categoria != null) product.setCategoria(categoria);
+            if (marca != null) product.setMarca(marca);
+            if (tags != null) product.setTags(new ArrayList<>(tags));
+            if (imageUrl != null) product.setImageUrl(imageUrl);
+            if (images != null) product.setImages(new ArrayList<>(images));
+            if (isActive != null) product.setIsActive(isActive);
+            if (isFeatured != null) product.setIsFeatured(isFeatured);
+
+            if (product.getPrecioOferta() != null && product.getPrecioNormal() != null
+                    && product.getPrecioOferta().compareTo(product.getPrecioNormal()) > 0) {
+                return "La oferta no puede ser mayor al precio";
+            }
+            return null;
+        }
+
+        private static BigDecimal decimal(ProductFeedReader.FeedRow row, String field) {
+            String value = row.field(field);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor invalido en " + field + ": " + value);
+            }
+        }
+
+        private static Integer integer(ProductFeedReader.FeedRow row, String field) {
+            String value = row.field(field);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(value).intValueExact();
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Valor invalido en " + field + ": " + value);
+            }
+        }
+
+        private static Boolean bool(ProductFeedReader.FeedRow row, String field) {
+            String value = row.field(field);
+            if (value == null) {
+                return null;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "true", "1", "si", "yes" -> true;
+                case "false", "0", "no" -> false;
+                default -> throw new IllegalArgumentException("Valor invalido en " + field + ": " + value);
+            };
+        }
+
+        private static List<String> list(ProductFeedReader.FeedRow row, String field) {
+            String value = row.field(field);
+            if (value == null) {
+                return null;
+            }
+            List<String> items = new ArrayList<>();
+            for (String item : LIST_SPLIT.split(value)) {
+                String trimmed = item.trim();
+                if (!trimmed.isEmpty()) {
+                    items.add(trimmed);
+                }
+            }
+            return items;
+        }
+    }
+
+    private static final class ChunkOutcome {
+        int created;
+        int updated;
+        final List<ImportRowErrorDTO> errors = new ArrayList<>();
+    }
+
+    private static final class ImportReport {
+        int processed;
+        int created;
+        int updated;
+        int failed;
+        final List<ImportRowErrorDTO> errors = new ArrayList<>();
+
+        void fail(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowErrorDTO(line, sku, message));
+            }
+        }
+
+        void merge(ChunkOutcome outcome) {
+            if (outcome == null) {
+                return;
+            }
+            created += outcome.created;
+            updated += outcome.updated;
+            for (ImportRowErrorDTO error : outcome.errors) {
+                fail(error.getLine(), error.getSku(), error.getMessage());
+            }
+        }
+
+        ProductImportResultDTO toDTO(long elapsedMillis) {
+            return new ProductImportResultDTO(processed, created, updated, failed, errors,
+                    failed > errors.size(), elapsedMillis);
+        }
+    }
+}
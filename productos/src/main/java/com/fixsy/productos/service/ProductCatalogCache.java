@@ -0,0 +1,169 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache en proceso de DTOs ya construidos y de listados del catalogo.
+ * <p>
+ * Las lecturas cargan dentro de {@code Cache.get}, que es atomico por clave, y las invalidaciones
+ * se aplican despues del commit de cada escritura: una invalidacion concurrente espera a que termine
+ * la carga en curso y la descarta, por lo que no quedan valores anteriores al commit en memoria.
+ */
+@Component
+public class ProductCatalogCache {
+
+    static final String FEATURED = "featured";
+    static final String CATEGORIAS = "categorias";
+    static final String MARCAS = "marcas";
+
+    private final Cache<Long, ProductDTO> byId;
+    private final Cache<String, ProductDTO> bySku;
+    private final Cache<String, List<ProductDTO>> productLists;
+    private final Cache<String, List<String>> valueLists;
+
+    public ProductCatalogCache(
+            @Value("${productos.cache.max-size:10000}") long maxSize,
+            @Value("${productos.cache.ttl-seconds:600}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.byId = newCache(maxSize, ttl);
+        this.bySku = newCache(maxSize, ttl);
+        // Los listados son pocos y pesados: limite pequeño
+        this.productLists = newCache(64, ttl);
+        this.valueLists = newCache(64, ttl);
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public ProductDTO getById(Long id, Function<Long, ProductDTO> loader) {
+        return byId.get(id, loader);
+    }
+
+    public ProductDTO getBySku(String sku, Function<String, ProductDTO> loader) {
+        return bySku.get(skuKey(sku), key -> loader.apply(sku));
+    }
+
+    /**
+     * Entradas ya cacheadas de los ids pedidos. Los faltantes no se cargan aqui: una carga masiva fuera
+     * de {@code Cache.get} podria guardar un valor invalidado mientras se leia.
+     */
+    public Map<Long, ProductDTO> getPresentByIds(Collection<Long> ids) {
+        return byId.getAllPresent(ids);
+    }
+
+    /**
+     * Igual que {@link #getPresentByIds} por SKU; el mapa resultante usa la clave normalizada de
+     * {@link #skuKey(String)}.
+     */
+    public Map<String, ProductDTO> getPresentBySkus(Collection<String> skus) {
+        return bySku.getAllPresent(skus.stream().map(ProductCatalogCache::skuKey).toList());
+    }
+
+    public List<ProductDTO> getFeatured(Supplier<List<ProductDTO>> loader) {
+        return productLists.get(FEATURED, key -> List.copyOf(loader.get()));
+    }
+
+    public List<String> getCategorias(Supplier<List<String>> loader) {
+        return valueLists.get(CATEGORIAS, key -> List.copyOf(loader.get()));
+    }
+
+    public List<String> getMarcas(Supplier<List<String>> loader) {
+        return valueLists.get(MARCAS, key -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Invalida solo las entradas afectadas por el cambio. Sin transaccion activa (por ejemplo al
+     * eliminar) se ejecuta de inmediato gracias a fallbackExecution.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+
+        if (event.productId() != null) {
+            byId.invalidate(event.productId());
+        }
+        if (before != null && before.sku() != null) {
+            bySku.invalidate(skuKey(before.sku()));
+        }
+        if (after != null && after.sku() != null) {
+            bySku.invalidate(skuKey(after.sku()));
+        }
+
+        if (isListedAsFeatured(before) || isListedAsFeatured(after)) {
+            productLists.invalidate(FEATURED);
+        }
+        if (changesFacetValues(before, after)) {
+            valueLists.invalidateAll();
+        }
+    }
+
+    public void clear() {
+        byId.invalidateAll();
+        bySku.invalidateAll();
+        productLists.invalidateAll();
+        valueLists.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("productById", describe(byId));
+        stats.put("productBySku", describe(bySku));
+        stats.put("productLists", describe(productLists));
+        stats.put("valueLists", describe(valueLists));
+        return stats;
+    }
+
+    private Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", cache.estimatedSize());
+        values.put("hits", s.hitCount());
+        values.put("misses", s.missCount());
+        values.put("hitRate", s.hitRate());
+        values.put("evictions", s.evictionCount());
+        values.put("averageLoadMillis", s.averageLoadPenalty() / 1_000_000.0);
+        return values;
+    }
+
+    private boolean isListedAsFeatured(ProductSnapshot snapshot) {
+        return snapshot != null && snapshot.featured() && snapshot.active();
+    }
+
+    private boolean changesFacetValues(ProductSnapshot before, ProductSnapshot after) {
+        if (before == null || after == null) {
+            return true;
+        }
+        return before.active() != after.active()
+                || !Objects.equals(before.categoria(), after.categoria())
+                || !Objects.equals(before.marca(), after.marca());
+    }
+
+    // MySQL compara SKUs sin distinguir mayusculas, la clave de cache debe hacer lo mismo
+    static String skuKey(String sku) {
+        return sku == null ? "" : sku.trim().toLowerCase(Locale.ROOT);
+    }
+}
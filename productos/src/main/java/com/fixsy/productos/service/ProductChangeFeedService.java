@@ -0,0 +1,165 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.ProductChangeDTO;
+import com.fixsy.productos.dto.ProductChangeFeedDTO;
+import com.fixsy.productos.model.OutboxRelayState;
+import com.fixsy.productos.model.ProductOutboxEvent;
+import com.fixsy.productos.repository.OutboxRelayStateRepository;
+import com.fixsy.productos.repository.ProductOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed de cambios de productos sobre el outbox, paginado por numero de secuencia. Con {@code wait} la
+ * consulta sin cambios nuevos queda en espera (long-poll, sin ocupar un hilo del servidor) hasta que el
+ * relay publica algo o vence el plazo, y entonces responde una pagina vacia con el mismo cursor.
+ */
+@Service
+@Slf4j
+public class ProductChangeFeedService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+    public static final int MAX_WAIT_SECONDS = 30;
+
+    private final ProductOutboxRepository outboxRepository;
+    private final OutboxRelayStateRepository relayStateRepository;
+    private final int maxWaiters;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    // Ultima secuencia informada por el relay de esta instancia (-1 hasta la primera pasada)
+    private final AtomicLong publishedSequence = new AtomicLong(-1);
+
+    public ProductChangeFeedService(ProductOutboxRepository outboxRepository,
+                                    OutboxRelayStateRepository relayStateRepository,
+                                    @Value("${productos.outbox.max-waiters:1000}") int maxWaiters) {
+        this.outboxRepository = outboxRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.maxWaiters = maxWaiters;
+    }
+
+    public DeferredResult<ProductChangeFeedDTO> poll(String cursor, Integer limit, Integer waitSeconds) {
+        long since = CursorCodec.decode(cursor);
+        int pageSize = resolveLimit(limit);
+        int wait = waitSeconds == null ? 0 : Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+
+        ProductChangeFeedDTO page = read(since, pageSize);
+        if (!page.getItems().isEmpty() || page.isResyncRequired() || wait == 0 || waiters.size() >= maxWaiters) {
+            DeferredResult<ProductChangeFeedDTO> result = new DeferredResult<>();
+            result.setResult(page);
+            return result;
+        }
+
+        // Al vencer el plazo se responde la pagina vacia ya leida
+        DeferredResult<ProductChangeFeedDTO> result = new DeferredResult<>(wait * 1000L, page);
+        Waiter waiter = new Waiter(since, pageSize, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // El relay pudo publicar entre la lectura y el registro: no esperar a la proxima pasada
+        long published = publishedSequence.get();
+        if (published > since) {
+            publishedUpTo(published);
+        }
+        return result;
+    }
+
+    /**
+     * Lo llama el relay despues de cada pasada. Responde a las consultas en espera que quedaron atras;
+     * las que comparten cursor y limite se resuelven con una sola lectura.
+     */
+    public void publishedUpTo(long lastSequence) {
+        publishedSequence.accumulateAndGet(lastSequence, Math::max);
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Map<Waiter.Key, ProductChangeFeedDTO> pages = new HashMap<>();
+        for (Waiter waiter : waiters) {
+            if (waiter.since() >= lastSequence || !waiters.remove(waiter)) {
+                continue;
+            }
+            try {
+                waiter.result().setResult(pages.computeIfAbsent(waiter.key(), key -> read(key.since(), key.limit())));
+            } catch (RuntimeException e) {
+                log.warn("No se pudo responder una consulta del feed de cambios: {}", e.getMessage());
+                waiter.result().setErrorResult(e);
+            }
+        }
+    }
+
+    int getWaitingCount() {
+        return waiters.size();
+    }
+
+    ProductChangeFeedDTO read(long since, int limit) {
+        long last = relayStateRepository.findById(OutboxRelayState.PRODUCT_OUTBOX)
+                .map(OutboxRelayState::getLastSequence)
+                .orElse(0L);
+        if (since > last) {
+            // Cursor de otra base o de antes de una restauracion
+            return new ProductChangeFeedDTO(new ArrayList<>(), CursorCodec.encode(last), false, true);
+        }
+
+        List<ProductOutboxEvent> rows = outboxRepository.findBySequenceGreaterThanOrderBySequenceAsc(
+                since, PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        // Las secuencias son consecutivas: si la primera retenida no sigue al cursor, se purgaron cambios
+        boolean resyncRequired = since < last
+                && (rows.isEmpty() || rows.get(0).getSequence() > since + 1);
+
+        List<ProductChangeDTO> items = new ArrayList<>(rows.size());
+        for (ProductOutboxEvent row : rows) {
+            items.add(new ProductChangeDTO(row.getSequence(), CursorCodec.encode(row.getSequence()),
+                    row.getProductId(), row.getSku(), row.getChangeType(), row.getCreatedAt(), row.getPayload()));
+        }
+        long next = !rows.isEmpty() ? rows.get(rows.size() - 1).getSequence() : (resyncRequired ? last : since);
+        return new ProductChangeFeedDTO(items, CursorCodec.encode(next), hasMore, resyncRequired);
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // Identidad por instancia: dos consultas con el mismo cursor son esperas distintas
+    private static final class Waiter {
+        private final long since;
+        private final int limit;
+        private final DeferredResult<ProductChangeFeedDTO> result;
+
+        Waiter(long since, int limit, DeferredResult<ProductChangeFeedDTO> result) {
+            this.since = since;
+            this.limit = limit;
+            this.result = result;
+        }
+
+        long since() {
+            return since;
+        }
+
+        Key key() {
+            return new Key(since, limit);
+        }
+
+        DeferredResult<ProductChangeFeedDTO> result() {
+            return result;
+        }
+
+        record Key(long since, int limit) {
+        }
+    }
+}
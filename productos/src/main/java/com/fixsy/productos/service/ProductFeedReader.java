@@ -0,0 +1,227 @@
+package com.fixsy.productos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector incremental de un archivo de catalogo: entrega una fila por llamada a {@link #next()} sin
+ * cargar el archivo completo. Una fila mal formada no corta la lectura, se devuelve con su error.
+ */
+abstract class ProductFeedReader implements Closeable {
+
+    // Separador de listas (tags, images) dentro de una celda CSV
+    static final String LIST_SEPARATOR = "|";
+
+    record FeedRow(long line, Map<String, String> fields, String error) {
+
+        String field(String name) {
+            return fields == null ? null : fields.get(name);
+        }
+    }
+
+    protected final BufferedReader reader;
+
+    protected ProductFeedReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static ProductFeedReader open(ProductBulkService.Format format, InputStream input, ObjectMapper objectMapper)
+            throws IOException {
+        return format == ProductBulkService.Format.NDJSON
+                ? new Ndjson(input, objectMapper)
+                : new Csv(input);
+    }
+
+    /**
+     * Siguiente fila, o null al terminar el archivo.
+     */
+    abstract FeedRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static String emptyToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * CSV con cabecera (RFC 4180): comillas dobles para celdas con comas o saltos de linea y "" para
+     * una comilla literal. Las celdas vacias quedan en null.
+     */
+    static final class Csv extends ProductFeedReader {
+        private final List<String> header;
+        private long line = 1;
+        private long recordLine;
+        private boolean unterminatedQuote;
+
+        Csv(InputStream input) throws IOException {
+            super(input);
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IllegalArgumentException("El archivo esta vacio");
+            }
+            header = new ArrayList<>(names.size());
+            for (String name : names) {
+                String trimmed = name.trim();
+                // Excel agrega BOM al inicio del archivo
+                header.add(trimmed.startsWith("\uFEFF") ? trimmed.substring(1) : trimmed);
+            }
+            if (!header.contains("sku")) {
+                throw new IllegalArgumentException("El archivo debe incluir la columna sku");
+            }
+        }
+
+        @Override
+        FeedRow next() throws IOException {
+            while (true) {
+                List<String> values = readRecord();
+                if (values == null) {
+                    return null;
+                }
+                if (values.size() == 1 && values.get(0).isBlank()) {
+                    continue;
+                }
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (int i = 0; i < Math.min(values.size(), header.size()); i++) {
+                    fields.put(header.get(i), emptyToNull(values.get(i)));
+                }
+                if (unterminatedQuote) {
+                    return new FeedRow(recordLine, fields, "Comillas sin cerrar");
+                }
+                if (values.size() != header.size()) {
+                    return new FeedRow(recordLine, fields,
+                            "Se esperaban " + header.size() + " columnas y hay " + values.size());
+                }
+                return new FeedRow(recordLine, fields, null);
+            }
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            recordLine = line;
+            unterminatedQuote = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                            if (following != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            line++;
+                        }
+                        value.append(ch);
+                    }
+                } else if (ch == '"' && value.toString().isBlank()) {
+                    value.setLength(0);
+                    quoted = true;
+                } else if (ch == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (ch == '\n') {
+                    line++;
+                    values.add(value.toString());
+                    return values;
+                } else if (ch != '\r') {
+                    value.append(ch);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            unterminatedQuote = quoted;
+            values.add(value.toString());
+            return values;
+        }
+    }
+
+    /**
+     * Un objeto JSON por linea. Los arreglos (tags, images) se unen con {@link #LIST_SEPARATOR} para
+     * validarlos igual que una celda CSV.
+     */
+    static final class Ndjson extends ProductFeedReader {
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        Ndjson(InputStream input, ObjectMapper objectMapper) {
+            super(input);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        FeedRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    return new FeedRow(line, Map.of(), "JSON invalido: " + e.getOriginalMessage());
+                }
+                if (node == null || !node.isObject()) {
+                    return new FeedRow(line, Map.of(), "Cada linea debe ser un objeto JSON");
+                }
+                Map<String, String> fields = new LinkedHashMap<>();
+                Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+                while (entries.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = entries.next();
+                    fields.put(entry.getKey(), asText(entry.getValue()));
+                }
+                return new FeedRow(line, fields, null);
+            }
+            return null;
+        }
+
+        private static String asText(JsonNode value) {
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            if (value.isArray()) {
+                List<String> items = new ArrayList<>();
+                for (JsonNode item : value) {
+                    if (!item.isNull()) {
+                        items.add(item.asText());
+                    }
+                }
+                return emptyToNull(String.join(LIST_SEPARATOR, items));
+            }
+            return emptyToNull(value.isValueNode() ? value.asText() : value.toString());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Asigna una imagen de catalogo existente a los productos sin imagen, con una ruta invalida o con una
+ * ruta generada ({@code product_*_main_*}) que probablemente ya no existe, segun el nombre del producto.
+ */
+@Component
+public class ProductImageFixTask implements CatalogMaintenanceTask {
+
+    private static final String FILTROS = "/images/filtros2.webp";
+    private static final String FRENOS = "/images/png-clipart-car-brake-pad-disc-brake-vehicle-car-car-automobile-repair-shop.png";
+    private static final String SUSPENSION = "/images/suspension.png";
+    private static final String ELECTRICIDAD = "/images/electricidad.jpg";
+    private static final String ACEITE = "/images/png-transparent-car-oil-motor-oil-lubricant-engine-twostroke-engine-lubrication-base.png";
+    private static final String FILTRO_AIRE = "/images/pngtree-truck-fuel-oil-filter-png-image_11484952.png";
+    private static final String CORREA = "/images/kit tensor motor.jpg";
+    private static final String LIQUIDO_FRENOS = "/images/las-mejores-7-marcas-de-los-mejores-liquidos-de-frenos.jpg";
+    private static final String FILTRO_COMBUSTIBLE = "/images/tres-filtros-aceite-motor-automovil_207928-40.avif";
+
+    // Nombre de producto (ya en minusculas) -> imagen, en orden de prioridad
+    private static final List<Map.Entry<String, String>> PRODUCT_IMAGES = List.of(
+            Map.entry("filtro de aceite", FILTROS),
+            Map.entry("pastillas de freno", FRENOS),
+            Map.entry("amortiguador", SUSPENSION),
+            Map.entry("bateria", ELECTRICIDAD),
+            Map.entry("aceite sintetico", ACEITE),
+            Map.entry("filtro de aire", FILTRO_AIRE),
+            Map.entry("bujias", ELECTRICIDAD),
+            Map.entry("disco de freno", FRENOS),
+            Map.entry("kit correa", CORREA),
+            Map.entry("liquido de frenos", LIQUIDO_FRENOS),
+            Map.entry("filtro de combustible", FILTRO_COMBUSTIBLE));
+
+    @Override
+    public String type() {
+        return "fix-images";
+    }
+
+    @Override
+    public String description() {
+        return "Asigna imagenes de catalogo existentes a productos sin imagen o con rutas generadas invalidas";
+    }
+
+    @Override
+    public List<Product> process(List<Product> chunk) {
+        List<Product> changed = new ArrayList<>();
+        for (Product product : chunk) {
+            String currentImage = product.getImageUrl();
+            boolean replaceable = currentImage == null || !currentImage.startsWith("/images/")
+                    || isGeneratedName(currentImage.substring("/images/".length()));
+            if (!replaceable) {
+                continue;
+            }
+            String newImage = findImageForProduct(product.getNombre());
+            if (newImage != null && !newImage.equals(currentImage)) {
+                product.setImageUrl(newImage);
+                changed.add(product);
+            }
+        }
+        return changed;
+    }
+
+    // Ruta generada por la subida anterior, que probablemente ya no existe en disco
+    private static boolean isGeneratedName(String fileName) {
+        return fileName.contains("product_") && fileName.contains("_main_");
+    }
+
+    static String findImageForProduct(String productName) {
+        if (productName == null) {
+            return null;
+        }
+        String name = productName.toLowerCase(Locale.ROOT);
+
+        for (Map.Entry<String, String> entry : PRODUCT_IMAGES) {
+            if (name.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+
+        // Mapeos especificos por palabras clave
+        if (name.contains("filtro") && name.contains("aceite")) {
+            return FILTROS;
+        } else if (name.contains("filtro") && name.contains("aire")) {
+            return FILTRO_AIRE;
+        } else if (name.contains("filtro") && name.contains("combustible")) {
+            return FILTRO_COMBUSTIBLE;
+        } else if (name.contains("pastilla") || name.contains("freno")) {
+            return FRENOS;
+        } else if (name.contains("amortiguador")) {
+            return SUSPENSION;
+        } else if (name.contains("bateria")) {
+            return ELECTRICIDAD;
+        } else if (name.contains("aceite")) {
+            return ACEITE;
+        } else if (name.contains("bujia")) {
+            return ELECTRICIDAD;
+        } else if (name.contains("correa") || name.contains("tensor")) {
+            return CORREA;
+        }
+        return null;
+    }
+}
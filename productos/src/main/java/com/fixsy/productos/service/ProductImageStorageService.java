@@ -1,30 +1,64 @@
 package com.fixsy.productos.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 @Service
 public class ProductImageStorageService {
 
     private final Path baseDirectory;
     private final String publicBaseUrl;
+    // publicBaseUrl + /images/ y el sufijo ?w= de cada ancho, armados una vez para no concatenarlos por imagen
+    private final String publicImageBase;
+    private final String[] widthQueries;
+    private final int[] derivativeWidths;
     private static final String PUBLIC_IMAGE_PREFIX = "/images/";
+    private static final int[] DEFAULT_DERIVATIVE_WIDTHS = {160, 480, 1024};
+    // Sufijos de los archivos generados a partir de cada imagen subida (siempre JPEG)
+    private static final String WIDTH_SUFFIX = "__w";
+    private static final String OPTIMIZED_SUFFIX = "__opt";
+    private static final String DERIVATIVE_EXTENSION = ".jpg";
+    private static final Pattern WIDTH_DERIVATIVE_STEM = Pattern.compile(".*" + WIDTH_SUFFIX + "\\d+$");
+    // Nombre de una imagen direccionada por contenido: SHA-256 en hexadecimal y la extension del tipo subido
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}\\.[a-z]+$");
+    private static final Pattern CONTENT_ADDRESSED_DERIVATIVE = Pattern.compile(
+            "^[0-9a-f]{64}(" + OPTIMIZED_SUFFIX + "|" + WIDTH_SUFFIX + "\\d+)\\" + DERIVATIVE_EXTENSION + "$");
 
+    public ProductImageStorageService(String uploadDir, String publicBaseUrl) {
+        this(uploadDir, publicBaseUrl, DEFAULT_DERIVATIVE_WIDTHS);
+    }
+
+    @Autowired
     public ProductImageStorageService(
             @Value("${file.upload-dir.products:src/main/java/com/fixsy/productos/images}") String uploadDir,
-            @Value("${file.public-base-url:http://localhost:${server.port}}") String publicBaseUrl) {
+            @Value("${file.public-base-url:http://localhost:${server.port}}") String publicBaseUrl,
+            @Value("${productos.images.derivative-widths:160,480,1024}") int[] derivativeWidths) {
+        this.derivativeWidths = derivativeWidths == null || derivativeWidths.length == 0
+                ? DEFAULT_DERIVATIVE_WIDTHS.clone()
+                : Arrays.stream(derivativeWidths).filter(w -> w > 0).sorted().distinct().toArray();
         this.baseDirectory = Paths.get(uploadDir).toAbsolutePath().normalize();
         try {
             Files.createDirectories(this.baseDirectory);
@@ -32,38 +66,111 @@ public class ProductImageStorageService {
             throw new IllegalStateException("No se pudo crear el directorio de subida de productos", e);
         }
         this.publicBaseUrl = normalizePublicBaseUrl(publicBaseUrl);
+        this.publicImageBase = this.publicBaseUrl + PUBLIC_IMAGE_PREFIX;
+        this.widthQueries = Arrays.stream(this.derivativeWidths).mapToObj(w -> "?w=" + w).toArray(String[]::new);
     }
 
+    /**
+     * Guarda la imagen con su SHA-256 como nombre ({@code <hash>.<ext>}). Subir dos veces el mismo
+     * archivo, para este u otro producto, devuelve el mismo nombre sin duplicar el contenido en disco.
+     */
     public String storeMainImage(MultipartFile file, Long productId) throws IOException {
         validateImage(file);
-
-        String extension = getExtensionFromContentType(file.getContentType());
-        String fileName = "product_" + productId + "_main_" + System.currentTimeMillis() + extension;
-
-        Path target = this.baseDirectory.resolve(fileName).normalize();
-        Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-
-        return fileName;
+        return storeContent(file);
     }
 
     public List<String> storeGalleryImages(List<MultipartFile> files, Long productId) throws IOException {
         List<String> stored = new ArrayList<>();
-        int index = 1;
         for (MultipartFile file : files) {
             if (file.isEmpty()) {
                 continue;
             }
             validateImage(file);
-            String extension = getExtensionFromContentType(file.getContentType());
-            String fileName = "product_" + productId + "_g" + index++ + "_" + System.currentTimeMillis() + extension;
-
-            Path target = this.baseDirectory.resolve(fileName).normalize();
-            Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-            stored.add(fileName);
+            stored.add(storeContent(file));
         }
         return stored;
     }
 
+    // Se calcula el hash mientras se copia a un temporal y se renombra al final: nunca hay un archivo a medias
+    private String storeContent(MultipartFile file) throws IOException {
+        String extension = getExtensionFromContentType(file.getContentType());
+        Path temp = Files.createTempFile(this.baseDirectory, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String fileName = HexFormat.of().formatHex(digest.digest()) + extension;
+            Path target = this.baseDirectory.resolve(fileName);
+            if (Files.exists(target)) {
+                // Contenido ya guardado: se renueva la fecha para que el recolector respete el periodo de gracia
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {
+                    // Otra subida del mismo contenido termino primero: el archivo es identico
+                }
+            }
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public boolean isContentAddressedName(String fileName) {
+        return fileName != null && CONTENT_ADDRESSED_NAME.matcher(fileName).matches();
+    }
+
+    /**
+     * Nombre del archivo direccionado por contenido al que apunta una referencia guardada en un producto
+     * ({@code hash.png}, {@code /images/hash.png} o la URL publica de este servicio), o null si la referencia
+     * es externa o un archivo con el nombre anterior.
+     */
+    public String contentAddressedName(String storedPath) {
+        if (storedPath == null || storedPath.isBlank()) {
+            return null;
+        }
+        String value = storedPath.trim();
+        if (value.startsWith(publicImageBase)) {
+            value = value.substring(publicImageBase.length());
+        } else if (isAbsoluteWebUrl(value)) {
+            return null;
+        }
+        int query = value.indexOf('?');
+        if (query >= 0) {
+            value = value.substring(0, query);
+        }
+        String name = stripImagePublicPrefix(value);
+        return isContentAddressedName(name) ? name : null;
+    }
+
+    /**
+     * El archivo original y todos sus derivados posibles; el recolector los borra juntos.
+     */
+    public List<Path> blobFiles(String contentAddressedName) {
+        Path original = this.baseDirectory.resolve(contentAddressedName).normalize();
+        List<Path> files = new ArrayList<>();
+        files.add(original);
+        for (int width : derivativeWidths) {
+            files.add(derivativePath(original, width));
+        }
+        files.add(optimizedPath(original));
+        return files;
+    }
+
+    public Path getBaseDirectory() {
+        return baseDirectory;
+    }
+
     public Path resolveProductImagePath(String storedPath) {
         if (storedPath == null || storedPath.isBlank()) {
             throw new IllegalArgumentException("El nombre de imagen es requerido");
@@ -78,6 +185,71 @@ public class ProductImageStorageService {
         return this.baseDirectory.resolve(sanitized).normalize();
     }
 
+    public int[] getDerivativeWidths() {
+        return derivativeWidths.clone();
+    }
+
+    /**
+     * Ruta a entregar para una imagen y un ancho pedido: el derivado mas pequeño que cubre el ancho
+     * (o el mas grande si ninguno alcanza), o la version comprimida del original si no se pide ancho.
+     * Si el derivado aun no existe se entrega el original.
+     * <p>
+     * Un nombre por hash sin ancho entrega siempre el original: su URL es inmutable y no puede pasar a
+     * otro archivo cuando aparece la version comprimida, que se pide por su propio nombre ({@code hash__opt.jpg}).
+     */
+    public Path resolveVariantPath(String storedPath, Integer width) {
+        Path original = resolveProductImagePath(storedPath);
+        String fileName = original.getFileName().toString();
+        if (isDerivativeName(fileName) || (width == null && isContentAddressedName(fileName))) {
+            return original;
+        }
+        Path candidate = width == null
+                ? optimizedPath(original)
+                : derivativePath(original, snapWidth(width));
+        return Files.isRegularFile(candidate) ? candidate : original;
+    }
+
+    /**
+     * Si el archivo entregado para un nombre pedido puede cachearse como inmutable: el original por hash
+     * pedido tal cual, o un derivado ya generado de un original por hash. El original que se entrega en lugar
+     * de un derivado que aun no existe no lo es, porque la misma URL cambiara de contenido.
+     */
+    public boolean isImmutable(String requestedName, Path served) {
+        String servedName = served.getFileName().toString();
+        if (isContentAddressedName(servedName)) {
+            return servedName.equals(requestedName);
+        }
+        return CONTENT_ADDRESSED_DERIVATIVE.matcher(servedName).matches();
+    }
+
+    public Path derivativePath(Path original, int width) {
+        return original.resolveSibling(stem(original) + WIDTH_SUFFIX + width + DERIVATIVE_EXTENSION);
+    }
+
+    public Path optimizedPath(Path original) {
+        return original.resolveSibling(stem(original) + OPTIMIZED_SUFFIX + DERIVATIVE_EXTENSION);
+    }
+
+    public boolean isDerivativeName(String fileName) {
+        String stem = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        return stem.endsWith(OPTIMIZED_SUFFIX) || WIDTH_DERIVATIVE_STEM.matcher(stem).matches();
+    }
+
+    int snapWidth(int requested) {
+        for (int width : derivativeWidths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return derivativeWidths[derivativeWidths.length - 1];
+    }
+
+    private static String stem(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
     private void validateImage(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("El archivo estケ vacヴo");
@@ -109,25 +281,63 @@ public class ProductImageStorageService {
         if (isAbsoluteWebUrl(trimmed)) {
             return trimmed;
         }
-        String sanitizedName = stripImagePublicPrefix(trimmed);
-        if (sanitizedName.isEmpty()) {
-            return null;
+        // Con el prefijo /images/ ya puesto basta anteponer la URL base, sin recortar el nombre
+        if (trimmed.startsWith(PUBLIC_IMAGE_PREFIX)) {
+            return trimmed.length() == PUBLIC_IMAGE_PREFIX.length() ? null : publicBaseUrl + trimmed;
         }
-        return publicBaseUrl + PUBLIC_IMAGE_PREFIX + sanitizedName;
+        return publicImageBase + trimmed;
     }
 
-    public List<String> buildPublicImagePaths(List<String> storedPaths) {
+    /**
+     * URL publica de un tamaño concreto ({@code ?w=480}). Las URLs externas se devuelven sin cambios.
+     */
+    public String buildPublicImagePath(String storedName, Integer width) {
+        String url = buildPublicImagePath(storedName);
+        if (url == null || width == null || isAbsoluteWebUrl(storedName)) {
+            return url;
+        }
+        return url + "?w=" + snapWidth(width);
+    }
+
+    /**
+     * URLs por ancho de los derivados de una imagen local, para armar srcset en el frontend.
+     */
+    public Map<Integer, String> buildPublicImageVariants(String storedName) {
+        if (storedName == null || storedName.isBlank() || isAbsoluteWebUrl(storedName)) {
+            return new LinkedHashMap<>();
+        }
+        String url = buildPublicImagePath(storedName);
+        Map<Integer, String> variants = new LinkedHashMap<>(derivativeWidths.length * 2);
+        if (url == null) {
+            return variants;
+        }
+        // Los anchos configurados ya son los de los derivados: no hace falta ajustarlos con snapWidth
+        for (int i = 0; i < derivativeWidths.length; i++) {
+            variants.put(derivativeWidths[i], url + widthQueries[i]);
+        }
+        return variants;
+    }
+
+    /**
+     * URLs publicas de la galeria, sin vacios ni repetidos y en el orden guardado. Las galerias tienen pocas
+     * imagenes, asi que los repetidos se descartan recorriendo la lista ya armada.
+     */
+    public List<String> buildPublicImagePaths(List<String> storedPaths, Integer width) {
         if (storedPaths == null || storedPaths.isEmpty()) {
             return Collections.emptyList();
         }
-        return storedPaths.stream()
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .filter(value -> !value.isBlank())
-                .map(this::buildPublicImagePath)
-                .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
+        List<String> paths = new ArrayList<>(storedPaths.size());
+        for (String value : storedPaths) {
+            String path = value == null ? null : buildPublicImagePath(value, width);
+            if (path != null && !paths.contains(path)) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    public List<String> buildPublicImagePaths(List<String> storedPaths) {
+        return buildPublicImagePaths(storedPaths, null);
     }
 
     private String stripImagePublicPrefix(String value) {
@@ -141,12 +351,16 @@ public class ProductImageStorageService {
         return trimmed;
     }
 
-    private boolean isAbsoluteWebUrl(String value) {
+    public boolean isAbsoluteWebUrl(String value) {
         if (value == null) {
             return false;
         }
-        String lower = value.trim().toLowerCase();
-        return lower.startsWith("http://") || lower.startsWith("https://");
+        // Equivale a trim().toLowerCase().startsWith(...) sin crear cadenas intermedias
+        int start = 0;
+        while (start < value.length() && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return value.regionMatches(true, start, "http://", 0, 7) || value.regionMatches(true, start, "https://", 0, 8);
     }
 
     private String normalizePublicBaseUrl(String baseUrl) {
@@ -0,0 +1,195 @@
+package com.fixsy.productos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixsy.productos.dto.ProductChangeStateDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.model.OutboxRelayState;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.ProductOutboxEvent;
+import com.fixsy.productos.repository.OutboxRelayStateRepository;
+import com.fixsy.productos.repository.ProductOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox transaccional de cambios de productos.
+ * <p>
+ * Cada {@link ProductChangeEvent} se registra en product_outbox dentro de la transaccion de la escritura.
+ * El relay numera despues los registros confirmados, en orden de id, bajo el bloqueo de la fila de
+ * outbox_relay_state, y avisa al feed de cambios. Corre al confirmar cada escritura (en un hilo propio,
+ * sin demorar la respuesta) y ademas periodicamente, para recoger lo que escribieron otras instancias o
+ * lo que quedo pendiente tras un reinicio.
+ */
+@Service
+@Slf4j
+public class ProductOutboxService {
+
+    static final int RELAY_BATCH_SIZE = 500;
+
+    private final ProductOutboxRepository outboxRepository;
+    private final OutboxRelayStateRepository relayStateRepository;
+    private final ProductChangeFeedService changeFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final int retentionDays;
+    private final ThreadPoolExecutor relayExecutor;
+
+    public ProductOutboxService(ProductOutboxRepository outboxRepository,
+                                OutboxRelayStateRepository relayStateRepository,
+                                ProductChangeFeedService changeFeed,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                EntityManager entityManager,
+                                @Value("${productos.outbox.retention-days:7}") int retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.changeFeed = changeFeed;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.retentionDays = retentionDays;
+        // Un solo hilo y un solo pedido en cola: las escrituras que llegan durante una pasada se juntan en la siguiente
+        this.relayExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-outbox-relay");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.relayExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Se ejecuta dentro de la transaccion de la escritura: si el registro falla, el cambio del producto
+     * tambien se revierte.
+     */
+    @EventListener
+    @Transactional
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.productId() == null) {
+            return;
+        }
+        // Ejecuta antes el UPDATE del producto: la fila queda bloqueada antes de tomar el id del outbox, asi
+        // que dos escrituras del mismo producto obtienen ids en el mismo orden en que confirman
+        entityManager.flush();
+        Product product = event.product();
+        String sku = product != null ? product.getSku() : (event.before() != null ? event.before().sku() : null);
+        outboxRepository.save(new ProductOutboxEvent(event.productId(), sku, event.type().name(), payload(product)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChangeCommitted(ProductChangeEvent event) {
+        relayExecutor.execute(this::relayQuietly);
+    }
+
+    @Scheduled(fixedDelayString = "${productos.outbox.relay-interval-ms:1000}",
+            initialDelayString = "${productos.outbox.relay-initial-delay-ms:5000}")
+    public void relayQuietly() {
+        try {
+            relay();
+        } catch (Exception e) {
+            log.warn("Fallo la publicacion del outbox de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Numera los cambios confirmados pendientes y avisa al feed. Devuelve cuantos se publicaron.
+     */
+    public synchronized int relay() {
+        int published = 0;
+        RelayBatch batch;
+        do {
+            batch = transactionTemplate.execute(status -> relayBatch());
+            published += batch.count();
+        } while (batch.count() == RELAY_BATCH_SIZE);
+        changeFeed.publishedUpTo(batch.lastSequence());
+        return published;
+    }
+
+    @Scheduled(fixedDelayString = "${productos.outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${productos.outbox.cleanup-initial-delay-ms:600000}")
+    public void scheduledPurge() {
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                log.info("Outbox de productos: {} cambios publicados purgados", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Fallo la purga del outbox de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borra los cambios ya publicados con mas antiguedad que la retencion configurada. Un cliente con un
+     * cursor anterior recibe {@code resyncRequired} en el feed.
+     */
+    public int purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(cutoff));
+        return deleted == null ? 0 : deleted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdownNow();
+    }
+
+    private RelayBatch relayBatch() {
+        OutboxRelayState state = relayStateRepository.lockById(OutboxRelayState.PRODUCT_OUTBOX)
+                .orElseGet(() -> relayStateRepository.save(new OutboxRelayState(OutboxRelayState.PRODUCT_OUTBOX, 0L)));
+        List<ProductOutboxEvent> pending = outboxRepository.findBySequenceIsNullOrderByIdAsc(
+                PageRequest.of(0, RELAY_BATCH_SIZE));
+        long sequence = state.getLastSequence();
+        LocalDateTime now = LocalDateTime.now();
+        for (ProductOutboxEvent event : pending) {
+            event.setSequence(++sequence);
+            event.setPublishedAt(now);
+        }
+        state.setLastSequence(sequence);
+        return new RelayBatch(pending.size(), sequence);
+    }
+
+    private String payload(Product product) {
+        if (product == null) {
+            return null;
+        }
+        ProductChangeStateDTO state = new ProductChangeStateDTO(
+                product.getNombre(),
+                product.getSlug(),
+                product.getPrecioNormal(),
+                product.getPrecioOferta(),
+                ProductPricing.finalPrice(product),
+                product.getStock(),
+                product.getIsActive(),
+                product.getIsFeatured(),
+                product.getCategoria(),
+                product.getMarca(),
+                product.getVersion());
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el cambio del producto", e);
+        }
+    }
+
+    private record RelayBatch(int count, long lastSequence) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Calculo del precio final (precio normal menos el porcentaje de descuento), compartido por los
+ * DTOs y los indices del catalogo para que filtren por el mismo precio que se muestra.
+ */
+public final class ProductPricing {
+
+    private ProductPricing() {
+    }
+
+    public static BigDecimal finalPrice(Product product) {
+        return product.getFinalPrice();
+    }
+
+    public static BigDecimal finalPrice(BigDecimal price, Integer discount) {
+        if (price == null) {
+            return null;
+        }
+        if (discount == null || discount <= 0) {
+            return price;
+        }
+        BigDecimal factor = BigDecimal.valueOf(100 - discount).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+        return price.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+}
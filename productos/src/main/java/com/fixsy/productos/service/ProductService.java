@@ -1,13 +1,32 @@
 package com.fixsy.productos.service;
 
+import com.fixsy.productos.dto.CursorPageDTO;
+import com.fixsy.productos.dto.FacetValueDTO;
+import com.fixsy.productos.dto.ProductBatchDTO;
+import com.fixsy.productos.dto.ProductBatchRequestDTO;
+import com.fixsy.productos.dto.ProductBrowseDTO;
 import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.dto.ProductSearchHitDTO;
+import com.fixsy.productos.dto.ProductSummaryDTO;
 import com.fixsy.productos.dto.ImageUrlUpdateDTO;
 import com.fixsy.productos.dto.ProductRequestDTO;
+import com.fixsy.productos.dto.StockAdjustmentDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
 import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovementReason;
+import com.fixsy.productos.model.Tag;
 import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.ProductSummaryRow;
+import com.fixsy.productos.search.ProductFacetIndex;
+import com.fixsy.productos.search.ProductSearchIndex;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,17 +34,40 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 24;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private ProductRepository productRepository;
     @Autowired
     private ProductImageStorageService productImageStorageService;
+    @Autowired
+    private ProductCatalogCache catalogCache;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+    @Autowired
+    private StockLedgerService stockLedger;
 
     public List<ProductDTO> getAllProducts() {
         return productRepository.findByIsActiveTrue().stream()
@@ -40,21 +82,96 @@ public class ProductService {
     }
 
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        return convertToDTO(product);
+        return withAvailableStock(catalogCache.getById(id, key -> {
+            Product product = productRepository.findById(key)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+            return convertToDTO(product);
+        }));
     }
 
     public ProductDTO getProductBySku(String sku) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        return convertToDTO(product);
+        return withAvailableStock(catalogCache.getBySku(sku, key -> {
+            Product product = productRepository.findBySku(key)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+            return convertToDTO(product);
+        }));
+    }
+
+    /**
+     * Resuelve varios productos por id y/o SKU en una llamada: primero desde la cache y los faltantes con
+     * una consulta IN por tipo de clave. Las claves repetidas se resuelven una sola vez.
+     */
+    public ProductBatchDTO getProductsBatch(ProductBatchRequestDTO request) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (request.getIds() != null) {
+            for (Long id : request.getIds()) {
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        Set<String> skus = new LinkedHashSet<>();
+        if (request.getSkus() != null) {
+            for (String sku : request.getSkus()) {
+                if (sku != null && !sku.isBlank()) {
+                    skus.add(sku.trim());
+                }
+            }
+        }
+        if (ids.isEmpty() && skus.isEmpty()) {
+            throw new IllegalArgumentException("Debe incluir al menos un id o SKU");
+        }
+        if (ids.size() + skus.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Se permiten hasta " + MAX_BATCH_SIZE + " ids o SKUs por consulta");
+        }
+
+        Map<Long, ProductDTO> foundById = new HashMap<>(catalogCache.getPresentByIds(ids));
+        List<Long> uncachedIds = ids.stream().filter(id -> !foundById.containsKey(id)).toList();
+        if (!uncachedIds.isEmpty()) {
+            for (Product product : productRepository.findAllById(uncachedIds)) {
+                foundById.put(product.getId(), convertToDTO(product));
+            }
+        }
+
+        // Claves normalizadas como las compara MySQL, sin distinguir mayusculas
+        Map<String, ProductDTO> foundBySku = new HashMap<>(catalogCache.getPresentBySkus(skus));
+        List<String> uncachedSkus = skus.stream()
+                .filter(sku -> !foundBySku.containsKey(ProductCatalogCache.skuKey(sku)))
+                .toList();
+        if (!uncachedSkus.isEmpty()) {
+            for (Product product : productRepository.findBySkuIn(uncachedSkus)) {
+                ProductDTO dto = foundById.get(product.getId());
+                foundBySku.put(ProductCatalogCache.skuKey(product.getSku()), dto != null ? dto : convertToDTO(product));
+            }
+        }
+
+        Map<Long, ProductDTO> byId = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO dto = foundById.get(id);
+            if (dto != null) {
+                byId.put(id, withAvailableStock(dto));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        Map<String, ProductDTO> bySku = new LinkedHashMap<>();
+        List<String> missingSkus = new ArrayList<>();
+        for (String sku : skus) {
+            ProductDTO dto = foundBySku.get(ProductCatalogCache.skuKey(sku));
+            if (dto != null) {
+                bySku.put(sku, withAvailableStock(dto));
+            } else {
+                missingSkus.add(sku);
+            }
+        }
+        return new ProductBatchDTO(byId, bySku, missingIds, missingSkus);
     }
 
     public List<ProductDTO> getFeaturedProducts() {
-        return productRepository.findByIsFeaturedTrueAndIsActiveTrue().stream()
+        return catalogCache.getFeatured(() -> productRepository.findByIsFeaturedTrueAndIsActiveTrue().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public List<ProductDTO> getProductsOnSale() {
@@ -76,15 +193,73 @@ public class ProductService {
     }
 
     public List<ProductDTO> getProductsByTag(String tag) {
-        return productRepository.findByTag(tag).stream()
+        String name = Tag.normalizeName(tag);
+        if (name == null) {
+            return new ArrayList<>();
+        }
+        return productRepository.findByTag(name).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> searchProducts(String searchTerm) {
-        return productRepository.searchByNombre(searchTerm).stream()
-                .map(this::convertToDTO)
+    /**
+     * Busqueda por relevancia sobre el indice invertido en memoria. El cursor es el offset dentro
+     * del ranking; los productos de la pagina se cargan con una sola consulta por id.
+     */
+    public CursorPageDTO<ProductSearchHitDTO> searchProducts(String query, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        int offset = (int) Math.min(CursorCodec.decode(cursor), Integer.MAX_VALUE - MAX_PAGE_SIZE);
+
+        ProductSearchIndex.Result result = productSearchIndex.search(query, offset, pageSize);
+        List<Long> ids = result.hits().stream()
+                .map(ProductSearchIndex.Hit::productId)
                 .collect(Collectors.toList());
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductSearchHitDTO> items = new ArrayList<>();
+        for (ProductSearchIndex.Hit hit : result.hits()) {
+            Product product = products.get(hit.productId());
+            if (product != null && Boolean.TRUE.equals(product.getIsActive())) {
+                double score = BigDecimal.valueOf(hit.score()).setScale(4, RoundingMode.HALF_UP).doubleValue();
+                items.add(new ProductSearchHitDTO(score, convertToDTO(product)));
+            }
+        }
+
+        int consumed = offset + result.hits().size();
+        boolean hasMore = consumed < result.total();
+        return new CursorPageDTO<>(items, hasMore ? CursorCodec.encode(consumed) : null, hasMore, pageSize);
+    }
+
+    /**
+     * Listado con filtros combinables resuelto sobre el indice de bitmaps: los ids de la pagina y los
+     * conteos salen de memoria y solo la pagina se carga desde la base de datos.
+     */
+    public ProductBrowseDTO browseProducts(ProductFacetIndex.Filter filter, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        long afterId = CursorCodec.decode(cursor);
+
+        ProductFacetIndex.Result result = productFacetIndex.browse(filter, afterId, pageSize);
+        Map<Long, Product> products = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductDTO> items = new ArrayList<>();
+        for (Long id : result.productIds()) {
+            Product product = products.get(id);
+            if (product != null && Boolean.TRUE.equals(product.getIsActive())) {
+                items.add(convertToDTO(product));
+            }
+        }
+        List<Long> ids = result.productIds();
+        String nextCursor = result.hasMore() ? CursorCodec.encode(ids.get(ids.size() - 1)) : null;
+
+        Map<String, List<FacetValueDTO>> facets = new LinkedHashMap<>();
+        result.facets().forEach((dimension, values) -> facets.put(dimension, values.stream()
+                .map(v -> new FacetValueDTO(v.value(), v.label(), v.count(), v.selected()))
+                .collect(Collectors.toList())));
+
+        return new ProductBrowseDTO(new CursorPageDTO<>(items, nextCursor, result.hasMore(), pageSize),
+                result.total(), facets);
     }
 
     public List<ProductDTO> getProductsInStock() {
@@ -99,12 +274,69 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    public CursorPageDTO<ProductDTO> getProductsPage(String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(afterId, limit));
+    }
+
+    public CursorPageDTO<ProductDTO> getAllProductsIncludeInactivePage(String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit));
+    }
+
+    public CursorPageDTO<ProductDTO> getFeaturedProductsPage(String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(afterId, limit));
+    }
+
+    public CursorPageDTO<ProductDTO> getProductsOnSalePage(String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findProductsOnSaleAfter(afterId, limit));
+    }
+
+    public CursorPageDTO<ProductDTO> getProductsByCategoryPage(String categoria, String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findByCategoriaAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(categoria, afterId, limit));
+    }
+
+    public CursorPageDTO<ProductDTO> getProductsInStockPage(String cursor, Integer size) {
+        return page(cursor, size, (afterId, limit) ->
+                productRepository.findByStockGreaterThanAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(0, afterId, limit));
+    }
+
+    // Listados para grillas: proyeccion de columnas, sin cargar descripciones, galeria ni tags
+
+    public CursorPageDTO<ProductSummaryDTO> getProductSummariesPage(String cursor, Integer size) {
+        return summaryPage(cursor, size, productRepository::findActiveSummariesAfter);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> getAllProductSummariesIncludeInactivePage(String cursor, Integer size) {
+        return summaryPage(cursor, size, productRepository::findSummariesAfter);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> getFeaturedProductSummariesPage(String cursor, Integer size) {
+        return summaryPage(cursor, size, productRepository::findFeaturedSummariesAfter);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> getProductSummariesOnSalePage(String cursor, Integer size) {
+        return summaryPage(cursor, size, productRepository::findOnSaleSummariesAfter);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> getProductSummariesByCategoryPage(String categoria, String cursor, Integer size) {
+        return summaryPage(cursor, size, (afterId, limit) ->
+                productRepository.findSummariesByCategoriaAfter(categoria, afterId, limit));
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> getProductSummariesInStockPage(String cursor, Integer size) {
+        return summaryPage(cursor, size, productRepository::findInStockSummariesAfter);
+    }
+
     public List<String> getAllCategorias() {
-        return productRepository.findAllCategorias();
+        return catalogCache.getCategorias(productRepository::findAllCategorias);
     }
 
     public List<String> getAllMarcas() {
-        return productRepository.findAllMarcas();
+        return catalogCache.getMarcas(productRepository::findAllMarcas);
     }
 
     @Transactional
@@ -125,16 +357,22 @@ public class ProductService {
             }
         }
 
+        publishChange(ProductChangeType.CREATED, null, savedProduct);
         return convertToDTO(savedProduct);
     }
 
     @Transactional
     public ProductDTO updateProduct(Long id, ProductRequestDTO productRequest, MultipartFile imageFile) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         validateSkuOnUpdate(productRequest.getSku(), product.getSku());
+        Integer stock = product.getStock();
         mapRequestToEntity(productRequest, product);
+        // El stock pedido entra como movimiento del ledger; el valor compactado no se pisa
+        int requestedStock = product.getStock();
+        product.setStock(stock);
 
         if (imageFile != null && !imageFile.isEmpty()) {
             try {
@@ -146,7 +384,8 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
-        return convertToDTO(updatedProduct);
+        publishChange(ProductChangeType.UPDATED, before, updatedProduct);
+        return withStock(updatedProduct, stockLedger.set(updatedProduct, requestedStock, StockMovementReason.SET, null));
     }
 
     // Compatibilidad con tests existentes (firma sin MultipartFile)
@@ -160,21 +399,24 @@ public class ProductService {
         if (precio == null || precio.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("El precio no puede ser negativo");
         }
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
         product.setPrecioNormal(precio);
         // invalidar oferta si queda mayor al precio
         if (product.getPrecioOferta() != null && product.getPrecioOferta().compareTo(precio) > 0) {
             product.setPrecioOferta(null);
         }
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.PRICE, before, saved);
         return convertToDTO(saved);
     }
 
     @Transactional
     public ProductDTO updateOffer(Long id, BigDecimal precioOferta) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         if (precioOferta == null || precioOferta.compareTo(BigDecimal.ZERO) <= 0) {
             product.setPrecioOferta(null);
@@ -185,120 +427,149 @@ public class ProductService {
             product.setPrecioOferta(precioOferta);
         }
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.OFFER, before, saved);
         return convertToDTO(saved);
     }
 
     @Transactional
     public ProductDTO updateStock(Long id, Integer newStock) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        
-        if (newStock < 0) {
+        if (newStock == null || newStock < 0) {
             throw new RuntimeException("El stock no puede ser negativo");
         }
-        
-        product.setStock(newStock);
-        Product updatedProduct = productRepository.save(product);
-        return convertToDTO(updatedProduct);
+        Product product = productRepository.findForWriteById(id)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        return withStock(product, stockLedger.set(product, newStock, StockMovementReason.SET, null));
     }
 
     @Transactional
     public ProductDTO adjustStock(Long id, Integer adjustment) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        
-        int newStock = product.getStock() + adjustment;
-        if (newStock < 0) {
-            throw new RuntimeException("Stock insuficiente");
+        return withStock(product, applyStockDelta(product, adjustment, "Stock insuficiente"));
+    }
+
+    /**
+     * Ajusta el stock de varios SKUs en una sola transaccion: si alguno no existe o no alcanza, no se
+     * aplica ninguno (el rollback descarta los movimientos y libera lo reservado).
+     */
+    @Transactional
+    public List<ProductDTO> adjustStockBatch(List<StockAdjustmentDTO> adjustments) {
+        // Agrupado por Product.skuKey: la base compara SKUs sin distinguir mayusculas y aqui tambien
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        Map<String, String> requestedSkus = new LinkedHashMap<>();
+        for (StockAdjustmentDTO adjustment : adjustments) {
+            if (adjustment.getSku() == null || adjustment.getSku().isBlank() || adjustment.getDelta() == null) {
+                throw new IllegalArgumentException("Cada ajuste requiere SKU y delta");
+            }
+            String key = Product.skuKey(adjustment.getSku());
+            deltas.merge(key, adjustment.getDelta(), Integer::sum);
+            requestedSkus.putIfAbsent(key, adjustment.getSku().trim());
         }
-        
-        product.setStock(newStock);
-        Product updatedProduct = productRepository.save(product);
-        return convertToDTO(updatedProduct);
+
+        List<Product> products = new ArrayList<>(productRepository.findForWriteBySkuIn(requestedSkus.values()));
+        if (products.size() < deltas.size()) {
+            Set<String> found = products.stream().map(product -> Product.skuKey(product.getSku())).collect(Collectors.toSet());
+            String missing = requestedSkus.entrySet().stream()
+                    .filter(entry -> !found.contains(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .findFirst().orElse("");
+            throw new RuntimeException("Producto no encontrado: " + missing);
+        }
+        products.sort(Comparator.comparing(Product::getId));
+
+        List<ProductDTO> updated = new ArrayList<>(products.size());
+        for (Product product : products) {
+            int delta = deltas.get(Product.skuKey(product.getSku()));
+            updated.add(withStock(product,
+                    applyStockDelta(product, delta, "Stock insuficiente para " + product.getSku())));
+        }
+        return updated;
+    }
+
+    // Solo inserta el movimiento: el stock del producto lo actualiza el compactador del ledger
+    private int applyStockDelta(Product product, int delta, String insufficientMessage) {
+        return stockLedger.record(product, delta, StockMovementReason.ADJUSTMENT, null)
+                .orElseThrow(() -> new RuntimeException(insufficientMessage));
+    }
+
+    // Las respuestas de escritura informan el disponible del ledger, no el stock aun sin compactar
+    private ProductDTO withStock(Product product, int available) {
+        ProductDTO dto = convertToDTO(product);
+        dto.setStock(available);
+        return dto;
+    }
+
+    // Las lecturas de un producto informan el disponible que esta instancia ya tiene en memoria; el DTO de la
+    // cache es compartido, asi que se devuelve una copia y solo si el valor difiere
+    private ProductDTO withAvailableStock(ProductDTO dto) {
+        OptionalInt available = stockLedger.trackedAvailable(dto.getId());
+        if (available.isEmpty() || Objects.equals(dto.getStock(), available.getAsInt())) {
+            return dto;
+        }
+        return dto.withStock(available.getAsInt());
     }
 
     @Transactional
     public ProductDTO toggleFeatured(Long id) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         
+        ProductSnapshot before = ProductSnapshot.of(product);
         product.setIsFeatured(!product.getIsFeatured());
         Product updatedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.FEATURED, before, updatedProduct);
         return convertToDTO(updatedProduct);
     }
 
     @Transactional
     public ProductDTO toggleActive(Long id) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         
+        ProductSnapshot before = ProductSnapshot.of(product);
         product.setIsActive(!product.getIsActive());
         Product updatedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.ACTIVE, before, updatedProduct);
         return convertToDTO(updatedProduct);
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Producto no encontrado");
-        }
-        productRepository.deleteById(id);
+        Product product = productRepository.findForWriteById(id)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
+        productRepository.delete(product);
+        publishChange(ProductChangeType.DELETED, before, null);
     }
 
+    @Transactional
     public ProductDTO setMainImage(Long id, String storedPath) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
         product.setImageUrl(storedPath);
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.IMAGE, before, saved);
         return convertToDTO(saved);
     }
 
     @Transactional
     public ProductDTO updateImageUrl(Long productId, ImageUrlUpdateDTO dto) {
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findForWriteById(productId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         product.setImageUrl(dto.getNewImageUrl());
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.IMAGE, before, saved);
         return convertToDTO(saved);
     }
 
     @Transactional
-    public void normalizeProductSlugs() {
-        List<Product> products = productRepository.findAll();
-        Set<String> usedSlugs = products.stream()
-                .map(Product::getSlug)
-                .filter(slug -> !isSlugInvalid(slug))
-                .collect(Collectors.toCollection(HashSet::new));
-
-        List<Product> toUpdate = new ArrayList<>();
-        for (Product product : products) {
-            if (isSlugInvalid(product.getSlug())) {
-                String baseSlug = resolveSlug(null, product.getNombre(), null);
-                if (baseSlug == null || baseSlug.isBlank()) {
-                    continue;
-                }
-
-                String candidate = baseSlug;
-                int suffix = 1;
-                while (usedSlugs.contains(candidate)) {
-                    candidate = baseSlug + "-" + suffix;
-                    suffix++;
-                }
-
-                product.setSlug(candidate);
-                usedSlugs.add(candidate);
-                toUpdate.add(product);
-            }
-        }
-
-        if (!toUpdate.isEmpty()) {
-            productRepository.saveAll(toUpdate);
-        }
-    }
-
     public ProductDTO appendGalleryImages(Long id, List<String> storedPaths) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findForWriteById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         List<String> all = new ArrayList<>(safeList(product.getImages()));
         if (storedPaths != null) {
@@ -311,12 +582,13 @@ public class ProductService {
 
         product.setImages(all);
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.IMAGE, before, saved);
         return convertToDTO(saved);
     }
 
     @Transactional
     public ProductDTO deleteProductImage(Long productId) {
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findForWriteById(productId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
 
         String storedPath = product.getImageUrl();
@@ -324,18 +596,49 @@ public class ProductService {
             throw new RuntimeException("El producto no tiene imagen principal");
         }
 
-        try {
-            Path path = productImageStorageService.resolveProductImagePath(storedPath);
-            Files.deleteIfExists(path);
-        } catch (Exception e) {
-            throw new RuntimeException("No se pudo eliminar la imagen del servidor", e);
+        // Las imagenes por hash pueden estar compartidas: las borra el recolector cuando nadie las referencia
+        if (productImageStorageService.contentAddressedName(storedPath) == null) {
+            try {
+                Path path = productImageStorageService.resolveProductImagePath(storedPath);
+                Files.deleteIfExists(path);
+            } catch (Exception e) {
+                throw new RuntimeException("No se pudo eliminar la imagen del servidor", e);
+            }
         }
 
+        ProductSnapshot before = ProductSnapshot.of(product);
         product.setImageUrl(null);
         Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.IMAGE, before, saved);
         return convertToDTO(saved);
     }
 
+    /**
+     * Registra que los derivados de una imagen ya estan generados; lo llama el pipeline de imagenes.
+     */
+    @Transactional
+    public void recordImageDerivatives(Long productId, String storedName) {
+        Product product = productRepository.findForWriteById(productId).orElse(null);
+        if (product == null || safeList(product.getImageDerivatives()).contains(storedName)) {
+            return;
+        }
+        ProductSnapshot before = ProductSnapshot.of(product);
+        List<String> processed = safeList(product.getImageDerivatives());
+        processed.add(storedName);
+        product.setImageDerivatives(processed);
+        Product saved = productRepository.save(product);
+        publishChange(ProductChangeType.IMAGE, before, saved);
+    }
+
+    private boolean hasDerivatives(Product product, String storedName) {
+        return storedName != null && product.getImageDerivatives() != null
+                && product.getImageDerivatives().contains(storedName);
+    }
+
+    private void publishChange(ProductChangeType type, ProductSnapshot before, Product saved) {
+        eventPublisher.publishEvent(ProductChangeEvent.of(type, before, saved));
+    }
+
     private void mapRequestToEntity(ProductRequestDTO request, Product entity) {
         if (request.getPrice() != null && request.getPrice().compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("El precio no puede ser negativo");
@@ -378,7 +681,8 @@ public class ProductService {
         entity.setDiscountPercentage(request.getDiscountPercentage() == null ? 0 : request.getDiscountPercentage());
     }
 
-    private ProductDTO convertToDTO(Product product) {
+    // Visible en el paquete para ProductDtoBenchmark (src/jmh/java)
+    ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setNombre(product.getNombre());
@@ -399,35 +703,94 @@ public class ProductService {
         dto.setCreatedAt(product.getCreatedAt());
         dto.setDestacado(Boolean.TRUE.equals(product.getIsFeatured()));
         dto.setOferta(product.getPrecioOferta() != null && product.getPrecioOferta().compareTo(BigDecimal.ZERO) > 0);
-        dto.setTags(safeList(product.getTags()));
-        dto.setTagIds(product.getTagIds() == null ? new ArrayList<>() : new ArrayList<>(product.getTagIds()));
+        dto.setTags(readOnly(product.getTags()));
+        dto.setTagIds(readOnly(product.getTagIds()));
         dto.setImages(productImageStorageService.buildPublicImagePaths(product.getImages()));
+        dto.setImageSizes(hasDerivatives(product, product.getImageUrl())
+                ? productImageStorageService.buildPublicImageVariants(product.getImageUrl())
+                : new LinkedHashMap<>());
         
         return dto;
     }
 
+    private ProductSummaryDTO convertToSummary(ProductSummaryRow row) {
+        ProductSummaryDTO dto = new ProductSummaryDTO();
+        dto.setId(row.id());
+        dto.setNombre(row.nombre());
+        dto.setSlug(resolveSlug(row.slug(), row.nombre(), null));
+        dto.setPrecioNormal(row.precioNormal());
+        dto.setPrecioOferta(row.precioOferta());
+        dto.setDiscountPercentage(row.discountPercentage());
+        dto.setFinalPrice(ProductPricing.finalPrice(row.precioNormal(), row.discountPercentage()));
+        dto.setStock(row.stock() == null ? 0 : row.stock());
+        dto.setImageUrl(productImageStorageService.buildPublicImagePath(row.imageUrl()));
+        // Sin leer image_derivatives: si un ancho aun no existe, la entrega cae al original
+        dto.setImageSizes(productImageStorageService.buildPublicImageVariants(row.imageUrl()));
+        dto.setCategoria(defaultCategoria(row.categoria(), "Accesorios"));
+        dto.setMarca(row.marca());
+        dto.setSku(row.sku());
+        dto.setIsActive(row.isActive());
+        dto.setDestacado(Boolean.TRUE.equals(row.isFeatured()));
+        dto.setOferta(row.precioOferta() != null && row.precioOferta().compareTo(BigDecimal.ZERO) > 0);
+        return dto;
+    }
+
+    private CursorPageDTO<ProductSummaryDTO> summaryPage(String cursor, Integer size,
+                                                         BiFunction<Long, Pageable, List<ProductSummaryRow>> query) {
+        int pageSize = resolvePageSize(size);
+        long afterId = CursorCodec.decode(cursor);
+
+        List<ProductSummaryRow> rows = query.apply(afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductSummaryRow> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<ProductSummaryDTO> items = pageRows.stream()
+                .map(this::convertToSummary)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? CursorCodec.encode(pageRows.get(pageRows.size() - 1).id()) : null;
+        return new CursorPageDTO<>(items, nextCursor, hasMore, pageSize);
+    }
+
+    /**
+     * Lee una pagina por keyset (id > cursor). Se pide un elemento extra para saber si hay mas
+     * resultados sin ejecutar un COUNT, asi el costo no depende del tamaño del catalogo.
+     */
+    private CursorPageDTO<ProductDTO> page(String cursor, Integer size, BiFunction<Long, Pageable, List<Product>> query) {
+        int pageSize = resolvePageSize(size);
+        long afterId = CursorCodec.decode(cursor);
+
+        List<Product> rows = query.apply(afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<ProductDTO> items = pageRows.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? CursorCodec.encode(pageRows.get(pageRows.size() - 1).getId()) : null;
+        return new CursorPageDTO<>(items, nextCursor, hasMore, pageSize);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("El tamaño de pagina debe ser mayor a 0");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
     private List<String> safeList(List<String> values) {
         return values == null ? new ArrayList<>() : new ArrayList<>(values);
     }
 
-    private boolean isSlugInvalid(String slug) {
-        if (slug == null || slug.isBlank()) {
-            return true;
-        }
-        return !slug.matches("^[a-z0-9]+(?:-[a-z0-9]+)*$");
+    // Vista de solo lectura en vez de una copia: las listas de la entidad se reemplazan, nunca se modifican
+    private static <T> List<T> readOnly(List<T> values) {
+        return values == null || values.isEmpty() ? List.of() : Collections.unmodifiableList(values);
     }
 
     private BigDecimal calculateFinalPrice(Product product) {
-        BigDecimal price = product.getPrecioNormal();
-        if (price == null) {
-            return null;
-        }
-        Integer discount = product.getDiscountPercentage();
-        if (discount == null || discount <= 0) {
-            return price;
-        }
-        BigDecimal factor = BigDecimal.valueOf(100 - discount).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-        return price.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+        return ProductPricing.finalPrice(product);
     }
 
     private void validateSku(String sku) {
@@ -453,13 +816,7 @@ public class ProductService {
         if (base == null || base.isBlank()) {
             base = (nombre != null ? nombre : fallback);
         }
-        if (base == null) {
-            return null;
-        }
-        return base.trim()
-                .toLowerCase()
-                .replaceAll("[^a-z0-9]+", "-")
-                .replaceAll("^-+|-+$", "");
+        return ProductSlugs.slugify(base);
     }
 
     private String defaultCategoria(String value, String current) {
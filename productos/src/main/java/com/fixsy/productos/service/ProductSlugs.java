@@ -0,0 +1,77 @@
+package com.fixsy.productos.service;
+
+import java.util.Locale;
+
+/**
+ * Generacion y validacion de slugs. Se usan por cada producto al convertir a DTO y al normalizar el
+ * catalogo completo, asi que ambas recorren el texto una sola vez sin expresiones regulares, y un slug
+ * que ya es valido se devuelve tal cual sin copiarlo.
+ */
+public final class ProductSlugs {
+
+    private ProductSlugs() {
+    }
+
+    /**
+     * Minusculas, cada tramo de caracteres fuera de {@code [a-z0-9]} reemplazado por un guion y sin guiones
+     * en los extremos.
+     */
+    public static String slugify(String base) {
+        if (base == null) {
+            return null;
+        }
+        if (isValid(base)) {
+            return base;
+        }
+        StringBuilder slug = new StringBuilder(base.length());
+        boolean pendingDash = false;
+        for (int i = 0; i < base.length(); i++) {
+            char c = base.charAt(i);
+            if (c < 128) {
+                pendingDash = append(slug, Character.toLowerCase(c), pendingDash);
+            } else {
+                // Fuera de ASCII solo algunos caracteres pasan a [a-z0-9] en minusculas (el signo Kelvin, la I con punto)
+                String lower = String.valueOf(c).toLowerCase(Locale.ROOT);
+                for (int j = 0; j < lower.length(); j++) {
+                    pendingDash = append(slug, lower.charAt(j), pendingDash);
+                }
+            }
+        }
+        return slug.toString();
+    }
+
+    public static boolean isValid(String slug) {
+        if (slug == null || slug.isEmpty()) {
+            return false;
+        }
+        char previous = '-';
+        for (int i = 0; i < slug.length(); i++) {
+            char c = slug.charAt(i);
+            if (c == '-') {
+                if (previous == '-') {
+                    return false;
+                }
+            } else if (!isSlugChar(c)) {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != '-';
+    }
+
+    // Devuelve si queda un guion pendiente: solo se escribe cuando le sigue otro caracter valido
+    private static boolean append(StringBuilder slug, char c, boolean pendingDash) {
+        if (!isSlugChar(c)) {
+            return true;
+        }
+        if (pendingDash && !slug.isEmpty()) {
+            slug.append('-');
+        }
+        slug.append(c);
+        return false;
+    }
+
+    private static boolean isSlugChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+}
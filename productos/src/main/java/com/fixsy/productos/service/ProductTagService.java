@@ -0,0 +1,292 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.ProductTag;
+import com.fixsy.productos.model.ProductTagId;
+import com.fixsy.productos.model.Tag;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.ProductTagRepository;
+import com.fixsy.productos.repository.TagRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mantiene la tabla product_tags alineada con las columnas de texto {@code tags}/{@code tag_ids} de
+ * {@link Product}, que se conservan como copia de lectura para los DTOs.
+ * <p>
+ * Las etiquetas de un producto son la union de los nombres de {@code tags} y de los ids de
+ * {@code tag_ids} que existen en la tabla tags; los ids desconocidos se ignoran.
+ */
+@Service
+@Slf4j
+public class ProductTagService {
+
+    static final int MIGRATION_BATCH_SIZE = 500;
+
+    private final TagRepository tagRepository;
+    private final ProductTagRepository productTagRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean migrateOnStartup;
+    private final AtomicBoolean migrationRunning = new AtomicBoolean(false);
+
+    public ProductTagService(TagRepository tagRepository,
+                             ProductTagRepository productTagRepository,
+                             ProductRepository productRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${productos.tags.migrate-on-startup:true}") boolean migrateOnStartup) {
+        this.tagRepository = tagRepository;
+        this.productTagRepository = productTagRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    /**
+     * Se ejecuta dentro de la transaccion de la escritura: si la sincronizacion falla, el cambio del
+     * producto tambien se revierte y la tabla nunca queda desalineada.
+     */
+    @EventListener
+    @Transactional
+    public void onProductChange(ProductChangeEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                if (tagsChanged(event)) {
+                    syncTags(event.product());
+                }
+            }
+            case DELETED -> {
+                if (event.productId() != null) {
+                    productTagRepository.deleteByProductId(event.productId());
+                }
+            }
+            default -> {
+                // Precio, stock, imagenes, etc. no cambian las etiquetas
+            }
+        }
+    }
+
+    // Una edicion o importacion que no toca las etiquetas no necesita consultar product_tags
+    private static boolean tagsChanged(ProductChangeEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+        if (after == null) {
+            return false;
+        }
+        if (before == null) {
+            return !after.tags().isEmpty() || !after.tagIds().isEmpty();
+        }
+        return !before.tags().equals(after.tags()) || !before.tagIds().equals(after.tagIds());
+    }
+
+    @Transactional
+    public void syncTags(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Set<Long> wanted = resolveTagIds(product, new HashMap<>());
+        Set<Long> current = new HashSet<>(productTagRepository.findTagIdsByProductId(product.getId()));
+
+        Set<Long> removed = new HashSet<>(current);
+        removed.removeAll(wanted);
+        if (!removed.isEmpty()) {
+            productTagRepository.deleteByProductIdAndTagIdIn(product.getId(), removed);
+        }
+
+        List<ProductTag> added = new ArrayList<>();
+        for (Long tagId : wanted) {
+            if (!current.contains(tagId)) {
+                added.add(new ProductTag(product.getId(), tagId));
+            }
+        }
+        if (!added.isEmpty()) {
+            productTagRepository.saveAll(added);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!migrateOnStartup || productTagRepository.count() > 0) {
+            return;
+        }
+        try {
+            Map<String, Object> result = migrateLegacyTags();
+            log.info("Migracion de tags a product_tags completada: {}", result);
+        } catch (Exception ex) {
+            log.warn("No se pudo migrar los tags a product_tags: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Migracion de una sola pasada desde las columnas de texto: recorre todos los productos por keyset
+     * en bloques y cada bloque se guarda en su propia transaccion. Es idempotente, los pares que ya
+     * existen no se vuelven a insertar, por lo que puede relanzarse si se interrumpe.
+     */
+    public Map<String, Object> migrateLegacyTags() {
+        if (!migrationRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("La migracion de tags ya esta en curso");
+        }
+        try {
+            long start = System.nanoTime();
+            Map<String, Long> tagIdsByName = new HashMap<>();
+            long afterId = 0L;
+            int products = 0;
+            int batches = 0;
+            int links = 0;
+            while (true) {
+                List<Product> batch = productRepository.findByIdGreaterThanOrderByIdAsc(
+                        afterId, PageRequest.of(0, MIGRATION_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                Integer inserted = transactionTemplate.execute(status -> migrateBatch(batch, tagIdsByName));
+                links += inserted == null ? 0 : inserted;
+                products += batch.size();
+                batches++;
+                afterId = batch.get(batch.size() - 1).getId();
+                if (batch.size() < MIGRATION_BATCH_SIZE) {
+                    break;
+                }
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("products", products);
+            result.put("batches", batches);
+            result.put("tags", tagIdsByName.size());
+            result.put("linksInserted", links);
+            result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+            return result;
+        } finally {
+            migrationRunning.set(false);
+        }
+    }
+
+    private int migrateBatch(List<Product> batch, Map<String, Long> tagIdsByName) {
+        List<Long> productIds = batch.stream().map(Product::getId).toList();
+        Set<ProductTagId> existing = new HashSet<>(productTagRepository.findIdsByProductIdIn(productIds));
+
+        // Una sola resolucion de nombres e ids por bloque
+        Set<String> names = new LinkedHashSet<>();
+        Set<Long> legacyIds = new HashSet<>();
+        for (Product product : batch) {
+            names.addAll(normalizedNames(product.getTags()));
+            if (product.getTagIds() != null) {
+                legacyIds.addAll(product.getTagIds());
+            }
+        }
+        resolveOrCreate(names, tagIdsByName);
+        Set<Long> knownIds = existingTagIds(legacyIds);
+
+        List<ProductTag> toInsert = new ArrayList<>();
+        for (Product product : batch) {
+            Set<Long> tagIds = new LinkedHashSet<>();
+            for (String name : normalizedNames(product.getTags())) {
+                tagIds.add(tagIdsByName.get(name));
+            }
+            if (product.getTagIds() != null) {
+                for (Long tagId : product.getTagIds()) {
+                    if (knownIds.contains(tagId)) {
+                        tagIds.add(tagId);
+                    }
+                }
+            }
+            for (Long tagId : tagIds) {
+                ProductTagId id = new ProductTagId(product.getId(), tagId);
+                if (existing.add(id)) {
+                    toInsert.add(new ProductTag(product.getId(), tagId));
+                }
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            productTagRepository.saveAll(toInsert);
+        }
+        return toInsert.size();
+    }
+
+    private Set<Long> resolveTagIds(Product product, Map<String, Long> tagIdsByName) {
+        Set<String> names = normalizedNames(product.getTags());
+        resolveOrCreate(names, tagIdsByName);
+
+        Set<Long> result = new LinkedHashSet<>();
+        for (String name : names) {
+            result.add(tagIdsByName.get(name));
+        }
+        if (product.getTagIds() != null) {
+            result.addAll(existingTagIds(product.getTagIds()));
+        }
+        return result;
+    }
+
+    private void resolveOrCreate(Set<String> names, Map<String, Long> tagIdsByName) {
+        List<String> missing = names.stream().filter(name -> !tagIdsByName.containsKey(name)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Tag tag : tagRepository.findByNameIn(missing)) {
+            tagIdsByName.put(tag.getName(), tag.getId());
+        }
+        List<String> absent = missing.stream().filter(name -> !tagIdsByName.containsKey(name)).toList();
+        if (absent.isEmpty()) {
+            return;
+        }
+        // Dos escrituras pueden introducir la misma etiqueta a la vez: se inserta ignorando el duplicado y se
+        // vuelve a leer, en vez de fallar el guardado del producto por uk_tags_name
+        LocalDateTime now = LocalDateTime.now();
+        for (String name : absent) {
+            tagRepository.insertIfAbsent(name, now);
+        }
+        for (Tag tag : tagRepository.lockByNameIn(absent)) {
+            tagIdsByName.put(tag.getName(), tag.getId());
+        }
+    }
+
+    private Set<Long> existingTagIds(Collection<Long> ids) {
+        Set<Long> requested = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                requested.add(id);
+            }
+        }
+        if (requested.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> known = new HashSet<>();
+        for (Tag tag : tagRepository.findAllById(requested)) {
+            known.add(tag.getId());
+        }
+        return known;
+    }
+
+    private static Set<String> normalizedNames(List<String> tags) {
+        Set<String> names = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                String name = Tag.normalizeName(tag);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+}
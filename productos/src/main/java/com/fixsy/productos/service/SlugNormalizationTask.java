@@ -0,0 +1,66 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Regenera desde el nombre los slugs vacios o con formato invalido, agregando un sufijo numerico si el
+ * slug ya esta en uso. La unicidad se consulta en la base en vez de cargar todos los slugs en memoria.
+ */
+@Component
+public class SlugNormalizationTask implements CatalogMaintenanceTask {
+
+    private final ProductRepository productRepository;
+
+    public SlugNormalizationTask(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public String type() {
+        return "normalize-slugs";
+    }
+
+    @Override
+    public String description() {
+        return "Regenera los slugs vacios o invalidos a partir del nombre del producto";
+    }
+
+    @Override
+    public List<Product> process(List<Product> chunk) {
+        // Slugs elegidos en este bloque, aun no guardados
+        Set<String> reserved = new HashSet<>();
+        List<Product> changed = new ArrayList<>();
+        List<String> slugs = new ArrayList<>();
+        for (Product product : chunk) {
+            if (ProductSlugs.isValid(product.getSlug())) {
+                continue;
+            }
+            String base = ProductSlugs.slugify(product.getNombre());
+            if (base == null || base.isEmpty()) {
+                continue;
+            }
+            String candidate = base;
+            int suffix = 1;
+            while (reserved.contains(candidate) || productRepository.existsBySlugAndIdNot(candidate, product.getId())) {
+                candidate = base + "-" + suffix;
+                suffix++;
+            }
+            reserved.add(candidate);
+            changed.add(product);
+            slugs.add(candidate);
+        }
+
+        // Se asigna al final: modificar antes provocaria un flush por cada consulta de unicidad
+        for (int i = 0; i < changed.size(); i++) {
+            changed.get(i).setSlug(slugs.get(i));
+        }
+        return changed;
+    }
+}
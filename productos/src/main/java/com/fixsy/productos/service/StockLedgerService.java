@@ -0,0 +1,518 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.StockLevelDTO;
+import com.fixsy.productos.dto.StockMovementDTO;
+import com.fixsy.productos.dto.StockMovementRequestDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovement;
+import com.fixsy.productos.model.StockMovementReason;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.StockMovementRepository;
+import com.fixsy.productos.repository.StockReading;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ledger de stock: cada cambio se registra como un movimiento en stock_movements y el compactador suma
+ * periodicamente los pendientes a {@code products.stock}. Las fijaciones (SET, IMPORT) se registran con su valor
+ * absoluto y el compactador las convierte en la diferencia con el stock que encuentra, asi que pisan lo que
+ * haya antes aunque lo haya escrito otra instancia.
+ * <p>
+ * Con una sola instancia (por defecto) el disponible de cada producto se lleva en memoria: el valor confirmado
+ * (compactado mas pendientes) y los descuentos de transacciones aun abiertas, que se reservan bajo el monitor
+ * del producto antes del INSERT y se liberan al terminar la transaccion. Asi dos ventas concurrentes del ultimo
+ * articulo no pueden confirmar ambas sin bloquear la fila del producto. La compactacion no cambia el disponible,
+ * solo mueve unidades de los pendientes al stock del producto, y es la que publica el cambio STOCK.
+ * <p>
+ * Con {@code productos.stock.multi-instance} cada movimiento bloquea la fila del producto, valida contra
+ * {@code products.stock} y lo actualiza en la misma transaccion (el movimiento queda ya compactado y el cambio
+ * STOCK sale con el). El nivel en memoria solo sirve lecturas y se ordena por id de movimiento.
+ * <p>
+ * En ambos modos cada pasada del compactador vuelve a leer de la base el disponible de todos los productos
+ * seguidos y descarta los que no tuvieron actividad. El compactador igual rechaza ({@code rejected_at}) un
+ * descuento que dejaria el stock bajo cero: solo puede pasar con varias instancias en el modo de una sola.
+ */
+@Service
+@Slf4j
+public class StockLedgerService {
+
+    static final int COMPACT_BATCH_SIZE = 500;
+    static final int REFRESH_BATCH_SIZE = 500;
+    static final int MAX_MOVEMENTS_PAGE = 200;
+
+    private final StockMovementRepository movementRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final boolean multiInstance;
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastCompactionAt;
+    private volatile int lastCompactionCount;
+    private volatile int lastCompactionRejected;
+
+    public StockLedgerService(StockMovementRepository movementRepository,
+                              ProductRepository productRepository,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              EntityManager entityManager,
+                              @Value("${productos.stock.multi-instance:false}") boolean multiInstance) {
+        this.movementRepository = movementRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.multiInstance = multiInstance;
+    }
+
+    /**
+     * Registra un movimiento dentro de la transaccion en curso. Devuelve el disponible resultante, o vacio
+     * si un descuento dejaria el stock negativo (en ese caso no se registra nada).
+     */
+    @Transactional
+    public OptionalInt record(Product product, int delta, StockMovementReason reason, String orderRef) {
+        return multiInstance
+                ? applyLocked(product, null, delta, reason, orderRef)
+                : apply(product, null, delta, reason, orderRef);
+    }
+
+    /**
+     * Lleva el disponible a {@code target}. El movimiento guarda el valor absoluto: el compactador lo aplica
+     * contra el stock que encuentre, aunque otra instancia haya registrado movimientos que esta aun no ve.
+     */
+    @Transactional
+    public int set(Product product, int target, StockMovementReason reason, String orderRef) {
+        if (target < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+        return (multiInstance
+                ? applyLocked(product, target, 0, reason, orderRef)
+                : apply(product, target, 0, reason, orderRef)).orElseThrow();
+    }
+
+    @Transactional
+    public StockLevelDTO recordMovement(StockMovementRequestDTO request) {
+        StockMovementReason reason = request.getReason() == null ? StockMovementReason.ADJUSTMENT : request.getReason();
+        if (reason == StockMovementReason.SET || reason == StockMovementReason.IMPORT) {
+            throw new IllegalArgumentException("El motivo " + reason + " solo lo registra el servicio de productos");
+        }
+        Product product = productRepository.findBySku(request.getSku().trim())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int available = record(product, request.getDelta(), reason, emptyToNull(request.getOrderRef()))
+                .orElseThrow(() -> new RuntimeException("Stock insuficiente para " + product.getSku()));
+        return new StockLevelDTO(product.getId(), product.getSku(), available);
+    }
+
+    /**
+     * Disponible para vender: compactado mas pendientes, menos los descuentos aun sin confirmar.
+     */
+    @Transactional(readOnly = true)
+    public int available(Long productId) {
+        while (true) {
+            Level level = level(productId);
+            synchronized (level) {
+                if (!level.evicted) {
+                    level.touched = true;
+                    return Math.toIntExact(level.projected());
+                }
+            }
+        }
+    }
+
+    /**
+     * Disponible que esta instancia ya tiene en memoria, sin ir a la base. Vacio si el producto no se sigue:
+     * no tuvo movimientos desde la ultima compactacion, asi que el stock compactado esta al dia.
+     */
+    public OptionalInt trackedAvailable(Long productId) {
+        Level level = levels.get(productId);
+        if (level == null) {
+            return OptionalInt.empty();
+        }
+        synchronized (level) {
+            return level.evicted ? OptionalInt.empty() : OptionalInt.of(Math.toIntExact(level.projected()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public StockLevelDTO getLevel(String sku) {
+        Product product = productRepository.findBySku(sku.trim())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        return new StockLevelDTO(product.getId(), product.getSku(), available(product.getId()));
+    }
+
+    public List<StockMovementDTO> getMovements(String sku, Integer size) {
+        Product product = productRepository.findBySku(sku.trim())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int limit = size == null || size <= 0 ? 50 : Math.min(size, MAX_MOVEMENTS_PAGE);
+        return movementRepository.findByProductIdOrderByIdDesc(product.getId(), PageRequest.of(0, limit)).stream()
+                .map(StockLedgerService::toDTO)
+                .toList();
+    }
+
+    public List<StockMovementDTO> getMovementsByOrder(String orderRef) {
+        return movementRepository.findByOrderRefOrderByIdAsc(orderRef).stream()
+                .map(StockLedgerService::toDTO)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${productos.stock.compact-interval-ms:1000}",
+            initialDelayString = "${productos.stock.compact-initial-delay-ms:5000}")
+    public void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.warn("Fallo la compactacion del stock: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Suma los movimientos pendientes al stock de cada producto y los marca compactados, en bloques de
+     * {@link #COMPACT_BATCH_SIZE}, y despues vuelve a leer los niveles en memoria. Devuelve cuantos movimientos
+     * se compactaron.
+     */
+    public synchronized int compact() {
+        int compacted = 0;
+        int rejected = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> compactBatch());
+            if (batch == null) {
+                break;
+            }
+            compacted += batch.size();
+            rejected += batch.rejected();
+        } while (batch.size() == COMPACT_BATCH_SIZE);
+        refreshLevels();
+        lastCompactionAt = LocalDateTime.now();
+        lastCompactionCount = compacted;
+        lastCompactionRejected = rejected;
+        return compacted;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingMovements", movementRepository.countByCompactedAtIsNull());
+        stats.put("multiInstance", multiInstance);
+        stats.put("trackedProducts", levels.size());
+        stats.put("lastCompactionAt", lastCompactionAt);
+        stats.put("lastCompactionCount", lastCompactionCount);
+        stats.put("lastCompactionRejected", lastCompactionRejected);
+        stats.put("rejectedMovements", movementRepository.countByRejectedAtIsNotNull());
+        return stats;
+    }
+
+    // Una sola instancia: reserva contra el nivel en memoria y solo inserta. Una fijacion se registra siempre,
+    // aunque la diferencia estimada sea 0: el valor absoluto es el que manda al compactar
+    private OptionalInt apply(Product product, Integer target, int delta, StockMovementReason reason, String orderRef) {
+        Long productId = product.getId();
+        while (true) {
+            Level level = level(productId);
+            long change;
+            long after;
+            synchronized (level) {
+                if (level.evicted) {
+                    continue;
+                }
+                level.touched = true;
+                long projected = level.projected();
+                change = target != null ? target - projected : delta;
+                after = projected + change;
+                if (target == null && change == 0) {
+                    return OptionalInt.of(Math.toIntExact(projected));
+                }
+                if (after < 0) {
+                    return OptionalInt.empty();
+                }
+                if (change < 0) {
+                    level.reserved += change;
+                }
+                level.inFlight++;
+                level.changes++;
+            }
+            // Se registra antes del INSERT: si falla, el rollback tambien libera la reserva
+            TransactionSynchronizationManager.registerSynchronization(new Completion(level, change));
+            movementRepository.save(new StockMovement(productId, product.getSku(), Math.toIntExact(change),
+                    reason, orderRef, target));
+            return OptionalInt.of(Math.toIntExact(after));
+        }
+    }
+
+    // Varias instancias: valida y actualiza products.stock con la fila bloqueada hasta el commit. Se escribe por
+    // la entidad y no con un UPDATE masivo para que el cache de segundo nivel se actualice en vez de vaciarse
+    private OptionalInt applyLocked(Product product, Integer target, int delta, StockMovementReason reason,
+                                    String orderRef) {
+        // refresh descarta cambios sin volcar de la entidad: los del llamador se escriben antes
+        entityManager.flush();
+        Product locked = entityManager.find(Product.class, product.getId());
+        if (locked == null) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+        entityManager.refresh(locked, LockModeType.PESSIMISTIC_WRITE);
+        int stock = locked.getStock() == null ? 0 : locked.getStock();
+        long change = target != null ? (long) target - stock : delta;
+        if (stock + change < 0) {
+            return OptionalInt.empty();
+        }
+        if (change == 0) {
+            return OptionalInt.of(stock);
+        }
+        int after = Math.toIntExact(stock + change);
+        // El snapshot no incluye el stock, asi que el estado previo coincide con el posterior
+        ProductSnapshot snapshot = ProductSnapshot.of(locked);
+        locked.setStock(after);
+        StockMovement movement = new StockMovement(locked.getId(), locked.getSku(), Math.toIntExact(change),
+                reason, orderRef, target);
+        movement.setCompactedAt(LocalDateTime.now());
+        movementRepository.save(movement);
+        Product saved = productRepository.save(locked);
+        eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeType.STOCK, snapshot, saved));
+        TransactionSynchronizationManager.registerSynchronization(new Applied(locked.getId(), after, movement.getId()));
+        return OptionalInt.of(after);
+    }
+
+    // La carga usa la transaccion en curso. Un nivel solo se descarta despues de una compactacion completa
+    // sin movimientos ni transacciones abiertas, asi que nada registrado en esta instancia queda fuera de la lectura
+    private Level level(Long productId) {
+        Level level = levels.get(productId);
+        if (level != null) {
+            return level;
+        }
+        List<StockReading> readings = movementRepository.readAvailable(List.of(productId));
+        if (readings.isEmpty()) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+        Level loaded = new Level(readings.get(0).available(), readings.get(0).lastMovementId());
+        Level existing = levels.putIfAbsent(productId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Batch compactBatch() {
+        List<StockMovement> pending = movementRepository.lockPending(PageRequest.of(0, COMPACT_BATCH_SIZE));
+        if (pending.isEmpty()) {
+            return new Batch(0, 0);
+        }
+        // Por id de producto: dos compactaciones o un lote de ajustes bloquean las filas en el mismo orden.
+        // Dentro de cada producto los movimientos quedan en orden de id
+        Map<Long, List<StockMovement>> byProduct = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(pending.size());
+        for (StockMovement movement : pending) {
+            byProduct.computeIfAbsent(movement.getProductId(), id -> new ArrayList<>()).add(movement);
+            ids.add(movement.getId());
+        }
+
+        List<Long> rejected = new ArrayList<>();
+        List<Product> products = new ArrayList<>(productRepository.findAllById(byProduct.keySet()));
+        products.sort(Comparator.comparing(Product::getId));
+        for (Product product : products) {
+            int before = product.getStock() == null ? 0 : product.getStock();
+            int stock = before;
+            for (StockMovement movement : byProduct.get(product.getId())) {
+                if (movement.getTarget() != null) {
+                    // Fijacion: queda registrado el cambio efectivo, que markCompacted vuelca con la entidad
+                    movement.setDelta(movement.getTarget() - stock);
+                    stock = movement.getTarget();
+                    continue;
+                }
+                int delta = movement.getDelta();
+                if (delta < 0 && stock + delta < 0) {
+                    // Otra instancia vendio las mismas unidades: la base no acepta stock negativo
+                    log.warn("Movimiento {} de {} rechazado al compactar: dejaria el stock en {} ({})",
+                            movement.getId(), product.getSku(), stock + delta, movement.getOrderRef());
+                    rejected.add(movement.getId());
+                    continue;
+                }
+                stock += delta;
+            }
+            if (stock == before) {
+                continue;
+            }
+            // El snapshot no incluye el stock, asi que el estado previo coincide con el posterior
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            product.setStock(stock);
+            Product saved = productRepository.save(product);
+            eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeType.STOCK, snapshot, saved));
+        }
+
+        // Los movimientos de productos eliminados se marcan igual: ya no hay stock al que sumarlos
+        LocalDateTime now = LocalDateTime.now();
+        if (movementRepository.markCompacted(ids, now) != ids.size()) {
+            throw new IllegalStateException("Otro proceso compacto los mismos movimientos de stock");
+        }
+        if (!rejected.isEmpty()) {
+            movementRepository.markRejected(rejected, now);
+        }
+        return new Batch(pending.size(), rejected.size());
+    }
+
+    // Relee de la base todos los niveles seguidos, de a REFRESH_BATCH_SIZE, y descarta los que no tuvieron
+    // actividad desde la pasada anterior. Con una sola instancia la lectura solo se aplica si el nivel no tuvo
+    // transacciones abiertas ni cambios mientras se leia: un commit en medio se contaria dos veces o ninguna
+    private void refreshLevels() {
+        List<Long> ids = new ArrayList<>(levels.keySet());
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            Map<Long, Seen> seen = new HashMap<>();
+            for (Long id : ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()))) {
+                Level level = levels.get(id);
+                if (level != null) {
+                    synchronized (level) {
+                        seen.put(id, new Seen(level, level.changes, level.inFlight == 0));
+                    }
+                }
+            }
+            if (seen.isEmpty()) {
+                continue;
+            }
+            List<StockReading> readings = transactionTemplate.execute(
+                    status -> movementRepository.readAvailable(seen.keySet()));
+            Map<Long, StockReading> byId = new HashMap<>();
+            if (readings != null) {
+                readings.forEach(reading -> byId.put(reading.productId(), reading));
+            }
+            seen.forEach((id, before) -> refreshLevel(id, before, byId.get(id)));
+        }
+    }
+
+    private void refreshLevel(Long productId, Seen before, StockReading reading) {
+        Level level = before.level();
+        synchronized (level) {
+            if (reading != null) {
+                boolean current = multiInstance
+                        ? reading.lastMovementId() >= level.lastMovementId
+                        : before.idle() && level.changes == before.changes();
+                if (current) {
+                    level.available = reading.available();
+                    level.lastMovementId = reading.lastMovementId();
+                }
+            }
+            // Un producto eliminado ya no tiene fila que leer: se descarta igual que uno inactivo
+            if (level.inFlight == 0 && (!level.touched || reading == null)) {
+                level.evicted = true;
+                levels.remove(productId, level);
+            } else {
+                level.touched = false;
+            }
+        }
+    }
+
+    private static StockMovementDTO toDTO(StockMovement movement) {
+        return new StockMovementDTO(
+                movement.getId(),
+                movement.getProductId(),
+                movement.getSku(),
+                movement.getDelta(),
+                movement.getReason().name(),
+                movement.getOrderRef(),
+                movement.getCreatedAt(),
+                movement.getCompactedAt(),
+                movement.getRejectedAt(),
+                movement.getTarget());
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Disponible de un producto en esta instancia; todos los campos se leen y escriben con su monitor tomado.
+     */
+    private static final class Level {
+        // Confirmado: stock compactado mas movimientos pendientes
+        long available;
+        // Descuentos (negativos) de transacciones abiertas
+        long reserved;
+        int inFlight;
+        // Sube al abrir y al cerrar cada transaccion: la relectura sabe si hubo actividad mientras leia
+        long changes;
+        // Ultimo movimiento reflejado en available (modo de varias instancias)
+        long lastMovementId;
+        boolean touched = true;
+        boolean evicted;
+
+        Level(long available, long lastMovementId) {
+            this.available = available;
+            this.lastMovementId = lastMovementId;
+        }
+
+        long projected() {
+            return available + reserved;
+        }
+    }
+
+    // Movimientos compactados en el bloque y cuantos se rechazaron
+    private record Batch(int size, int rejected) {
+    }
+
+    // Estado de un nivel antes de leerlo de la base
+    private record Seen(Level level, long changes, boolean idle) {
+    }
+
+    private record Completion(Level level, long delta) implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            synchronized (level) {
+                if (delta < 0) {
+                    level.reserved -= delta;
+                }
+                // Con estado desconocido no se suma: la proxima relectura trae lo que haya quedado en la base
+                if (status == STATUS_COMMITTED) {
+                    level.available += delta;
+                }
+                level.inFlight--;
+                level.changes++;
+            }
+        }
+    }
+
+    // Modo de varias instancias: el valor ya quedo en products.stock y solo se lleva al nivel si es mas nuevo
+    private final class Applied implements TransactionSynchronization {
+        private final Long productId;
+        private final int available;
+        private final long movementId;
+
+        Applied(Long productId, int available, long movementId) {
+            this.productId = productId;
+            this.available = available;
+            this.movementId = movementId;
+        }
+
+        @Override
+        public void afterCommit() {
+            Level level = levels.get(productId);
+            if (level == null) {
+                return;
+            }
+            synchronized (level) {
+                level.touched = true;
+                if (movementId > level.lastMovementId) {
+                    level.available = available;
+                    level.lastMovementId = movementId;
+                }
+            }
+        }
+    }
+}
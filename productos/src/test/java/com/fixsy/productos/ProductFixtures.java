@@ -0,0 +1,129 @@
+package com.fixsy.productos;
+
+import com.fixsy.productos.dto.ProductRequestDTO;
+import com.fixsy.productos.model.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Productos de prueba: {@code product("SKU-1")} ya trae nombre, precio y activo, lo minimo para guardarlo,
+ * y cada prueba fija solo los campos que le importan.
+ */
+public final class ProductFixtures {
+
+    private ProductFixtures() {
+    }
+
+    public static Builder product(String sku) {
+        return new Builder().sku(sku).nombre("Producto " + sku);
+    }
+
+    // Para pruebas sin base: SKU-<id> y Producto <id> salvo que se indique otro
+    public static Builder product(Long id) {
+        return new Builder().id(id).sku("SKU-" + id).nombre("Producto " + id);
+    }
+
+    public static ProductRequestDTO request(String sku, String price, int stock) {
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName("Producto " + sku);
+        request.setSku(sku);
+        request.setPrice(new BigDecimal(price));
+        request.setStock(stock);
+        return request;
+    }
+
+    public static final class Builder {
+        private final Product product = new Product();
+
+        private Builder() {
+            product.setPrecioNormal(new BigDecimal("1000"));
+            product.setIsActive(true);
+        }
+
+        public Builder id(Long id) {
+            product.setId(id);
+            return this;
+        }
+
+        public Builder sku(String sku) {
+            product.setSku(sku);
+            return this;
+        }
+
+        public Builder nombre(String nombre) {
+            product.setNombre(nombre);
+            return this;
+        }
+
+        public Builder descripcionCorta(String descripcionCorta) {
+            product.setDescripcionCorta(descripcionCorta);
+            return this;
+        }
+
+        public Builder marca(String marca) {
+            product.setMarca(marca);
+            return this;
+        }
+
+        public Builder categoria(String categoria) {
+            product.setCategoria(categoria);
+            return this;
+        }
+
+        public Builder slug(String slug) {
+            product.setSlug(slug);
+            return this;
+        }
+
+        public Builder precio(String precio) {
+            product.setPrecioNormal(new BigDecimal(precio));
+            return this;
+        }
+
+        public Builder oferta(String oferta) {
+            product.setPrecioOferta(oferta == null ? null : new BigDecimal(oferta));
+            return this;
+        }
+
+        public Builder descuento(int descuento) {
+            product.setDiscountPercentage(descuento);
+            return this;
+        }
+
+        public Builder stock(int stock) {
+            product.setStock(stock);
+            return this;
+        }
+
+        public Builder featured(boolean featured) {
+            product.setIsFeatured(featured);
+            return this;
+        }
+
+        public Builder tags(List<String> tags) {
+            product.setTags(new ArrayList<>(tags));
+            return this;
+        }
+
+        public Builder tagIds(List<Long> tagIds) {
+            product.setTagIds(new ArrayList<>(tagIds));
+            return this;
+        }
+
+        public Builder imageUrl(String imageUrl) {
+            product.setImageUrl(imageUrl);
+            return this;
+        }
+
+        public Builder images(List<String> images) {
+            product.setImages(images);
+            return this;
+        }
+
+        public Product build() {
+            return product;
+        }
+    }
+}
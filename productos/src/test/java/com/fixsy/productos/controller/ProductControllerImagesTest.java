@@ -2,6 +2,8 @@ package com.fixsy.productos.controller;
 
 import com.fixsy.productos.model.Product;
 import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.service.CatalogMaintenanceService;
+import com.fixsy.productos.service.ImageDeliveryService;
 import com.fixsy.productos.service.ProductImageStorageService;
 import com.fixsy.productos.service.ProductService;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -29,6 +32,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
+@Import(ImageDeliveryService.class)
 @AutoConfigureMockMvc(addFilters = false) // desactiva filtros de seguridad para el test
 @SuppressWarnings("removal")
 class ProductControllerImagesTest {
@@ -45,6 +49,9 @@ class ProductControllerImagesTest {
     @MockBean
     private ProductImageStorageService productImageStorageService;
 
+    @MockBean
+    private CatalogMaintenanceService catalogMaintenanceService;
+
     @Test
     @WithMockUser(roles = "ADMIN") // Simula un usuario con rol ADMIN
     void uploadMainImage_shouldUpdateImagen() throws Exception {
@@ -1,12 +1,14 @@
 package com.fixsy.productos.controller;
 
 import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.service.ImageDeliveryService;
 import com.fixsy.productos.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,6 +25,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
+@Import(ImageDeliveryService.class)
 @AutoConfigureMockMvc(addFilters = false) // desactiva filtros de seguridad para el test
 @SuppressWarnings("removal")
 class ProductControllerUpdateTest {
@@ -39,6 +42,9 @@ class ProductControllerUpdateTest {
     @MockBean
     private com.fixsy.productos.service.ProductImageStorageService productImageStorageService;
 
+    @MockBean
+    private com.fixsy.productos.service.CatalogMaintenanceService catalogMaintenanceService;
+
     @Test
     @WithMockUser(roles = "ADMIN") // Simula un usuario con rol ADMIN
     void updateProduct_shouldReturn200() throws Exception {
@@ -0,0 +1,132 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductFacetIndex();
+        index.rebuild(consumer -> {
+            consumer.accept(product(1L).categoria("Filtros").marca("Bosch").precio("9990").stock(40)
+                    .tags(List.of("motor", "filtros")).build());
+            consumer.accept(product(2L).categoria("Frenos").marca("Brembo").precio("34990").descuento(15)
+                    .oferta("34990").stock(30).tags(List.of("frenos", "seguridad")).build());
+            consumer.accept(product(3L).categoria("Frenos").marca("Zimmermann").precio("45990").stock(0)
+                    .tags(List.of("frenos", "seguridad")).build());
+            consumer.accept(product(4L).categoria("Filtros").marca("Mann").precio("14990").stock(35)
+                    .tags(List.of("motor", "aire")).build());
+            consumer.accept(product(5L).categoria("Frenos").marca("Motul").precio("6990").stock(45)
+                    .tags(List.of("frenos", "fluido")).build());
+        });
+    }
+
+    @Test
+    void browse_shouldIntersectFiltersAcrossDimensions() {
+        ProductFacetIndex.Result result = index.browse(
+                filter(List.of("frenos"), null, null, null, null, true, null), 0L, 10);
+
+        assertEquals(List.of(2L, 5L), result.productIds());
+        assertEquals(2, result.total());
+        assertFalse(result.hasMore());
+    }
+
+    @Test
+    void browse_shouldCountEachDimensionWithTheOtherFilters() {
+        ProductFacetIndex.Result result = index.browse(
+                filter(List.of("Frenos"), null, null, null, null, true, null), 0L, 10);
+
+        // Las categorias se cuentan sin su propio filtro pero con inStock aplicado
+        Map<String, Integer> categorias = counts(result, ProductFacetIndex.CATEGORIA);
+        assertEquals(Map.of("filtros", 2, "frenos", 2), categorias);
+        assertTrue(result.facets().get(ProductFacetIndex.CATEGORIA).stream()
+                .anyMatch(v -> v.value().equals("frenos") && v.selected()));
+
+        // inStock se cuenta sin su propio filtro: 3 productos de frenos, 2 con stock
+        assertEquals(2, result.facets().get(ProductFacetIndex.IN_STOCK).get(0).count());
+        assertEquals(Map.of("brembo", 1, "motul", 1), counts(result, ProductFacetIndex.MARCA));
+    }
+
+    @Test
+    void browse_shouldFilterByFinalPriceAndTag() {
+        ProductFacetIndex.Result result = index.browse(
+                filter(null, null, List.of("SEGURIDAD"), BigDecimal.valueOf(25000), BigDecimal.valueOf(40000), null, null), 0L, 10);
+
+        // 34990 con 15% de descuento queda en 29741.50
+        assertEquals(List.of(2L), result.productIds());
+        // El facet de precio ignora su propio filtro: los dos productos con el tag caen en el mismo tramo
+        assertEquals(Map.of("25000-50000", 2), counts(result, ProductFacetIndex.PRECIO));
+    }
+
+    @Test
+    void browse_shouldPageByIdCursor() {
+        ProductFacetIndex.Filter all = filter(null, null, null, null, null, null, null);
+
+        ProductFacetIndex.Result first = index.browse(all, 0L, 2);
+        ProductFacetIndex.Result second = index.browse(all, 2L, 2);
+        ProductFacetIndex.Result last = index.browse(all, 4L, 2);
+
+        assertEquals(List.of(1L, 2L), first.productIds());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(3L, 4L), second.productIds());
+        assertEquals(List.of(5L), last.productIds());
+        assertFalse(last.hasMore());
+    }
+
+    @Test
+    void onProductChange_shouldMoveProductBetweenFacets() {
+        Product moved = product(1L).categoria("Frenos").marca("Bosch").precio("9990").stock(40)
+                .tags(List.of("frenos")).build();
+        index.onProductChange(new ProductChangeEvent(1L, ProductChangeType.UPDATED, null, ProductSnapshot.of(moved), moved));
+
+        ProductFacetIndex.Result result = index.browse(filter(List.of("filtros"), null, null, null, null, null, null), 0L, 10);
+        assertEquals(List.of(4L), result.productIds());
+        assertFalse(counts(result, ProductFacetIndex.TAG).containsKey("filtros"));
+
+        index.onProductChange(new ProductChangeEvent(4L, ProductChangeType.DELETED, ProductSnapshot.of(moved), null, null));
+        assertTrue(index.browse(filter(List.of("filtros"), null, null, null, null, null, null), 0L, 10).productIds().isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void browse_shouldKeepIdOrderWhenProductWithLowerIdIsActivatedLater() {
+        Product old = product(0L).categoria("Filtros").marca("Bosch").precio("9990").stock(10).tags(List.of()).build();
+        index.onProductChange(new ProductChangeEvent(0L, ProductChangeType.ACTIVE, null, ProductSnapshot.of(old), old));
+
+        ProductFacetIndex.Result result = index.browse(filter(List.of("filtros"), null, null, null, null, null, null), -1L, 10);
+
+        assertEquals(List.of(0L, 1L, 4L), result.productIds());
+    }
+
+    @Test
+    void filter_shouldRejectInvertedPriceRange() {
+        assertThrows(IllegalArgumentException.class, () ->
+                filter(null, null, null, BigDecimal.TEN, BigDecimal.ONE, null, null));
+    }
+
+    private Map<String, Integer> counts(ProductFacetIndex.Result result, String dimension) {
+        return result.facets().get(dimension).stream()
+                .filter(v -> v.count() > 0)
+                .collect(Collectors.toMap(ProductFacetIndex.FacetValue::value, ProductFacetIndex.FacetValue::count));
+    }
+
+    private ProductFacetIndex.Filter filter(List<String> categorias, List<String> marcas, List<String> tags,
+                                            BigDecimal min, BigDecimal max, Boolean inStock, Boolean onSale) {
+        return ProductFacetIndex.Filter.of(categorias, marcas, tags, min, max, inStock, onSale, null);
+    }
+}
@@ -0,0 +1,103 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductSearchIndex();
+        index.rebuild(consumer -> {
+            consumer.accept(product(1L).nombre("Batería 60Ah libre mantención")
+                    .descripcionCorta("Batería 60Ah libre mantención").marca("ACDelco").sku("ELE-030")
+                    .tags(List.of("electricidad")).build());
+            consumer.accept(product(2L).nombre("Filtro de aceite 1.6-2.0L")
+                    .descripcionCorta("Filtro de aceite 1.6-2.0L").marca("Bosch").sku("FLT-001")
+                    .tags(List.of("motor", "filtros")).build());
+            consumer.accept(product(3L).nombre("Pastillas de freno delantera")
+                    .descripcionCorta("Pastillas de freno delantera").marca("Brembo").sku("BRK-010")
+                    .tags(List.of("frenos")).build());
+            consumer.accept(product(4L).nombre("Liquido de frenos DOT4").descripcionCorta("Liquido de frenos DOT4")
+                    .marca("Motul").sku("BRK-070").tags(List.of("frenos", "fluido")).build());
+        });
+    }
+
+    @Test
+    void search_shouldFoldAccents() {
+        assertEquals(List.of(1L), ids(index.search("bateria", 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("BATERÍA", 0, 10)));
+    }
+
+    @Test
+    void search_shouldMatchPrefixes() {
+        assertEquals(List.of(2L), ids(index.search("filt ace", 0, 10)));
+    }
+
+    @Test
+    void search_shouldMatchSkuWrittenWithOrWithoutSeparator() {
+        assertEquals(List.of(2L), ids(index.search("FLT-001", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("flt001", 0, 10)));
+    }
+
+    @Test
+    void search_shouldRankNameMatchesAboveDescriptionOnlyMatches() {
+        ProductSearchIndex.Result result = index.search("frenos", 0, 10);
+
+        assertEquals(2, result.total());
+        // "frenos" aparece en nombre y tags del liquido, solo en tags de las pastillas
+        assertEquals(4L, result.hits().get(0).productId());
+        assertTrue(result.hits().get(0).score() > result.hits().get(1).score());
+    }
+
+    @Test
+    void search_shouldPaginateByOffset() {
+        ProductSearchIndex.Result first = index.search("frenos", 0, 1);
+        ProductSearchIndex.Result second = index.search("frenos", 1, 1);
+
+        assertEquals(2, first.total());
+        assertEquals(1, first.hits().size());
+        assertEquals(1, second.hits().size());
+        assertNotEquals(first.hits().get(0).productId(), second.hits().get(0).productId());
+    }
+
+    @Test
+    void onProductChange_shouldReindexAndRemoveProducts() {
+        Product updated = product(2L).nombre("Filtro de aire panel").descripcionCorta("Filtro de aire panel")
+                .marca("Mann").sku("FLT-015").tags(List.of("aire")).build();
+        index.onProductChange(new ProductChangeEvent(2L, ProductChangeType.UPDATED, null, ProductSnapshot.of(updated), updated));
+
+        assertTrue(index.search("aceite", 0, 10).hits().isEmpty());
+        assertEquals(List.of(2L), ids(index.search("aire", 0, 10)));
+
+        index.onProductChange(new ProductChangeEvent(2L, ProductChangeType.DELETED, ProductSnapshot.of(updated), null, null));
+        assertTrue(index.search("aire", 0, 10).hits().isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void onProductChange_shouldDropInactiveProducts() {
+        Product inactive = product(3L).nombre("Pastillas de freno delantera")
+                .descripcionCorta("Pastillas de freno delantera").marca("Brembo").sku("BRK-010")
+                .tags(List.of("frenos")).build();
+        inactive.setIsActive(false);
+        index.onProductChange(new ProductChangeEvent(3L, ProductChangeType.ACTIVE, null, ProductSnapshot.of(inactive), inactive));
+
+        assertEquals(List.of(4L), ids(index.search("frenos", 0, 10)));
+    }
+
+    private List<Long> ids(ProductSearchIndex.Result result) {
+        return result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Construye el indice de sugerencias con un catalogo sintetico, aplica cambios sueltos para que haya claves
+ * obsoletas y delta, y mide la latencia de prefijos de 1 a 8 caracteres. No corre en el build normal:
+ * <pre>
+ * mvn -Dtest=ProductSuggestBenchmarkTest -Dbenchmarks=true test
+ * </pre>
+ * Opcionales: -Dbenchmark.products=100000 -Dbenchmark.queries=200000
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ProductSuggestBenchmarkTest {
+
+    private static final String[] WORDS = {"filtro", "aceite", "aire", "pastillas", "freno", "disco", "bateria",
+            "amortiguador", "correa", "bujia", "radiador", "bomba", "agua", "embrague", "kit", "sensor", "oxigeno",
+            "rotula", "terminal", "espejo", "faro", "delantero", "trasero", "izquierdo", "derecho", "motor",
+            "soporte", "manguera", "termostato", "valvula"};
+    private static final String[] MARCAS = {"Bosch", "Mann", "Brembo", "ACDelco", "NGK", "Monroe", "Gates",
+            "Valeo", "Denso", "Motul", "Wix", "Fram", "SKF", "Moog", "Hella"};
+
+    @Test
+    void measureSuggestLatency() {
+        int products = Integer.getInteger("benchmark.products", 100_000);
+        int queries = Integer.getInteger("benchmark.queries", 200_000);
+        Random random = new Random(42);
+        List<Product> catalog = catalog(products, random);
+
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        long start = System.nanoTime();
+        index.rebuild(consumer -> catalog.forEach(consumer));
+        long buildNanos = System.nanoTime() - start;
+
+        // Cambios de stock sueltos: dejan entradas obsoletas en la lista principal y productos en el delta
+        for (int i = 0; i < ProductSuggestIndex.COMPACT_THRESHOLD / 2; i++) {
+            Product product = catalog.get(random.nextInt(products));
+            product.setStock(random.nextInt(5));
+            index.onProductChange(new ProductChangeEvent(product.getId(), ProductChangeType.STOCK, null, null, product));
+        }
+
+        List<String> prefixes = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            String nombre = catalog.get(random.nextInt(products)).getNombre();
+            prefixes.add(nombre.substring(0, 1 + random.nextInt(Math.min(8, nombre.length()))));
+        }
+        // Calentamiento de JIT
+        for (int i = 0; i < queries / 4; i++) {
+            index.suggest(prefixes.get(i), ProductSuggestIndex.DEFAULT_LIMIT);
+        }
+
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long queryStart = System.nanoTime();
+            index.suggest(prefixes.get(i), ProductSuggestIndex.DEFAULT_LIMIT);
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%d productos, %d claves, construccion %.0f ms%n", products, index.keyCount(), buildNanos / 1e6);
+        System.out.printf("p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.99), percentile(latencies, 0.999), latencies[queries - 1] / 1e3);
+
+        assertTrue(percentile(latencies, 0.99) < 2_000, "p99 sobre 2 ms");
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * p)] / 1e3;
+    }
+
+    private static List<Product> catalog(int count, Random random) {
+        List<Product> catalog = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            StringBuilder nombre = new StringBuilder();
+            int words = 3 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                nombre.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            nombre.append(random.nextInt(2000));
+
+            Product product = new Product();
+            product.setId(id);
+            product.setNombre(nombre.toString());
+            product.setMarca(MARCAS[random.nextInt(MARCAS.length)]);
+            product.setCategoria("Categoria " + (id % 40));
+            product.setSku("SKU-" + id);
+            product.setStock(random.nextInt(5));
+            product.setIsFeatured(random.nextInt(20) == 0);
+            product.setIsActive(true);
+            catalog.add(product);
+        }
+        return catalog;
+    }
+}
@@ -0,0 +1,166 @@
+package com.fixsy.productos.search;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSuggestIndexTest {
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductSuggestIndex();
+        index.rebuild(consumer -> {
+            consumer.accept(product(1L).nombre("Batería 60Ah libre mantención").marca("ACDelco")
+                    .categoria("Electricidad").sku("ELE-030").stock(5).build());
+            consumer.accept(product(2L).nombre("Filtro de aceite 1.6-2.0L").marca("Bosch").categoria("Filtros")
+                    .sku("FLT-001").stock(10).build());
+            consumer.accept(product(3L).nombre("Filtro de aire panel").marca("Bosch").categoria("Filtros")
+                    .sku("FLT-015").stock(0).build());
+            consumer.accept(product(4L).nombre("Filtro de combustible").marca("Mann").categoria("Filtros")
+                    .sku("FLT-020").stock(3).featured(true).build());
+        });
+    }
+
+    @Test
+    void suggest_shouldMatchNameFromAnyWordAndFoldAccents() {
+        assertEquals(List.of("Batería 60Ah libre mantención"), texts(index.suggest("BATER", 10)));
+        assertEquals(List.of("Batería 60Ah libre mantención"), texts(index.suggest("mantencion", 10)));
+        assertEquals(List.of("Filtro de aceite 1.6-2.0L"), texts(index.suggest("aceite", 10)));
+        assertEquals(List.of("Filtro de aire panel"), texts(index.suggest("filtro de ai", 10)));
+    }
+
+    @Test
+    void suggest_shouldMatchSkuWithOrWithoutSeparator() {
+        assertEquals(List.of("FLT-001"), texts(index.suggest("flt-00", 10)));
+        assertEquals(List.of("FLT-001"), texts(index.suggest("FLT00", 10)));
+    }
+
+    @Test
+    void suggest_shouldRankByPopularityAndIncludeBrandsAndCategories() {
+        List<ProductSuggestIndex.Suggestion> suggestions = index.suggest("f", 10);
+
+        // La categoria suma el peso de sus tres productos; el destacado con stock va primero entre productos
+        assertEquals(ProductSuggestIndex.Type.CATEGORIA, suggestions.get(0).type());
+        assertEquals("Filtros", suggestions.get(0).text());
+        assertEquals(4L, suggestions.get(1).productId());
+        assertEquals("Filtro de aire panel", suggestions.get(suggestions.size() - 1).text());
+
+        ProductSuggestIndex.Suggestion brand = index.suggest("bos", 10).get(0);
+        assertEquals(ProductSuggestIndex.Type.MARCA, brand.type());
+        assertEquals("Bosch", brand.text());
+        assertNull(brand.productId());
+        assertEquals(2, index.suggest("fil", 2).size());
+    }
+
+    @Test
+    void onProductChange_shouldUpdateProductsAndFacetsIncrementally() {
+        Product renamed = product(2L).nombre("Filtro de aceite sintetico").marca("Wix").categoria("Filtros")
+                .sku("FLT-001").stock(10).build();
+        change(ProductChangeType.UPDATED, renamed);
+
+        assertEquals(List.of("Filtro de aceite sintetico"), texts(index.suggest("aceite", 10)));
+        assertEquals(List.of("Wix"), texts(index.suggest("wix", 10)));
+        assertEquals(1, index.suggest("bosch", 10).size());
+
+        Product inactive = product(3L).nombre("Filtro de aire panel").marca("Bosch").categoria("Filtros")
+                .sku("FLT-015").stock(0).build();
+        inactive.setIsActive(false);
+        change(ProductChangeType.ACTIVE, inactive);
+        assertTrue(index.suggest("bosch", 10).isEmpty());
+        assertTrue(index.suggest("aire", 10).isEmpty());
+
+        index.onProductChange(new ProductChangeEvent(1L, ProductChangeType.DELETED, null, null, null));
+        assertTrue(index.suggest("bateria", 10).isEmpty());
+        assertTrue(index.suggest("electricidad", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void suggest_shouldStayCorrectWhenPrecomputedTopsGoStaleAndAfterCompaction() {
+        index.rebuild(consumer -> {
+            for (long id = 1; id <= 400; id++) {
+                consumer.accept(product(id).nombre("Kit " + id).categoria("Kits").sku("KIT-" + id).stock(1)
+                        .featured(id <= 395).build());
+            }
+        });
+        // Mas de SCAN_LIMIT claves empiezan con "k", asi que su lista esta precalculada. Los 395 destacados
+        // dejan de estarlo y esa lista queda toda obsoleta.
+        for (long id = 1; id <= 395; id++) {
+            change(ProductChangeType.FEATURED, product(id).nombre("Kit " + id).categoria("Kits").sku("KIT-" + id)
+                    .stock(0).build());
+        }
+
+        List<ProductSuggestIndex.Suggestion> top = index.suggest("k", 5);
+        assertEquals(ProductSuggestIndex.Type.CATEGORIA, top.get(0).type());
+        assertEquals(List.of(396L, 397L, 398L, 399L), top.subList(1, 5).stream()
+                .map(ProductSuggestIndex.Suggestion::productId).toList());
+
+        List<Long> renamed = new ArrayList<>();
+        for (int i = 0; i <= ProductSuggestIndex.COMPACT_THRESHOLD; i++) {
+            long id = 1 + (i % 400);
+            change(ProductChangeType.UPDATED, product(id).nombre("Kit nuevo " + id).categoria("Kits").sku("KIT-" + id)
+                    .stock(1).build());
+            renamed.add(id);
+        }
+        assertEquals(400, index.size());
+        assertEquals(List.of("Kit nuevo 399"), texts(index.suggest("kit nuevo 399", 10)));
+        assertEquals(List.of("KIT-399"), texts(index.suggest("kit399", 10)));
+
+        // La compactacion corre en otro hilo; la llamada directa da el mismo resultado haya corrido o no
+        index.compact();
+        assertEquals(List.of("Kit nuevo 399"), texts(index.suggest("kit nuevo 399", 10)));
+        assertTrue(index.suggest("kit 3", 10).stream().noneMatch(s -> s.type() == ProductSuggestIndex.Type.PRODUCT));
+    }
+
+    @Test
+    void compact_shouldKeepChangesThatArriveWhileTheNewArrayIsBuilt() throws Exception {
+        index.rebuild(consumer -> {
+            for (long id = 1; id <= 400; id++) {
+                consumer.accept(product(id).nombre("Pieza " + id).categoria("Piezas").sku("PZA-" + id).stock(1).build());
+            }
+        });
+        for (long id = 1; id <= ProductSuggestIndex.COMPACT_THRESHOLD + 1; id++) {
+            long target = 1 + (id % 400);
+            change(ProductChangeType.UPDATED, product(target).nombre("Pieza revisada " + target).categoria("Piezas")
+                    .sku("PZA-" + target).stock(1).build());
+        }
+
+        // Cambios concurrentes con la compactacion: cada uno debe quedar visible despues del reemplazo
+        Thread writer = new Thread(() -> {
+            for (long id = 1; id <= 50; id++) {
+                change(ProductChangeType.UPDATED, product(id).nombre("Pieza final " + id).categoria("Piezas")
+                        .sku("PZA-" + id).stock(1).build());
+            }
+        });
+        writer.start();
+        index.compact();
+        writer.join();
+        index.compact();
+
+        assertEquals(400, index.size());
+        for (long id = 1; id <= 50; id++) {
+            assertTrue(texts(index.suggest("pieza final " + id, 20)).contains("Pieza final " + id));
+            assertFalse(texts(index.suggest("pieza revisada " + id, 20)).contains("Pieza revisada " + id));
+        }
+        assertEquals(List.of("Pieza revisada 399"), texts(index.suggest("pieza revisada 399", 10)));
+    }
+
+    private void change(ProductChangeType type, Product product) {
+        index.onProductChange(new ProductChangeEvent(product.getId(), type, null, ProductSnapshot.of(product), product));
+    }
+
+    private List<String> texts(List<ProductSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestIndex.Suggestion::text).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.BulkPriceRequestDTO;
+import com.fixsy.productos.dto.BulkPriceResultDTO;
+import com.fixsy.productos.dto.PriceRuleDTO;
+import com.fixsy.productos.dto.PriceRuleResultDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.ProductTag;
+import com.fixsy.productos.model.Tag;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.ProductTagRepository;
+import com.fixsy.productos.repository.TagRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reglas de precio masivas contra H2 en modo MySQL, para cubrir los UPDATE por bloque y sus condiciones.
+ */
+@H2JpaTest
+@Import(BulkPricingService.class)
+class BulkPricingServiceTest {
+
+    @Autowired
+    private BulkPricingService bulkPricingService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private ProductTagRepository productTagRepository;
+
+    @AfterEach
+    void cleanup() {
+        productTagRepository.deleteAll();
+        tagRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void dryRun_shouldReportChangesWithoutWriting() {
+        productRepository.save(product("DRY-1").categoria("Frenos").precio("100.00").oferta("90.00").build());
+        productRepository.save(product("DRY-2").categoria("Frenos").precio("100.00").build());
+        productRepository.save(product("DRY-3").categoria("Motor").precio("100.00").build());
+
+        BulkPriceResultDTO result = bulkPricingService.apply(
+                request(true, rule(PriceRuleDTO.Action.PERCENT_CHANGE, "-15", r -> r.setCategoria("Frenos"))));
+
+        PriceRuleResultDTO summary = result.getRules().get(0);
+        assertTrue(result.isDryRun());
+        assertEquals(2, summary.getMatched());
+        assertEquals(2, summary.getChanged());
+        // La oferta de 90 queda mayor al nuevo precio de 85 y se quitaria
+        assertEquals(new BigDecimal("85.00"), summary.getSample().get(0).getPrecioNormalDespues());
+        assertNull(summary.getSample().get(0).getPrecioOfertaDespues());
+        assertEquals(0, new BigDecimal("100").compareTo(productRepository.findBySku("DRY-1").orElseThrow().getPrecioNormal()));
+        assertEquals(0, new BigDecimal("90").compareTo(productRepository.findBySku("DRY-1").orElseThrow().getPrecioOferta()));
+    }
+
+    @Test
+    void percentChange_shouldUpdateEveryChunkAndClearInvalidOffers() {
+        List<Product> products = new ArrayList<>();
+        int total = BulkPricingService.CHUNK_SIZE * 2 + 50;
+        for (int i = 0; i < total; i++) {
+            products.add(product("PCT-" + i).categoria("Aceites").precio("19.99")
+                    .oferta(i % 2 == 0 ? "19.50" : "15.00").build());
+        }
+        productRepository.saveAll(products);
+
+        PriceRuleResultDTO summary = bulkPricingService.apply(
+                request(false, rule(PriceRuleDTO.Action.PERCENT_CHANGE, "-2", r -> r.setCategoria("Aceites"))))
+                .getRules().get(0);
+
+        assertEquals(total, summary.getMatched());
+        assertEquals(total, summary.getChanged());
+        assertEquals(BulkPricingService.SAMPLE_SIZE, summary.getSample().size());
+        // 19.99 * 0.98 = 19.5902 -> 19.59: la oferta de 19.50 sigue valida, la de 15.00 tambien
+        Product even = productRepository.findBySku("PCT-0").orElseThrow();
+        assertEquals(0, new BigDecimal("19.59").compareTo(even.getPrecioNormal()));
+        assertEquals(0, new BigDecimal("19.50").compareTo(even.getPrecioOferta()));
+        assertEquals(1L, even.getVersion());
+        Product last = productRepository.findBySku("PCT-" + (total - 1)).orElseThrow();
+        assertEquals(0, new BigDecimal("19.59").compareTo(last.getPrecioNormal()));
+
+        bulkPricingService.apply(request(false, rule(PriceRuleDTO.Action.SET_PRICE, "19.00", r -> r.setCategoria("Aceites"))));
+
+        assertNull(productRepository.findBySku("PCT-0").orElseThrow().getPrecioOferta());
+        assertEquals(0, new BigDecimal("15.00").compareTo(productRepository.findBySku("PCT-1").orElseThrow().getPrecioOferta()));
+    }
+
+    @Test
+    void setOffer_shouldRejectOffersAbovePriceAndCountUnknownSkus() {
+        productRepository.save(product("OFF-1").categoria("Frenos").precio("50.00").build());
+        productRepository.save(product("OFF-2").categoria("Frenos").precio("30.00").build());
+        productRepository.save(product("OFF-3").categoria("Frenos").precio("45.00").oferta("40.00").build());
+
+        PriceRuleResultDTO summary = bulkPricingService.apply(request(false, rule(PriceRuleDTO.Action.SET_OFFER, "40",
+                r -> r.setSkus(List.of("off-1", "OFF-2", "OFF-3", "NO-EXISTE")))))
+                .getRules().get(0);
+
+        assertEquals(3, summary.getMatched());
+        assertEquals(1, summary.getChanged());
+        assertEquals(1, summary.getUnchanged());
+        assertEquals(1, summary.getRejected());
+        assertEquals(1, summary.getNotFound());
+        assertEquals("La oferta no puede ser mayor al precio", summary.getSample().stream()
+                .filter(change -> change.getRejectedReason() != null).findFirst().orElseThrow().getRejectedReason());
+        assertEquals(0, new BigDecimal("40").compareTo(productRepository.findBySku("OFF-1").orElseThrow().getPrecioOferta()));
+        assertNull(productRepository.findBySku("OFF-2").orElseThrow().getPrecioOferta());
+    }
+
+    @Test
+    void clearOffer_shouldTargetProductsByTag() {
+        Product tagged = productRepository.save(
+                product("TAG-1").categoria("Motor").precio("80.00").oferta("70.00").build());
+        productRepository.save(product("TAG-2").categoria("Motor").precio("80.00").oferta("70.00").build());
+        Tag tag = tagRepository.save(new Tag("Liquidacion"));
+        productTagRepository.save(new ProductTag(tagged.getId(), tag.getId()));
+
+        PriceRuleResultDTO summary = bulkPricingService.apply(
+                request(false, rule(PriceRuleDTO.Action.CLEAR_OFFER, null, r -> r.setTag(" LIQUIDACION "))))
+                .getRules().get(0);
+
+        assertEquals(1, summary.getChanged());
+        assertNull(productRepository.findBySku("TAG-1").orElseThrow().getPrecioOferta());
+        assertNotNull(productRepository.findBySku("TAG-2").orElseThrow().getPrecioOferta());
+    }
+
+    @Test
+    void apply_shouldValidateEveryRuleBeforeWriting() {
+        productRepository.save(product("VAL-1").categoria("Frenos").precio("10.00").build());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> bulkPricingService.apply(request(false,
+                rule(PriceRuleDTO.Action.SET_PRICE, "12", r -> r.setCategoria("Frenos")),
+                rule(PriceRuleDTO.Action.SET_PRICE, "-1", r -> r.setCategoria("Frenos")))));
+
+        assertEquals("El precio no puede ser negativo", ex.getMessage());
+        assertEquals(0, new BigDecimal("10").compareTo(productRepository.findBySku("VAL-1").orElseThrow().getPrecioNormal()));
+        assertThrows(IllegalArgumentException.class, () -> bulkPricingService.apply(
+                request(false, rule(PriceRuleDTO.Action.CLEAR_OFFER, null, r -> { }))));
+    }
+
+    private static BulkPriceRequestDTO request(boolean dryRun, PriceRuleDTO... rules) {
+        return new BulkPriceRequestDTO(List.of(rules), dryRun);
+    }
+
+    private static PriceRuleDTO rule(PriceRuleDTO.Action action, String value, Consumer<PriceRuleDTO> target) {
+        PriceRuleDTO rule = new PriceRuleDTO();
+        rule.setAction(action);
+        rule.setValue(value == null ? null : new BigDecimal(value));
+        target.accept(rule);
+        return rule;
+    }
+}
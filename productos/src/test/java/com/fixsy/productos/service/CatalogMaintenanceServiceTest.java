@@ -0,0 +1,156 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.MaintenanceJobDTO;
+import com.fixsy.productos.model.MaintenanceJob;
+import com.fixsy.productos.model.MaintenanceJobStatus;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.MaintenanceJobRepository;
+import com.fixsy.productos.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Trabajos de mantenimiento contra H2 con bloques de 2 productos, para cubrir el recorrido por keyset,
+ * el checkpoint y la cancelacion entre bloques.
+ */
+@H2JpaTest(properties = {
+        "productos.maintenance.chunk-size=2",
+        "productos.maintenance.resume-on-startup=false"
+})
+@Import({CatalogMaintenanceService.class, SlugNormalizationTask.class, ProductImageFixTask.class})
+class CatalogMaintenanceServiceTest {
+
+    @Autowired
+    private CatalogMaintenanceService maintenanceService;
+
+    @Autowired
+    private MaintenanceJobRepository jobRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void cleanup() {
+        jobRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void normalizeSlugs_shouldFixInvalidSlugsAcrossChunksWithoutCollisions() {
+        List<Product> products = saveSlugFixtures();
+        MaintenanceJob job = jobRepository.save(new MaintenanceJob("normalize-slugs", products.size()));
+
+        maintenanceService.run(job.getId());
+
+        MaintenanceJob done = jobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(MaintenanceJobStatus.COMPLETED, done.getStatus());
+        assertEquals(5, done.getProcessed());
+        assertEquals(2, done.getChanged());
+        assertEquals(products.get(4).getId(), done.getLastProductId());
+        assertEquals("filtro-de-aceite", slugOf(products.get(0)));
+        // El segundo y el tercero caen en bloques distintos: la unicidad se resuelve contra la base
+        assertEquals("filtro-de-aceite-1", slugOf(products.get(1)));
+        assertEquals("filtro-de-aceite-2", slugOf(products.get(2)));
+        assertEquals("pastillas", slugOf(products.get(3)));
+
+        MaintenanceJobDTO dto = maintenanceService.getJob(job.getId());
+        assertEquals(100.0, dto.getPercent());
+        assertNull(dto.getEtaSeconds());
+    }
+
+    @Test
+    void run_shouldResumeFromCheckpoint() {
+        List<Product> products = saveSlugFixtures();
+        MaintenanceJob job = new MaintenanceJob("normalize-slugs", products.size());
+        job.setStatus(MaintenanceJobStatus.RUNNING);
+        job.setProcessed(2L);
+        job.setLastProductId(products.get(1).getId());
+        job = jobRepository.save(job);
+
+        maintenanceService.run(job.getId());
+
+        MaintenanceJob done = jobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(MaintenanceJobStatus.COMPLETED, done.getStatus());
+        assertEquals(5, done.getProcessed());
+        assertEquals(1, done.getChanged());
+        // Anterior al checkpoint: no se vuelve a procesar
+        assertEquals("INVALIDO SLUG", slugOf(products.get(1)));
+        assertEquals("filtro-de-aceite-1", slugOf(products.get(2)));
+    }
+
+    @Test
+    void cancel_shouldStopBeforeNextChunkAndRejectFinishedJobs() {
+        List<Product> products = saveSlugFixtures();
+        MaintenanceJob job = jobRepository.save(new MaintenanceJob("normalize-slugs", products.size()));
+
+        assertTrue(maintenanceService.cancel(job.getId()).isCancelRequested());
+        maintenanceService.run(job.getId());
+
+        MaintenanceJob cancelled = jobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(MaintenanceJobStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(0, cancelled.getProcessed());
+        assertEquals("INVALIDO SLUG", slugOf(products.get(1)));
+        assertThrows(ResponseStatusException.class, () -> maintenanceService.cancel(job.getId()));
+    }
+
+    @Test
+    void start_shouldRunFixImagesInBackground() throws Exception {
+        Product bateria = productRepository.save(product("FIX-1").nombre("Bateria 12V").build());
+        Product pastillas = productRepository.save(product("FIX-2").nombre("Pastillas de freno")
+                .imageUrl("/images/product_2_main_1.png").build());
+        Product custom = productRepository.save(product("FIX-3").nombre("Bateria AGM")
+                .imageUrl("/images/custom.png").build());
+
+        MaintenanceJobDTO started = maintenanceService.start("fix-images");
+
+        MaintenanceJobDTO job = awaitFinished(started.getId());
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(3, job.getProcessed());
+        assertEquals(2, job.getChanged());
+        assertEquals("/images/electricidad.jpg", productRepository.findById(bateria.getId()).orElseThrow().getImageUrl());
+        assertEquals("/images/png-clipart-car-brake-pad-disc-brake-vehicle-car-car-automobile-repair-shop.png",
+                productRepository.findById(pastillas.getId()).orElseThrow().getImageUrl());
+        assertEquals("/images/custom.png", productRepository.findById(custom.getId()).orElseThrow().getImageUrl());
+    }
+
+    @Test
+    void start_shouldRejectUnknownTypeAndSecondActiveJobOfSameType() {
+        assertThrows(IllegalArgumentException.class, () -> maintenanceService.start("borrar-todo"));
+
+        jobRepository.save(new MaintenanceJob("normalize-slugs", 0));
+        assertThrows(ResponseStatusException.class, () -> maintenanceService.start("normalize-slugs"));
+    }
+
+    private MaintenanceJobDTO awaitFinished(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        MaintenanceJobDTO job = maintenanceService.getJob(id);
+        while (("QUEUED".equals(job.getStatus()) || "RUNNING".equals(job.getStatus()))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = maintenanceService.getJob(id);
+        }
+        return job;
+    }
+
+    private List<Product> saveSlugFixtures() {
+        return List.of(
+                productRepository.save(product("SLUG-1").nombre("Filtro de Aceite").slug("filtro-de-aceite").build()),
+                productRepository.save(product("SLUG-2").nombre("Filtro de Aceite").slug("INVALIDO SLUG").build()),
+                productRepository.save(product("SLUG-3").nombre("Filtro de Aceite").slug("otro slug").build()),
+                productRepository.save(product("SLUG-4").nombre("Pastillas").slug("pastillas").build()),
+                productRepository.save(product("SLUG-5").nombre("Amortiguador").slug("amortiguador").build()));
+    }
+
+    private String slugOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getSlug();
+    }
+}
@@ -0,0 +1,152 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache de segundo nivel y de consultas contra H2: cada llamada al repositorio abre su propia sesion, asi que
+ * las lecturas repetidas solo evitan SQL si las resuelve el cache compartido.
+ */
+@H2JpaTest
+@Import(HibernateCacheService.class)
+class HibernateCacheServiceTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HibernateCacheService hibernateCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Product filtro;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        filtro = productRepository.save(product("L2-1").categoria("Filtros").marca("Bosch").featured(true).build());
+        productRepository.save(product("L2-2").categoria("Frenos").marca("Brembo").featured(true).build());
+        productRepository.save(product("L2-3").categoria("Frenos").marca("Bosch").featured(false).build());
+    }
+
+    @AfterEach
+    void cleanup() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReads_shouldNotRunSqlAfterWarmUp() {
+        readAll();
+        statistics.clear();
+
+        for (int i = 0; i < 5; i++) {
+            readAll();
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        // Cuatro consultas cacheables por pasada
+        assertEquals(20, statistics.getQueryCacheHitCount());
+        Map<String, Object> products = region(Product.CACHE_REGION);
+        assertTrue((Long) products.get("hits") > 0);
+        assertEquals(0L, products.get("misses"));
+    }
+
+    @Test
+    void writes_shouldInvalidateEntityAndQueryResults() {
+        readAll();
+
+        Product renamed = productRepository.findById(filtro.getId()).orElseThrow();
+        renamed.setNombre("Filtro renombrado");
+        renamed.setCategoria("Motor");
+        renamed.setIsFeatured(false);
+        productRepository.save(renamed);
+
+        assertEquals("Filtro renombrado", productRepository.findBySku("L2-1").orElseThrow().getNombre());
+        assertEquals(List.of("L2-2"), productRepository.findByIsFeaturedTrueAndIsActiveTrue().stream()
+                .map(Product::getSku).toList());
+        assertTrue(productRepository.findAllCategorias().contains("Motor"));
+
+        // Un UPDATE masivo no pasa por la entidad: Hibernate vacia la region completa al confirmar
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productRepository.bulkSetPrice(List.of(filtro.getId()), new BigDecimal("700"), LocalDateTime.now()));
+        assertEquals(0, new BigDecimal("700").compareTo(productRepository.findById(filtro.getId()).orElseThrow().getPrecioNormal()));
+        assertEquals(0, new BigDecimal("700").compareTo(productRepository.findBySku("L2-1").orElseThrow().getPrecioNormal()));
+    }
+
+    @Test
+    void writeReads_shouldIgnoreEntityCachedBeforeChangeFromAnotherInstance() {
+        productRepository.findById(filtro.getId());
+        // Otra instancia cambia la fila: el cache de esta no se entera hasta que la entrada vence
+        jdbcTemplate.update("UPDATE products SET precio = 900, version = version + 1 WHERE id = ?", filtro.getId());
+        assertEquals(0, new BigDecimal("1000").compareTo(productRepository.findById(filtro.getId()).orElseThrow().getPrecioNormal()));
+
+        // Con la entidad del cache este guardado fallaria por bloqueo optimista
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product fresh = productRepository.findForWriteById(filtro.getId()).orElseThrow();
+            assertEquals(0, new BigDecimal("900").compareTo(fresh.getPrecioNormal()));
+            fresh.setNombre("Guardado sin conflicto");
+        });
+
+        Product reloaded = productRepository.findById(filtro.getId()).orElseThrow();
+        assertEquals("Guardado sin conflicto", reloaded.getNombre());
+        assertEquals(0, new BigDecimal("900").compareTo(reloaded.getPrecioNormal()));
+    }
+
+    @Test
+    void evict_shouldForceNextReadToDatabase() {
+        readAll();
+
+        hibernateCacheService.evict(Product.CACHE_REGION);
+        statistics.clear();
+        productRepository.findById(filtro.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        hibernateCacheService.evict(null);
+        statistics.clear();
+        productRepository.findBySku("L2-1");
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertThrows(IllegalArgumentException.class, () -> hibernateCacheService.evict("default-update-timestamps-region"));
+    }
+
+    private void readAll() {
+        productRepository.findById(filtro.getId());
+        productRepository.findBySku("L2-1");
+        productRepository.findByIsFeaturedTrueAndIsActiveTrue();
+        productRepository.findAllCategorias();
+        productRepository.findAllMarcas();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> region(String name) {
+        return (Map<String, Object>) hibernateCacheService.stats().get(name);
+    }
+}
@@ -0,0 +1,172 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.ImageBlob;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ImageBlobRepository;
+import com.fixsy.productos.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageBlobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductImageStorageService storageService;
+    private ImageBlobService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        storageService = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083");
+        service = new ImageBlobService(imageBlobRepository, productRepository, storageService,
+                new TransactionTemplate(transactionManager), 60);
+        when(imageBlobRepository.findById(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void onProductChange_shouldApplyReferenceDiff() throws Exception {
+        String kept = store("kept");
+        String removed = store("removed");
+        String added = store("added");
+        Product product = product(1L).imageUrl(kept).images(List.of(removed, "https://cdn.example.com/externa.jpg"))
+                .build();
+        ProductSnapshot before = ProductSnapshot.of(product);
+        product.setImages(List.of("/images/" + added, kept));
+
+        service.onProductChange(ProductChangeEvent.of(ProductChangeType.IMAGE, before, product));
+
+        // kept pasa de 1 a 2 apariciones (principal y galeria); solo los incrementos bloquean la fila
+        verify(imageBlobRepository).ensure(eq(kept), any(LocalDateTime.class));
+        verify(imageBlobRepository).lockRefCount(kept);
+        verify(imageBlobRepository).ensure(eq(added), any(LocalDateTime.class));
+        verify(imageBlobRepository).lockRefCount(added);
+        verify(imageBlobRepository).increment(eq(kept), any(LocalDateTime.class));
+        verify(imageBlobRepository).increment(eq(added), any(LocalDateTime.class));
+        verify(imageBlobRepository).decrement(eq(removed), any(LocalDateTime.class));
+        verifyNoMoreInteractions(imageBlobRepository);
+    }
+
+    @Test
+    void onProductChange_shouldFailWhenCollectorAlreadyDeletedTheImage() throws Exception {
+        String deleted = store("deleted");
+        Files.delete(tempDir.resolve(deleted));
+        Product product = product(1L).build();
+        ProductSnapshot before = ProductSnapshot.of(product);
+        product.setImageUrl(deleted);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.onProductChange(ProductChangeEvent.of(ProductChangeType.IMAGE, before, product)));
+        verify(imageBlobRepository, never()).increment(anyString(), any());
+    }
+
+    @Test
+    void onProductChange_shouldReleaseEveryImageOnDelete() throws Exception {
+        String main = store("main");
+        Product product = product(1L).imageUrl(main).images(List.of("product_1_g1_1.png")).build();
+
+        service.onProductChange(ProductChangeEvent.of(ProductChangeType.DELETED, ProductSnapshot.of(product), null));
+
+        verify(imageBlobRepository).decrement(eq(main), any(LocalDateTime.class));
+        verify(imageBlobRepository, never()).increment(anyString(), any());
+    }
+
+    @Test
+    void collect_shouldDeleteUnreferencedBlobsWithDerivativesAfterGracePeriod() throws Exception {
+        String unused = store("unused");
+        Path derivative = storageService.derivativePath(tempDir.resolve(unused), 160);
+        Files.writeString(derivative, "derivado");
+        String recent = store("recent");
+        Files.writeString(tempDir.resolve("product_1_main_1.png"), "legacy");
+        age(unused);
+        when(imageBlobRepository.findById(unused)).thenReturn(Optional.of(new ImageBlob(unused, 0, null)));
+
+        ImageBlobService.CollectionResult result = service.collect();
+
+        assertEquals(1, result.deleted());
+        assertFalse(Files.exists(tempDir.resolve(unused)));
+        assertFalse(Files.exists(derivative));
+        // Dentro del periodo de gracia (recien subida) y archivos con el nombre anterior no se tocan
+        assertTrue(Files.exists(tempDir.resolve(recent)));
+        assertTrue(Files.exists(tempDir.resolve("product_1_main_1.png")));
+        verify(imageBlobRepository).deleteById(unused);
+    }
+
+    @Test
+    void collect_shouldKeepReferencedBlobsAndRepairStaleCounters() throws Exception {
+        String counted = store("counted");
+        String uncounted = store("uncounted");
+        age(counted);
+        age(uncounted);
+        when(imageBlobRepository.findById(counted)).thenReturn(Optional.of(new ImageBlob(counted, 2, null)));
+        when(productRepository.countImageReferences(uncounted)).thenReturn(1L);
+
+        ImageBlobService.CollectionResult result = service.collect();
+
+        assertEquals(0, result.deleted());
+        assertEquals(1, result.repaired());
+        assertTrue(Files.exists(tempDir.resolve(counted)));
+        assertTrue(Files.exists(tempDir.resolve(uncounted)));
+        verify(imageBlobRepository).resetRefCount(eq(uncounted), eq(1), any(LocalDateTime.class));
+    }
+
+    @Test
+    void collect_shouldRecheckCounterUnderRowLock() throws Exception {
+        String assigned = store("assigned");
+        age(assigned);
+        // La lectura sin bloqueo ve 0, pero un producto asigno la imagen antes de que el recolector tomara la fila
+        when(imageBlobRepository.findById(assigned)).thenReturn(Optional.of(new ImageBlob(assigned, 0, null)));
+        when(imageBlobRepository.lockRefCount(assigned)).thenReturn(Optional.of(1));
+
+        ImageBlobService.CollectionResult result = service.collect();
+
+        assertEquals(0, result.deleted());
+        assertTrue(Files.exists(tempDir.resolve(assigned)));
+        verify(imageBlobRepository).ensure(eq(assigned), any(LocalDateTime.class));
+        verify(productRepository, never()).countImageReferences(assigned);
+        verify(imageBlobRepository, never()).deleteById(anyString());
+    }
+
+    private String store(String content) throws Exception {
+        return storageService.storeMainImage(
+                new MockMultipartFile("file", "img.png", "image/png", content.getBytes()), 1L);
+    }
+
+    private void age(String name) throws Exception {
+        Files.setLastModifiedTime(tempDir.resolve(name), FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+    }
+}
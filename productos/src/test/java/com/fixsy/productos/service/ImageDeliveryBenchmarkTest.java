@@ -0,0 +1,184 @@
+package com.fixsy.productos.service;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara el throughput de la entrega de imagenes anterior (stream/readAllBytes con probeContentType y
+ * logs por peticion) con {@link ImageDeliveryService} sobre un Tomcat embebido real, para que sendfile
+ * participe. No corre en el build normal:
+ * <pre>
+ * mvn -Dtest=ImageDeliveryBenchmarkTest -Dbenchmarks=true test
+ * </pre>
+ * Opcionales: -Dbenchmark.seconds=10 -Dbenchmark.threads=16
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ImageDeliveryBenchmarkTest {
+
+    private static final int[] SIZES = {20 * 1024, 250 * 1024, 2 * 1024 * 1024};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compareImageHandlers() throws Exception {
+        int seconds = Integer.getInteger("benchmark.seconds", 10);
+        int threads = Integer.getInteger("benchmark.threads", 16);
+        for (int size : SIZES) {
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            Files.write(tempDir.resolve("img_" + size + ".jpg"), content);
+        }
+
+        ImageDeliveryService deliveryService = new ImageDeliveryService();
+        // Los println del handler anterior van a un stream descartado para no inundar la salida del test,
+        // asi que el resultado del handler anterior es incluso optimista
+        PrintStream discardedConsole = new PrintStream(OutputStream.nullOutputStream());
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(tempDir.resolve("tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext("", tempDir.toString());
+        Tomcat.addServlet(context, "legacyStream", new LegacyStreamServlet(tempDir, discardedConsole));
+        context.addServletMappingDecoded("/legacy-stream/*", "legacyStream");
+        Tomcat.addServlet(context, "legacyBytes", new LegacyBytesServlet(tempDir));
+        context.addServletMappingDecoded("/legacy-bytes/*", "legacyBytes");
+        Tomcat.addServlet(context, "delivery", new DeliveryServlet(tempDir, deliveryService));
+        context.addServletMappingDecoded("/delivery/*", "delivery");
+        tomcat.start();
+
+        try {
+            int port = tomcat.getConnector().getLocalPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            System.out.printf("%-14s %10s %12s %12s%n", "handler", "size", "req/s", "MB/s");
+            for (int size : SIZES) {
+                for (String handler : List.of("legacy-stream", "legacy-bytes", "delivery")) {
+                    URI uri = URI.create("http://localhost:" + port + "/" + handler + "/img_" + size + ".jpg");
+                    run(client, uri, threads, 2);
+                    long requests = run(client, uri, threads, seconds);
+                    double perSecond = requests / (double) seconds;
+                    System.out.printf("%-14s %9dK %12.0f %12.1f%n", handler, size / 1024, perSecond,
+                            perSecond * size / (1024 * 1024));
+                    assertTrue(requests > 0);
+                }
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private long run(HttpClient client, URI uri, int threads, int seconds) throws Exception {
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+                    while (System.nanoTime() < deadline) {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            completed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return completed.get();
+    }
+
+    /** Reproduce ProductImageController.serveProductImage antes del cambio. */
+    private static final class LegacyStreamServlet extends HttpServlet {
+        private final Path baseDirectory;
+        private final PrintStream console;
+
+        private LegacyStreamServlet(Path baseDirectory, PrintStream console) {
+            this.baseDirectory = baseDirectory;
+            this.console = console;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String fileName = request.getPathInfo().substring(1);
+            console.println("Serving image: " + fileName);
+            Path imagePath = baseDirectory.resolve(fileName).normalize();
+            console.println("Image path: " + imagePath);
+            console.println("File exists: " + Files.exists(imagePath));
+            String contentType = Files.probeContentType(imagePath);
+            response.setContentType(contentType == null ? "image/jpeg" : contentType);
+            response.setHeader("Cache-Control", "public, max-age=3600");
+            try (InputStream in = Files.newInputStream(imagePath)) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    /** Reproduce ProductController.getMainImage antes del cambio. */
+    private static final class LegacyBytesServlet extends HttpServlet {
+        private final Path baseDirectory;
+
+        private LegacyBytesServlet(Path baseDirectory) {
+            this.baseDirectory = baseDirectory;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            Path imagePath = baseDirectory.resolve(request.getPathInfo().substring(1));
+            byte[] bytes = Files.readAllBytes(imagePath);
+            String contentType = Files.probeContentType(imagePath);
+            response.setContentType(contentType == null ? "image/jpeg" : contentType);
+            response.getOutputStream().write(bytes);
+        }
+    }
+
+    private static final class DeliveryServlet extends HttpServlet {
+        private final Path baseDirectory;
+        private final ImageDeliveryService deliveryService;
+
+        private DeliveryServlet(Path baseDirectory, ImageDeliveryService deliveryService) {
+            this.baseDirectory = baseDirectory;
+            this.deliveryService = deliveryService;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            deliveryService.serve(baseDirectory.resolve(request.getPathInfo().substring(1)), request, response);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.fixsy.productos.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDeliveryServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageDeliveryService service;
+    private Path image;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new ImageDeliveryService();
+        image = tempDir.resolve("product_1_main.png");
+        Files.writeString(image, "0123456789", StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void serve_shouldWriteWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(image, get(), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("image/png", response.getContentType());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void serve_shouldReturn304WhenEtagMatches() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.serve(image, get(), first);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        service.serve(image, request, second);
+
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getContentAsByteArray().length);
+    }
+
+    @Test
+    void serve_shouldReturn304WhenNotModifiedSince() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, Files.getLastModifiedTime(image).toMillis() + 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(image, request, response);
+
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void serve_shouldReturnRequestedRange() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(image, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void serve_shouldIgnoreRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"otra-version\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(image, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void serve_shouldReturn416WhenRangeStartsAfterEnd() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(image, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void serve_shouldDelegateLargeFilesToSendfileWhenSupported() throws Exception {
+        Path large = tempDir.resolve("large.jpg");
+        Files.write(large, new byte[(int) ImageDeliveryService.SENDFILE_MIN_SIZE + 1]);
+        MockHttpServletRequest request = get();
+        request.setAttribute(ImageDeliveryService.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-100");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(large, request, response);
+
+        // Tomcat no lo usa para rangos por debajo del umbral: se copia directamente
+        assertEquals(100, response.getContentAsByteArray().length);
+        assertNull(request.getAttribute(ImageDeliveryService.SENDFILE_FILENAME));
+
+        MockHttpServletRequest full = get();
+        full.setAttribute(ImageDeliveryService.SENDFILE_SUPPORT, Boolean.TRUE);
+        MockHttpServletResponse fullResponse = new MockHttpServletResponse();
+        service.serve(large, full, fullResponse);
+
+        assertEquals(large.toAbsolutePath().toString(), full.getAttribute(ImageDeliveryService.SENDFILE_FILENAME));
+        assertEquals(0L, full.getAttribute(ImageDeliveryService.SENDFILE_START));
+        assertEquals(ImageDeliveryService.SENDFILE_MIN_SIZE + 1, full.getAttribute(ImageDeliveryService.SENDFILE_END));
+        assertEquals(0, fullResponse.getContentAsByteArray().length);
+    }
+
+    @Test
+    void serve_shouldReturn404WhenFileDoesNotExist() {
+        assertThrows(ResponseStatusException.class, () ->
+                service.serve(tempDir.resolve("missing.png"), get(), new MockHttpServletResponse()));
+    }
+
+    @Test
+    void parseRange_shouldHandleSuffixOpenAndInvalidRanges() {
+        assertEquals(new ImageDeliveryService.ByteRange(7, 9), ImageDeliveryService.parseRange("bytes=-3", 10));
+        assertEquals(new ImageDeliveryService.ByteRange(4, 9), ImageDeliveryService.parseRange("bytes=4-", 10));
+        assertEquals(new ImageDeliveryService.ByteRange(4, 9), ImageDeliveryService.parseRange("bytes=4-100", 10));
+        assertNull(ImageDeliveryService.parseRange("bytes=0-1,4-5", 10));
+        assertNull(ImageDeliveryService.parseRange("items=0-1", 10));
+        assertSame(ImageDeliveryService.ByteRange.UNSATISFIABLE, ImageDeliveryService.parseRange("bytes=-0", 10));
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/images/product_1_main.png");
+    }
+}
@@ -0,0 +1,177 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductImageStorageService storageService;
+    private ImageDerivativeService derivativeService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        storageService = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083");
+        derivativeService = new ImageDerivativeService(storageService, productService, productRepository, 1, 10, 0.8f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        derivativeService.shutdown();
+    }
+
+    @Test
+    void generate_shouldWriteOneJpegPerWidthWithoutUpscaling() throws Exception {
+        writePng("product_1_main_1.png", 800, 400);
+
+        assertTrue(derivativeService.generate("product_1_main_1.png"));
+
+        assertDimensions("product_1_main_1__w160.jpg", 160, 80);
+        assertDimensions("product_1_main_1__w480.jpg", 480, 240);
+        // 1024 es mas ancho que el original: se conserva el tamaño original
+        assertDimensions("product_1_main_1__w1024.jpg", 800, 400);
+    }
+
+    @Test
+    void generate_shouldSkipFormatsImageIoCannotDecode() throws Exception {
+        Files.writeString(tempDir.resolve("foto.webp"), "no es una imagen decodificable");
+
+        assertFalse(derivativeService.generate("foto.webp"));
+        assertFalse(Files.exists(tempDir.resolve("foto__w160.jpg")));
+    }
+
+    @Test
+    void onProductChange_shouldProcessInBackgroundAndRecordOnProduct() throws Exception {
+        writePng("product_2_main_1.png", 300, 300);
+        Product product = product(2L).imageUrl("/images/product_2_main_1.png")
+                .images(List.of("https://cdn.example.com/externa.jpg")).build();
+
+        derivativeService.onProductChange(ProductChangeEvent.of(ProductChangeType.IMAGE, null, product));
+
+        verify(productService, timeout(5000)).recordImageDerivatives(2L, "/images/product_2_main_1.png");
+        assertTrue(Files.exists(tempDir.resolve("product_2_main_1__w160.jpg")));
+    }
+
+    @Test
+    void schedule_shouldRecordSharedImageOnEveryProduct() throws Exception {
+        // Con nombres por contenido dos productos pueden apuntar al mismo archivo
+        String shared = "a".repeat(64) + ".png";
+        writePng(shared, 300, 300);
+        Product first = product(5L).imageUrl(shared).build();
+        Product second = product(6L).imageUrl(shared).build();
+
+        assertEquals(1, derivativeService.schedule(first));
+        assertEquals(1, derivativeService.schedule(second));
+
+        verify(productService, timeout(5000)).recordImageDerivatives(5L, shared);
+        verify(productService, timeout(5000)).recordImageDerivatives(6L, shared);
+    }
+
+    @Test
+    void schedule_shouldSkipImagesAlreadyProcessed() throws Exception {
+        writePng("product_3_main_1.png", 300, 300);
+        Product product = product(3L).imageUrl("product_3_main_1.png").build();
+        product.setImageDerivatives(List.of("product_3_main_1.png"));
+
+        assertEquals(0, derivativeService.schedule(product));
+    }
+
+    @Test
+    void resolveVariantPath_shouldSnapToDerivativeAndFallBackToOriginal() throws Exception {
+        writePng("product_4_main_1.png", 600, 300);
+        Path original = tempDir.resolve("product_4_main_1.png");
+
+        assertEquals(original, storageService.resolveVariantPath("product_4_main_1.png", 200));
+
+        derivativeService.generate("product_4_main_1.png");
+
+        assertEquals(tempDir.resolve("product_4_main_1__w480.jpg"), storageService.resolveVariantPath("product_4_main_1.png", 200));
+        assertEquals(tempDir.resolve("product_4_main_1__w1024.jpg"), storageService.resolveVariantPath("product_4_main_1.png", 4000));
+        assertEquals("http://test-server:8083/images/product_4_main_1.png?w=480",
+                storageService.buildPublicImagePath("product_4_main_1.png", 200));
+        assertTrue(storageService.isDerivativeName("product_4_main_1__w160.jpg"));
+        assertFalse(storageService.isDerivativeName("product_4_main_1.png"));
+    }
+
+    @Test
+    void contentAddressedName_shouldKeepServingOriginalOnceOptimizedExists() throws Exception {
+        String name = "b".repeat(64) + ".png";
+        writePng(name, 600, 300);
+        Path original = tempDir.resolve(name);
+
+        assertEquals(original, storageService.resolveVariantPath(name, null));
+        assertTrue(storageService.isImmutable(name, original));
+        // ?w= todavia sin derivado: se entrega el original pero la URL no se fija
+        assertFalse(storageService.isImmutable(name, storageService.resolveVariantPath(name, 480)));
+
+        derivativeService.generate(name);
+
+        assertEquals(original, storageService.resolveVariantPath(name, null));
+        Path derivative = storageService.resolveVariantPath(name, 480);
+        assertEquals(tempDir.resolve("b".repeat(64) + "__w480.jpg"), derivative);
+        assertTrue(storageService.isImmutable(name, derivative));
+        assertTrue(storageService.isImmutable("b".repeat(64) + "__opt.jpg", tempDir.resolve("b".repeat(64) + "__opt.jpg")));
+        // Los nombres anteriores al direccionamiento por contenido no son inmutables
+        assertFalse(storageService.isImmutable("product_4_main_1.png", tempDir.resolve("product_4_main_1.png")));
+    }
+
+    @Test
+    void generate_shouldNotPublishOptimizedVersionLargerThanOriginal() throws Exception {
+        // Un PNG de un solo color pesa menos que cualquier JPEG del mismo tamaño
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", tempDir.resolve("plano.png").toFile());
+
+        assertTrue(derivativeService.generate("plano.png"));
+
+        assertFalse(Files.exists(tempDir.resolve("plano__opt.jpg")));
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    private void writePng(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillOval(0, 0, width, height);
+        g.dispose();
+        ImageIO.write(image, "png", tempDir.resolve(name).toFile());
+    }
+
+    private void assertDimensions(String name, int width, int height) throws Exception {
+        BufferedImage image = ImageIO.read(tempDir.resolve(name).toFile());
+        assertNotNull(image, name);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
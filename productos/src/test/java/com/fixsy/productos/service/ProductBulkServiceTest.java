@@ -0,0 +1,192 @@
+package com.fixsy.productos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixsy.productos.dto.ProductImportResultDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ProductBulkServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StockLedgerService stockLedger;
+
+    private ProductBulkService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        service = new ProductBulkService(productRepository, eventPublisher,
+                new TransactionTemplate(transactionManager), new ObjectMapper(), stockLedger);
+        given(productRepository.saveAll(anyIterable())).willAnswer(inv -> {
+            List<Product> saved = new ArrayList<>();
+            inv.<Iterable<Product>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+    }
+
+    @Test
+    void importProducts_shouldBuildSlugsLikeTheEntityRegardlessOfDefaultLocale() throws Exception {
+        given(productRepository.findForWriteBySkuIn(anyCollection())).willReturn(List.of());
+        Locale previous = Locale.getDefault();
+        // En turco "I".toLowerCase() es una i sin punto, que un slugificador por regex descartaba
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            service.importProducts(stream("""
+                    sku,nombre,precioNormal
+                    FIL-IX,FILTRO DE AIRE,100
+                    """), ProductBulkService.Format.CSV);
+        } finally {
+            Locale.setDefault(previous);
+        }
+
+        ArgumentCaptor<ProductChangeEvent> events = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher).publishEvent(events.capture());
+        String slug = events.getValue().product().getSlug();
+        assertEquals("filtro-de-aire-fil-ix", slug);
+        assertEquals(ProductSlugs.slugify("FILTRO DE AIRE FIL-IX"), slug);
+    }
+
+    @Test
+    void importProducts_shouldUpsertBySkuAndReportRowErrors() throws Exception {
+        Product existing = product(1L).sku("FLT-001").nombre("Filtro").precio("9990").stock(5).featured(false).build();
+        given(productRepository.findForWriteBySkuIn(anyCollection())).willReturn(List.of(existing));
+        String csv = """
+                sku,nombre,descripcionCorta,precioNormal,stock,tags
+                flt-001,,,8990,,motor|filtros
+                PAS-010,Pastillas,"Juego delantero, ""ceramica""
+                dos lineas",25000,12,frenos
+                BAD-1,Malo,,-5,,
+                NEW-2,,,100,,
+                """;
+
+        ProductImportResultDTO result = service.importProducts(stream(csv), ProductBulkService.Format.CSV);
+
+        assertEquals(4, result.getProcessed());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals("El precio no puede ser negativo", result.getErrors().get(0).getMessage());
+        assertEquals(5, result.getErrors().get(0).getLine());
+        assertEquals("NEW-2", result.getErrors().get(1).getSku());
+
+        // Celdas vacias no modifican: el nombre y el stock del existente se conservan
+        assertEquals("Filtro", existing.getNombre());
+        assertEquals(new BigDecimal("8990"), existing.getPrecioNormal());
+        assertEquals(5, existing.getStock());
+        assertEquals(List.of("motor", "filtros"), existing.getTags());
+
+        // Una sola busqueda de SKUs y un solo guardado para el bloque
+        verify(productRepository, times(1)).findForWriteBySkuIn(anyCollection());
+        verify(productRepository, times(1)).saveAll(anyIterable());
+        ArgumentCaptor<ProductChangeEvent> events = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        Product created = events.getAllValues().stream()
+                .filter(event -> event.type() == ProductChangeType.CREATED)
+                .findFirst().orElseThrow().product();
+        assertEquals("Juego delantero, \"ceramica\"\ndos lineas", created.getDescripcionCorta());
+        assertEquals("pastillas-pas-010", created.getSlug());
+    }
+
+    @Test
+    void importProducts_shouldRetryRowByRowWhenChunkFailsToSave() throws Exception {
+        given(productRepository.findForWriteBySkuIn(anyCollection())).willReturn(List.of());
+        given(productRepository.saveAll(anyIterable())).willAnswer(inv -> {
+            List<Product> saved = new ArrayList<>();
+            for (Product product : inv.<Iterable<Product>>getArgument(0)) {
+                if (product.getSku().equals("DUP-SLUG")) {
+                    throw new IllegalStateException("Duplicate entry for key slug");
+                }
+                saved.add(product);
+            }
+            return saved;
+        });
+        String ndjson = """
+                {"sku":"OK-1","nombre":"Bujia","precioNormal":4990,"tags":["motor","encendido"]}
+                {"sku":"DUP-SLUG","nombre":"Bujia","precioNormal":4990}
+                no es json
+                """;
+
+        ProductImportResultDTO result = service.importProducts(stream(ndjson), ProductBulkService.Format.NDJSON);
+
+        assertEquals(3, result.getProcessed());
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("JSON invalido"));
+        assertEquals("Duplicate entry for key slug", result.getErrors().get(1).getMessage());
+        // Bloque completo + una transaccion por fila
+        verify(productRepository, times(3)).saveAll(anyIterable());
+    }
+
+    @Test
+    void importProducts_shouldRejectCsvWithoutSkuColumn() {
+        assertThrows(IllegalArgumentException.class, () ->
+                service.importProducts(stream("nombre,precio\nx,1\n"), ProductBulkService.Format.CSV));
+    }
+
+    @Test
+    void exportProducts_shouldPageThroughCatalogInImportFormat() throws Exception {
+        List<Product> firstPage = new ArrayList<>();
+        for (long id = 1; id <= ProductBulkService.EXPORT_PAGE_SIZE; id++) {
+            firstPage.add(product(id).stock(1).featured(false).build());
+        }
+        Product quoted = product(2000L).sku("SKU-Q").nombre("Kit \"premium\", 4 piezas").precio("15000.50").stock(3)
+                .featured(false).build();
+        quoted.setTags(List.of("frenos", "kit"));
+        given(productRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).willReturn(firstPage);
+        given(productRepository.findByIdGreaterThanOrderByIdAsc(eq((long) ProductBulkService.EXPORT_PAGE_SIZE), any(Pageable.class)))
+                .willReturn(List.of(quoted));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = service.exportProducts(output, ProductBulkService.Format.CSV);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ProductBulkService.EXPORT_PAGE_SIZE + 1, exported);
+        assertEquals(String.join(",", ProductBulkService.COLUMNS), lines[0]);
+        assertEquals("SKU-Q,\"Kit \"\"premium\"\", 4 piezas\",,,15000.50,,,3,,,frenos|kit,,,true,false",
+                lines[lines.length - 1]);
+        verify(productRepository, times(2)).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogCacheTest {
+
+    private ProductCatalogCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        cache = new ProductCatalogCache(100, 600);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getById_shouldLoadOnceAndServeFromCache() {
+        cache.getById(1L, this::load);
+        cache.getById(1L, this::load);
+
+        assertEquals(1, loads.get());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> byId = (Map<String, Object>) cache.stats().get("productById");
+        assertEquals(1L, byId.get("hits"));
+        assertEquals(1L, byId.get("misses"));
+    }
+
+    @Test
+    void onProductChange_shouldEvictIdAndOldAndNewSku() {
+        cache.getById(1L, this::load);
+        cache.getBySku("OLD-1", sku -> load(1L));
+        cache.getBySku("NEW-1", sku -> load(1L));
+
+        Product saved = product(1L).sku("NEW-1").featured(false).build();
+        ProductSnapshot before = ProductSnapshot.of(product(1L).sku("OLD-1").featured(false).build());
+        cache.onProductChange(ProductChangeEvent.of(ProductChangeType.UPDATED, before, saved));
+
+        cache.getById(1L, this::load);
+        cache.getBySku("old-1", sku -> load(1L));
+        cache.getBySku("NEW-1", sku -> load(1L));
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    void onProductChange_shouldKeepFeaturedListWhenProductIsNotFeatured() {
+        cache.getFeatured(() -> List.of(dto(2L)));
+        cache.getCategorias(() -> List.of("Frenos"));
+
+        Product saved = product(5L).sku("SKU-5").featured(false).build();
+        cache.onProductChange(ProductChangeEvent.of(ProductChangeType.PRICE, ProductSnapshot.of(saved), saved));
+
+        assertEquals(1, cache.getFeatured(() -> fail("no deberia recargar")).size());
+        assertEquals(List.of("Frenos"), cache.getCategorias(() -> fail("no deberia recargar")));
+    }
+
+    @Test
+    void onProductChange_shouldEvictListsWhenFeaturedProductIsDeleted() {
+        cache.getFeatured(() -> List.of(dto(3L)));
+        cache.getMarcas(() -> List.of("Bosch"));
+
+        ProductSnapshot before = ProductSnapshot.of(product(3L).sku("SKU-3").featured(true).build());
+        cache.onProductChange(ProductChangeEvent.of(ProductChangeType.DELETED, before, null));
+
+        assertTrue(cache.getFeatured(List::of).isEmpty());
+        assertTrue(cache.getMarcas(List::of).isEmpty());
+    }
+
+    private ProductDTO load(Long id) {
+        loads.incrementAndGet();
+        return dto(id);
+    }
+
+    private ProductDTO dto(Long id) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        return dto;
+    }
+}
@@ -7,7 +7,9 @@ import org.springframework.mock.web.MockMultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,8 +27,38 @@ class ProductImageStorageServiceTest {
 
         Path storedPath = tempDir.resolve(stored);
         assertTrue(Files.exists(storedPath));
-        assertTrue(stored.startsWith("product_10_main_"));
-        assertTrue(stored.endsWith(".png"));
+        // Nombre = SHA-256 del contenido
+        assertEquals("b29814cf5792e684cd75d6a7fce7a67a11887e312f87ca2ac2496d81f365ff72.png", stored);
+    }
+
+    @Test
+    void storeMainImage_shouldDeduplicateIdenticalContent() throws IOException {
+        ProductImageStorageService service = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083");
+
+        String first = service.storeMainImage(new MockMultipartFile("file", "a.png", "image/png", "same".getBytes()), 1L);
+        List<String> gallery = service.storeGalleryImages(List.of(
+                new MockMultipartFile("files", "b.png", "image/png", "same".getBytes()),
+                new MockMultipartFile("files", "c.png", "image/png", "other".getBytes())), 2L);
+
+        assertEquals(first, gallery.get(0));
+        assertNotEquals(first, gallery.get(1));
+        try (var files = Files.list(tempDir)) {
+            // Sin temporales sobrantes: solo los dos contenidos distintos
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void contentAddressedName_shouldAcceptOwnReferencesOnly() throws IOException {
+        ProductImageStorageService service = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083");
+        String stored = service.storeMainImage(new MockMultipartFile("file", "a.png", "image/png", "x".getBytes()), 1L);
+
+        assertEquals(stored, service.contentAddressedName(stored));
+        assertEquals(stored, service.contentAddressedName("/images/" + stored));
+        assertEquals(stored, service.contentAddressedName("http://test-server:8083/images/" + stored + "?w=480"));
+        assertNull(service.contentAddressedName("https://cdn.example.com/images/" + stored));
+        assertNull(service.contentAddressedName("product_10_main_1700000000000.png"));
+        assertFalse(service.isContentAddressedName(stored.replace(".png", "__w160.jpg")));
     }
 
     @Test
@@ -71,6 +103,23 @@ class ProductImageStorageServiceTest {
         }
     }
 
+    @Test
+    void buildPublicImagePaths_shouldPrefixLocalNamesAndSkipBlankAndRepeated() {
+        ProductImageStorageService service = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083/");
+
+        List<String> paths = service.buildPublicImagePaths(Arrays.asList(
+                " a.png ", "/images/b.png", null, "  ", "/images/", "HTTPS://cdn.example.com/c.png", "a.png"));
+
+        assertEquals(List.of("http://test-server:8083/images/a.png", "http://test-server:8083/images/b.png",
+                "HTTPS://cdn.example.com/c.png"), paths);
+        assertEquals(List.of("http://test-server:8083/images/a.png?w=480"), service.buildPublicImagePaths(List.of("a.png"), 300));
+        assertEquals(Map.of(160, "http://test-server:8083/images/b.png?w=160",
+                        480, "http://test-server:8083/images/b.png?w=480",
+                        1024, "http://test-server:8083/images/b.png?w=1024"),
+                service.buildPublicImageVariants("/images/b.png"));
+        assertTrue(service.buildPublicImageVariants(" http://cdn.example.com/c.png").isEmpty());
+    }
+
     @Test
     void resolveProductImagePath_shouldBuildAbsolutePath() {
         ProductImageStorageService service = new ProductImageStorageService(tempDir.toString(), "http://test-server:8083");
@@ -0,0 +1,185 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.ProductChangeDTO;
+import com.fixsy.productos.dto.ProductChangeFeedDTO;
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.dto.StockAdjustmentDTO;
+import com.fixsy.productos.model.OutboxRelayState;
+import com.fixsy.productos.model.ProductOutboxEvent;
+import com.fixsy.productos.repository.OutboxRelayStateRepository;
+import com.fixsy.productos.repository.ProductOutboxRepository;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.StockMovementRepository;
+import com.fixsy.productos.search.ProductFacetIndex;
+import com.fixsy.productos.search.ProductSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Outbox y feed de cambios contra H2: registro en la transaccion de la escritura, numeracion por el
+ * relay, paginacion por cursor y deteccion de cursores purgados. Las secuencias siguen creciendo entre
+ * tests, asi que cada uno parte de la ultima asignada.
+ */
+@H2JpaTest(properties = "productos.outbox.retention-days=1")
+@Import({ProductService.class, ProductImageStorageService.class, ProductCatalogCache.class,
+        ProductSearchIndex.class, ProductFacetIndex.class, StockLedgerService.class, ProductOutboxService.class,
+        ProductChangeFeedService.class, JacksonAutoConfiguration.class})
+class ProductOutboxServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductOutboxService outboxService;
+
+    @Autowired
+    private ProductChangeFeedService changeFeed;
+
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxRelayStateRepository relayStateRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    private long head;
+
+    @BeforeEach
+    void setUp() {
+        outboxService.relay();
+        head = relayStateRepository.findById(OutboxRelayState.PRODUCT_OUTBOX)
+                .map(OutboxRelayState::getLastSequence)
+                .orElse(0L);
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxService.relay();
+        outboxRepository.deleteAll();
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void everyWrite_shouldBeFedInOrderWithStateAfterTheChange() {
+        ProductDTO created = productService.createProduct(request("OUT-1", "100.00", 10), null);
+        productService.updatePrice(created.getId(), new BigDecimal("120.00"));
+        productService.adjustStock(created.getId(), -2);
+        // El cambio STOCK se publica al compactar el ledger
+        stockLedger.compact();
+        productService.toggleActive(created.getId());
+        productService.deleteProduct(created.getId());
+        outboxService.relay();
+
+        ProductChangeFeedDTO feed = changeFeed.read(head, 100);
+
+        assertFalse(feed.isResyncRequired());
+        assertFalse(feed.isHasMore());
+        assertEquals(List.of("CREATED", "PRICE", "STOCK", "ACTIVE", "DELETED"),
+                feed.getItems().stream().map(ProductChangeDTO::getType).toList());
+        for (int i = 0; i < feed.getItems().size(); i++) {
+            assertEquals(head + i + 1, feed.getItems().get(i).getSequence());
+            assertEquals("OUT-1", feed.getItems().get(i).getSku());
+        }
+        assertTrue(feed.getItems().get(1).getState().contains("\"precioNormal\":120.00"));
+        assertTrue(feed.getItems().get(2).getState().contains("\"stock\":8"));
+        assertTrue(feed.getItems().get(3).getState().contains("\"isActive\":false"));
+        assertNull(feed.getItems().get(4).getState());
+        assertEquals(head + 5, CursorCodec.decode(feed.getNextCursor()));
+    }
+
+    @Test
+    void rolledBackWrites_shouldNotReachTheOutbox() {
+        productService.createProduct(request("OUT-2A", "50.00", 5), null);
+        productService.createProduct(request("OUT-2B", "50.00", 1), null);
+        long before = outboxRepository.count();
+
+        // El primer ajuste ya registro su cambio cuando falla el segundo: el lote completo se revierte
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> productService.adjustStockBatch(List.of(
+                new StockAdjustmentDTO("OUT-2A", -1), new StockAdjustmentDTO("OUT-2B", -5))));
+
+        assertEquals("Stock insuficiente para OUT-2B", ex.getMessage());
+        assertEquals(before, outboxRepository.count());
+        assertEquals(5, productRepository.findBySku("OUT-2A").orElseThrow().getStock());
+    }
+
+    @Test
+    void read_shouldPageByCursorAndFlagPurgedOrUnknownCursors() {
+        ProductDTO created = productService.createProduct(request("OUT-3", "10.00", 1), null);
+        for (int i = 1; i <= 4; i++) {
+            productService.updatePrice(created.getId(), new BigDecimal(10 + i));
+        }
+        outboxService.relay();
+
+        ProductChangeFeedDTO first = changeFeed.read(head, 2);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.isHasMore());
+        ProductChangeFeedDTO rest = changeFeed.read(CursorCodec.decode(first.getNextCursor()), 10);
+        assertEquals(3, rest.getItems().size());
+        assertFalse(rest.isHasMore());
+        assertEquals(head + 3, rest.getItems().get(0).getSequence());
+
+        // Los dos primeros cambios quedan fuera de la retencion
+        List<ProductOutboxEvent> rows = outboxRepository.findBySequenceGreaterThanOrderBySequenceAsc(
+                head, PageRequest.of(0, 2));
+        rows.forEach(row -> row.setCreatedAt(LocalDateTime.now().minusDays(2)));
+        outboxRepository.saveAll(rows);
+        assertEquals(2, outboxService.purge());
+
+        ProductChangeFeedDTO stale = changeFeed.read(head, 10);
+        assertTrue(stale.isResyncRequired());
+        assertEquals(3, stale.getItems().size());
+        assertFalse(changeFeed.read(head + 2, 10).isResyncRequired());
+
+        ProductChangeFeedDTO unknown = changeFeed.read(head + 1000, 10);
+        assertTrue(unknown.isResyncRequired());
+        assertEquals(head + 5, CursorCodec.decode(unknown.getNextCursor()));
+    }
+
+    @Test
+    void poll_shouldWaitUntilTheRelayPublishes() {
+        ProductDTO created = productService.createProduct(request("OUT-4", "10.00", 1), null);
+        outboxService.relay();
+        String cursor = CursorCodec.encode(head + 1);
+
+        DeferredResult<ProductChangeFeedDTO> waiting = changeFeed.poll(cursor, 10, 30);
+        assertFalse(waiting.hasResult());
+        assertEquals(1, changeFeed.getWaitingCount());
+
+        productService.toggleFeatured(created.getId());
+        outboxService.relay();
+
+        assertTrue(waiting.hasResult());
+        ProductChangeFeedDTO page = (ProductChangeFeedDTO) waiting.getResult();
+        assertEquals(1, page.getItems().size());
+        assertEquals("FEATURED", page.getItems().get(0).getType());
+        assertEquals(0, changeFeed.getWaitingCount());
+
+        // Sin espera responde de inmediato aunque no haya cambios
+        DeferredResult<ProductChangeFeedDTO> immediate = changeFeed.poll(page.getNextCursor(), 10, 0);
+        assertTrue(((ProductChangeFeedDTO) immediate.getResult()).getItems().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> changeFeed.poll("no-es-un-cursor", 10, 0));
+    }
+}
@@ -0,0 +1,118 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.ProductBatchDTO;
+import com.fixsy.productos.dto.ProductBatchRequestDTO;
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ProductServiceBatchTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductImageStorageService productImageStorageService;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockLedgerService stockLedger;
+
+    @InjectMocks
+    private ProductService productService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        given(productImageStorageService.buildPublicImagePath(any())).willAnswer(inv -> inv.getArgument(0));
+        given(productImageStorageService.buildPublicImagePaths(anyList())).willAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void getProductsBatch_shouldUseCacheThenOneQueryPerKeyTypeAndReportMissing() {
+        ProductDTO cached = new ProductDTO();
+        cached.setId(1L);
+        given(catalogCache.getPresentByIds(anyCollection())).willReturn(Map.of(1L, cached));
+        given(productRepository.findAllById(List.of(2L, 99L))).willReturn(List.of(product(2L).build()));
+        given(productRepository.findBySkuIn(List.of("sku-3", "NO-EXISTE"))).willReturn(List.of(product(3L).build()));
+
+        ProductBatchDTO result = productService.getProductsBatch(
+                new ProductBatchRequestDTO(List.of(1L, 2L, 99L, 2L), List.of(" sku-3 ", "NO-EXISTE", "")));
+
+        assertEquals(List.of(1L, 2L), new ArrayList<>(result.getById().keySet()));
+        assertSame(cached, result.getById().get(1L));
+        assertEquals("SKU-2", result.getById().get(2L).getSku());
+        // La clave se devuelve como se pidio; la comparacion no distingue mayusculas
+        assertEquals(3L, result.getBySku().get("sku-3").getId());
+        assertEquals(List.of(99L), result.getMissingIds());
+        assertEquals(List.of("NO-EXISTE"), result.getMissingSkus());
+    }
+
+    @Test
+    void getProductsBatch_shouldSkipQueriesWhenEverythingIsCached() {
+        ProductDTO cached = new ProductDTO();
+        cached.setId(5L);
+        given(catalogCache.getPresentByIds(anyCollection())).willReturn(Map.of(5L, cached));
+        given(catalogCache.getPresentBySkus(anyCollection())).willReturn(Map.of("sku-5", cached));
+
+        ProductBatchDTO result = productService.getProductsBatch(
+                new ProductBatchRequestDTO(List.of(5L), List.of("SKU-5")));
+
+        assertSame(cached, result.getBySku().get("SKU-5"));
+        verify(productRepository, never()).findAllById(any());
+        verify(productRepository, never()).findBySkuIn(any(Collection.class));
+    }
+
+    @Test
+    void getProductsBatch_shouldReportLedgerStockWithoutTouchingCachedDto() {
+        ProductDTO cached = new ProductDTO();
+        cached.setId(6L);
+        cached.setStock(10);
+        given(catalogCache.getPresentByIds(anyCollection())).willReturn(Map.of(6L, cached));
+        given(stockLedger.trackedAvailable(6L)).willReturn(OptionalInt.of(7));
+
+        ProductBatchDTO result = productService.getProductsBatch(new ProductBatchRequestDTO(List.of(6L), List.of()));
+
+        assertEquals(7, result.getById().get(6L).getStock());
+        // El DTO de la cache es compartido: la respuesta es una copia
+        assertEquals(10, cached.getStock());
+    }
+
+    @Test
+    void getProductsBatch_shouldRejectEmptyAndOversizedRequests() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.getProductsBatch(new ProductBatchRequestDTO(List.of(), List.of(" "))));
+
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= ProductService.MAX_BATCH_SIZE + 1; i++) {
+            ids.add(i);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.getProductsBatch(new ProductBatchRequestDTO(ids, List.of())));
+    }
+}
@@ -0,0 +1,134 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.dto.CursorPageDTO;
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.dto.ProductSummaryDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.ProductSummaryRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ProductServicePageTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductImageStorageService productImageStorageService;
+
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductService productService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        given(productImageStorageService.buildPublicImagePath(any())).willAnswer(inv -> inv.getArgument(0));
+        given(productImageStorageService.buildPublicImagePaths(anyList())).willAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void getProductsPage_shouldReturnCursorWhenMoreRowsExist() {
+        given(productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .willReturn(products(1, 4));
+
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(null, 3);
+
+        assertEquals(3, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(3L, CursorCodec.decode(page.getNextCursor()));
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(productRepository).findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(eq(0L), pageable.capture());
+        assertEquals(4, pageable.getValue().getPageSize()); // un elemento extra para detectar si hay mas
+    }
+
+    @Test
+    void getProductsPage_shouldContinueFromCursorAndEndWithoutNextCursor() {
+        String cursor = CursorCodec.encode(3L);
+        given(productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(eq(3L), any(Pageable.class)))
+                .willReturn(products(4, 5));
+
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(cursor, 3);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(4L, page.getItems().get(0).getId());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getProductsPage_shouldClampSizeToMaximum() {
+        given(productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .willReturn(List.of());
+
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(null, 10_000);
+
+        assertEquals(ProductService.MAX_PAGE_SIZE, page.getSize());
+    }
+
+    @Test
+    void getProductsPage_shouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductsPage("no-es-un-cursor", 10));
+    }
+
+    @Test
+    void getProductSummariesPage_shouldMapProjectionRowsWithoutLoadingEntities() {
+        ProductSummaryRow onSale = new ProductSummaryRow(7L, null, "Filtro de Aceite", new BigDecimal("10000"),
+                new BigDecimal("8000"), 10, null, "filtro.png", null, "Bosch", "FLT-7", true, true);
+        given(productRepository.findActiveSummariesAfter(eq(0L), any(Pageable.class)))
+                .willReturn(List.of(onSale, summaryRow(8L)));
+
+        CursorPageDTO<ProductSummaryDTO> page = productService.getProductSummariesPage(null, 1);
+
+        ProductSummaryDTO item = page.getItems().get(0);
+        assertEquals(1, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(7L, CursorCodec.decode(page.getNextCursor()));
+        assertEquals("filtro-de-aceite", item.getSlug());
+        assertEquals(new BigDecimal("9000.00"), item.getFinalPrice());
+        assertEquals(0, item.getStock());
+        assertEquals("Accesorios", item.getCategoria());
+        assertTrue(item.getOferta());
+        assertTrue(item.getDestacado());
+        verify(productRepository, never()).findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    private List<Product> products(long fromId, long toId) {
+        List<Product> list = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            list.add(product(id).stock(5).featured(false).build());
+        }
+        return list;
+    }
+
+    private ProductSummaryRow summaryRow(long id) {
+        return new ProductSummaryRow(id, "producto-" + id, "Producto " + id, new BigDecimal("1000"), null, 0, 5,
+                null, "Motor", null, "SKU-" + id, true, false);
+    }
+}
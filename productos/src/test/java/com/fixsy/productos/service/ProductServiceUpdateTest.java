@@ -3,12 +3,14 @@ package com.fixsy.productos.service;
 import com.fixsy.productos.dto.ProductDTO;
 import com.fixsy.productos.dto.ProductRequestDTO;
 import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovementReason;
 import com.fixsy.productos.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -26,6 +28,15 @@ class ProductServiceUpdateTest {
     @Mock
     private ProductImageStorageService productImageStorageService;
 
+    @Mock
+    private ProductCatalogCache catalogCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockLedgerService stockLedger;
+
     @InjectMocks
     private ProductService productService;
 
@@ -39,7 +50,7 @@ class ProductServiceUpdateTest {
     @Test
     void updateProduct_shouldUpdateFields() {
         Product existing = baseProduct();
-        given(productRepository.findById(1L)).willReturn(Optional.of(existing));
+        given(productRepository.findForWriteById(1L)).willReturn(Optional.of(existing));
         given(productRepository.save(any(Product.class))).willAnswer(inv -> inv.getArgument(0));
 
         ProductRequestDTO request = new ProductRequestDTO();
@@ -48,6 +59,7 @@ class ProductServiceUpdateTest {
         request.setPrecioOferta(new BigDecimal("12000"));
         request.setStock(5);
         request.setSku("SKU-1");
+        given(stockLedger.set(existing, 5, StockMovementReason.SET, null)).willReturn(5);
 
         ProductDTO dto = productService.updateProduct(1L, request);
 
@@ -55,6 +67,8 @@ class ProductServiceUpdateTest {
         assertEquals(new BigDecimal("15000"), dto.getPrecioNormal());
         assertNull(dto.getPrecioOferta()); // la oferta se reinicia en updateProduct
         assertEquals(5, dto.getStock());
+        // El stock pedido se registra en el ledger; el compactado no se pisa
+        assertEquals(10, existing.getStock());
     }
 
     @Test
@@ -62,7 +76,7 @@ class ProductServiceUpdateTest {
         Product existing = baseProduct();
         existing.setPrecioNormal(new BigDecimal("10000"));
         existing.setPrecioOferta(new BigDecimal("9000"));
-        given(productRepository.findById(1L)).willReturn(Optional.of(existing));
+        given(productRepository.findForWriteById(1L)).willReturn(Optional.of(existing));
         given(productRepository.save(any(Product.class))).willAnswer(inv -> inv.getArgument(0));
 
         ProductDTO dto = productService.updatePrice(1L, new BigDecimal("8000"));
@@ -75,7 +89,7 @@ class ProductServiceUpdateTest {
     void updateOffer_shouldSetAndRemoveOffer() {
         Product existing = baseProduct();
         existing.setPrecioNormal(new BigDecimal("10000"));
-        given(productRepository.findById(1L)).willReturn(Optional.of(existing));
+        given(productRepository.findForWriteById(1L)).willReturn(Optional.of(existing));
         given(productRepository.save(any(Product.class))).willAnswer(inv -> inv.getArgument(0));
 
         ProductDTO dto = productService.updateOffer(1L, new BigDecimal("8000"));
@@ -0,0 +1,34 @@
+package com.fixsy.productos.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSlugsTest {
+
+    @Test
+    void slugify_shouldCollapseSeparatorsAndTrimDashes() {
+        assertEquals("bater-a-60ah-libre-mantenci-n", ProductSlugs.slugify("  Batería 60Ah (libre mantención) "));
+        assertEquals("filtro-de-aceite-1-6-2-0l", ProductSlugs.slugify("--Filtro de aceite 1.6-2.0L--"));
+        assertEquals("", ProductSlugs.slugify(" ¿? "));
+        assertNull(ProductSlugs.slugify(null));
+    }
+
+    @Test
+    void slugify_shouldReturnValidSlugsUnchanged() {
+        String slug = "pastillas-de-freno-2";
+
+        assertSame(slug, ProductSlugs.slugify(slug));
+    }
+
+    @Test
+    void isValid_shouldRequireLowercaseWordsJoinedBySingleDashes() {
+        assertTrue(ProductSlugs.isValid("kit-embrague-3"));
+        assertFalse(ProductSlugs.isValid("kit--embrague"));
+        assertFalse(ProductSlugs.isValid("-kit"));
+        assertFalse(ProductSlugs.isValid("kit-"));
+        assertFalse(ProductSlugs.isValid("Kit"));
+        assertFalse(ProductSlugs.isValid(" "));
+        assertFalse(ProductSlugs.isValid(null));
+    }
+}
@@ -0,0 +1,218 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.ProductDTO;
+import com.fixsy.productos.dto.StockAdjustmentDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.StockMovementRepository;
+import com.fixsy.productos.search.ProductFacetIndex;
+import com.fixsy.productos.search.ProductSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ajustes de stock concurrentes contra una base real (H2 en modo MySQL): cada hilo hace su propia
+ * transaccion, asi que un movimiento perdido o una sobreventa se veria en el stock final tras compactar
+ * el ledger.
+ */
+@H2JpaTest(properties = "test.h2.options=;IGNORECASE=TRUE")
+@Import({ProductService.class, ProductImageStorageService.class, ProductCatalogCache.class,
+        ProductSearchIndex.class, ProductFacetIndex.class, StockLedgerService.class})
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @AfterEach
+    void cleanup() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void adjustStock_shouldNotLoseUpdatesUnderContention() throws Exception {
+        Product product = productRepository.save(product("STRESS-1").stock(10_000).build());
+        int perThread = 200;
+        AtomicInteger netDelta = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int delta = (i + thread) % 3 == 0 ? 2 : -1;
+                productService.adjustStock(product.getId(), delta);
+                netDelta.addAndGet(delta);
+            }
+            return null;
+        });
+
+        assertEquals(10_000 + netDelta.get(), stockLedger.available(product.getId()));
+        assertEquals(THREADS * perThread, movementRepository.countByCompactedAtIsNull());
+
+        assertEquals(THREADS * perThread, stockLedger.compact());
+        Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(10_000 + netDelta.get(), reloaded.getStock());
+        // Los ajustes no tocan la fila del producto: una sola escritura por bloque compactado
+        int batches = (THREADS * perThread + StockLedgerService.COMPACT_BATCH_SIZE - 1) / StockLedgerService.COMPACT_BATCH_SIZE;
+        assertEquals(product.getVersion() + batches, reloaded.getVersion());
+    }
+
+    @Test
+    void adjustStock_shouldNeverOversell() throws Exception {
+        Product product = productRepository.save(product("STRESS-2").stock(100).build());
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    productService.adjustStock(product.getId(), -1);
+                    sold.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertEquals("Stock insuficiente", e.getMessage());
+                    rejected.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        assertEquals(100, sold.get());
+        assertEquals(THREADS * 50 - 100, rejected.get());
+        assertEquals(100, movementRepository.count());
+        stockLedger.compact();
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void adjustStockBatch_shouldNotDeadlockWithOppositeOrders() throws Exception {
+        List<String> skus = List.of("BATCH-A", "BATCH-B", "BATCH-C", "BATCH-D");
+        for (String sku : skus) {
+            productRepository.save(product(sku).stock(5_000).build());
+        }
+        int perThread = 50;
+
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < perThread; i++) {
+                List<StockAdjustmentDTO> items = new ArrayList<>();
+                for (String sku : skus) {
+                    items.add(new StockAdjustmentDTO(sku, -1));
+                }
+                // Cada lote llega en un orden distinto; el servicio igual reserva por id ascendente
+                Collections.shuffle(items, random);
+                productService.adjustStockBatch(items);
+            }
+            return null;
+        });
+
+        stockLedger.compact();
+        for (String sku : skus) {
+            assertEquals(5_000 - THREADS * perThread, productRepository.findBySku(sku).orElseThrow().getStock());
+        }
+    }
+
+    @Test
+    void adjustStockBatch_shouldRollBackWholeBatchWhenOneSkuIsShort() {
+        productRepository.save(product("ROLLBACK-A").stock(10).build());
+        productRepository.save(product("ROLLBACK-B").stock(1).build());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> productService.adjustStockBatch(List.of(
+                new StockAdjustmentDTO("ROLLBACK-A", -5),
+                new StockAdjustmentDTO("ROLLBACK-B", -2))));
+
+        assertEquals("Stock insuficiente para ROLLBACK-B", ex.getMessage());
+        assertEquals(0, movementRepository.count());
+        // La reserva del primer ajuste se libera con el rollback
+        Product a = productRepository.findBySku("ROLLBACK-A").orElseThrow();
+        assertEquals(10, stockLedger.available(a.getId()));
+        stockLedger.compact();
+        assertEquals(10, productRepository.findBySku("ROLLBACK-A").orElseThrow().getStock());
+        assertEquals(1, productRepository.findBySku("ROLLBACK-B").orElseThrow().getStock());
+    }
+
+    @Test
+    void adjustStockBatch_shouldMatchSkusIgnoringCase() {
+        // IGNORECASE en test.h2.options reproduce la comparacion de MySQL: "case-a" encuentra "CASE-A"
+        productRepository.save(product("CASE-A").stock(10).build());
+        productRepository.save(product("CASE-B").stock(10).build());
+
+        List<ProductDTO> updated = productService.adjustStockBatch(List.of(
+                new StockAdjustmentDTO("case-a", -2),
+                new StockAdjustmentDTO("CASE-A", -3),
+                new StockAdjustmentDTO(" Case-B ", 4)));
+
+        assertEquals(2, updated.size());
+        assertEquals(5, updated.get(0).getStock());
+        assertEquals(14, updated.get(1).getStock());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> productService.adjustStockBatch(List.of(
+                new StockAdjustmentDTO("case-a", -1),
+                new StockAdjustmentDTO("no-existe", -1))));
+        assertEquals("Producto no encontrado: no-existe", ex.getMessage());
+    }
+
+    @Test
+    void getProduct_shouldReportLedgerStockBeforeCompaction() {
+        Product product = productRepository.save(product("READ-1").stock(10).build());
+        // Queda en la cache con el stock compactado
+        assertEquals(10, productService.getProductById(product.getId()).getStock());
+
+        productService.adjustStock(product.getId(), -4);
+        assertEquals(6, productService.getProductById(product.getId()).getStock());
+        assertEquals(6, productService.getProductBySku("READ-1").getStock());
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<Void> task = () -> {
+                    start.await();
+                    return body.run(thread);
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        Void run(int thread) throws Exception;
+    }
+}
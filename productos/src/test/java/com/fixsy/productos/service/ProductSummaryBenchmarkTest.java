@@ -0,0 +1,177 @@
+package com.fixsy.productos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.CursorPageDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.search.ProductFacetIndex;
+import com.fixsy.productos.search.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recorre el catalogo completo por paginas de grilla con el listado de entidades (ProductDTO) y con la
+ * proyeccion (ProductSummaryDTO), y compara bytes de texto leidos de la base, bytes asignados por el
+ * hilo, JSON generado y latencia por pagina. No corre en el build normal:
+ * <pre>
+ * mvn -Dtest=ProductSummaryBenchmarkTest -Dbenchmarks=true test
+ * </pre>
+ * Opcionales: -Dbenchmark.products=5000 -Dbenchmark.rounds=5
+ */
+@H2JpaTest
+@Import({ProductService.class, ProductImageStorageService.class, ProductCatalogCache.class,
+        ProductSearchIndex.class, ProductFacetIndex.class, StockLedgerService.class})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ProductSummaryBenchmarkTest {
+
+    private static final int PAGE_SIZE = ProductService.DEFAULT_PAGE_SIZE;
+
+    // Columnas de texto que lee cada variante; las numericas pesan lo mismo en ambas
+    private static final String FULL_TEXT_COLUMNS = "COALESCE(OCTET_LENGTH(slug),0) + COALESCE(OCTET_LENGTH(nombre),0) "
+            + "+ COALESCE(OCTET_LENGTH(descripcion_corta),0) + COALESCE(OCTET_LENGTH(descripcion_larga),0) "
+            + "+ COALESCE(OCTET_LENGTH(tags),0) + COALESCE(OCTET_LENGTH(tag_ids),0) + COALESCE(OCTET_LENGTH(imagen),0) "
+            + "+ COALESCE(OCTET_LENGTH(images),0) + COALESCE(OCTET_LENGTH(image_derivatives),0) "
+            + "+ COALESCE(OCTET_LENGTH(categoria),0) + COALESCE(OCTET_LENGTH(marca),0) + COALESCE(OCTET_LENGTH(sku),0)";
+    private static final String SUMMARY_TEXT_COLUMNS = "COALESCE(OCTET_LENGTH(slug),0) + COALESCE(OCTET_LENGTH(nombre),0) "
+            + "+ COALESCE(OCTET_LENGTH(imagen),0) + COALESCE(OCTET_LENGTH(categoria),0) "
+            + "+ COALESCE(OCTET_LENGTH(marca),0) + COALESCE(OCTET_LENGTH(sku),0)";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void compareEntityAndProjectionListings() throws Exception {
+        int products = Integer.getInteger("benchmark.products", 5000);
+        int rounds = Integer.getInteger("benchmark.rounds", 5);
+        seed(products);
+        try {
+            long fullDbBytes = jdbcTemplate.queryForObject(
+                    "SELECT SUM(" + FULL_TEXT_COLUMNS + ") FROM products WHERE is_active = true", Long.class);
+            long summaryDbBytes = jdbcTemplate.queryForObject(
+                    "SELECT SUM(" + SUMMARY_TEXT_COLUMNS + ") FROM products WHERE is_active = true", Long.class);
+
+            // Calentamiento de JIT, planes de consulta y pools
+            for (int i = 0; i < 2; i++) {
+                walk(productService::getProductsPage);
+                walk(productService::getProductSummariesPage);
+            }
+
+            Run full = new Run();
+            Run summary = new Run();
+            for (int i = 0; i < rounds; i++) {
+                full.add(walk(productService::getProductsPage));
+                summary.add(walk(productService::getProductSummariesPage));
+            }
+
+            System.out.printf("%d productos, paginas de %d, %d rondas%n", products, PAGE_SIZE, rounds);
+            System.out.printf("%-10s %14s %16s %14s %12s%n", "listado", "texto BD (KB)", "asignado/pag (KB)",
+                    "JSON/pag (KB)", "ms/pag");
+            full.print("entidad", fullDbBytes);
+            summary.print("proyeccion", summaryDbBytes);
+
+            assertEquals(full.pages, summary.pages);
+            assertTrue(summaryDbBytes < fullDbBytes);
+            assertTrue(summary.jsonBytes < full.jsonBytes);
+        } finally {
+            productRepository.deleteAllInBatch();
+        }
+    }
+
+    private Sample walk(BiFunction<String, Integer, CursorPageDTO<?>> page) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Sample sample = new Sample();
+        String cursor = null;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        do {
+            CursorPageDTO<?> result = page.apply(cursor, PAGE_SIZE);
+            sample.jsonBytes += objectMapper.writeValueAsBytes(result.getItems()).length;
+            sample.pages++;
+            cursor = result.getNextCursor();
+        } while (cursor != null);
+        sample.nanos = System.nanoTime() - start;
+        // Incluye la serializacion JSON de cada pagina, que tambien hace el controlador
+        sample.allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return sample;
+    }
+
+    private void seed(int count) {
+        String descripcion = "Repuesto compatible con multiples modelos. ".repeat(100);
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setNombre("Producto de prueba " + i);
+            product.setSku("BENCH-" + i);
+            product.setDescripcionCorta("Descripcion corta del producto " + i);
+            product.setDescripcionLarga(descripcion);
+            product.setPrecioNormal(new BigDecimal("19990"));
+            product.setPrecioOferta(i % 3 == 0 ? new BigDecimal("17990") : null);
+            product.setDiscountPercentage(i % 5 == 0 ? 10 : 0);
+            product.setStock(i % 7);
+            product.setCategoria("Categoria " + (i % 12));
+            product.setMarca("Marca " + (i % 40));
+            product.setTags(List.of("motor", "mantenimiento", "original", "tag-" + (i % 50)));
+            product.setImageUrl("product_" + i + "_main.jpg");
+            List<String> gallery = new ArrayList<>();
+            for (int g = 0; g < 6; g++) {
+                gallery.add("product_" + i + "_gallery_" + g + ".jpg");
+            }
+            product.setImages(gallery);
+            product.setImageDerivatives(List.of("product_" + i + "_main.jpg"));
+            batch.add(product);
+            if (batch.size() == 500) {
+                productRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        productRepository.saveAll(batch);
+    }
+
+    private static final class Sample {
+        long pages;
+        long jsonBytes;
+        long allocated;
+        long nanos;
+    }
+
+    private static final class Run {
+        long pages;
+        long jsonBytes;
+        long allocated;
+        long nanos;
+
+        void add(Sample sample) {
+            pages += sample.pages;
+            jsonBytes += sample.jsonBytes;
+            allocated += sample.allocated;
+            nanos += sample.nanos;
+        }
+
+        void print(String label, long dbBytes) {
+            System.out.printf("%-10s %14d %16.1f %14.1f %12.3f%n", label, dbBytes / 1024,
+                    allocated / 1024.0 / pages, jsonBytes / 1024.0 / pages, nanos / 1_000_000.0 / pages);
+        }
+    }
+}
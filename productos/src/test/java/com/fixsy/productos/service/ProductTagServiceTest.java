@@ -0,0 +1,178 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.event.ProductChangeEvent;
+import com.fixsy.productos.event.ProductChangeType;
+import com.fixsy.productos.event.ProductSnapshot;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.ProductTag;
+import com.fixsy.productos.model.ProductTagId;
+import com.fixsy.productos.model.Tag;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.ProductTagRepository;
+import com.fixsy.productos.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ProductTagServiceTest {
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private ProductTagRepository productTagRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductTagService productTagService;
+
+    private final AtomicLong tagSequence = new AtomicLong(100);
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        productTagService = new ProductTagService(tagRepository, productTagRepository, productRepository,
+                new TransactionTemplate(transactionManager), true);
+        // Las etiquetas nuevas reciben ids desde 100
+        given(tagRepository.lockByNameIn(anyCollection())).willAnswer(inv -> {
+            List<Tag> created = new ArrayList<>();
+            for (String name : inv.<Collection<String>>getArgument(0)) {
+                created.add(tag(tagSequence.getAndIncrement(), name));
+            }
+            return created;
+        });
+    }
+
+    @Test
+    void syncTags_shouldCreateMissingTagsAndInsertOnlyNewLinks() {
+        given(tagRepository.findByNameIn(anyCollection())).willReturn(List.of(tag(1L, "frenos")));
+        given(productTagRepository.findTagIdsByProductId(5L)).willReturn(List.of(1L));
+
+        productTagService.syncTags(product(5L).tags(List.of(" Frenos", "seguridad")).tagIds(List.of()).build());
+
+        ArgumentCaptor<List<ProductTag>> captor = captorOfLinks();
+        verify(productTagRepository).saveAll(captor.capture());
+        assertEquals(List.of(new ProductTagId(5L, 100L)), ids(captor.getValue()));
+        verify(productTagRepository, never()).deleteByProductIdAndTagIdIn(anyLong(), anyCollection());
+    }
+
+    @Test
+    void syncTags_shouldReuseTagCreatedConcurrentlyInsteadOfFailing() {
+        // Otra escritura creo "seguridad" despues de la primera lectura: el insert se ignora y se relee
+        given(tagRepository.lockByNameIn(List.of("seguridad"))).willReturn(List.of(tag(42L, "seguridad")));
+        given(productTagRepository.findTagIdsByProductId(5L)).willReturn(List.of());
+
+        productTagService.syncTags(product(5L).tags(List.of("Seguridad")).tagIds(List.of()).build());
+
+        verify(tagRepository).insertIfAbsent(eq("seguridad"), any());
+        ArgumentCaptor<List<ProductTag>> captor = captorOfLinks();
+        verify(productTagRepository).saveAll(captor.capture());
+        assertEquals(List.of(new ProductTagId(5L, 42L)), ids(captor.getValue()));
+        verify(tagRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void syncTags_shouldRemoveLinksNoLongerPresentAndIgnoreUnknownTagIds() {
+        given(productTagRepository.findTagIdsByProductId(5L)).willReturn(List.of(1L, 2L));
+        given(tagRepository.findAllById(any())).willReturn(List.of(tag(2L, "motor")));
+
+        productTagService.syncTags(product(5L).tags(List.of()).tagIds(List.of(2L, 999L)).build());
+
+        verify(productTagRepository).deleteByProductIdAndTagIdIn(eq(5L), eq(Set.of(1L)));
+        verify(productTagRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void onProductChange_shouldDeleteLinksWhenProductIsDeleted() {
+        Product deleted = product(7L).tags(List.of("frenos")).tagIds(List.of()).build();
+
+        productTagService.onProductChange(new ProductChangeEvent(7L, ProductChangeType.DELETED,
+                ProductSnapshot.of(deleted), null, null));
+
+        verify(productTagRepository).deleteByProductId(7L);
+    }
+
+    @Test
+    void onProductChange_shouldIgnoreChangesThatDoNotTouchTags() {
+        Product product = product(7L).tags(List.of("frenos")).tagIds(List.of()).build();
+
+        productTagService.onProductChange(ProductChangeEvent.of(ProductChangeType.STOCK,
+                ProductSnapshot.of(product), product));
+
+        verify(productTagRepository, never()).findTagIdsByProductId(anyLong());
+    }
+
+    @Test
+    void migrateLegacyTags_shouldInsertMissingPairsBatchByBatch() {
+        List<Product> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= ProductTagService.MIGRATION_BATCH_SIZE; id++) {
+            firstBatch.add(product(id).tags(List.of("frenos", "FRENOS")).tagIds(List.of()).build());
+        }
+        long lastId = ProductTagService.MIGRATION_BATCH_SIZE;
+        List<Product> secondBatch = List.of(product(lastId + 1).tags(List.of("motor")).tagIds(List.of()).build());
+        given(productRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).willReturn(firstBatch);
+        given(productRepository.findByIdGreaterThanOrderByIdAsc(eq(lastId), any(Pageable.class))).willReturn(secondBatch);
+        // El producto 1 ya estaba migrado
+        given(productTagRepository.findIdsByProductIdIn(anyCollection())).willAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.contains(1L) ? List.of(new ProductTagId(1L, 100L)) : List.of();
+        });
+
+        Map<String, Object> result = productTagService.migrateLegacyTags();
+
+        assertEquals(ProductTagService.MIGRATION_BATCH_SIZE + 1, result.get("products"));
+        assertEquals(2, result.get("batches"));
+        assertEquals(2, result.get("tags"));
+        assertEquals(ProductTagService.MIGRATION_BATCH_SIZE, result.get("linksInserted"));
+        // "frenos" se crea una sola vez aunque aparezca en todos los productos del primer bloque
+        verify(tagRepository).findByNameIn(List.of("frenos"));
+        verify(tagRepository).findByNameIn(List.of("motor"));
+    }
+
+    @Test
+    void normalizeName_shouldTrimAndLowercase() {
+        assertEquals("frenos", Tag.normalizeName("  Frenos "));
+        assertNull(Tag.normalizeName("   "));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<ProductTag>> captorOfLinks() {
+        return ArgumentCaptor.forClass((Class<List<ProductTag>>) (Class<?>) List.class);
+    }
+
+    private List<ProductTagId> ids(List<ProductTag> links) {
+        return links.stream().map(ProductTag::getId).toList();
+    }
+
+    private Tag tag(Long id, String name) {
+        Tag tag = new Tag(name);
+        tag.setId(id);
+        return tag;
+    }
+}
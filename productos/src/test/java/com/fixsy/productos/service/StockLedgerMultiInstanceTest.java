@@ -0,0 +1,143 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.StockMovementDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovementReason;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.StockMovementRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Modo de varias instancias: la segunda instancia es otro StockLedgerService sobre la misma base, con su propio
+ * nivel en memoria. Sus llamadas van dentro de transactionTemplate porque no pasa por el proxy de Spring.
+ */
+@H2JpaTest(properties = "productos.stock.multi-instance=true")
+@Import(StockLedgerService.class)
+class StockLedgerMultiInstanceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private StockLedgerService otherInstance;
+
+    @BeforeEach
+    void setup() {
+        otherInstance = new StockLedgerService(movementRepository, productRepository, transactionTemplate,
+                eventPublisher, entityManager, true);
+    }
+
+    @AfterEach
+    void cleanup() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void record_shouldNotOversellAcrossInstances() throws Exception {
+        Product product = productRepository.save(product("MULTI-1").stock(50).build());
+        assertEquals(50, stockLedger.available(product.getId()));
+        assertEquals(50, otherInstance.available(product.getId()));
+        AtomicInteger sold = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                StockLedgerService ledger = thread % 2 == 0 ? stockLedger : otherInstance;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        String orderRef = "ORD-" + thread + "-" + i;
+                        OptionalInt left = transactionTemplate.execute(status ->
+                                ledger.record(product, -1, StockMovementReason.ORDER, orderRef));
+                        if (left != null && left.isPresent()) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Cada venta valida contra la fila bloqueada: nada queda pendiente ni se rechaza al compactar
+        assertEquals(50, sold.get());
+        assertEquals(50, movementRepository.count());
+        assertEquals(0, movementRepository.countByCompactedAtIsNull());
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(0, stockLedger.compact());
+        otherInstance.compact();
+        assertEquals(0L, stockLedger.stats().get("rejectedMovements"));
+        assertEquals(0, stockLedger.available(product.getId()));
+        assertEquals(0, otherInstance.available(product.getId()));
+    }
+
+    @Test
+    void set_shouldApplyAgainstLockedStockAndReachOtherInstanceOnRefresh() {
+        Product product = productRepository.save(product("MULTI-2").stock(10).build());
+        assertEquals(10, stockLedger.available(product.getId()));
+        assertEquals(10, otherInstance.available(product.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> assertEquals(7,
+                stockLedger.record(product, -3, StockMovementReason.ORDER, "ORD-M2").orElseThrow()));
+        // La otra instancia todavia ve su nivel, pero la fijacion se calcula contra la fila
+        assertEquals(10, otherInstance.available(product.getId()));
+        transactionTemplate.executeWithoutResult(status ->
+                assertEquals(4, otherInstance.set(product, 4, StockMovementReason.SET, null)));
+
+        StockMovementDTO set = stockLedger.getMovements("MULTI-2", 1).get(0);
+        assertEquals(4, set.getTarget());
+        assertEquals(-3, set.getDelta());
+        assertNotNull(set.getCompactedAt());
+        assertEquals(4, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        assertEquals(7, stockLedger.available(product.getId()));
+        stockLedger.compact();
+        assertEquals(4, stockLedger.available(product.getId()));
+        assertEquals(4, otherInstance.available(product.getId()));
+    }
+}
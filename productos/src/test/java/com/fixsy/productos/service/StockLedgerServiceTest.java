@@ -0,0 +1,166 @@
+package com.fixsy.productos.service;
+
+import com.fixsy.productos.H2JpaTest;
+import com.fixsy.productos.dto.StockMovementDTO;
+import com.fixsy.productos.dto.StockMovementRequestDTO;
+import com.fixsy.productos.model.Product;
+import com.fixsy.productos.model.StockMovement;
+import com.fixsy.productos.model.StockMovementReason;
+import com.fixsy.productos.repository.ProductRepository;
+import com.fixsy.productos.repository.StockMovementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.fixsy.productos.ProductFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@H2JpaTest
+@Import(StockLedgerService.class)
+class StockLedgerServiceTest {
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanup() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void movements_shouldOnlyReachProductStockWhenCompacted() {
+        Product product = productRepository.save(product("LED-1").stock(10).build());
+
+        stockLedger.recordMovement(new StockMovementRequestDTO("LED-1", -3, StockMovementReason.ORDER, "ORD-1"));
+        stockLedger.recordMovement(new StockMovementRequestDTO("LED-1", 5, StockMovementReason.RESTOCK, null));
+
+        assertEquals(12, stockLedger.available(product.getId()));
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+        List<StockMovementDTO> order = stockLedger.getMovementsByOrder("ORD-1");
+        assertEquals(1, order.size());
+        assertEquals("ORDER", order.get(0).getReason());
+        assertEquals(-3, order.get(0).getDelta());
+
+        assertEquals(2, stockLedger.compact());
+        assertEquals(12, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(12, stockLedger.available(product.getId()));
+        assertEquals(0, movementRepository.countByCompactedAtIsNull());
+        // Lo compactado no se vuelve a sumar
+        assertEquals(0, stockLedger.compact());
+        assertEquals(12, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void record_shouldRejectOversellAndReleaseReservationOnRollback() {
+        Product product = productRepository.save(product("LED-2").stock(2).build());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                stockLedger.recordMovement(new StockMovementRequestDTO("LED-2", -3, StockMovementReason.ORDER, "ORD-2")));
+        assertEquals("Stock insuficiente para LED-2", ex.getMessage());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, stockLedger.record(product, -2, StockMovementReason.ORDER, "ORD-3").orElseThrow());
+            // La reserva abierta ya cuenta para el resto
+            assertEquals(0, stockLedger.available(product.getId()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, stockLedger.available(product.getId()));
+        assertEquals(0, movementRepository.count());
+    }
+
+    @Test
+    void set_shouldRecordDifferenceWithAvailable() {
+        Product product = productRepository.save(product("LED-3").stock(4).build());
+        stockLedger.recordMovement(new StockMovementRequestDTO("LED-3", -1, null, null));
+
+        transactionTemplate.executeWithoutResult(status ->
+                assertEquals(10, stockLedger.set(product, 10, StockMovementReason.SET, null)));
+
+        List<StockMovementDTO> movements = stockLedger.getMovements("LED-3", 10);
+        assertEquals(List.of("SET", "ADJUSTMENT"), movements.stream().map(StockMovementDTO::getReason).toList());
+        assertEquals(7, movements.get(0).getDelta());
+        assertEquals(10, movements.get(0).getTarget());
+        assertNull(movements.get(1).getTarget());
+        stockLedger.compact();
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                stockLedger.recordMovement(new StockMovementRequestDTO("LED-3", 1, StockMovementReason.SET, null)));
+    }
+
+    @Test
+    void set_shouldOverrideMovementsThisInstanceDoesNotSee() {
+        Product product = productRepository.save(product("LED-6").stock(6).build());
+        assertEquals(6, stockLedger.available(product.getId()));
+
+        // Otra instancia vende 2 unidades: esta sigue viendo 6 y estima la fijacion en +4
+        movementRepository.save(new StockMovement(product.getId(), "LED-6", -2, StockMovementReason.ORDER, "ORD-7"));
+        transactionTemplate.executeWithoutResult(status ->
+                assertEquals(10, stockLedger.set(product, 10, StockMovementReason.SET, null)));
+        assertEquals(4, stockLedger.getMovements("LED-6", 1).get(0).getDelta());
+
+        stockLedger.compact();
+        // El valor absoluto manda: el delta queda con el cambio efectivo sobre el stock que encontro
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(6, stockLedger.getMovements("LED-6", 1).get(0).getDelta());
+        assertEquals(10, stockLedger.available(product.getId()));
+    }
+
+    @Test
+    void levels_shouldBeReloadedOnEveryCompaction() {
+        Product product = productRepository.save(product("LED-4").stock(6).build());
+        assertEquals(6, stockLedger.available(product.getId()));
+
+        // Movimiento escrito por otra instancia: esta no lo ve hasta la proxima compactacion
+        movementRepository.save(new StockMovement(product.getId(), "LED-4", -2, StockMovementReason.ORDER, "ORD-4"));
+        assertEquals(6, stockLedger.available(product.getId()));
+
+        // Una sola pasada alcanza aunque el producto se haya leido en el medio
+        stockLedger.compact();
+        assertEquals(4, stockLedger.trackedAvailable(product.getId()).orElseThrow());
+        assertEquals(4, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        // Sin actividad durante una pasada el nivel se descarta
+        stockLedger.compact();
+        assertEquals(0, stockLedger.stats().get("trackedProducts"));
+        assertTrue(stockLedger.trackedAvailable(product.getId()).isEmpty());
+    }
+
+    @Test
+    void compact_shouldRejectDecrementThatOversellsAcrossInstances() {
+        Product product = productRepository.save(product("LED-5").stock(3).build());
+        assertEquals(3, stockLedger.available(product.getId()));
+
+        // Otra instancia vende las 3 unidades; esta todavia ve 3 y acepta su propia venta de 2
+        StockMovement other = movementRepository.save(
+                new StockMovement(product.getId(), "LED-5", -3, StockMovementReason.ORDER, "ORD-5"));
+        stockLedger.recordMovement(new StockMovementRequestDTO("LED-5", -2, StockMovementReason.ORDER, "ORD-6"));
+        movementRepository.save(new StockMovement(product.getId(), "LED-5", 4, StockMovementReason.RESTOCK, null));
+
+        assertEquals(3, stockLedger.compact());
+        // La venta de ORD-6 ya no cabe cuando le toca: se descarta y el reabastecimiento posterior si se suma
+        assertEquals(4, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertNull(movementRepository.findById(other.getId()).orElseThrow().getRejectedAt());
+        StockMovementDTO rejected = stockLedger.getMovementsByOrder("ORD-6").get(0);
+        assertNotNull(rejected.getRejectedAt());
+        assertNotNull(rejected.getCompactedAt());
+        assertEquals(1L, stockLedger.stats().get("rejectedMovements"));
+        // El disponible en memoria contaba la venta rechazada: se vuelve a leer de la base
+        assertEquals(4, stockLedger.available(product.getId()));
+    }
+}